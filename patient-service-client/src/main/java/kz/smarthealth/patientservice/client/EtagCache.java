@@ -0,0 +1,54 @@
+package kz.smarthealth.patientservice.client;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.LongSupplier;
+
+/**
+ * Bounded LRU cache of GET responses. Fresh entries are served without a request, stale ones are revalidated with
+ * If-None-Match and refreshed on 304.
+ */
+class EtagCache {
+
+    private final long ttlNanos;
+    private final LongSupplier clock;
+    private final Map<String, Entry> entries;
+
+    EtagCache(long ttlNanos, int maxEntries, LongSupplier clock) {
+        this.ttlNanos = ttlNanos;
+        this.clock = clock;
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+                return size() > maxEntries;
+            }
+        };
+    }
+
+    synchronized Entry get(String uri) {
+        return entries.get(uri);
+    }
+
+    boolean isFresh(Entry entry) {
+        return clock.getAsLong() - entry.expiresAt() < 0;
+    }
+
+    synchronized void put(String uri, String etag, byte[] body) {
+        entries.put(uri, new Entry(etag, body, clock.getAsLong() + ttlNanos));
+    }
+
+    synchronized Entry refresh(String uri, Entry entry) {
+        Entry refreshed = new Entry(entry.etag(), entry.body(), clock.getAsLong() + ttlNanos);
+        entries.put(uri, refreshed);
+
+        return refreshed;
+    }
+
+    synchronized void invalidate(String uri) {
+        entries.remove(uri);
+    }
+
+    record Entry(String etag, byte[] body, long expiresAt) {
+    }
+}
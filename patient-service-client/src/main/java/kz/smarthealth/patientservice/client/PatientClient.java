@@ -0,0 +1,432 @@
+package kz.smarthealth.patientservice.client;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Metrics;
+import io.micrometer.core.instrument.Timer;
+import kz.smarthealth.patientservice.client.model.DeletedPatientsDTO;
+import kz.smarthealth.patientservice.client.model.ErrorResponseDTO;
+import kz.smarthealth.patientservice.client.model.PatientDTO;
+import kz.smarthealth.patientservice.client.model.UserIdsDTO;
+import kz.smarthealth.patientservice.client.model.UserPatientsDTO;
+import org.apache.hc.client5.http.classic.methods.HttpDelete;
+import org.apache.hc.client5.http.classic.methods.HttpGet;
+import org.apache.hc.client5.http.classic.methods.HttpPost;
+import org.apache.hc.client5.http.config.RequestConfig;
+import org.apache.hc.client5.http.impl.classic.CloseableHttpClient;
+import org.apache.hc.client5.http.impl.classic.HttpClients;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManagerBuilder;
+import org.apache.hc.core5.http.ClassicHttpRequest;
+import org.apache.hc.core5.http.ContentType;
+import org.apache.hc.core5.http.Header;
+import org.apache.hc.core5.http.HttpHeaders;
+import org.apache.hc.core5.http.HttpStatus;
+import org.apache.hc.core5.http.io.entity.ByteArrayEntity;
+import org.apache.hc.core5.http.io.entity.EntityUtils;
+import org.apache.hc.core5.util.Timeout;
+
+import java.io.IOException;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+/**
+ * Typed client of patient-service {@code /api/v1/patients} endpoints. Connections are pooled, concurrent lookups
+ * of patients by user id can be batched into {@code POST /by-user-ids}, GET responses can be cached for a short
+ * time and revalidated with ETags. Latency of every request is recorded to {@code patient.client.requests} timer.
+ * Instances are thread safe and should be shared.
+ */
+public class PatientClient implements AutoCloseable {
+
+    public static final int MAX_BATCH_USER_IDS = 100;
+
+    private static final String PATIENTS_PATH = "/api/v1/patients";
+
+    private final String baseUrl;
+    private final String userId;
+    private final String role;
+    private final CloseableHttpClient httpClient;
+    private final ObjectMapper objectMapper;
+    private final MeterRegistry meterRegistry;
+    private final EtagCache cache;
+    private final UserPatientsBatcher batcher;
+    private final JavaType patientType;
+    private final JavaType patientListType;
+    private final JavaType userPatientsListType;
+    private final JavaType deletedPatientsType;
+
+    private PatientClient(Builder builder) {
+        this.baseUrl = builder.baseUrl.endsWith("/")
+                ? builder.baseUrl.substring(0, builder.baseUrl.length() - 1)
+                : builder.baseUrl;
+        this.userId = builder.userId;
+        this.role = builder.role;
+        this.objectMapper = builder.objectMapper;
+        this.meterRegistry = builder.meterRegistry;
+        this.httpClient = HttpClients.custom()
+                .setConnectionManager(PoolingHttpClientConnectionManagerBuilder.create()
+                        .setMaxConnTotal(builder.maxConnections)
+                        .setMaxConnPerRoute(builder.maxConnections)
+                        .build())
+                .setDefaultRequestConfig(RequestConfig.custom()
+                        .setConnectTimeout(Timeout.ofMilliseconds(builder.connectTimeout.toMillis()))
+                        .setResponseTimeout(Timeout.ofMilliseconds(builder.responseTimeout.toMillis()))
+                        .build())
+                .build();
+        this.cache = builder.cacheTtl.isZero()
+                ? null
+                : new EtagCache(builder.cacheTtl.toNanos(), builder.cacheMaxEntries, System::nanoTime);
+        this.batcher = builder.batchWindow.isZero()
+                ? null
+                : new UserPatientsBatcher(this::getPatientsByUserIds, builder.batchWindow.toNanos(),
+                builder.maxBatchSize);
+        this.patientType = objectMapper.constructType(PatientDTO.class);
+        this.patientListType = objectMapper.getTypeFactory().constructCollectionType(List.class, PatientDTO.class);
+        this.userPatientsListType = objectMapper.getTypeFactory()
+                .constructCollectionType(List.class, UserPatientsDTO.class);
+        this.deletedPatientsType = objectMapper.constructType(DeletedPatientsDTO.class);
+    }
+
+    public static Builder builder(String baseUrl) {
+        return new Builder(baseUrl);
+    }
+
+    /**
+     * Creates new patient
+     *
+     * @param patientDTO patient data
+     * @return newly created patient
+     */
+    public PatientDTO createPatient(PatientDTO patientDTO) {
+        HttpPost request = new HttpPost(baseUrl + PATIENTS_PATH);
+        request.setEntity(new ByteArrayEntity(write(patientDTO), ContentType.APPLICATION_JSON));
+
+        return read(checkStatus(exchange("createPatient", request)).body(), patientType);
+    }
+
+    /**
+     * Fetches patient by id
+     *
+     * @param id patient id
+     * @return existing patient
+     */
+    public PatientDTO getPatient(String id) {
+        return read(get("getPatient", PATIENTS_PATH + "/" + encode(id)), patientType);
+    }
+
+    /**
+     * Fetches list of patients by user id, batched with concurrent lookups when batching is enabled
+     *
+     * @param userId user id
+     * @return list of patients
+     */
+    public List<PatientDTO> getPatientsByUserId(String userId) {
+        if (batcher == null) {
+            return read(get("getPatientsByUserId", PATIENTS_PATH + "/by-user-id/" + encode(userId)), patientListType);
+        }
+
+        try {
+            return batcher.load(userId).join();
+        } catch (CompletionException e) {
+            throw e.getCause() instanceof RuntimeException runtimeException ? runtimeException : e;
+        }
+    }
+
+    /**
+     * Fetches list of patients by user id without blocking caller when batching is enabled
+     *
+     * @param userId user id
+     * @return future list of patients
+     */
+    public CompletableFuture<List<PatientDTO>> getPatientsByUserIdAsync(String userId) {
+        return batcher == null
+                ? CompletableFuture.supplyAsync(() -> getPatientsByUserId(userId))
+                : batcher.load(userId);
+    }
+
+    /**
+     * Fetches patients of many users, ids are sent in chunks of {@link #MAX_BATCH_USER_IDS}
+     *
+     * @param userIds user ids
+     * @return patients by user id in order of requested ids
+     */
+    public Map<String, List<PatientDTO>> getPatientsByUserIds(Collection<String> userIds) {
+        Map<String, List<PatientDTO>> patientsByUserId = new LinkedHashMap<>();
+        List<String> chunk = new ArrayList<>(MAX_BATCH_USER_IDS);
+
+        for (String id : userIds) {
+            chunk.add(id);
+
+            if (chunk.size() == MAX_BATCH_USER_IDS) {
+                loadUserPatients(chunk, patientsByUserId);
+                chunk.clear();
+            }
+        }
+
+        if (!chunk.isEmpty()) {
+            loadUserPatients(chunk, patientsByUserId);
+        }
+
+        return patientsByUserId;
+    }
+
+    /**
+     * Deletes patient by id
+     *
+     * @param id patient id
+     */
+    public void deletePatient(String id) {
+        String path = PATIENTS_PATH + "/" + encode(id);
+        checkStatus(exchange("deletePatient", new HttpDelete(baseUrl + path)));
+        invalidate(path);
+    }
+
+    /**
+     * Deletes all patients of user
+     *
+     * @param userId user id
+     * @return number of deleted patients
+     */
+    public long deletePatientsByUserId(String userId) {
+        String path = PATIENTS_PATH + "/by-user-id/" + encode(userId);
+        Response response = checkStatus(exchange("deletePatientsByUserId", new HttpDelete(baseUrl + path)));
+        invalidate(path);
+
+        DeletedPatientsDTO deletedPatients = read(response.body(), deletedPatientsType);
+
+        return deletedPatients.getDeletedCount();
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (batcher != null) {
+            batcher.close();
+        }
+
+        httpClient.close();
+    }
+
+    private void loadUserPatients(List<String> userIds, Map<String, List<PatientDTO>> patientsByUserId) {
+        HttpPost request = new HttpPost(baseUrl + PATIENTS_PATH + "/by-user-ids");
+        request.setEntity(new ByteArrayEntity(write(new UserIdsDTO(userIds)), ContentType.APPLICATION_JSON));
+        List<UserPatientsDTO> userPatients = read(checkStatus(exchange("getPatientsByUserIds", request)).body(),
+                userPatientsListType);
+        // groups come in order of user ids, keys are put first to keep order of requested ids
+        userIds.forEach(userId -> patientsByUserId.putIfAbsent(userId, List.of()));
+        userPatients.forEach(group -> patientsByUserId.put(group.getUserId(), group.getPatients()));
+    }
+
+    /**
+     * Executes GET through cache when it is enabled
+     */
+    private byte[] get(String operation, String path) {
+        if (cache == null) {
+            return checkStatus(exchange(operation, new HttpGet(baseUrl + path))).body();
+        }
+
+        EtagCache.Entry entry = cache.get(path);
+
+        if (entry != null && cache.isFresh(entry)) {
+            cacheCounter("hit").increment();
+            return entry.body();
+        }
+
+        HttpGet request = new HttpGet(baseUrl + path);
+
+        if (entry != null && entry.etag() != null) {
+            request.setHeader(HttpHeaders.IF_NONE_MATCH, entry.etag());
+        }
+
+        Response response = exchange(operation, request);
+
+        if (response.status() == HttpStatus.SC_NOT_MODIFIED && entry != null) {
+            cacheCounter("revalidated").increment();
+            return cache.refresh(path, entry).body();
+        }
+
+        cacheCounter("miss").increment();
+        checkStatus(response);
+        cache.put(path, response.etag(), response.body());
+
+        return response.body();
+    }
+
+    private void invalidate(String path) {
+        if (cache != null) {
+            cache.invalidate(path);
+        }
+    }
+
+    private Response exchange(String operation, ClassicHttpRequest request) {
+        request.setHeader("userId", userId);
+        request.setHeader("role", role);
+        request.setHeader(HttpHeaders.ACCEPT, ContentType.APPLICATION_JSON.getMimeType());
+        Timer.Sample sample = Timer.start(meterRegistry);
+        String status = "IO_ERROR";
+
+        try {
+            Response response = httpClient.execute(request, httpResponse -> {
+                Header etag = httpResponse.getFirstHeader(HttpHeaders.ETAG);
+
+                return new Response(httpResponse.getCode(), etag == null ? null : etag.getValue(),
+                        httpResponse.getEntity() == null
+                                ? new byte[0]
+                                : EntityUtils.toByteArray(httpResponse.getEntity()));
+            });
+            status = String.valueOf(response.status());
+
+            return response;
+        } catch (IOException e) {
+            throw new PatientClientException("patient-service request failed: " + e.getMessage(), e);
+        } finally {
+            sample.stop(Timer.builder("patient.client.requests")
+                    .description("Latency of patient-service requests")
+                    .tag("operation", operation)
+                    .tag("status", status)
+                    .publishPercentiles(0.5, 0.95, 0.99)
+                    .register(meterRegistry));
+        }
+    }
+
+    private Response checkStatus(Response response) {
+        if (response.status() >= HttpStatus.SC_BAD_REQUEST) {
+            ErrorResponseDTO error = null;
+
+            try {
+                error = objectMapper.readValue(response.body(), ErrorResponseDTO.class);
+            } catch (IOException e) {
+                // body is not error response of the service, e.g. proxy error
+            }
+
+            throw new PatientClientException(response.status(), error);
+        }
+
+        return response;
+    }
+
+    private Counter cacheCounter(String result) {
+        return Counter.builder("patient.client.cache")
+                .description("Patient client cache lookups")
+                .tag("result", result)
+                .register(meterRegistry);
+    }
+
+    private byte[] write(Object value) {
+        try {
+            return objectMapper.writeValueAsBytes(value);
+        } catch (JsonProcessingException e) {
+            throw new IllegalArgumentException(e);
+        }
+    }
+
+    private <T> T read(byte[] body, JavaType type) {
+        try {
+            return objectMapper.readValue(body, type);
+        } catch (IOException e) {
+            throw new PatientClientException("Unexpected response of patient-service: " + e.getMessage(), e);
+        }
+    }
+
+    private static String encode(String value) {
+        return URLEncoder.encode(value, StandardCharsets.UTF_8);
+    }
+
+    private record Response(int status, String etag, byte[] body) {
+    }
+
+    public static class Builder {
+
+        private final String baseUrl;
+        private String userId;
+        private String role;
+        private int maxConnections = 20;
+        private Duration connectTimeout = Duration.ofSeconds(2);
+        private Duration responseTimeout = Duration.ofSeconds(5);
+        private Duration batchWindow = Duration.ZERO;
+        private int maxBatchSize = MAX_BATCH_USER_IDS;
+        private Duration cacheTtl = Duration.ZERO;
+        private int cacheMaxEntries = 1000;
+        private ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules();
+        private MeterRegistry meterRegistry = Metrics.globalRegistry;
+
+        private Builder(String baseUrl) {
+            this.baseUrl = baseUrl;
+        }
+
+        /**
+         * Identity of the calling service, sent in userId and role headers
+         */
+        public Builder identity(String userId, String role) {
+            this.userId = userId;
+            this.role = role;
+            return this;
+        }
+
+        public Builder maxConnections(int maxConnections) {
+            this.maxConnections = maxConnections;
+            return this;
+        }
+
+        public Builder connectTimeout(Duration connectTimeout) {
+            this.connectTimeout = connectTimeout;
+            return this;
+        }
+
+        public Builder responseTimeout(Duration responseTimeout) {
+            this.responseTimeout = responseTimeout;
+            return this;
+        }
+
+        /**
+         * Enables batching of lookups by user id, the service allows bulk lookups for doctors and organizations only
+         *
+         * @param window       how long first lookup waits for others
+         * @param maxBatchSize batch is sent immediately when it reaches this size
+         */
+        public Builder batching(Duration window, int maxBatchSize) {
+            this.batchWindow = window;
+            this.maxBatchSize = Math.min(maxBatchSize, MAX_BATCH_USER_IDS);
+            return this;
+        }
+
+        /**
+         * Enables cache of GET responses
+         *
+         * @param ttl        how long response is served without revalidation
+         * @param maxEntries maximum number of cached responses
+         */
+        public Builder cache(Duration ttl, int maxEntries) {
+            this.cacheTtl = ttl;
+            this.cacheMaxEntries = maxEntries;
+            return this;
+        }
+
+        public Builder objectMapper(ObjectMapper objectMapper) {
+            this.objectMapper = objectMapper;
+            return this;
+        }
+
+        public Builder meterRegistry(MeterRegistry meterRegistry) {
+            this.meterRegistry = meterRegistry;
+            return this;
+        }
+
+        public PatientClient build() {
+            if (userId == null || role == null) {
+                throw new IllegalStateException("Caller identity is required");
+            }
+
+            return new PatientClient(this);
+        }
+    }
+}
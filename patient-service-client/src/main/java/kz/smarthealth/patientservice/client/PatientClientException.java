@@ -0,0 +1,28 @@
+package kz.smarthealth.patientservice.client;
+
+import kz.smarthealth.patientservice.client.model.ErrorResponseDTO;
+import lombok.Getter;
+
+/**
+ * Thrown when patient-service responds with error status or can not be reached
+ */
+@Getter
+public class PatientClientException extends RuntimeException {
+
+    private final int status;
+
+    private final ErrorResponseDTO error;
+
+    public PatientClientException(int status, ErrorResponseDTO error) {
+        super("patient-service responded with status " + status
+                + (error != null && error.getMessage() != null ? ": " + error.getMessage() : ""));
+        this.status = status;
+        this.error = error;
+    }
+
+    public PatientClientException(String message, Throwable cause) {
+        super(message, cause);
+        this.status = 0;
+        this.error = null;
+    }
+}
@@ -0,0 +1,101 @@
+package kz.smarthealth.patientservice.client;
+
+import kz.smarthealth.patientservice.client.model.PatientDTO;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+/**
+ * Collects concurrent lookups of patients by user id for a short window and loads them with one bulk request.
+ * Lookups of the same user id in one window share the result.
+ */
+class UserPatientsBatcher implements AutoCloseable {
+
+    private final Function<List<String>, Map<String, List<PatientDTO>>> bulkLoader;
+    private final long windowNanos;
+    private final int maxBatchSize;
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "patient-client-batcher");
+        thread.setDaemon(true);
+
+        return thread;
+    });
+
+    private Map<String, CompletableFuture<List<PatientDTO>>> pending = new LinkedHashMap<>();
+
+    UserPatientsBatcher(Function<List<String>, Map<String, List<PatientDTO>>> bulkLoader,
+                        long windowNanos,
+                        int maxBatchSize) {
+        this.bulkLoader = bulkLoader;
+        this.windowNanos = windowNanos;
+        this.maxBatchSize = maxBatchSize;
+    }
+
+    CompletableFuture<List<PatientDTO>> load(String userId) {
+        Map<String, CompletableFuture<List<PatientDTO>>> fullBatch = null;
+        CompletableFuture<List<PatientDTO>> future;
+
+        synchronized (this) {
+            future = pending.get(userId);
+
+            if (future != null) {
+                return future;
+            }
+
+            future = new CompletableFuture<>();
+            pending.put(userId, future);
+
+            if (pending.size() == 1) {
+                scheduler.schedule(this::flush, windowNanos, TimeUnit.NANOSECONDS);
+            }
+
+            if (pending.size() >= maxBatchSize) {
+                fullBatch = pending;
+                pending = new LinkedHashMap<>();
+            }
+        }
+
+        if (fullBatch != null) {
+            // caller that filled the batch sends it, the others wait for the result
+            dispatch(fullBatch);
+        }
+
+        return future;
+    }
+
+    private void flush() {
+        Map<String, CompletableFuture<List<PatientDTO>>> batch;
+
+        synchronized (this) {
+            if (pending.isEmpty()) {
+                return;
+            }
+
+            batch = pending;
+            pending = new LinkedHashMap<>();
+        }
+
+        dispatch(batch);
+    }
+
+    private void dispatch(Map<String, CompletableFuture<List<PatientDTO>>> batch) {
+        try {
+            Map<String, List<PatientDTO>> patientsByUserId = bulkLoader.apply(List.copyOf(batch.keySet()));
+            batch.forEach((userId, future) -> future.complete(patientsByUserId.getOrDefault(userId, List.of())));
+        } catch (RuntimeException e) {
+            batch.values().forEach(future -> future.completeExceptionally(e));
+        }
+    }
+
+    @Override
+    public void close() {
+        scheduler.shutdown();
+        flush();
+    }
+}
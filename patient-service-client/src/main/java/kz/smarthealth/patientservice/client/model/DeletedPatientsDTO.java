@@ -0,0 +1,13 @@
+package kz.smarthealth.patientservice.client.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class DeletedPatientsDTO {
+
+    private long deletedCount;
+}
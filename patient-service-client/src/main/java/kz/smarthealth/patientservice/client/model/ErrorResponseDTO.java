@@ -0,0 +1,26 @@
+package kz.smarthealth.patientservice.client.model;
+
+import com.fasterxml.jackson.annotation.JsonFormat;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.OffsetDateTime;
+import java.util.Map;
+
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class ErrorResponseDTO {
+
+    @JsonFormat(pattern = PatientDTO.DEFAULT_OFFSET_DATE_TIME_FORMAT)
+    private OffsetDateTime dateTime;
+
+    private int code;
+
+    private String message;
+
+    private Map<String, String> invalidFields;
+}
@@ -0,0 +1,45 @@
+package kz.smarthealth.patientservice.client.model;
+
+import com.fasterxml.jackson.annotation.JsonFormat;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+import java.time.OffsetDateTime;
+
+import static com.fasterxml.jackson.annotation.JsonFormat.Shape.STRING;
+
+/**
+ * Client side copy of patient-service PatientDTO, id and createdAt are assigned by the service
+ */
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class PatientDTO {
+
+    public static final String DEFAULT_DATE = "yyyy-MM-dd";
+    public static final String DEFAULT_OFFSET_DATE_TIME_FORMAT = "yyyy-MM-dd HH:mm:ss.SSS Z";
+
+    private String id;
+
+    private String userId;
+
+    private String firstName;
+
+    private String lastName;
+
+    @JsonFormat(pattern = DEFAULT_DATE)
+    private LocalDate birthDate;
+
+    private String phoneNumber;
+
+    private Short familyConnectionId;
+
+    private String iin;
+
+    @JsonFormat(shape = STRING, pattern = DEFAULT_OFFSET_DATE_TIME_FORMAT)
+    private OffsetDateTime createdAt;
+}
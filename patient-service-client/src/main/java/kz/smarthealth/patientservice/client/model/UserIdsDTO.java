@@ -0,0 +1,15 @@
+package kz.smarthealth.patientservice.client.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class UserIdsDTO {
+
+    private List<String> userIds;
+}
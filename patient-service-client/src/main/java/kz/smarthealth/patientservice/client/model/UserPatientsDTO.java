@@ -0,0 +1,17 @@
+package kz.smarthealth.patientservice.client.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class UserPatientsDTO {
+
+    private String userId;
+
+    private List<PatientDTO> patients;
+}
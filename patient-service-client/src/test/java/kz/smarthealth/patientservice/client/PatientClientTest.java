@@ -0,0 +1,149 @@
+package kz.smarthealth.patientservice.client;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import kz.smarthealth.patientservice.client.model.ErrorResponseDTO;
+import kz.smarthealth.patientservice.client.model.PatientDTO;
+import kz.smarthealth.patientservice.client.model.UserIdsDTO;
+import kz.smarthealth.patientservice.client.model.UserPatientsDTO;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Unit tests for {@link PatientClient}
+ */
+class PatientClientTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules();
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private HttpServer server;
+
+    @BeforeEach
+    void beforeEach() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.start();
+    }
+
+    @AfterEach
+    void afterEach() {
+        server.stop(0);
+    }
+
+    @Test
+    void getPatientsByUserIdAsync_sendsOneBulkRequest_forConcurrentLookups() throws Exception {
+        // given
+        AtomicInteger bulkRequests = new AtomicInteger();
+        server.createContext("/api/v1/patients/by-user-ids", exchange -> {
+            bulkRequests.incrementAndGet();
+            UserIdsDTO userIdsDTO = objectMapper.readValue(exchange.getRequestBody(), UserIdsDTO.class);
+            List<UserPatientsDTO> response = userIdsDTO.getUserIds().stream()
+                    .map(userId -> new UserPatientsDTO(userId, List.of(patient(userId))))
+                    .toList();
+            respond(exchange, 200, objectMapper.writeValueAsBytes(response));
+        });
+
+        try (PatientClient underTest = client().batching(Duration.ofMillis(200), 100).build()) {
+            // when
+            CompletableFuture<List<PatientDTO>> first = underTest.getPatientsByUserIdAsync("user-1");
+            CompletableFuture<List<PatientDTO>> second = underTest.getPatientsByUserIdAsync("user-2");
+            CompletableFuture<List<PatientDTO>> duplicate = underTest.getPatientsByUserIdAsync("user-1");
+
+            // then
+            assertEquals("user-1", first.get().get(0).getUserId());
+            assertEquals("user-2", second.get().get(0).getUserId());
+            assertEquals("user-1", duplicate.get().get(0).getUserId());
+            assertEquals(1, bulkRequests.get());
+        }
+    }
+
+    @Test
+    void getPatient_servesCachedBody_whenRevalidatedWithNotModified() throws Exception {
+        // given
+        AtomicInteger requests = new AtomicInteger();
+        AtomicReference<String> ifNoneMatch = new AtomicReference<>();
+        byte[] body = objectMapper.writeValueAsBytes(patient("user-1"));
+        server.createContext("/api/v1/patients/patient-1", exchange -> {
+            requests.incrementAndGet();
+            ifNoneMatch.set(exchange.getRequestHeaders().getFirst("If-None-Match"));
+
+            if ("\"v1\"".equals(ifNoneMatch.get())) {
+                exchange.sendResponseHeaders(304, -1);
+                exchange.close();
+            } else {
+                exchange.getResponseHeaders().add("ETag", "\"v1\"");
+                respond(exchange, 200, body);
+            }
+        });
+
+        try (PatientClient underTest = client().cache(Duration.ofNanos(1), 10).build()) {
+            // when
+            PatientDTO first = underTest.getPatient("patient-1");
+            PatientDTO revalidated = underTest.getPatient("patient-1");
+
+            // then
+            assertEquals(2, requests.get());
+            assertEquals("\"v1\"", ifNoneMatch.get());
+            assertEquals(first, revalidated);
+            assertEquals(1, meterRegistry.get("patient.client.cache").tag("result", "revalidated").counter()
+                    .count());
+        }
+    }
+
+    @Test
+    void getPatient_throwsPatientClientException_whenServiceRespondsWithError() throws Exception {
+        // given
+        ErrorResponseDTO error = ErrorResponseDTO.builder()
+                .code(404)
+                .message("Patient by id not found")
+                .build();
+        byte[] body = objectMapper.writeValueAsBytes(error);
+        server.createContext("/api/v1/patients/unknown", exchange -> respond(exchange, 404, body));
+
+        try (PatientClient underTest = client().build()) {
+            // when
+            PatientClientException exception = assertThrows(PatientClientException.class,
+                    () -> underTest.getPatient("unknown"));
+
+            // then
+            assertEquals(404, exception.getStatus());
+            assertEquals("Patient by id not found", exception.getError().getMessage());
+            assertEquals(1, meterRegistry.get("patient.client.requests").tag("status", "404").timer().count());
+        }
+    }
+
+    private PatientClient.Builder client() {
+        return PatientClient.builder("http://localhost:" + server.getAddress().getPort())
+                .identity("doctor-1", "ROLE_DOCTOR")
+                .meterRegistry(meterRegistry);
+    }
+
+    private static PatientDTO patient(String userId) {
+        return PatientDTO.builder()
+                .id(userId + "-patient")
+                .userId(userId)
+                .firstName("Aidos")
+                .lastName("Bekov")
+                .build();
+    }
+
+    private static void respond(HttpExchange exchange, int status, byte[] body) throws IOException {
+        exchange.getResponseHeaders().add("Content-Type", "application/json");
+        exchange.sendResponseHeaders(status, body.length);
+        exchange.getResponseBody().write(body);
+        exchange.close();
+    }
+}
@@ -0,0 +1,78 @@
+package kz.smarthealth.patientservice.aop;
+
+import kz.smarthealth.patientservice.model.dto.DeletedPatientsDTO;
+import kz.smarthealth.patientservice.model.dto.UserPatientsDTO;
+import kz.smarthealth.patientservice.model.event.PatientOperationEvent;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.aspectj.lang.annotation.Pointcut;
+import org.aspectj.lang.reflect.MethodSignature;
+import org.springframework.stereotype.Component;
+
+import java.util.Collection;
+
+/**
+ * Emits {@link PatientOperationEvent} for every public {@code PatientService} method. Costs one allocation when no
+ * recording is running.
+ */
+@Aspect
+@Component
+public class JfrEventAspect {
+
+    @Pointcut("execution(public * kz.smarthealth.patientservice.service.PatientService.*(..))")
+    public void patientServicePointcut() {
+    }
+
+    @Around("patientServicePointcut()")
+    public Object aroundAdvice(ProceedingJoinPoint joinPoint) throws Throwable {
+        PatientOperationEvent event = new PatientOperationEvent();
+
+        if (!event.isEnabled()) {
+            return joinPoint.proceed();
+        }
+
+        event.begin();
+        boolean success = false;
+        Object result = null;
+
+        try {
+            result = joinPoint.proceed();
+            success = true;
+
+            return result;
+        } finally {
+            event.end();
+
+            if (event.shouldCommit()) {
+                event.setOperation(joinPoint.getSignature().getName());
+                // void operations delete exactly one patient
+                event.setResultSize(((MethodSignature) joinPoint.getSignature()).getReturnType() == void.class
+                        ? (success ? 1 : 0)
+                        : resultSize(result));
+                event.setSuccess(success);
+                event.commit();
+            }
+        }
+    }
+
+    private static long resultSize(Object result) {
+        if (result == null) {
+            return 0;
+        }
+
+        if (result instanceof DeletedPatientsDTO deletedPatientsDTO) {
+            return deletedPatientsDTO.getDeletedCount();
+        }
+
+        if (result instanceof Collection<?> collection) {
+            return collection.stream()
+                    .mapToLong(element -> element instanceof UserPatientsDTO userPatientsDTO
+                            ? userPatientsDTO.getPatients().size()
+                            : 1)
+                    .sum();
+        }
+
+        return 1;
+    }
+}
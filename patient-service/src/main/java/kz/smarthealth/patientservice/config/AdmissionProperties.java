@@ -0,0 +1,75 @@
+package kz.smarthealth.patientservice.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Request admission budgets: per user token buckets of every role and global adaptive concurrency limit
+ */
+@Data
+@ConfigurationProperties(prefix = "admission")
+public class AdmissionProperties {
+
+    private boolean enabled = true;
+
+    /**
+     * Number of bucket slots per role, user ids are hashed into them so memory does not depend on number of users
+     */
+    private int slots = 65536;
+
+    private Map<String, Bucket> roles = new HashMap<>();
+
+    private Concurrency concurrency = new Concurrency();
+
+    @Data
+    public static class Bucket {
+
+        /**
+         * Tokens added per second
+         */
+        private int rate;
+
+        /**
+         * Bucket capacity, at most 1000
+         */
+        private int burst;
+    }
+
+    @Data
+    public static class Concurrency {
+
+        private int initialLimit = 20;
+
+        private int minLimit = 4;
+
+        private int maxLimit = 200;
+
+        private long targetLatencyMs = 250;
+
+        private double backoffRatio = 0.9;
+
+        /**
+         * Limit is adjusted at most once per window
+         */
+        private long windowMs = 1000;
+
+        /**
+         * Latency percentile of a window compared with target latency
+         */
+        private double latencyPercentile = 0.9;
+
+        /**
+         * Windows with fewer requests leave limit unchanged
+         */
+        private int minWindowRequests = 10;
+
+        /**
+         * Ant patterns of paths neither limited nor shaping the limit, e.g. probes and long running uploads
+         */
+        private List<String> excludedPaths = List.of("/actuator/**", "/api/v1/patients/import/**");
+    }
+}
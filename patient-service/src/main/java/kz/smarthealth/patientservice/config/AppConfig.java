@@ -1,11 +1,18 @@
 package kz.smarthealth.patientservice.config;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
+import kz.smarthealth.patientservice.controller.BackfillEndpoint;
+import kz.smarthealth.patientservice.controller.JfrRecordingEndpoint;
+import kz.smarthealth.patientservice.security.AdmissionControlFilter;
 import kz.smarthealth.patientservice.security.AuthEntryPointJwt;
 import kz.smarthealth.patientservice.security.AuthenticationFilter;
 import org.modelmapper.ModelMapper;
+import org.springframework.boot.actuate.autoconfigure.security.servlet.EndpointRequest;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.ImportRuntimeHints;
 import org.springframework.security.config.annotation.method.configuration.EnableMethodSecurity;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.annotation.web.configuration.EnableWebSecurity;
@@ -17,6 +24,8 @@ import org.springframework.web.client.RestTemplate;
 @Configuration
 @EnableWebSecurity
 @EnableMethodSecurity(securedEnabled = true)
+@EnableConfigurationProperties(AdmissionProperties.class)
+@ImportRuntimeHints(NativeRuntimeHints.class)
 public class AppConfig {
 
     @Bean
@@ -38,14 +47,20 @@ public class AppConfig {
     }
 
     @Bean
-    public SecurityFilterChain filterChain(HttpSecurity http) throws Exception {
+    public SecurityFilterChain filterChain(HttpSecurity http,
+                                           AdmissionProperties admissionProperties,
+                                           MeterRegistry meterRegistry) throws Exception {
         http
                 .cors().and().csrf().disable()
                 .exceptionHandling().authenticationEntryPoint(new AuthEntryPointJwt()).and()
                 .sessionManagement().sessionCreationPolicy(SessionCreationPolicy.STATELESS).and()
                 .authorizeHttpRequests()
+                .requestMatchers(EndpointRequest.to(JfrRecordingEndpoint.class, BackfillEndpoint.class))
+                .hasRole("ADMIN")
                 .anyRequest().permitAll();
         http.addFilterBefore(new AuthenticationFilter(), UsernamePasswordAuthenticationFilter.class);
+        http.addFilterAfter(new AdmissionControlFilter(admissionProperties, meterRegistry, objectMapper()),
+                AuthenticationFilter.class);
 
         return http.build();
     }
@@ -0,0 +1,84 @@
+package kz.smarthealth.patientservice.config;
+
+import io.grpc.Server;
+import io.grpc.ServerInterceptors;
+import io.grpc.netty.shaded.io.grpc.netty.NettyServerBuilder;
+import kz.smarthealth.patientservice.controller.PatientGrpcService;
+import kz.smarthealth.patientservice.security.GrpcAuthenticationInterceptor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Runs gRPC server next to servlet container, started and stopped with application context
+ */
+@Slf4j
+@Component
+public class GrpcServerLifecycle implements SmartLifecycle {
+
+    private static final long SHUTDOWN_TIMEOUT_SECONDS = 10;
+
+    private final Server server;
+    private final boolean enabled;
+
+    private volatile boolean running;
+
+    public GrpcServerLifecycle(PatientGrpcService patientGrpcService,
+                               @Value("${grpc.server.enabled}") boolean enabled,
+                               @Value("${grpc.server.port}") int port) {
+        this.enabled = enabled;
+        this.server = NettyServerBuilder.forPort(port)
+                .addService(ServerInterceptors.intercept(patientGrpcService, new GrpcAuthenticationInterceptor()))
+                .build();
+    }
+
+    @Override
+    public void start() {
+        if (!enabled) {
+            return;
+        }
+
+        try {
+            server.start();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+
+        running = true;
+        log.info("gRPC server started on port {}", server.getPort());
+    }
+
+    @Override
+    public void stop() {
+        if (!running) {
+            return;
+        }
+
+        server.shutdown();
+
+        try {
+            if (!server.awaitTermination(SHUTDOWN_TIMEOUT_SECONDS, TimeUnit.SECONDS)) {
+                server.shutdownNow();
+            }
+        } catch (InterruptedException e) {
+            server.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+
+        running = false;
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    public int getPort() {
+        return server.getPort();
+    }
+}
@@ -0,0 +1,60 @@
+package kz.smarthealth.patientservice.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import kz.smarthealth.patientservice.util.AppConstants;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Object mappers of Jackson formats responses are negotiated in. Binary mappers are built by the Boot configured
+ * builder, so spring.jackson settings and customizers apply to every format.
+ */
+@Component
+public class JacksonFormats {
+
+    public static final MediaType APPLICATION_SMILE = MediaType.parseMediaType(AppConstants.APPLICATION_SMILE_VALUE);
+
+    // JSON first, it is the default format
+    private final Map<MediaType, ObjectMapper> objectMappers = new LinkedHashMap<>();
+
+    public JacksonFormats(ObjectMapper objectMapper, Jackson2ObjectMapperBuilder objectMapperBuilder) {
+        objectMappers.put(MediaType.APPLICATION_JSON, objectMapper);
+        objectMappers.put(MediaType.APPLICATION_CBOR, objectMapperBuilder.factory(new CBORFactory()).build());
+        objectMappers.put(APPLICATION_SMILE, objectMapperBuilder.factory(new SmileFactory()).build());
+    }
+
+    /**
+     * Returns object mapper of given format
+     *
+     * @param mediaType one of formats returned by {@link #negotiate}
+     * @return object mapper
+     */
+    public ObjectMapper getObjectMapper(MediaType mediaType) {
+        return objectMappers.get(mediaType);
+    }
+
+    /**
+     * Picks the first format compatible with accepted media types, which come sorted by preference
+     *
+     * @param acceptedMediaTypes media types resolved from request
+     * @return negotiated format, JSON when none is compatible
+     */
+    public MediaType negotiate(List<MediaType> acceptedMediaTypes) {
+        for (MediaType acceptedMediaType : acceptedMediaTypes) {
+            for (MediaType mediaType : objectMappers.keySet()) {
+                if (acceptedMediaType.isCompatibleWith(mediaType)) {
+                    return mediaType;
+                }
+            }
+        }
+
+        return MediaType.APPLICATION_JSON;
+    }
+}
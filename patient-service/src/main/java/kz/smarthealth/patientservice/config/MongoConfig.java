@@ -0,0 +1,107 @@
+package kz.smarthealth.patientservice.config;
+
+import com.mongodb.MongoClientSettings;
+import io.micrometer.core.instrument.MeterRegistry;
+import kz.smarthealth.patientservice.model.entity.PatientDocument;
+import org.bson.codecs.configuration.CodecRegistries;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.autoconfigure.mongo.MongoClientSettingsBuilderCustomizer;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.convert.converter.Converter;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.convert.MongoCustomConversions;
+import org.springframework.data.mongodb.core.index.Index;
+
+import java.time.LocalDate;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.Arrays;
+import java.util.Date;
+
+@Configuration
+@EnableConfigurationProperties(WriteConcernProperties.class)
+public class MongoConfig {
+
+    @Bean
+    public MongoCustomConversions mongoCustomConversions() {
+        return new MongoCustomConversions(Arrays.asList(
+                new OffsetDateTimeReadConverter(),
+                new OffsetDateTimeWriteConverter(),
+                new LocalDateWriteConverter(),
+                new LocalDateReadConverter()
+        ));
+    }
+
+    @Bean
+    public PatientDocumentCodec patientDocumentCodec(
+            @Value("${mongodb.codec.short-field-names}") boolean shortFieldNames) {
+        return new PatientDocumentCodec(shortFieldNames);
+    }
+
+    /**
+     * Registers hand written patient codec with the driver, so typed collections skip mapping converter
+     */
+    @Bean
+    public MongoClientSettingsBuilderCustomizer patientCodecCustomizer(PatientDocumentCodec patientDocumentCodec) {
+        return builder -> builder.codecRegistry(CodecRegistries.fromRegistries(
+                CodecRegistries.fromCodecs(patientDocumentCodec),
+                MongoClientSettings.getDefaultCodecRegistry()));
+    }
+
+    @Bean
+    public MongoPoolWaitListener mongoPoolWaitListener(MeterRegistry meterRegistry) {
+        return new MongoPoolWaitListener(meterRegistry);
+    }
+
+    @Bean
+    public MongoClientSettingsBuilderCustomizer mongoPoolWaitCustomizer(MongoPoolWaitListener mongoPoolWaitListener) {
+        return builder -> builder.applyToConnectionPoolSettings(pool ->
+                pool.addConnectionPoolListener(mongoPoolWaitListener));
+    }
+
+    /**
+     * Creates userId index under every name it is queried by, documents of each user are fetched with one index scan
+     */
+    @Bean
+    public ApplicationRunner patientIndexInitializer(MongoTemplate mongoTemplate,
+                                                     PatientDocumentCodec patientDocumentCodec) {
+        return args -> patientDocumentCodec.queriedNames(PatientDocumentCodec.Field.USER_ID).forEach(name ->
+                mongoTemplate.indexOps(PatientDocument.class).ensureIndex(new Index(name, Sort.Direction.ASC)));
+    }
+
+    static class OffsetDateTimeWriteConverter implements Converter<OffsetDateTime, Date> {
+
+        @Override
+        public Date convert(OffsetDateTime source) {
+            return Date.from(source.toInstant().atZone(ZoneOffset.UTC).toInstant());
+        }
+    }
+
+    static class OffsetDateTimeReadConverter implements Converter<Date, OffsetDateTime> {
+
+        @Override
+        public OffsetDateTime convert(Date source) {
+            return source.toInstant().atOffset(ZoneOffset.UTC);
+        }
+    }
+
+    static class LocalDateWriteConverter implements Converter<LocalDate, Date> {
+
+        @Override
+        public Date convert(LocalDate source) {
+            return Date.from(source.atStartOfDay().toInstant(ZoneOffset.UTC));
+        }
+    }
+
+    static class LocalDateReadConverter implements Converter<Date, LocalDate> {
+
+        @Override
+        public LocalDate convert(Date source) {
+            return source.toInstant().atOffset(ZoneOffset.UTC).toLocalDate();
+        }
+    }
+}
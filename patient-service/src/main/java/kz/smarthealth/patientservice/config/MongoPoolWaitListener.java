@@ -0,0 +1,53 @@
+package kz.smarthealth.patientservice.config;
+
+import com.mongodb.event.ConnectionCheckOutFailedEvent;
+import com.mongodb.event.ConnectionCheckOutStartedEvent;
+import com.mongodb.event.ConnectionCheckedOutEvent;
+import com.mongodb.event.ConnectionPoolListener;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Records how long threads wait to check out a Mongo connection. Sync driver checks out on the calling thread, so
+ * start and end of a check out are matched by thread.
+ */
+public class MongoPoolWaitListener implements ConnectionPoolListener {
+
+    public static final String POOL_WAIT_METRIC = "patient.mongodb.pool.wait";
+
+    private final ThreadLocal<long[]> checkOutStart = ThreadLocal.withInitial(() -> new long[1]);
+    private final Timer waitTimer;
+
+    public MongoPoolWaitListener(MeterRegistry meterRegistry) {
+        this.waitTimer = Timer.builder(POOL_WAIT_METRIC)
+                .description("Time waited for Mongo connection check out")
+                .publishPercentiles(0.99)
+                .register(meterRegistry);
+    }
+
+    @Override
+    public void connectionCheckOutStarted(ConnectionCheckOutStartedEvent event) {
+        checkOutStart.get()[0] = System.nanoTime();
+    }
+
+    @Override
+    public void connectionCheckedOut(ConnectionCheckedOutEvent event) {
+        recordWait();
+    }
+
+    @Override
+    public void connectionCheckOutFailed(ConnectionCheckOutFailedEvent event) {
+        recordWait();
+    }
+
+    private void recordWait() {
+        long[] start = checkOutStart.get();
+
+        if (start[0] != 0) {
+            waitTimer.record(System.nanoTime() - start[0], TimeUnit.NANOSECONDS);
+            start[0] = 0;
+        }
+    }
+}
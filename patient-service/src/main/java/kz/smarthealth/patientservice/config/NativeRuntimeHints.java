@@ -0,0 +1,91 @@
+package kz.smarthealth.patientservice.config;
+
+import kz.smarthealth.patientservice.aop.Log;
+import kz.smarthealth.patientservice.aop.LoggingAspect;
+import kz.smarthealth.patientservice.controller.AutoscalingEndpoint;
+import kz.smarthealth.patientservice.controller.BackfillEndpoint;
+import kz.smarthealth.patientservice.controller.JfrRecordingEndpoint;
+import kz.smarthealth.patientservice.grpc.BatchGetPatientsRequest;
+import kz.smarthealth.patientservice.grpc.BatchGetPatientsResponse;
+import kz.smarthealth.patientservice.grpc.CreatePatientsResponse;
+import kz.smarthealth.patientservice.grpc.DeletePatientRequest;
+import kz.smarthealth.patientservice.grpc.DeletePatientResponse;
+import kz.smarthealth.patientservice.grpc.GetPatientRequest;
+import kz.smarthealth.patientservice.grpc.ListPatientsByUserRequest;
+import kz.smarthealth.patientservice.grpc.Patient;
+import kz.smarthealth.patientservice.grpc.PatientServiceGrpc;
+import kz.smarthealth.patientservice.grpc.UserPatients;
+import kz.smarthealth.patientservice.model.dto.AutoscalingSignalDTO;
+import kz.smarthealth.patientservice.model.dto.BackfillProgressDTO;
+import kz.smarthealth.patientservice.model.dto.ErrorResponseDTO;
+import kz.smarthealth.patientservice.model.dto.PatientDTO;
+import kz.smarthealth.patientservice.model.dto.UserRole;
+import kz.smarthealth.patientservice.model.entity.PatientDocument;
+import kz.smarthealth.patientservice.model.event.KafkaRecordEvent;
+import kz.smarthealth.patientservice.model.event.PatientOperationEvent;
+import kz.smarthealth.patientservice.model.event.ResponseCacheEvent;
+import kz.smarthealth.patientservice.service.PatientKafkaConsumerService;
+import org.springframework.aot.hint.BindingReflectionHintsRegistrar;
+import org.springframework.aot.hint.MemberCategory;
+import org.springframework.aot.hint.RuntimeHints;
+import org.springframework.aot.hint.RuntimeHintsRegistrar;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.userdetails.User;
+
+/**
+ * Reflection hints for native image which Spring AOT can not infer from bean definitions
+ */
+public class NativeRuntimeHints implements RuntimeHintsRegistrar {
+
+    @Override
+    public void registerHints(RuntimeHints hints, ClassLoader classLoader) {
+        // AspectJ resolves pointcut annotation and advice methods reflectively
+        hints.reflection().registerType(Log.class, MemberCategory.INVOKE_PUBLIC_METHODS);
+        hints.reflection().registerType(LoggingAspect.class, MemberCategory.INVOKE_DECLARED_METHODS,
+                MemberCategory.INVOKE_PUBLIC_CONSTRUCTORS);
+
+        // method security SpEL navigates authentication.principal.username and returnObject.userId
+        hints.reflection().registerType(UsernamePasswordAuthenticationToken.class,
+                MemberCategory.INVOKE_PUBLIC_METHODS);
+        hints.reflection().registerType(User.class, MemberCategory.INVOKE_PUBLIC_METHODS);
+
+        // ModelMapper instantiates and populates both sides of the mapping through reflection
+        for (Class<?> type : new Class<?>[]{PatientDTO.class, PatientDocument.class}) {
+            hints.reflection().registerType(type, MemberCategory.INVOKE_DECLARED_CONSTRUCTORS,
+                    MemberCategory.INVOKE_DECLARED_METHODS, MemberCategory.DECLARED_FIELDS);
+        }
+
+        // Kafka listener is invoked reflectively and deserializes message with Jackson
+        hints.reflection().registerType(PatientKafkaConsumerService.class, MemberCategory.INVOKE_PUBLIC_METHODS);
+        new BindingReflectionHintsRegistrar().registerReflectionHints(hints.reflection(),
+                PatientDTO.class, PatientDocument.class, ErrorResponseDTO.class, UserRole.class);
+
+        // protobuf builds field accessors of generated messages and their builders through reflection
+        for (Class<?> type : new Class<?>[]{Patient.class, GetPatientRequest.class, ListPatientsByUserRequest.class,
+                BatchGetPatientsRequest.class, BatchGetPatientsResponse.class, UserPatients.class,
+                CreatePatientsResponse.class, DeletePatientRequest.class, DeletePatientResponse.class}) {
+            hints.reflection().registerType(type, MemberCategory.INVOKE_PUBLIC_METHODS,
+                    MemberCategory.DECLARED_FIELDS);
+            hints.reflection().registerTypeIfPresent(classLoader, type.getName() + "$Builder",
+                    MemberCategory.INVOKE_PUBLIC_METHODS, MemberCategory.DECLARED_FIELDS);
+        }
+
+        hints.reflection().registerType(PatientServiceGrpc.class, MemberCategory.INVOKE_PUBLIC_METHODS);
+
+        // JFR instantiates custom events and reads their annotated fields, also needs --enable-monitoring=jfr
+        for (Class<?> type : new Class<?>[]{PatientOperationEvent.class, ResponseCacheEvent.class,
+                KafkaRecordEvent.class}) {
+            hints.reflection().registerType(type, MemberCategory.INVOKE_DECLARED_CONSTRUCTORS,
+                    MemberCategory.DECLARED_FIELDS);
+        }
+
+        // custom actuator endpoint operations are invoked reflectively and their results bound by Jackson
+        for (Class<?> type : new Class<?>[]{AutoscalingEndpoint.class, BackfillEndpoint.class,
+                JfrRecordingEndpoint.class}) {
+            hints.reflection().registerType(type, MemberCategory.INVOKE_PUBLIC_METHODS);
+        }
+
+        new BindingReflectionHintsRegistrar().registerReflectionHints(hints.reflection(),
+                AutoscalingSignalDTO.class, BackfillProgressDTO.class);
+    }
+}
@@ -0,0 +1,274 @@
+package kz.smarthealth.patientservice.config;
+
+import com.mongodb.client.model.Filters;
+import com.mongodb.client.model.Projections;
+import kz.smarthealth.patientservice.model.entity.PatientDocument;
+import org.bson.BsonReader;
+import org.bson.BsonType;
+import org.bson.BsonWriter;
+import org.bson.codecs.Codec;
+import org.bson.codecs.DecoderContext;
+import org.bson.codecs.EncoderContext;
+import org.bson.conversions.Bson;
+import org.bson.types.ObjectId;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Reads and writes {@link PatientDocument} directly from BSON stream, bypassing reflective mapping converter.
+ * Stored format matches the one written by Spring Data: ObjectId-like ids are stored as ObjectId, dates as UTC
+ * datetime. Optionally writes short field names, both long and short names are accepted on read.
+ */
+public class PatientDocumentCodec implements Codec<PatientDocument> {
+
+    public static final String ID = "_id";
+
+    private static final long MILLIS_PER_DAY = 86_400_000L;
+
+    public enum Field {
+        USER_ID("userId", "u"),
+        FIRST_NAME("firstName", "f"),
+        LAST_NAME("lastName", "l"),
+        BIRTH_DATE("birthDate", "b"),
+        PHONE_NUMBER("phoneNumber", "p"),
+        FAMILY_CONNECTION_ID("familyConnectionId", "c"),
+        IIN("iin", "i"),
+        CREATED_AT("createdAt", "t");
+
+        private final String longName;
+        private final String shortName;
+
+        Field(String longName, String shortName) {
+            this.longName = longName;
+            this.shortName = shortName;
+        }
+
+        /**
+         * @return name of the field in API, same as long stored name
+         */
+        public String getName() {
+            return longName;
+        }
+
+        /**
+         * @return short stored name of the field
+         */
+        public String getShortName() {
+            return shortName;
+        }
+
+        /**
+         * Finds field by its API name
+         *
+         * @param name field name
+         * @return field or empty when there is no such field
+         */
+        public static Optional<Field> fromName(String name) {
+            for (Field field : values()) {
+                if (field.longName.equals(name)) {
+                    return Optional.of(field);
+                }
+            }
+
+            return Optional.empty();
+        }
+    }
+
+    private static final Map<String, Field> FIELDS_BY_STORED_NAME = new HashMap<>();
+
+    static {
+        for (Field field : Field.values()) {
+            FIELDS_BY_STORED_NAME.put(field.longName, field);
+            FIELDS_BY_STORED_NAME.put(field.shortName, field);
+        }
+    }
+
+    private final boolean shortFieldNames;
+
+    public PatientDocumentCodec(boolean shortFieldNames) {
+        this.shortFieldNames = shortFieldNames;
+    }
+
+    /**
+     * Converts patient id to stored _id value
+     *
+     * @param id patient id
+     * @return ObjectId when id is valid ObjectId hex string, otherwise id itself
+     */
+    public static Object toStoredId(String id) {
+        return ObjectId.isValid(id) ? new ObjectId(id) : id;
+    }
+
+    /**
+     * Builds equality filter on field, matching documents written with either field name
+     *
+     * @param field patient field
+     * @param value field value
+     * @return filter
+     */
+    public Bson eq(Field field, Object value) {
+        return shortFieldNames
+                ? Filters.or(Filters.eq(field.shortName, value), Filters.eq(field.longName, value))
+                : Filters.eq(field.longName, value);
+    }
+
+    /**
+     * Builds $in filter on field, matching documents written with either field name
+     *
+     * @param field  patient field
+     * @param values field values
+     * @return filter
+     */
+    public Bson in(Field field, Collection<?> values) {
+        return shortFieldNames
+                ? Filters.or(Filters.in(field.shortName, values), Filters.in(field.longName, values))
+                : Filters.in(field.longName, values);
+    }
+
+    /**
+     * Returns names field can be stored under, for indexes serving {@link #eq} and {@link #in} filters
+     *
+     * @param field patient field
+     * @return stored field names
+     */
+    public List<String> queriedNames(Field field) {
+        return shortFieldNames ? List.of(field.longName, field.shortName) : List.of(field.longName);
+    }
+
+    /**
+     * Returns name field is written with
+     *
+     * @param field patient field
+     * @return stored field name
+     */
+    public String storedName(Field field) {
+        return shortFieldNames ? field.shortName : field.longName;
+    }
+
+    /**
+     * Builds projection including given fields under either field name, _id is always included
+     *
+     * @param fields patient fields
+     * @return projection
+     */
+    public Bson projection(Collection<Field> fields) {
+        List<String> names = new ArrayList<>();
+
+        for (Field field : fields) {
+            names.add(field.longName);
+
+            if (shortFieldNames) {
+                names.add(field.shortName);
+            }
+        }
+
+        return Projections.include(names);
+    }
+
+    @Override
+    public void encode(BsonWriter writer, PatientDocument value, EncoderContext encoderContext) {
+        writer.writeStartDocument();
+
+        if (value.getId() != null) {
+            writer.writeName(ID);
+
+            if (ObjectId.isValid(value.getId())) {
+                writer.writeObjectId(new ObjectId(value.getId()));
+            } else {
+                writer.writeString(value.getId());
+            }
+        }
+
+        writeString(writer, Field.USER_ID, value.getUserId());
+        writeString(writer, Field.FIRST_NAME, value.getFirstName());
+        writeString(writer, Field.LAST_NAME, value.getLastName());
+
+        if (value.getBirthDate() != null) {
+            writer.writeDateTime(storedName(Field.BIRTH_DATE), value.getBirthDate().toEpochDay() * MILLIS_PER_DAY);
+        }
+
+        writeString(writer, Field.PHONE_NUMBER, value.getPhoneNumber());
+
+        if (value.getFamilyConnectionId() != null) {
+            writer.writeInt32(storedName(Field.FAMILY_CONNECTION_ID), value.getFamilyConnectionId());
+        }
+
+        writeString(writer, Field.IIN, value.getIin());
+
+        if (value.getCreatedAt() != null) {
+            writer.writeDateTime(storedName(Field.CREATED_AT), value.getCreatedAt().toInstant().toEpochMilli());
+        }
+
+        writer.writeEndDocument();
+    }
+
+    @Override
+    public PatientDocument decode(BsonReader reader, DecoderContext decoderContext) {
+        PatientDocument patientDocument = new PatientDocument();
+        reader.readStartDocument();
+
+        while (reader.readBsonType() != BsonType.END_OF_DOCUMENT) {
+            String name = reader.readName();
+            BsonType type = reader.getCurrentBsonType();
+
+            if (ID.equals(name)) {
+                patientDocument.setId(type == BsonType.OBJECT_ID
+                        ? reader.readObjectId().toHexString()
+                        : reader.readString());
+                continue;
+            }
+
+            Field field = FIELDS_BY_STORED_NAME.get(name);
+
+            if (field == null || type == BsonType.NULL) {
+                // _class and unknown fields
+                reader.skipValue();
+                continue;
+            }
+
+            switch (field) {
+                case USER_ID -> patientDocument.setUserId(reader.readString());
+                case FIRST_NAME -> patientDocument.setFirstName(reader.readString());
+                case LAST_NAME -> patientDocument.setLastName(reader.readString());
+                case BIRTH_DATE -> patientDocument.setBirthDate(
+                        LocalDate.ofEpochDay(Math.floorDiv(reader.readDateTime(), MILLIS_PER_DAY)));
+                case PHONE_NUMBER -> patientDocument.setPhoneNumber(reader.readString());
+                case FAMILY_CONNECTION_ID -> patientDocument.setFamilyConnectionId(readShort(reader, type));
+                case IIN -> patientDocument.setIin(reader.readString());
+                case CREATED_AT -> patientDocument.setCreatedAt(
+                        Instant.ofEpochMilli(reader.readDateTime()).atOffset(ZoneOffset.UTC));
+            }
+        }
+
+        reader.readEndDocument();
+
+        return patientDocument;
+    }
+
+    @Override
+    public Class<PatientDocument> getEncoderClass() {
+        return PatientDocument.class;
+    }
+
+    private void writeString(BsonWriter writer, Field field, String value) {
+        if (value != null) {
+            writer.writeString(storedName(field), value);
+        }
+    }
+
+    private static Short readShort(BsonReader reader, BsonType type) {
+        return switch (type) {
+            case INT64 -> (short) reader.readInt64();
+            case DOUBLE -> (short) reader.readDouble();
+            default -> (short) reader.readInt32();
+        };
+    }
+}
@@ -0,0 +1,110 @@
+package kz.smarthealth.patientservice.config;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import kz.smarthealth.patientservice.exception.CustomException;
+import kz.smarthealth.patientservice.model.dto.SerializedPatient;
+import kz.smarthealth.patientservice.util.AppConstants;
+import org.springframework.http.HttpInputMessage;
+import org.springframework.http.HttpOutputMessage;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.AbstractHttpMessageConverter;
+import org.springframework.http.converter.HttpMessageNotReadableException;
+
+import java.io.IOException;
+
+import static kz.smarthealth.patientservice.util.MessageSource.CACHED_RESPONSE_EVICTED;
+
+/**
+ * Writes already serialized patient JSON to response body without going through Jackson. Binary formats are
+ * produced by streaming JSON tokens to binary generator, without building the DTO again. JSON is copied through a
+ * buffer reused by the request thread, so cached responses reach the output stream without per-request heap copies.
+ */
+public class SerializedPatientHttpMessageConverter extends AbstractHttpMessageConverter<SerializedPatient> {
+
+    private static final MediaType APPLICATION_SMILE = MediaType.parseMediaType(AppConstants.APPLICATION_SMILE_VALUE);
+    private static final int INITIAL_BUFFER_SIZE = 4096;
+
+    private final JsonFactory jsonFactory = new JsonFactory();
+    private final JsonFactory cborFactory = new CBORFactory().disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+    private final JsonFactory smileFactory = new SmileFactory().disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+    private final ThreadLocal<byte[]> buffers = ThreadLocal.withInitial(() -> new byte[INITIAL_BUFFER_SIZE]);
+
+    public SerializedPatientHttpMessageConverter() {
+        super(MediaType.APPLICATION_JSON, MediaType.APPLICATION_CBOR, APPLICATION_SMILE);
+    }
+
+    @Override
+    protected boolean supports(Class<?> clazz) {
+        return SerializedPatient.class.isAssignableFrom(clazz);
+    }
+
+    @Override
+    protected boolean canRead(MediaType mediaType) {
+        return false;
+    }
+
+    @Override
+    protected SerializedPatient readInternal(Class<? extends SerializedPatient> clazz, HttpInputMessage inputMessage) {
+        throw new HttpMessageNotReadableException("Serialized patient is write only", inputMessage);
+    }
+
+    @Override
+    protected Long getContentLength(SerializedPatient serializedPatient, MediaType contentType) {
+        return isJson(contentType) ? (long) serializedPatient.getLength() : null;
+    }
+
+    @Override
+    protected void writeInternal(SerializedPatient serializedPatient, HttpOutputMessage outputMessage)
+            throws IOException {
+        MediaType contentType = outputMessage.getHeaders().getContentType();
+        byte[] json = copy(serializedPatient);
+        int length = serializedPatient.getLength();
+
+        if (isJson(contentType)) {
+            outputMessage.getBody().write(json, 0, length);
+            return;
+        }
+
+        JsonFactory binaryFactory = MediaType.APPLICATION_CBOR.isCompatibleWith(contentType)
+                ? cborFactory
+                : smileFactory;
+
+        try (JsonParser parser = jsonFactory.createParser(json, 0, length);
+             JsonGenerator generator = binaryFactory.createGenerator(outputMessage.getBody())) {
+            parser.nextToken();
+            generator.copyCurrentStructure(parser);
+        }
+    }
+
+    /**
+     * Copies JSON to buffer of the current thread before anything is written, cached response whose slot was reused
+     * meanwhile is answered with 503 while the response is still uncommitted
+     */
+    private byte[] copy(SerializedPatient serializedPatient) {
+        byte[] buffer = buffers.get();
+
+        if (buffer.length < serializedPatient.getLength()) {
+            buffer = new byte[serializedPatient.getLength()];
+            buffers.set(buffer);
+        }
+
+        if (!serializedPatient.copyTo(buffer)) {
+            throw CustomException.builder()
+                    .httpStatus(HttpStatus.SERVICE_UNAVAILABLE)
+                    .error(CACHED_RESPONSE_EVICTED.name())
+                    .errorMessage(CACHED_RESPONSE_EVICTED.getText())
+                    .build();
+        }
+
+        return buffer;
+    }
+
+    private static boolean isJson(MediaType contentType) {
+        return contentType == null || MediaType.APPLICATION_JSON.isCompatibleWith(contentType);
+    }
+}
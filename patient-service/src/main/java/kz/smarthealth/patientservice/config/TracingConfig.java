@@ -0,0 +1,75 @@
+package kz.smarthealth.patientservice.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.observation.ObservationPredicate;
+import io.micrometer.observation.ObservationRegistry;
+import io.micrometer.observation.aop.ObservedAspect;
+import io.opentelemetry.api.OpenTelemetry;
+import kz.smarthealth.patientservice.util.KafkaTracing;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.mongo.MongoClientSettingsBuilderCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.mongodb.observability.ContextProviderFactory;
+import org.springframework.data.mongodb.observability.MongoObservationCommandListener;
+import org.springframework.http.server.observation.ServerRequestObservationContext;
+
+import java.io.IOException;
+import java.nio.file.Path;
+
+/**
+ * Tracing of HTTP requests, controller and service methods, Mongo commands and Kafka records. HTTP server spans are
+ * created by Spring Boot, sampling is set by {@code management.tracing.sampling.probability}.
+ */
+@Configuration
+public class TracingConfig {
+
+    /**
+     * Creates spans for classes and methods annotated with {@link io.micrometer.observation.annotation.Observed}
+     */
+    @Bean
+    public ObservedAspect observedAspect(ObservationRegistry observationRegistry) {
+        return new ObservedAspect(observationRegistry);
+    }
+
+    /**
+     * Creates span for every Mongo command as a child of the span current on the calling thread
+     */
+    @Bean
+    public MongoClientSettingsBuilderCustomizer mongoObservationCustomizer(ObservationRegistry observationRegistry) {
+        return builder -> builder
+                .addCommandListener(new MongoObservationCommandListener(observationRegistry))
+                .contextProvider(ContextProviderFactory.create(observationRegistry));
+    }
+
+    /**
+     * Drops observations of warm-up requests, so synthetic traffic before readiness does not skew request metrics
+     * and traces. Server request is checked directly, nested observations through the request bound to the thread.
+     */
+    @Bean
+    public ObservationPredicate warmUpObservationPredicate() {
+        return (name, context) -> {
+            if (context instanceof ServerRequestObservationContext serverContext) {
+                return !WarmUpRunner.isWarmUpRequest(serverContext.getCarrier());
+            }
+
+            return !WarmUpRunner.isWarmUpRequest();
+        };
+    }
+
+    @Bean
+    public KafkaTracing kafkaTracing(OpenTelemetry openTelemetry) {
+        return new KafkaTracing(openTelemetry.getTracer("kafka"),
+                openTelemetry.getPropagators().getTextMapPropagator());
+    }
+
+    /**
+     * Spans are written to {@code tracing.export.file} as JSON lines, or logged when file is not set
+     */
+    @Bean
+    public JsonLinesSpanExporter jsonLinesSpanExporter(ObjectMapper objectMapper,
+                                                       @Value("${tracing.export.file:}") String file)
+            throws IOException {
+        return new JsonLinesSpanExporter(objectMapper, file.isBlank() ? null : Path.of(file));
+    }
+}
@@ -0,0 +1,274 @@
+package kz.smarthealth.patientservice.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.servlet.http.HttpServletRequest;
+import kz.smarthealth.patientservice.model.dto.PatientDTO;
+import kz.smarthealth.patientservice.model.dto.UserRole;
+import kz.smarthealth.patientservice.model.entity.PatientDocument;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.Document;
+import org.modelmapper.ModelMapper;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.core.env.Environment;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.client.SimpleClientHttpRequestFactory;
+import org.springframework.kafka.config.KafkaListenerEndpointRegistry;
+import org.springframework.kafka.listener.MessageListenerContainer;
+import org.springframework.stereotype.Component;
+import org.springframework.web.client.HttpStatusCodeException;
+import org.springframework.web.client.RestTemplate;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static kz.smarthealth.patientservice.util.AppConstants.WARM_UP_HEADER;
+
+/**
+ * Exercises lazily initialized paths on synthetic data before application reports readiness. Runs as application
+ * runner, so readiness state changes to ACCEPTING_TRAFFIC only after it completes or its time budget is exhausted.
+ * Only read requests for random ids are sent, nothing is written. Warm-up requests carry a per-process token in
+ * {@code X-Warm-Up} header, so they bypass admission control and are left out of request metrics and traces.
+ */
+@Slf4j
+@Component
+public class WarmUpRunner implements ApplicationRunner {
+
+    private static final byte[] WARM_UP_TOKEN = UUID.randomUUID().toString().getBytes(StandardCharsets.UTF_8);
+
+    private final ModelMapper modelMapper;
+    private final ObjectMapper objectMapper;
+    private final MongoTemplate mongoTemplate;
+    private final RestTemplate restTemplate;
+    private final KafkaListenerEndpointRegistry kafkaListenerEndpointRegistry;
+    private final Environment environment;
+    private final MeterRegistry meterRegistry;
+    private final boolean enabled;
+    private final Duration budget;
+    private final int iterations;
+    private final int httpIterations;
+    private final int mongoConnections;
+
+    private long deadline;
+
+    public WarmUpRunner(ModelMapper modelMapper,
+                        ObjectMapper objectMapper,
+                        MongoTemplate mongoTemplate,
+                        KafkaListenerEndpointRegistry kafkaListenerEndpointRegistry,
+                        Environment environment,
+                        MeterRegistry meterRegistry,
+                        @Value("${warmup.enabled}") boolean enabled,
+                        @Value("${warmup.budget}") Duration budget,
+                        @Value("${warmup.iterations}") int iterations,
+                        @Value("${warmup.http-iterations}") int httpIterations,
+                        @Value("${warmup.mongo-connections}") int mongoConnections,
+                        @Value("${warmup.http-timeout}") Duration httpTimeout) {
+        this.modelMapper = modelMapper;
+        this.objectMapper = objectMapper;
+        this.mongoTemplate = mongoTemplate;
+        this.restTemplate = new RestTemplate(requestFactory(httpTimeout));
+        this.kafkaListenerEndpointRegistry = kafkaListenerEndpointRegistry;
+        this.environment = environment;
+        this.meterRegistry = meterRegistry;
+        this.enabled = enabled;
+        this.budget = budget;
+        this.iterations = iterations;
+        this.httpIterations = httpIterations;
+        this.mongoConnections = mongoConnections;
+    }
+
+    /**
+     * @param request HTTP request
+     * @return true when request was sent by warm-up of this process
+     */
+    public static boolean isWarmUpRequest(HttpServletRequest request) {
+        String token = request.getHeader(WARM_UP_HEADER);
+
+        return token != null && MessageDigest.isEqual(WARM_UP_TOKEN, token.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * @return true when request bound to the current thread was sent by warm-up of this process
+     */
+    public static boolean isWarmUpRequest() {
+        return RequestContextHolder.getRequestAttributes() instanceof ServletRequestAttributes attributes
+                && isWarmUpRequest(attributes.getRequest());
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        if (!enabled) {
+            return;
+        }
+
+        long start = System.nanoTime();
+        deadline = start + budget.toNanos();
+
+        step("mongo-pool", this::warmUpMongoPool);
+        step("mapping", this::warmUpMapping);
+        step("serialization", this::warmUpSerialization);
+        step("http", this::warmUpHttp);
+        step("kafka", this::awaitKafkaAssignment);
+
+        Duration duration = Duration.ofNanos(System.nanoTime() - start);
+        log.info("Warm-up completed in {} ms, budget {} ms", duration.toMillis(), budget.toMillis());
+    }
+
+    private void step(String name, Runnable step) {
+        if (isBudgetExhausted()) {
+            log.warn("Warm-up budget exhausted, skipping step: {}", name);
+            return;
+        }
+
+        Timer.Sample sample = Timer.start(meterRegistry);
+
+        try {
+            step.run();
+        } catch (RuntimeException e) {
+            log.warn("Warm-up step {} failed: {}", name, e.getMessage());
+        } finally {
+            long nanos = sample.stop(Timer.builder("patient.warmup.duration")
+                    .description("Duration of warm-up steps before readiness")
+                    .tag("step", name)
+                    .register(meterRegistry));
+            log.info("Warm-up step {} took {} ms", name, Duration.ofNanos(nanos).toMillis());
+        }
+    }
+
+    /**
+     * Opens several pooled connections at once by running concurrent pings
+     */
+    private void warmUpMongoPool() {
+        ExecutorService executorService = Executors.newFixedThreadPool(mongoConnections);
+
+        try {
+            List<CompletableFuture<Document>> pings = new ArrayList<>();
+
+            for (int i = 0; i < mongoConnections; i++) {
+                pings.add(CompletableFuture.supplyAsync(
+                        () -> mongoTemplate.executeCommand(new Document("ping", 1)), executorService));
+            }
+
+            CompletableFuture.allOf(pings.toArray(CompletableFuture[]::new)).join();
+        } finally {
+            executorService.shutdown();
+        }
+    }
+
+    private void warmUpMapping() {
+        PatientDTO patientDTO = syntheticPatient();
+
+        for (int i = 0; i < iterations && !isBudgetExhausted(); i++) {
+            PatientDocument patientDocument = modelMapper.map(patientDTO, PatientDocument.class);
+            modelMapper.map(patientDocument, PatientDTO.class);
+        }
+    }
+
+    private void warmUpSerialization() {
+        List<PatientDTO> patients = List.of(syntheticPatient(), syntheticPatient());
+
+        try {
+            for (int i = 0; i < iterations && !isBudgetExhausted(); i++) {
+                String json = objectMapper.writeValueAsString(patients);
+                objectMapper.readValue(json, PatientDTO[].class);
+            }
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Sends read requests for random ids through the whole servlet stack: filters, method security SpEL, controller,
+     * service, repository, exception handler and message converters
+     */
+    private void warmUpHttp() {
+        Integer port = environment.getProperty("local.server.port", Integer.class);
+
+        if (port == null) {
+            return;
+        }
+
+        String baseUrl = "http://localhost:" + port + environment.getProperty("server.servlet.context-path", "")
+                + "/api/v1/patients/";
+        HttpHeaders headers = new HttpHeaders();
+        headers.set("userId", UUID.randomUUID().toString());
+        headers.set("role", UserRole.ROLE_DOCTOR.name());
+        headers.set(WARM_UP_HEADER, new String(WARM_UP_TOKEN, StandardCharsets.UTF_8));
+        HttpEntity<Void> request = new HttpEntity<>(headers);
+
+        for (int i = 0; i < httpIterations && !isBudgetExhausted(); i++) {
+            restTemplate.exchange(baseUrl + "by-user-id/" + UUID.randomUUID(), HttpMethod.GET, request,
+                    String.class);
+
+            try {
+                restTemplate.exchange(baseUrl + UUID.randomUUID(), HttpMethod.GET, request, String.class);
+            } catch (HttpStatusCodeException e) {
+                // patient not found is expected, warms up error handling path
+            }
+        }
+    }
+
+    /**
+     * Waits until Kafka listeners have joined their groups and got partitions assigned
+     */
+    private void awaitKafkaAssignment() {
+        for (MessageListenerContainer container : kafkaListenerEndpointRegistry.getListenerContainers()) {
+            while (container.isRunning()
+                    && (container.getAssignedPartitions() == null || container.getAssignedPartitions().isEmpty())
+                    && !isBudgetExhausted()) {
+                try {
+                    Thread.sleep(100);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+        }
+    }
+
+    /**
+     * Bounds every warm-up request, a hung request must not hold readiness until the whole budget is spent
+     */
+    private static SimpleClientHttpRequestFactory requestFactory(Duration timeout) {
+        SimpleClientHttpRequestFactory requestFactory = new SimpleClientHttpRequestFactory();
+        requestFactory.setConnectTimeout((int) timeout.toMillis());
+        requestFactory.setReadTimeout((int) timeout.toMillis());
+
+        return requestFactory;
+    }
+
+    private boolean isBudgetExhausted() {
+        return System.nanoTime() - deadline > 0;
+    }
+
+    private static PatientDTO syntheticPatient() {
+        return PatientDTO.builder()
+                .id(UUID.randomUUID().toString())
+                .userId(UUID.randomUUID().toString())
+                .firstName("WarmUp")
+                .lastName("WarmUp")
+                .birthDate(LocalDate.of(2000, 1, 1))
+                .phoneNumber("0000000000")
+                .familyConnectionId((short) 1)
+                .iin("000000000000")
+                .createdAt(OffsetDateTime.now())
+                .build();
+    }
+}
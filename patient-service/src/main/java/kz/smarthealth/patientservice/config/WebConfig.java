@@ -0,0 +1,63 @@
+package kz.smarthealth.patientservice.config;
+
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.http.converter.cbor.MappingJackson2CborHttpMessageConverter;
+import org.springframework.http.converter.smile.MappingJackson2SmileHttpMessageConverter;
+import org.springframework.web.filter.ShallowEtagHeaderFilter;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import java.util.List;
+import java.util.regex.Pattern;
+
+@Configuration
+public class WebConfig implements WebMvcConfigurer {
+
+    private static final Pattern ETAG_PATH =
+            Pattern.compile("/api/v1/patients/(?!stats$|import/)(by-user-id/)?[^/]+");
+
+    private final JacksonFormats jacksonFormats;
+
+    public WebConfig(JacksonFormats jacksonFormats) {
+        this.jacksonFormats = jacksonFormats;
+    }
+
+    /**
+     * Binary Jackson formats are negotiated by Accept and Content-Type headers, JSON stays the default
+     */
+    @Override
+    public void extendMessageConverters(List<HttpMessageConverter<?>> converters) {
+        converters.removeIf(converter -> converter instanceof MappingJackson2CborHttpMessageConverter
+                || converter instanceof MappingJackson2SmileHttpMessageConverter);
+        converters.add(0, new SerializedPatientHttpMessageConverter());
+        converters.add(new MappingJackson2CborHttpMessageConverter(
+                jacksonFormats.getObjectMapper(MediaType.APPLICATION_CBOR)));
+        converters.add(new MappingJackson2SmileHttpMessageConverter(
+                jacksonFormats.getObjectMapper(JacksonFormats.APPLICATION_SMILE)));
+    }
+
+    /**
+     * Adds ETag to patient reads and answers If-None-Match with 304, so clients can revalidate cached responses
+     * without transferring body again. The filter buffers the body, so it skips every other request.
+     */
+    @Bean
+    public FilterRegistrationBean<ShallowEtagHeaderFilter> etagFilter() {
+        FilterRegistrationBean<ShallowEtagHeaderFilter> registration =
+                new FilterRegistrationBean<>(new ShallowEtagHeaderFilter() {
+
+                    @Override
+                    protected boolean shouldNotFilter(HttpServletRequest request) {
+                        return !HttpMethod.GET.matches(request.getMethod()) || !ETAG_PATH.matcher(
+                                request.getRequestURI().substring(request.getContextPath().length())).matches();
+                    }
+                });
+        registration.addUrlPatterns("/api/v1/patients/*");
+
+        return registration;
+    }
+}
@@ -0,0 +1,50 @@
+package kz.smarthealth.patientservice.config;
+
+import com.mongodb.WriteConcern;
+import lombok.Data;
+import org.apache.commons.lang3.StringUtils;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Named write concern profiles, so that every write call site picks durability it actually needs
+ */
+@Data
+@ConfigurationProperties(prefix = "mongodb.write-concern")
+public class WriteConcernProperties {
+
+    private Map<String, Profile> profiles = new HashMap<>();
+
+    @Data
+    public static class Profile {
+
+        /**
+         * Number of acknowledging members or tag set name, e.g. 1 or majority
+         */
+        private String w;
+
+        private Boolean journal;
+
+        private Duration wtimeout;
+
+        public WriteConcern toWriteConcern() {
+            WriteConcern writeConcern = StringUtils.isNumeric(w)
+                    ? new WriteConcern(Integer.parseInt(w))
+                    : new WriteConcern(w);
+
+            if (journal != null) {
+                writeConcern = writeConcern.withJournal(journal);
+            }
+
+            if (wtimeout != null) {
+                writeConcern = writeConcern.withWTimeout(wtimeout.toMillis(), TimeUnit.MILLISECONDS);
+            }
+
+            return writeConcern;
+        }
+    }
+}
@@ -0,0 +1,24 @@
+package kz.smarthealth.patientservice.controller;
+
+import kz.smarthealth.patientservice.model.dto.AutoscalingSignalDTO;
+import kz.smarthealth.patientservice.service.AutoscalingSignalService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.stereotype.Component;
+
+/**
+ * Actuator endpoint {@code GET /actuator/autoscaling} for external autoscalers
+ */
+@Component
+@Endpoint(id = "autoscaling")
+@RequiredArgsConstructor
+public class AutoscalingEndpoint {
+
+    private final AutoscalingSignalService autoscalingSignalService;
+
+    @ReadOperation
+    public AutoscalingSignalDTO signal() {
+        return autoscalingSignalService.getSignal();
+    }
+}
@@ -0,0 +1,48 @@
+package kz.smarthealth.patientservice.controller;
+
+import kz.smarthealth.patientservice.model.dto.BackfillProgressDTO;
+import kz.smarthealth.patientservice.service.PatientBackfillService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Selector;
+import org.springframework.boot.actuate.endpoint.annotation.WriteOperation;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * Actuator endpoint {@code /actuator/backfills} with progress of patients backfills, restricted to ROLE_ADMIN
+ */
+@Component
+@Endpoint(id = "backfills")
+@RequiredArgsConstructor
+public class BackfillEndpoint {
+
+    private final PatientBackfillService patientBackfillService;
+
+    @ReadOperation
+    public List<BackfillProgressDTO> backfills() {
+        return patientBackfillService.getProgress();
+    }
+
+    /**
+     * @param name backfill name
+     * @return progress, 404 when backfill was never started
+     */
+    @ReadOperation
+    public BackfillProgressDTO backfill(@Selector String name) {
+        return patientBackfillService.getProgress(name).orElse(null);
+    }
+
+    /**
+     * Resumes failed backfill from its last checkpoint
+     *
+     * @param name backfill name
+     * @return true when backfill was failed and is resumed
+     */
+    @WriteOperation
+    public boolean resume(@Selector String name) {
+        return patientBackfillService.resume(name);
+    }
+}
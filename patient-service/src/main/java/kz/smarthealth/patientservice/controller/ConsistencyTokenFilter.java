@@ -0,0 +1,101 @@
+package kz.smarthealth.patientservice.controller;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletOutputStream;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import jakarta.servlet.http.HttpServletResponseWrapper;
+import kz.smarthealth.patientservice.util.ConsistencyTokenHolder;
+import org.springframework.http.HttpMethod;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+
+import static kz.smarthealth.patientservice.util.AppConstants.CONSISTENCY_TOKEN_HEADER;
+
+/**
+ * Accepts causal consistency token from request header and returns token of the caller's latest write, so that
+ * following reads of the same caller observe their own writes even when served by secondary.
+ */
+@Component
+public class ConsistencyTokenFilter extends OncePerRequestFilter {
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request,
+                                    HttpServletResponse response,
+                                    FilterChain filterChain) throws ServletException, IOException {
+        ConsistencyTokenHolder.set(request.getHeader(CONSISTENCY_TOKEN_HEADER));
+
+        try {
+            if (HttpMethod.GET.matches(request.getMethod())) {
+                filterChain.doFilter(request, response);
+                return;
+            }
+
+            TokenHeaderResponseWrapper responseWrapper = new TokenHeaderResponseWrapper(response);
+            filterChain.doFilter(request, responseWrapper);
+            // responses without body are committed only after the chain returns
+            responseWrapper.setTokenHeader();
+        } finally {
+            ConsistencyTokenHolder.clear();
+        }
+    }
+
+    /**
+     * Sets token header right before body is opened or response is otherwise committed, which happens after the write
+     * of the handler, so the body is streamed instead of buffered
+     */
+    private static class TokenHeaderResponseWrapper extends HttpServletResponseWrapper {
+
+        TokenHeaderResponseWrapper(HttpServletResponse response) {
+            super(response);
+        }
+
+        @Override
+        public ServletOutputStream getOutputStream() throws IOException {
+            setTokenHeader();
+            return super.getOutputStream();
+        }
+
+        @Override
+        public PrintWriter getWriter() throws IOException {
+            setTokenHeader();
+            return super.getWriter();
+        }
+
+        @Override
+        public void flushBuffer() throws IOException {
+            setTokenHeader();
+            super.flushBuffer();
+        }
+
+        @Override
+        public void sendError(int sc, String msg) throws IOException {
+            setTokenHeader();
+            super.sendError(sc, msg);
+        }
+
+        @Override
+        public void sendError(int sc) throws IOException {
+            setTokenHeader();
+            super.sendError(sc);
+        }
+
+        @Override
+        public void sendRedirect(String location) throws IOException {
+            setTokenHeader();
+            super.sendRedirect(location);
+        }
+
+        void setTokenHeader() {
+            String token = ConsistencyTokenHolder.get();
+
+            if (token != null && !isCommitted()) {
+                setHeader(CONSISTENCY_TOKEN_HEADER, token);
+            }
+        }
+    }
+}
@@ -0,0 +1,101 @@
+package kz.smarthealth.patientservice.controller;
+
+import jdk.jfr.Configuration;
+import jdk.jfr.Recording;
+import kz.smarthealth.patientservice.model.event.KafkaRecordEvent;
+import kz.smarthealth.patientservice.model.event.PatientOperationEvent;
+import kz.smarthealth.patientservice.model.event.ResponseCacheEvent;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.actuate.endpoint.annotation.WriteOperation;
+import org.springframework.boot.actuate.endpoint.web.WebEndpointResponse;
+import org.springframework.boot.actuate.endpoint.web.annotation.WebEndpoint;
+import org.springframework.core.io.InputStreamResource;
+import org.springframework.core.io.Resource;
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.text.ParseException;
+import java.time.Duration;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Actuator endpoint {@code POST /actuator/jfr} recording Java Flight Recorder events for the requested duration and
+ * streaming the {@code .jfr} file back. Only one recording runs at a time.
+ */
+@Component
+@WebEndpoint(id = "jfr")
+@Slf4j
+public class JfrRecordingEndpoint {
+
+    private static final int STATUS_CONFLICT = 409;
+    private static final Set<String> CONFIGURATIONS = Set.of("default", "profile");
+
+    private final Duration defaultDuration;
+    private final Duration maxDuration;
+    private final AtomicBoolean recording = new AtomicBoolean();
+
+    public JfrRecordingEndpoint(@Value("${profiling.jfr.default-duration}") Duration defaultDuration,
+                                @Value("${profiling.jfr.max-duration}") Duration maxDuration) {
+        this.defaultDuration = defaultDuration;
+        this.maxDuration = maxDuration;
+    }
+
+    /**
+     * Records events for the given duration, blocking the request meanwhile
+     *
+     * @param duration recording duration, e.g. 30s
+     * @param settings JFR configuration, "default" or "profile"
+     * @return recording file, deleted once streamed
+     */
+    @WriteOperation(produces = "application/octet-stream")
+    public WebEndpointResponse<Resource> record(@Nullable Duration duration, @Nullable String settings)
+            throws IOException, ParseException, InterruptedException {
+        Duration recordingDuration = duration == null ? defaultDuration : duration;
+        String configurationName = settings == null ? "profile" : settings;
+
+        if (recordingDuration.isNegative() || recordingDuration.isZero()
+                || recordingDuration.compareTo(maxDuration) > 0 || !CONFIGURATIONS.contains(configurationName)) {
+            return new WebEndpointResponse<>(WebEndpointResponse.STATUS_BAD_REQUEST);
+        }
+
+        if (!recording.compareAndSet(false, true)) {
+            return new WebEndpointResponse<>(STATUS_CONFLICT);
+        }
+
+        try {
+            Path file = recordTo(recordingDuration, Configuration.getConfiguration(configurationName));
+
+            return new WebEndpointResponse<>(
+                    new InputStreamResource(Files.newInputStream(file, StandardOpenOption.DELETE_ON_CLOSE)));
+        } finally {
+            recording.set(false);
+        }
+    }
+
+    Path recordTo(Duration duration, Configuration configuration) throws IOException, InterruptedException {
+        Path file = Files.createTempFile("patient-service-", ".jfr");
+
+        try (Recording jfrRecording = new Recording(configuration)) {
+            jfrRecording.setName("patient-service-on-demand");
+            jfrRecording.enable(PatientOperationEvent.class);
+            jfrRecording.enable(KafkaRecordEvent.class);
+            jfrRecording.enable(ResponseCacheEvent.class);
+            log.info("Starting JFR recording for {}", duration);
+            jfrRecording.start();
+            Thread.sleep(duration.toMillis());
+            jfrRecording.stop();
+            jfrRecording.dump(file);
+        } catch (IOException | InterruptedException | RuntimeException e) {
+            Files.deleteIfExists(file);
+            throw e;
+        }
+
+        return file;
+    }
+}
@@ -0,0 +1,270 @@
+package kz.smarthealth.patientservice.controller;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.observation.annotation.Observed;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.validation.Valid;
+import kz.smarthealth.patientservice.aop.Log;
+import kz.smarthealth.patientservice.config.JacksonFormats;
+import kz.smarthealth.patientservice.model.dto.DeletedPatientsDTO;
+import kz.smarthealth.patientservice.model.dto.ImportFormat;
+import kz.smarthealth.patientservice.model.dto.ImportJobDTO;
+import kz.smarthealth.patientservice.model.dto.PatientDTO;
+import kz.smarthealth.patientservice.model.dto.PatientStatsDTO;
+import kz.smarthealth.patientservice.model.dto.ProjectedPatient;
+import kz.smarthealth.patientservice.model.dto.UserIdsDTO;
+import kz.smarthealth.patientservice.model.dto.SerializedPatient;
+import kz.smarthealth.patientservice.service.PatientImportService;
+import kz.smarthealth.patientservice.service.PatientService;
+import kz.smarthealth.patientservice.service.PatientStatsService;
+import kz.smarthealth.patientservice.util.ConsistencyTokenHolder;
+import lombok.RequiredArgsConstructor;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.Resource;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.annotation.Secured;
+import org.springframework.security.access.prepost.PostAuthorize;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.HttpMediaTypeNotAcceptableException;
+import org.springframework.web.accept.ContentNegotiationManager;
+import org.springframework.web.context.request.ServletWebRequest;
+import org.springframework.web.filter.ShallowEtagHeaderFilter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Set;
+
+import static kz.smarthealth.patientservice.util.AppConstants.APPLICATION_SMILE_VALUE;
+import static kz.smarthealth.patientservice.util.AppConstants.TEXT_CSV_VALUE;
+
+@RestController
+@RequiredArgsConstructor
+@Observed(name = "patient.controller")
+@RequestMapping("/api/v1/patients")
+public class PatientController {
+
+    private final PatientService patientService;
+    private final PatientStatsService patientStatsService;
+    private final PatientImportService patientImportService;
+    private final JacksonFormats jacksonFormats;
+    private final ContentNegotiationManager contentNegotiationManager;
+
+    /**
+     * Creates new patient
+     *
+     * @param patientDTO patient data
+     * @return newly created patient
+     */
+    @PostMapping
+    @Secured({"ROLE_PATIENT", "ROLE_DOCTOR"})
+    @Log
+    @ResponseStatus(HttpStatus.CREATED)
+    public PatientDTO savePatient(@RequestBody @Valid PatientDTO patientDTO) {
+        return patientService.savePatient(patientDTO);
+    }
+
+    /**
+     * Fetches patient by id
+     *
+     * @param id patient id
+     * @return existing patient
+     */
+    @GetMapping("/{id}")
+    @Secured({"ROLE_ORGANIZATION", "ROLE_PATIENT", "ROLE_DOCTOR"})
+    @PostAuthorize("returnObject != null and authentication.principal.username == returnObject.userId.toString() " +
+            "or hasRole('ROLE_DOCTOR') or hasRole('ROLE_ORGANIZATION')")
+    @Log
+    public SerializedPatient getPatientById(@PathVariable String id) {
+        return patientService.getSerializedPatientById(id);
+    }
+
+    /**
+     * Fetches only requested fields of patient by id
+     *
+     * @param id     patient id
+     * @param fields comma separated patient fields
+     * @return existing patient with requested fields
+     */
+    @GetMapping(value = "/{id}", params = "fields")
+    @Secured({"ROLE_ORGANIZATION", "ROLE_PATIENT", "ROLE_DOCTOR"})
+    @PostAuthorize("returnObject != null and authentication.principal.username == returnObject.userId.toString() " +
+            "or hasRole('ROLE_DOCTOR') or hasRole('ROLE_ORGANIZATION')")
+    @Log
+    public ProjectedPatient getPatientById(@PathVariable String id, @RequestParam Set<String> fields) {
+        return patientService.getPatientById(id, fields);
+    }
+
+    /**
+     * Fetches list of patients by user id
+     *
+     * @param userId user id
+     * @return list of patients
+     */
+    @GetMapping("/by-user-id/{userId}")
+    @PreAuthorize("hasRole('ROLE_DOCTOR') or hasRole('ROLE_ORGANIZATION') " +
+            "or (authenticated and authentication.principal.username == #userId)")
+    @Log
+    public List<PatientDTO> getPatientsByUserId(@PathVariable String userId) {
+        return patientService.getPatientsByUserId(userId);
+    }
+
+    /**
+     * Fetches only requested fields of patients by user id
+     *
+     * @param userId user id
+     * @param fields comma separated patient fields
+     * @return list of patients with requested fields
+     */
+    @GetMapping(value = "/by-user-id/{userId}", params = "fields")
+    @PreAuthorize("hasRole('ROLE_DOCTOR') or hasRole('ROLE_ORGANIZATION') " +
+            "or (authenticated and authentication.principal.username == #userId)")
+    @Log
+    public List<ProjectedPatient> getPatientsByUserId(@PathVariable String userId, @RequestParam Set<String> fields) {
+        return patientService.getPatientsByUserId(userId, fields);
+    }
+
+    /**
+     * Fetches patients of many users at once. The array is streamed one user at a time in negotiated format, so the
+     * whole batch is never held in memory.
+     *
+     * @param userIdsDTO user ids, at most {@link kz.smarthealth.patientservice.util.AppConstants#MAX_BATCH_USER_IDS}
+     * @return patients grouped by user id, in order of user ids
+     */
+    @PostMapping(value = "/by-user-ids",
+            produces = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_CBOR_VALUE, APPLICATION_SMILE_VALUE})
+    @PreAuthorize("hasRole('ROLE_DOCTOR') or hasRole('ROLE_ORGANIZATION')")
+    @Log
+    public ResponseEntity<StreamingResponseBody> getPatientsByUserIds(@RequestBody @Valid UserIdsDTO userIdsDTO,
+                                                                      HttpServletRequest request)
+            throws HttpMediaTypeNotAcceptableException {
+        MediaType mediaType = jacksonFormats.negotiate(
+                contentNegotiationManager.resolveMediaTypes(new ServletWebRequest(request)));
+        ObjectMapper objectMapper = jacksonFormats.getObjectMapper(mediaType);
+        // body is written by async thread, caller's token still has to pin its reads
+        String consistencyToken = ConsistencyTokenHolder.get();
+        StreamingResponseBody body = outputStream -> {
+            ConsistencyTokenHolder.set(consistencyToken);
+
+            try (JsonGenerator generator = objectMapper.getFactory().createGenerator(outputStream)) {
+                generator.writeStartArray();
+                patientService.getPatientsByUserIds(userIdsDTO.getUserIds(), userPatientsDTO -> {
+                    try {
+                        generator.writeObject(userPatientsDTO);
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+                generator.writeEndArray();
+            } finally {
+                ConsistencyTokenHolder.clear();
+            }
+        };
+
+        return ResponseEntity.ok()
+                .contentType(mediaType)
+                .body(body);
+    }
+
+    /**
+     * Fetches patient statistics
+     *
+     * @return patient counters
+     */
+    @GetMapping("/stats")
+    @Secured({"ROLE_ORGANIZATION", "ROLE_DOCTOR"})
+    @Log
+    public PatientStatsDTO getPatientStats() {
+        return patientStatsService.getStats();
+    }
+
+    /**
+     * Starts import of patients from NDJSON or CSV body, CSV requires header row with {@link PatientDTO} field names
+     *
+     * @param contentType {@code application/x-ndjson} or {@code text/csv}, UTF-8 unless charset is given
+     * @param request     request with streamed body
+     * @return queued import job
+     */
+    @PostMapping(value = "/import", consumes = {MediaType.APPLICATION_NDJSON_VALUE, TEXT_CSV_VALUE})
+    @Secured({"ROLE_ORGANIZATION", "ROLE_DOCTOR"})
+    @Log
+    @ResponseStatus(HttpStatus.ACCEPTED)
+    public ImportJobDTO importPatients(@RequestHeader(HttpHeaders.CONTENT_TYPE) MediaType contentType,
+                                       HttpServletRequest request) throws IOException {
+        return patientImportService.startImport(request.getInputStream(),
+                ImportFormat.fromMediaType(contentType).orElseThrow(),
+                contentType.getCharset() != null ? contentType.getCharset() : StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Fetches progress of import
+     *
+     * @param jobId import job id
+     * @return import job
+     */
+    @GetMapping("/import/{jobId}")
+    @Secured({"ROLE_ORGANIZATION", "ROLE_DOCTOR"})
+    @Log
+    public ImportJobDTO getImportJob(@PathVariable String jobId) {
+        return patientImportService.getImportJob(jobId);
+    }
+
+    /**
+     * Downloads rows rejected by import so far
+     *
+     * @param jobId   import job id
+     * @param request current request
+     * @return JSON lines with line number, raw row and errors
+     */
+    @GetMapping("/import/{jobId}/rejected")
+    @Secured({"ROLE_ORGANIZATION", "ROLE_DOCTOR"})
+    @Log
+    public ResponseEntity<Resource> getRejectedRows(@PathVariable String jobId, HttpServletRequest request) {
+        Path rejectedRows = patientImportService.getRejectedRows(jobId);
+        // file is streamed, not buffered to compute ETag
+        ShallowEtagHeaderFilter.disableContentCaching(request);
+
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .header(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.attachment()
+                        .filename("rejected-" + jobId + ".ndjson")
+                        .build()
+                        .toString())
+                .body(new FileSystemResource(rejectedRows));
+    }
+
+    /**
+     * Deletes patient by id
+     *
+     * @param id patient id
+     */
+    @DeleteMapping("/{id}")
+    @Secured({"ROLE_DOCTOR", "ROLE_PATIENT"})
+    @Log
+    @ResponseStatus(HttpStatus.NO_CONTENT)
+    public void deletePatientById(@PathVariable String id) {
+        patientService.deletePatientById(id);
+    }
+
+    /**
+     * Deletes all patients of user
+     *
+     * @param userId user id
+     * @return number of deleted patients
+     */
+    @DeleteMapping("/by-user-id/{userId}")
+    @Secured({"ROLE_DOCTOR", "ROLE_PATIENT"})
+    @Log
+    public DeletedPatientsDTO deletePatientsByUserId(@PathVariable String userId) {
+        return patientService.deletePatientsByUserId(userId);
+    }
+}
@@ -0,0 +1,308 @@
+package kz.smarthealth.patientservice.controller;
+
+import io.grpc.Status;
+import io.grpc.StatusRuntimeException;
+import io.grpc.stub.StreamObserver;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import kz.smarthealth.patientservice.exception.CustomException;
+import kz.smarthealth.patientservice.grpc.BatchGetPatientsRequest;
+import kz.smarthealth.patientservice.grpc.BatchGetPatientsResponse;
+import kz.smarthealth.patientservice.grpc.CreatePatientsResponse;
+import kz.smarthealth.patientservice.grpc.DeletePatientRequest;
+import kz.smarthealth.patientservice.grpc.DeletePatientResponse;
+import kz.smarthealth.patientservice.grpc.GetPatientRequest;
+import kz.smarthealth.patientservice.grpc.ListPatientsByUserRequest;
+import kz.smarthealth.patientservice.grpc.Patient;
+import kz.smarthealth.patientservice.grpc.PatientServiceGrpc;
+import kz.smarthealth.patientservice.grpc.UserPatients;
+import kz.smarthealth.patientservice.model.dto.PatientDTO;
+import kz.smarthealth.patientservice.service.PatientService;
+import kz.smarthealth.patientservice.util.AppConstants;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+import static kz.smarthealth.patientservice.model.dto.UserRole.ROLE_DOCTOR;
+import static kz.smarthealth.patientservice.model.dto.UserRole.ROLE_ORGANIZATION;
+import static kz.smarthealth.patientservice.model.dto.UserRole.ROLE_PATIENT;
+
+/**
+ * gRPC interface for internal callers over the same {@link PatientService} as {@link PatientController}. Role
+ * checks mirror annotations of the controller methods.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class PatientGrpcService extends PatientServiceGrpc.PatientServiceImplBase {
+
+    private static final DateTimeFormatter DATE_FORMATTER = DateTimeFormatter.ofPattern(AppConstants.DEFAULT_DATE);
+    private static final DateTimeFormatter DATE_TIME_FORMATTER =
+            DateTimeFormatter.ofPattern(AppConstants.DEFAULT_OFFSET_DATE_TIME_FORMAT);
+
+    private final PatientService patientService;
+    private final Validator validator;
+
+    @Override
+    public void getPatient(GetPatientRequest request, StreamObserver<Patient> responseObserver) {
+        unary(responseObserver, () -> {
+            requireAnyRole(ROLE_ORGANIZATION.name(), ROLE_PATIENT.name(), ROLE_DOCTOR.name());
+            PatientDTO patientDTO = patientService.getPatientById(request.getId());
+            requireOwnerOrAnyRole(patientDTO.getUserId(), ROLE_DOCTOR.name(), ROLE_ORGANIZATION.name());
+
+            return toPatient(patientDTO);
+        });
+    }
+
+    @Override
+    public void batchGetPatients(BatchGetPatientsRequest request,
+                                 StreamObserver<BatchGetPatientsResponse> responseObserver) {
+        unary(responseObserver, () -> {
+            requireAnyRole(ROLE_DOCTOR.name(), ROLE_ORGANIZATION.name());
+
+            if (request.getUserIdsCount() == 0 || request.getUserIdsCount() > AppConstants.MAX_BATCH_USER_IDS) {
+                throw Status.INVALID_ARGUMENT
+                        .withDescription("Number of user ids must be between 1 and "
+                                + AppConstants.MAX_BATCH_USER_IDS)
+                        .asRuntimeException();
+            }
+
+            BatchGetPatientsResponse.Builder response = BatchGetPatientsResponse.newBuilder();
+
+            patientService.getPatientsByUserIds(request.getUserIdsList(), userPatientsDTO ->
+                    response.addUsers(UserPatients.newBuilder()
+                            .setUserId(userPatientsDTO.getUserId())
+                            .addAllPatients(userPatientsDTO.getPatients().stream()
+                                    .map(PatientGrpcService::toPatient)
+                                    .toList())));
+
+            return response.build();
+        });
+    }
+
+    @Override
+    public void listPatientsByUser(ListPatientsByUserRequest request, StreamObserver<Patient> responseObserver) {
+        try {
+            requireOwnerOrAnyRole(request.getUserId(), ROLE_DOCTOR.name(), ROLE_ORGANIZATION.name());
+            patientService.getPatientsByUserId(request.getUserId())
+                    .forEach(patientDTO -> responseObserver.onNext(toPatient(patientDTO)));
+            responseObserver.onCompleted();
+        } catch (RuntimeException e) {
+            responseObserver.onError(toStatusException(e));
+        }
+    }
+
+    @Override
+    public StreamObserver<Patient> createPatients(StreamObserver<CreatePatientsResponse> responseObserver) {
+        return new StreamObserver<>() {
+
+            private final CreatePatientsResponse.Builder response = CreatePatientsResponse.newBuilder();
+            private boolean failed;
+
+            @Override
+            public void onNext(Patient patient) {
+                if (failed) {
+                    return;
+                }
+
+                try {
+                    requireAnyRole(ROLE_PATIENT.name(), ROLE_DOCTOR.name());
+                    response.addPatients(toPatient(patientService.savePatient(toPatientDTO(patient))));
+                } catch (RuntimeException e) {
+                    failed = true;
+                    responseObserver.onError(toStatusException(e));
+                }
+            }
+
+            @Override
+            public void onError(Throwable t) {
+                log.warn("Create patients stream cancelled by client: {}", t.getMessage());
+            }
+
+            @Override
+            public void onCompleted() {
+                if (!failed) {
+                    responseObserver.onNext(response.build());
+                    responseObserver.onCompleted();
+                }
+            }
+        };
+    }
+
+    @Override
+    public void deletePatient(DeletePatientRequest request, StreamObserver<DeletePatientResponse> responseObserver) {
+        unary(responseObserver, () -> {
+            requireAnyRole(ROLE_DOCTOR.name(), ROLE_PATIENT.name());
+            patientService.deletePatientById(request.getId());
+
+            return DeletePatientResponse.getDefaultInstance();
+        });
+    }
+
+    private static <T> void unary(StreamObserver<T> responseObserver, Supplier<T> call) {
+        T response;
+
+        try {
+            response = call.get();
+        } catch (RuntimeException e) {
+            responseObserver.onError(toStatusException(e));
+            return;
+        }
+
+        responseObserver.onNext(response);
+        responseObserver.onCompleted();
+    }
+
+    private static Authentication requireAuthentication() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+
+        if (authentication == null) {
+            throw Status.UNAUTHENTICATED.asRuntimeException();
+        }
+
+        return authentication;
+    }
+
+    private static void requireAnyRole(String... roles) {
+        if (!hasAnyRole(requireAuthentication(), roles)) {
+            throw Status.PERMISSION_DENIED.asRuntimeException();
+        }
+    }
+
+    private static void requireOwnerOrAnyRole(String userId, String... roles) {
+        Authentication authentication = requireAuthentication();
+
+        if (!authentication.getName().equals(userId) && !hasAnyRole(authentication, roles)) {
+            throw Status.PERMISSION_DENIED.asRuntimeException();
+        }
+    }
+
+    private static boolean hasAnyRole(Authentication authentication, String... roles) {
+        Set<String> authorities = authentication.getAuthorities().stream()
+                .map(GrantedAuthority::getAuthority)
+                .collect(Collectors.toSet());
+
+        for (String role : roles) {
+            if (authorities.contains(role)) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    /**
+     * Maps exception to gRPC status, HTTP statuses of {@link CustomException} keep their meaning
+     */
+    private static StatusRuntimeException toStatusException(RuntimeException e) {
+        if (e instanceof StatusRuntimeException statusRuntimeException) {
+            return statusRuntimeException;
+        }
+
+        if (e instanceof CustomException customException) {
+            Status status = switch (customException.getHttpStatus()) {
+                case BAD_REQUEST -> Status.INVALID_ARGUMENT;
+                case UNAUTHORIZED -> Status.UNAUTHENTICATED;
+                case FORBIDDEN -> Status.PERMISSION_DENIED;
+                case NOT_FOUND -> Status.NOT_FOUND;
+                case TOO_MANY_REQUESTS -> Status.RESOURCE_EXHAUSTED;
+                default -> Status.INTERNAL;
+            };
+
+            return status.withDescription(customException.getErrorMessage()).asRuntimeException();
+        }
+
+        log.error("gRPC call failed", e);
+
+        return Status.INTERNAL.asRuntimeException();
+    }
+
+    private PatientDTO toPatientDTO(Patient patient) {
+        PatientDTO patientDTO;
+
+        try {
+            patientDTO = PatientDTO.builder()
+                    .userId(patient.getUserId().isEmpty() ? null : patient.getUserId())
+                    .firstName(patient.getFirstName())
+                    .lastName(patient.hasLastName() ? patient.getLastName() : null)
+                    .birthDate(patient.getBirthDate().isEmpty()
+                            ? null
+                            : LocalDate.parse(patient.getBirthDate(), DATE_FORMATTER))
+                    .phoneNumber(patient.hasPhoneNumber() ? patient.getPhoneNumber() : null)
+                    .familyConnectionId(patient.hasFamilyConnectionId()
+                            ? (short) patient.getFamilyConnectionId()
+                            : null)
+                    .iin(patient.hasIin() ? patient.getIin() : null)
+                    .build();
+        } catch (DateTimeParseException e) {
+            throw Status.INVALID_ARGUMENT.withDescription("birthDate: " + e.getMessage()).asRuntimeException();
+        }
+
+        Set<ConstraintViolation<PatientDTO>> violations = validator.validate(patientDTO);
+
+        if (!violations.isEmpty()) {
+            List<String> invalidFields = new ArrayList<>();
+            violations.forEach(violation -> invalidFields.add(violation.getPropertyPath() + ": "
+                    + violation.getMessage()));
+
+            throw Status.INVALID_ARGUMENT.withDescription("Validation Error " + invalidFields).asRuntimeException();
+        }
+
+        return patientDTO;
+    }
+
+    private static Patient toPatient(PatientDTO patientDTO) {
+        // protobuf setters reject nulls, documents ingested from Kafka are not validated
+        Patient.Builder patient = Patient.newBuilder();
+
+        if (patientDTO.getId() != null) {
+            patient.setId(patientDTO.getId());
+        }
+
+        if (patientDTO.getUserId() != null) {
+            patient.setUserId(patientDTO.getUserId());
+        }
+
+        if (patientDTO.getFirstName() != null) {
+            patient.setFirstName(patientDTO.getFirstName());
+        }
+
+        if (patientDTO.getBirthDate() != null) {
+            patient.setBirthDate(DATE_FORMATTER.format(patientDTO.getBirthDate()));
+        }
+
+        if (patientDTO.getLastName() != null) {
+            patient.setLastName(patientDTO.getLastName());
+        }
+
+        if (patientDTO.getPhoneNumber() != null) {
+            patient.setPhoneNumber(patientDTO.getPhoneNumber());
+        }
+
+        if (patientDTO.getFamilyConnectionId() != null) {
+            patient.setFamilyConnectionId(patientDTO.getFamilyConnectionId());
+        }
+
+        if (patientDTO.getIin() != null) {
+            patient.setIin(patientDTO.getIin());
+        }
+
+        if (patientDTO.getCreatedAt() != null) {
+            patient.setCreatedAt(DATE_TIME_FORMATTER.format(patientDTO.getCreatedAt()));
+        }
+
+        return patient.build();
+    }
+}
@@ -0,0 +1,67 @@
+package kz.smarthealth.patientservice.controller;
+
+import kz.smarthealth.patientservice.exception.CustomException;
+import kz.smarthealth.patientservice.model.dto.SerializedPatient;
+import kz.smarthealth.patientservice.service.PatientCacheCluster;
+import kz.smarthealth.patientservice.service.PatientResponseCache;
+import kz.smarthealth.patientservice.service.PatientService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import static kz.smarthealth.patientservice.util.AppConstants.PATIENT_USER_ID_HEADER;
+import static kz.smarthealth.patientservice.util.AppConstants.PEER_TOKEN_HEADER;
+
+/**
+ * Calls between members of {@link PatientCacheCluster}, authorized by shared peer token. Authorization of the user
+ * is done by the member that forwarded the request.
+ */
+@RestController
+@RequiredArgsConstructor
+@RequestMapping("/internal/v1/patients")
+public class PatientPeerController {
+
+    private final PatientService patientService;
+    private final PatientResponseCache patientResponseCache;
+    private final PatientCacheCluster patientCacheCluster;
+
+    /**
+     * Fetches patient owned by this member, owner id is returned in header
+     *
+     * @param id        patient id
+     * @param peerToken peer token
+     * @return existing patient
+     */
+    @GetMapping("/{id}")
+    public ResponseEntity<SerializedPatient> getOwnedPatientById(@PathVariable String id,
+                                                                 @RequestHeader(PEER_TOKEN_HEADER) String peerToken) {
+        checkPeer(peerToken);
+        SerializedPatient serializedPatient = patientService.getOwnedSerializedPatientById(id);
+
+        return ResponseEntity.ok()
+                .header(PATIENT_USER_ID_HEADER, serializedPatient.getUserId())
+                .body(serializedPatient);
+    }
+
+    /**
+     * Evicts changed patient from cache of this member
+     *
+     * @param id        patient id
+     * @param peerToken peer token
+     */
+    @DeleteMapping("/{id}/cache")
+    @ResponseStatus(HttpStatus.NO_CONTENT)
+    public void invalidate(@PathVariable String id, @RequestHeader(PEER_TOKEN_HEADER) String peerToken) {
+        checkPeer(peerToken);
+        patientResponseCache.invalidate(id);
+    }
+
+    private void checkPeer(String peerToken) {
+        if (!patientCacheCluster.isTrustedPeer(peerToken)) {
+            throw CustomException.builder()
+                    .httpStatus(HttpStatus.FORBIDDEN)
+                    .build();
+        }
+    }
+}
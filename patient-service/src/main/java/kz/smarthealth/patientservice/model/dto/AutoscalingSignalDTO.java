@@ -0,0 +1,22 @@
+package kz.smarthealth.patientservice.model.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.Map;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class AutoscalingSignalDTO {
+
+    /**
+     * Load of this instance relative to target, 1.0 means instance runs exactly at target
+     */
+    private double desiredCapacity;
+
+    private Map<String, Double> signals;
+
+    private String formula;
+}
@@ -0,0 +1,46 @@
+package kz.smarthealth.patientservice.model.dto;
+
+import com.fasterxml.jackson.annotation.JsonFormat;
+import kz.smarthealth.patientservice.util.AppConstants;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.OffsetDateTime;
+
+import static com.fasterxml.jackson.annotation.JsonFormat.Shape.STRING;
+
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class BackfillProgressDTO {
+
+    private String name;
+
+    private BackfillStatus status;
+
+    private String lastId;
+
+    private long scanned;
+
+    private long updated;
+
+    private long conflicts;
+
+    private int batchSize;
+
+    private String owner;
+
+    @JsonFormat(shape = STRING, pattern = AppConstants.DEFAULT_OFFSET_DATE_TIME_FORMAT)
+    private OffsetDateTime startedAt;
+
+    @JsonFormat(shape = STRING, pattern = AppConstants.DEFAULT_OFFSET_DATE_TIME_FORMAT)
+    private OffsetDateTime updatedAt;
+
+    @JsonFormat(shape = STRING, pattern = AppConstants.DEFAULT_OFFSET_DATE_TIME_FORMAT)
+    private OffsetDateTime finishedAt;
+
+    private String error;
+}
@@ -0,0 +1,6 @@
+package kz.smarthealth.patientservice.model.dto;
+
+public enum BackfillStatus {
+
+    RUNNING, COMPLETED, FAILED
+}
@@ -0,0 +1,16 @@
+package kz.smarthealth.patientservice.model.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Command of user-service to delete all patients of closed user account
+ */
+@Data
+@AllArgsConstructor
+@RequiredArgsConstructor
+public class DeletePatientsCommandDTO {
+
+    private String userId;
+}
@@ -0,0 +1,13 @@
+package kz.smarthealth.patientservice.model.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.RequiredArgsConstructor;
+
+@Data
+@AllArgsConstructor
+@RequiredArgsConstructor
+public class DeletedPatientsDTO {
+
+    private long deletedCount;
+}
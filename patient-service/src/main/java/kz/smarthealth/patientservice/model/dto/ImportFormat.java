@@ -0,0 +1,25 @@
+package kz.smarthealth.patientservice.model.dto;
+
+import kz.smarthealth.patientservice.util.AppConstants;
+import org.springframework.http.MediaType;
+
+import java.util.Arrays;
+import java.util.Optional;
+
+public enum ImportFormat {
+
+    NDJSON(MediaType.APPLICATION_NDJSON),
+    CSV(MediaType.parseMediaType(AppConstants.TEXT_CSV_VALUE));
+
+    private final MediaType mediaType;
+
+    ImportFormat(MediaType mediaType) {
+        this.mediaType = mediaType;
+    }
+
+    public static Optional<ImportFormat> fromMediaType(MediaType contentType) {
+        return Arrays.stream(values())
+                .filter(format -> format.mediaType.includes(contentType))
+                .findFirst();
+    }
+}
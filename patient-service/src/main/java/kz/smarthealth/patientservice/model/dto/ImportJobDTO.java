@@ -0,0 +1,41 @@
+package kz.smarthealth.patientservice.model.dto;
+
+import com.fasterxml.jackson.annotation.JsonFormat;
+import kz.smarthealth.patientservice.util.AppConstants;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.OffsetDateTime;
+
+import static com.fasterxml.jackson.annotation.JsonFormat.Shape.STRING;
+
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class ImportJobDTO {
+
+    private String id;
+
+    private ImportJobStatus status;
+
+    private ImportFormat format;
+
+    private long rowsRead;
+
+    private long imported;
+
+    private long rejected;
+
+    private double rowsPerSecond;
+
+    @JsonFormat(shape = STRING, pattern = AppConstants.DEFAULT_OFFSET_DATE_TIME_FORMAT)
+    private OffsetDateTime startedAt;
+
+    @JsonFormat(shape = STRING, pattern = AppConstants.DEFAULT_OFFSET_DATE_TIME_FORMAT)
+    private OffsetDateTime finishedAt;
+
+    private String error;
+}
@@ -0,0 +1,6 @@
+package kz.smarthealth.patientservice.model.dto;
+
+public enum ImportJobStatus {
+
+    QUEUED, RUNNING, COMPLETED, FAILED
+}
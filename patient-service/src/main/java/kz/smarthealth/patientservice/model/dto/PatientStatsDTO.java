@@ -0,0 +1,33 @@
+package kz.smarthealth.patientservice.model.dto;
+
+import com.fasterxml.jackson.annotation.JsonFormat;
+import kz.smarthealth.patientservice.util.AppConstants;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.RequiredArgsConstructor;
+
+import java.time.OffsetDateTime;
+import java.util.Map;
+
+import static com.fasterxml.jackson.annotation.JsonFormat.Shape.STRING;
+
+@Data
+@Builder
+@AllArgsConstructor
+@RequiredArgsConstructor
+public class PatientStatsDTO {
+
+    private long total;
+
+    private long users;
+
+    private Map<String, Long> patientsPerUser;
+
+    private Map<String, Long> ageBands;
+
+    private Map<String, Long> familyConnections;
+
+    @JsonFormat(shape = STRING, pattern = AppConstants.DEFAULT_OFFSET_DATE_TIME_FORMAT)
+    private OffsetDateTime rebuiltAt;
+}
@@ -0,0 +1,29 @@
+package kz.smarthealth.patientservice.model.dto;
+
+import com.fasterxml.jackson.annotation.JsonAnyGetter;
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import lombok.RequiredArgsConstructor;
+
+import java.util.Map;
+
+/**
+ * Patient response containing only requested fields. Owner id is kept for authorization and is serialized only when
+ * requested.
+ */
+@RequiredArgsConstructor
+public class ProjectedPatient {
+
+    private final String userId;
+
+    private final Map<String, Object> fields;
+
+    @JsonIgnore
+    public String getUserId() {
+        return userId;
+    }
+
+    @JsonAnyGetter
+    public Map<String, Object> getFields() {
+        return fields;
+    }
+}
@@ -0,0 +1,60 @@
+package kz.smarthealth.patientservice.model.dto;
+
+import lombok.AccessLevel;
+import lombok.Getter;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Patient response already serialized to JSON, written to response body as is. Owner id is kept for authorization.
+ * Response served from cache is a read-only view of its off-heap slot, so it is read by {@link #copyTo} which tells
+ * when the slot was reused in the meantime.
+ */
+@Getter
+public class SerializedPatient {
+
+    private final String userId;
+
+    /**
+     * Read-only JSON, must not be read directly when it is a view of cache slot
+     */
+    private final ByteBuffer json;
+
+    @Getter(AccessLevel.NONE)
+    private final SlotReader slotReader;
+
+    public SerializedPatient(String userId, byte[] json) {
+        this(userId, ByteBuffer.wrap(json).asReadOnlyBuffer(), null);
+    }
+
+    public SerializedPatient(String userId, ByteBuffer json, SlotReader slotReader) {
+        this.userId = userId;
+        this.json = json;
+        this.slotReader = slotReader;
+    }
+
+    public int getLength() {
+        return json.remaining();
+    }
+
+    /**
+     * Copies JSON to the start of target, e.g. a reused buffer
+     *
+     * @param target buffer of at least {@link #getLength()} bytes
+     * @return false when JSON is a view of cache slot reused since the view was taken, nothing is copied then
+     */
+    public boolean copyTo(byte[] target) {
+        if (slotReader == null) {
+            json.get(json.position(), target, 0, json.remaining());
+            return true;
+        }
+
+        return slotReader.copy(json, target);
+    }
+
+    @FunctionalInterface
+    public interface SlotReader {
+
+        boolean copy(ByteBuffer json, byte[] target);
+    }
+}
@@ -0,0 +1,20 @@
+package kz.smarthealth.patientservice.model.dto;
+
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.Size;
+import kz.smarthealth.patientservice.util.AppConstants;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.RequiredArgsConstructor;
+
+import java.util.List;
+
+@Data
+@AllArgsConstructor
+@RequiredArgsConstructor
+public class UserIdsDTO {
+
+    @NotEmpty
+    @Size(max = AppConstants.MAX_BATCH_USER_IDS)
+    private List<String> userIds;
+}
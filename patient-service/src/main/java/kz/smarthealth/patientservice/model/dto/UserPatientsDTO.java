@@ -0,0 +1,20 @@
+package kz.smarthealth.patientservice.model.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.RequiredArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Patients of one user, batch responses are lists of such groups so that clients can parse them group by group
+ */
+@Data
+@AllArgsConstructor
+@RequiredArgsConstructor
+public class UserPatientsDTO {
+
+    private String userId;
+
+    private List<PatientDTO> patients;
+}
@@ -0,0 +1,38 @@
+package kz.smarthealth.patientservice.model.entity;
+
+import kz.smarthealth.patientservice.model.dto.BackfillStatus;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.OffsetDateTime;
+
+/**
+ * Checkpoint of a patients backfill, id is backfill name. Last id is the _id of the last processed patient, the
+ * replica holding the lease is the only one running the backfill.
+ */
+@Document("patient_backfills")
+@Data
+@Builder
+@AllArgsConstructor
+@RequiredArgsConstructor
+public class PatientBackfillDocument {
+
+    @Id
+    private String id;
+    private BackfillStatus status;
+    private Object lastId;
+    private long scanned;
+    private long updated;
+    private long conflicts;
+    private int batchSize;
+    private String owner;
+    private OffsetDateTime leaseUntil;
+    private OffsetDateTime startedAt;
+    private OffsetDateTime updatedAt;
+    private OffsetDateTime finishedAt;
+    private String error;
+}
@@ -0,0 +1,32 @@
+package kz.smarthealth.patientservice.model.entity;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.OffsetDateTime;
+import java.util.Map;
+
+/**
+ * Incrementally maintained patient counters, map keys are number of patients per user, birth year and family
+ * connection id
+ */
+@Document("patient_stats")
+@Data
+@Builder
+@AllArgsConstructor
+@RequiredArgsConstructor
+public class PatientStatsDocument {
+
+    @Id
+    private String id;
+    private long total;
+    private long users;
+    private Map<String, Long> patientsPerUser;
+    private Map<String, Long> birthYears;
+    private Map<String, Long> familyConnections;
+    private OffsetDateTime rebuiltAt;
+}
@@ -0,0 +1,23 @@
+package kz.smarthealth.patientservice.model.entity;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+/**
+ * Number of patients of a user, id is user id
+ */
+@Document("patient_user_counts")
+@Data
+@Builder
+@AllArgsConstructor
+@RequiredArgsConstructor
+public class PatientUserCountDocument {
+
+    @Id
+    private String id;
+    private long count;
+}
@@ -0,0 +1,39 @@
+package kz.smarthealth.patientservice.model.event;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+import lombok.Setter;
+
+/**
+ * JFR event of Kafka record processing, duration is the time spent handling the record
+ */
+@Name("kz.smarthealth.patientservice.KafkaRecord")
+@Label("Kafka Record")
+@Category({"Patient Service", "Kafka"})
+@Description("Processing of consumed Kafka record")
+@StackTrace(false)
+@Setter
+public class KafkaRecordEvent extends Event {
+
+    @Label("Topic")
+    private String topic;
+
+    @Label("Partition")
+    private int partition;
+
+    @Label("Offset")
+    private long offset;
+
+    @Label("Latency")
+    @Description("Time from record timestamp to the end of processing")
+    @Timespan(Timespan.MILLISECONDS)
+    private long latency;
+
+    @Label("Success")
+    private boolean success;
+}
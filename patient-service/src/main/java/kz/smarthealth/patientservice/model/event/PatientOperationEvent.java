@@ -0,0 +1,31 @@
+package kz.smarthealth.patientservice.model.event;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import lombok.Setter;
+
+/**
+ * JFR event of {@code PatientService} operation, duration is the time spent in the service method
+ */
+@Name("kz.smarthealth.patientservice.PatientOperation")
+@Label("Patient Operation")
+@Category({"Patient Service", "Service"})
+@Description("Patient read, create or delete")
+@StackTrace(false)
+@Setter
+public class PatientOperationEvent extends Event {
+
+    @Label("Operation")
+    private String operation;
+
+    @Label("Result Size")
+    @Description("Number of returned, created or deleted patients")
+    private long resultSize;
+
+    @Label("Success")
+    private boolean success;
+}
@@ -0,0 +1,27 @@
+package kz.smarthealth.patientservice.model.event;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import lombok.Setter;
+
+/**
+ * JFR event of serialized response cache lookup
+ */
+@Name("kz.smarthealth.patientservice.ResponseCacheLookup")
+@Label("Response Cache Lookup")
+@Category({"Patient Service", "Cache"})
+@Description("Lookup of serialized patient response")
+@StackTrace(false)
+@Setter
+public class ResponseCacheEvent extends Event {
+
+    @Label("Patient Id")
+    private String patientId;
+
+    @Label("Hit")
+    private boolean hit;
+}
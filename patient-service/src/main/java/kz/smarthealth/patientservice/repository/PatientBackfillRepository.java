@@ -0,0 +1,204 @@
+package kz.smarthealth.patientservice.repository;
+
+import com.mongodb.ReadPreference;
+import com.mongodb.bulk.BulkWriteResult;
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.model.BulkWriteOptions;
+import com.mongodb.client.model.Filters;
+import com.mongodb.client.model.Projections;
+import com.mongodb.client.model.Sorts;
+import com.mongodb.client.model.UpdateOneModel;
+import kz.smarthealth.patientservice.config.PatientDocumentCodec;
+import kz.smarthealth.patientservice.config.WriteConcernProperties;
+import kz.smarthealth.patientservice.model.dto.BackfillStatus;
+import kz.smarthealth.patientservice.model.entity.PatientBackfillDocument;
+import kz.smarthealth.patientservice.model.entity.PatientDocument;
+import org.bson.BsonDocument;
+import org.bson.BsonType;
+import org.bson.conversions.Bson;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Repository;
+
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+import static org.springframework.data.mongodb.core.query.Criteria.where;
+
+/**
+ * Raw access to patients collection for backfills, documents are read and updated as BSON, so that documents of
+ * any schema version can be processed, and backfill checkpoints with their leases
+ */
+@Repository
+public class PatientBackfillRepository {
+
+    private static final String ID = "_id";
+    private static final String STATUS = "status";
+    private static final String LAST_ID = "lastId";
+    private static final String SCANNED = "scanned";
+    private static final String UPDATED = "updated";
+    private static final String CONFLICTS = "conflicts";
+    private static final String BATCH_SIZE = "batchSize";
+    private static final String OWNER = "owner";
+    private static final String LEASE_UNTIL = "leaseUntil";
+    private static final String STARTED_AT = "startedAt";
+    private static final String UPDATED_AT = "updatedAt";
+    private static final String FINISHED_AT = "finishedAt";
+    private static final String ERROR = "error";
+
+    private final MongoTemplate mongoTemplate;
+    private final MongoCollection<BsonDocument> readCollection;
+    private final MongoCollection<BsonDocument> writeCollection;
+
+    public PatientBackfillRepository(MongoTemplate mongoTemplate,
+                                     WriteConcernProperties writeConcernProperties,
+                                     @Value("${mongodb.read.secondary-preferred}") boolean secondaryPreferred,
+                                     @Value("${patient.backfill.write-concern}") String writeConcernProfile) {
+        this.mongoTemplate = mongoTemplate;
+        MongoCollection<BsonDocument> collection = mongoTemplate
+                .getCollection(mongoTemplate.getCollectionName(PatientDocument.class))
+                .withDocumentClass(BsonDocument.class);
+        this.readCollection = collection.withReadPreference(secondaryPreferred
+                ? ReadPreference.secondaryPreferred()
+                : ReadPreference.primary());
+        WriteConcernProperties.Profile profile = writeConcernProperties.getProfiles().get(writeConcernProfile);
+
+        if (profile == null) {
+            throw new IllegalArgumentException("Unknown write concern profile: " + writeConcernProfile);
+        }
+
+        this.writeCollection = collection.withWriteConcern(profile.toWriteConcern());
+    }
+
+    /**
+     * Fetches next batch of patients in _id order. Ids are ObjectIds or strings for ids that are not ObjectId hex,
+     * strings sort before ObjectIds and range queries do not cross types, so ObjectIds are matched explicitly after
+     * a string id.
+     *
+     * @param lastId    _id of the last processed patient, null to start from the beginning
+     * @param fields    stored fields to fetch
+     * @param batchSize max number of patients
+     * @return patients with _id and given fields
+     */
+    public List<BsonDocument> findBatchAfter(Object lastId, Collection<String> fields, int batchSize) {
+        Bson filter = lastId == null
+                ? new BsonDocument()
+                : lastId instanceof String
+                ? Filters.or(Filters.gt(PatientDocumentCodec.ID, lastId),
+                Filters.type(PatientDocumentCodec.ID, BsonType.OBJECT_ID))
+                : Filters.gt(PatientDocumentCodec.ID, lastId);
+
+        return readCollection.find(filter)
+                .projection(Projections.include(List.copyOf(fields)))
+                .sort(Sorts.ascending(PatientDocumentCodec.ID))
+                .limit(batchSize)
+                .into(new ArrayList<>(batchSize));
+    }
+
+    /**
+     * Applies updates with one unordered bulk write
+     */
+    public BulkWriteResult updateAll(List<UpdateOneModel<BsonDocument>> updates) {
+        return writeCollection.bulkWrite(updates, new BulkWriteOptions().ordered(false));
+    }
+
+    /**
+     * Creates checkpoint when backfill has none and takes its lease when it is free, expired or already held by
+     * owner
+     *
+     * @param name       backfill name
+     * @param owner      id of this replica
+     * @param leaseUntil lease expiration
+     * @return checkpoint, empty when backfill is completed or leased by another replica
+     */
+    public Optional<PatientBackfillDocument> acquire(String name, String owner, OffsetDateTime leaseUntil) {
+        OffsetDateTime now = OffsetDateTime.now();
+        mongoTemplate.upsert(Query.query(where(ID).is(name)), new Update()
+                        .setOnInsert(STATUS, BackfillStatus.RUNNING)
+                        .setOnInsert(STARTED_AT, now),
+                PatientBackfillDocument.class);
+        Query query = Query.query(where(ID).is(name)
+                .and(STATUS).is(BackfillStatus.RUNNING)
+                .orOperator(where(OWNER).is(owner), where(LEASE_UNTIL).is(null), where(LEASE_UNTIL).lt(now)));
+
+        return Optional.ofNullable(mongoTemplate.findAndModify(query,
+                new Update().set(OWNER, owner).set(LEASE_UNTIL, leaseUntil),
+                FindAndModifyOptions.options().returnNew(true),
+                PatientBackfillDocument.class));
+    }
+
+    /**
+     * Stores progress after a batch and renews lease
+     *
+     * @return false when lease was taken by another replica
+     */
+    public boolean checkpoint(String name, String owner, Object lastId, long scanned, long updated, long conflicts,
+                              int batchSize, OffsetDateTime leaseUntil) {
+        return mongoTemplate.updateFirst(leased(name, owner), new Update()
+                        .set(LAST_ID, lastId)
+                        .inc(SCANNED, scanned)
+                        .inc(UPDATED, updated)
+                        .inc(CONFLICTS, conflicts)
+                        .set(BATCH_SIZE, batchSize)
+                        .set(LEASE_UNTIL, leaseUntil)
+                        .set(UPDATED_AT, OffsetDateTime.now()),
+                PatientBackfillDocument.class).getModifiedCount() == 1;
+    }
+
+    public void complete(String name, String owner) {
+        finish(name, owner, BackfillStatus.COMPLETED, null);
+    }
+
+    public void fail(String name, String owner, String error) {
+        finish(name, owner, BackfillStatus.FAILED, error);
+    }
+
+    /**
+     * Frees lease, so another replica resumes backfill without waiting for expiration
+     */
+    public void release(String name, String owner) {
+        mongoTemplate.updateFirst(leased(name, owner), new Update().unset(OWNER).unset(LEASE_UNTIL),
+                PatientBackfillDocument.class);
+    }
+
+    /**
+     * Sets failed backfill running again, it continues from its last checkpoint
+     *
+     * @return true when backfill was failed
+     */
+    public boolean resume(String name) {
+        return mongoTemplate.updateFirst(Query.query(where(ID).is(name).and(STATUS).is(BackfillStatus.FAILED)),
+                new Update().set(STATUS, BackfillStatus.RUNNING).unset(ERROR).unset(FINISHED_AT),
+                PatientBackfillDocument.class).getModifiedCount() == 1;
+    }
+
+    public List<PatientBackfillDocument> findAll() {
+        return mongoTemplate.findAll(PatientBackfillDocument.class);
+    }
+
+    public Optional<PatientBackfillDocument> findByName(String name) {
+        return Optional.ofNullable(mongoTemplate.findById(name, PatientBackfillDocument.class));
+    }
+
+    private void finish(String name, String owner, BackfillStatus status, String error) {
+        OffsetDateTime now = OffsetDateTime.now();
+        mongoTemplate.updateFirst(leased(name, owner), new Update()
+                        .set(STATUS, status)
+                        .set(ERROR, error)
+                        .set(UPDATED_AT, now)
+                        .set(FINISHED_AT, now)
+                        .unset(OWNER)
+                        .unset(LEASE_UNTIL),
+                PatientBackfillDocument.class);
+    }
+
+    private static Query leased(String name, String owner) {
+        return Query.query(where(ID).is(name).and(OWNER).is(owner));
+    }
+}
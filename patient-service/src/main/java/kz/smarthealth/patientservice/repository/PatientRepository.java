@@ -7,7 +7,7 @@ import org.springframework.stereotype.Repository;
 import java.util.List;
 
 @Repository
-public interface PatientRepository extends MongoRepository<PatientDocument, String> {
+public interface PatientRepository extends MongoRepository<PatientDocument, String>, PatientRepositoryCustom {
 
     List<PatientDocument> findAllByUserId(String userId);
 }
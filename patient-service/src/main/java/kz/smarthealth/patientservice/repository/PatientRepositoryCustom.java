@@ -0,0 +1,103 @@
+package kz.smarthealth.patientservice.repository;
+
+import kz.smarthealth.patientservice.config.PatientDocumentCodec.Field;
+import kz.smarthealth.patientservice.model.entity.PatientDocument;
+import org.bson.BsonTimestamp;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+
+/**
+ * Patient operations executed in causally consistent sessions. Reads are routed to secondaries, writes go to primary
+ * with write concern of the given profile and publish consistency token to
+ * {@link kz.smarthealth.patientservice.util.ConsistencyTokenHolder}.
+ */
+public interface PatientRepositoryCustom {
+
+    Optional<PatientDocument> findByIdCausal(String id);
+
+    List<PatientDocument> findAllByUserIdCausal(String userId);
+
+    /**
+     * Fetches patients of given users with one $in query sorted by user id in one causal session. Every user's
+     * patients are passed to consumer as soon as the cursor moves past them, so memory holds only one user's patients.
+     * Users are passed in order of their ids, duplicates once, users without patients with empty list.
+     */
+    void findAllByUserIdInCausal(Collection<String> userIds, BiConsumer<String, List<PatientDocument>> consumer);
+
+    /**
+     * Fetches only given fields and id of patient, the rest of fields are left null
+     */
+    Optional<PatientDocument> findByIdCausal(String id, Collection<Field> fields);
+
+    /**
+     * Fetches only given fields and ids of user's patients, the rest of fields are left null
+     */
+    List<PatientDocument> findAllByUserIdCausal(String userId, Collection<Field> fields);
+
+    /**
+     * Scans all patients with cursor of given batch size, only given fields and ids are fetched. Client memory is
+     * bounded by batch size.
+     */
+    void findAllInBatches(Collection<Field> fields, int batchSize, Consumer<List<PatientDocument>> consumer);
+
+    PatientDocument saveCausal(PatientDocument patientDocument, String writeConcernProfile);
+
+    /**
+     * Replaces patient with given id or inserts it when it does not exist, with one findOneAndReplace upsert
+     *
+     * @return replaced patient with given fields and id, empty when patient was inserted
+     */
+    Optional<PatientDocument> replaceCausal(PatientDocument patientDocument, Collection<Field> fields,
+                                            String writeConcernProfile);
+
+    void deleteCausal(PatientDocument patientDocument, String writeConcernProfile);
+
+    /**
+     * Deletes patients of user with one deleteMany on primary. Given fields and ids of user's patients are read in the
+     * same session right before the delete and passed to consumer once it succeeds.
+     *
+     * @return number of deleted patients
+     */
+    long deleteAllByUserIdCausal(String userId, Collection<Field> fields, Consumer<List<PatientDocument>> consumer,
+                                 String writeConcernProfile);
+
+    /**
+     * Inserts new patients with one unordered insertMany, ids are assigned before the insert. Failure of some
+     * documents is reported by {@link com.mongodb.MongoBulkWriteException}, the rest are still inserted.
+     */
+    void insertAllCausal(List<PatientDocument> patientDocuments, String writeConcernProfile);
+
+    /**
+     * Saves patient outside of causal session, for writes nobody reads back immediately
+     */
+    PatientDocument saveWithWriteConcern(PatientDocument patientDocument, String writeConcernProfile);
+
+    /**
+     * Inserts patient with given id unless it exists, with one upsert of all fields in $setOnInsert, outside of causal
+     * session
+     *
+     * @return false when patient already existed and was left as it is
+     */
+    boolean insertIfAbsent(PatientDocument patientDocument, String writeConcernProfile);
+
+    /**
+     * Operation time of the primary at the moment of the call, empty when deployment has no operation times, e.g.
+     * standalone server
+     */
+    Optional<BsonTimestamp> currentOperationTime();
+
+    /**
+     * Passes ids of patients updated, replaced or deleted after given operation time, reading change stream until its
+     * resume token passes until time. An empty batch alone does not mean the stream is caught up.
+     *
+     * @return false when changes since the time are not known, e.g. oplog rolled over, collection was dropped,
+     * change streams are not supported or the stream did not reach until time within timeout
+     */
+    boolean forEachChangedIdSince(BsonTimestamp operationTime, BsonTimestamp until, Duration timeout,
+                                  Consumer<String> consumer);
+}
@@ -0,0 +1,486 @@
+package kz.smarthealth.patientservice.repository;
+
+import com.mongodb.ClientSessionOptions;
+import com.mongodb.MongoException;
+import com.mongodb.ReadPreference;
+import com.mongodb.client.ClientSession;
+import com.mongodb.client.MongoChangeStreamCursor;
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.MongoCursor;
+import com.mongodb.client.model.Aggregates;
+import com.mongodb.client.model.Filters;
+import com.mongodb.client.model.FindOneAndReplaceOptions;
+import com.mongodb.client.model.InsertManyOptions;
+import com.mongodb.client.model.ReplaceOptions;
+import com.mongodb.client.model.ReturnDocument;
+import com.mongodb.client.model.Sorts;
+import com.mongodb.client.model.UpdateOptions;
+import com.mongodb.client.model.changestream.ChangeStreamDocument;
+import com.mongodb.client.result.UpdateResult;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import kz.smarthealth.patientservice.config.PatientDocumentCodec;
+import kz.smarthealth.patientservice.config.PatientDocumentCodec.Field;
+import kz.smarthealth.patientservice.config.WriteConcernProperties;
+import kz.smarthealth.patientservice.model.entity.PatientDocument;
+import kz.smarthealth.patientservice.util.ConsistencyTokenHolder;
+import kz.smarthealth.patientservice.util.ConsistencyTokenSigner;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.BsonDocument;
+import org.bson.BsonDocumentWriter;
+import org.bson.BsonInt32;
+import org.bson.BsonTimestamp;
+import org.bson.BsonValue;
+import org.bson.RawBsonDocument;
+import org.bson.codecs.BsonDocumentCodec;
+import org.bson.codecs.EncoderContext;
+import org.bson.conversions.Bson;
+import org.bson.types.ObjectId;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.mongodb.MongoDatabaseFactory;
+import org.springframework.data.mongodb.core.MongoTemplate;
+
+import java.nio.ByteBuffer;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+
+import static kz.smarthealth.patientservice.config.PatientDocumentCodec.Field.USER_ID;
+
+/**
+ * Works with typed patients collection, documents are encoded by {@link PatientDocumentCodec} registered with the
+ * driver instead of mapping converter.
+ */
+@Slf4j
+public class PatientRepositoryCustomImpl implements PatientRepositoryCustom {
+
+    private static final ClientSessionOptions CAUSAL_SESSION_OPTIONS = ClientSessionOptions.builder()
+            .causallyConsistent(true)
+            .build();
+    private static final String OPERATION_TIME = "o";
+    private static final String CLUSTER_TIME = "c";
+    /**
+     * Order of strings compared by code points, the same as the binary order of their UTF-8 bytes MongoDB sorts by
+     */
+    private static final Comparator<String> BINARY_ORDER = (first, second) ->
+            Arrays.compare(first.codePoints().toArray(), second.codePoints().toArray());
+
+    private final MongoDatabaseFactory mongoDatabaseFactory;
+    private final PatientDocumentCodec patientDocumentCodec;
+    private final MongoCollection<PatientDocument> primaryCollection;
+    private final MongoCollection<PatientDocument> readCollection;
+    private final Map<String, MongoCollection<PatientDocument>> writeCollections = new HashMap<>();
+    private final Map<String, Timer> writeTimers = new HashMap<>();
+    private final ConsistencyTokenSigner consistencyTokenSigner;
+
+    public PatientRepositoryCustomImpl(MongoTemplate mongoTemplate,
+                                       MongoDatabaseFactory mongoDatabaseFactory,
+                                       PatientDocumentCodec patientDocumentCodec,
+                                       WriteConcernProperties writeConcernProperties,
+                                       MeterRegistry meterRegistry,
+                                       @Value("${mongodb.read.secondary-preferred}") boolean secondaryPreferred,
+                                       @Value("${mongodb.read.max-staleness-seconds}") long maxStalenessSeconds,
+                                       @Value("${mongodb.read.consistency-token-secret}") String tokenSecret) {
+        this.mongoDatabaseFactory = mongoDatabaseFactory;
+        this.patientDocumentCodec = patientDocumentCodec;
+        this.primaryCollection = mongoTemplate.getCollection(mongoTemplate.getCollectionName(PatientDocument.class))
+                .withDocumentClass(PatientDocument.class);
+        this.readCollection = primaryCollection.withReadPreference(secondaryPreferred
+                ? ReadPreference.secondaryPreferred(maxStalenessSeconds, TimeUnit.SECONDS)
+                : ReadPreference.primary());
+        this.consistencyTokenSigner = new ConsistencyTokenSigner(tokenSecret);
+
+        if (tokenSecret.isBlank()) {
+            log.warn("Consistency token secret is not set, tokens are accepted only by the replica that issued them");
+        }
+
+        writeConcernProperties.getProfiles().forEach((name, profile) -> {
+            writeCollections.put(name, primaryCollection.withWriteConcern(profile.toWriteConcern()));
+            writeTimers.put(name, Timer.builder("patient.mongo.write")
+                    .description("Latency of patient writes per write concern profile")
+                    .tag("profile", name)
+                    .publishPercentiles(0.5, 0.95, 0.99)
+                    .register(meterRegistry));
+        });
+    }
+
+    @Override
+    public Optional<PatientDocument> findByIdCausal(String id) {
+        Bson filter = Filters.eq(PatientDocumentCodec.ID, PatientDocumentCodec.toStoredId(id));
+
+        return Optional.ofNullable(read((collection, session) -> collection.find(session, filter).first()));
+    }
+
+    @Override
+    public List<PatientDocument> findAllByUserIdCausal(String userId) {
+        Bson filter = patientDocumentCodec.eq(USER_ID, userId);
+
+        return read((collection, session) -> collection.find(session, filter).into(new ArrayList<>()));
+    }
+
+    @Override
+    public void findAllByUserIdInCausal(Collection<String> userIds,
+                                        BiConsumer<String, List<PatientDocument>> consumer) {
+        // the same order as the one of index on user id, so every cursor returns groups in order of sorted ids
+        List<String> sortedUserIds = userIds.stream().distinct().sorted(BINARY_ORDER).toList();
+
+        read((collection, session) -> {
+            List<MongoCursor<PatientDocument>> cursors = new ArrayList<>();
+
+            try {
+                // one cursor per name user id can be stored under, i.e. two only while short names are introduced
+                for (String name : patientDocumentCodec.queriedNames(USER_ID)) {
+                    cursors.add(collection.find(session, Filters.in(name, sortedUserIds))
+                            .sort(Sorts.ascending(name))
+                            .cursor());
+                }
+
+                PatientDocument[] heads = new PatientDocument[cursors.size()];
+
+                for (int i = 0; i < heads.length; i++) {
+                    heads[i] = cursors.get(i).tryNext();
+                }
+
+                for (String userId : sortedUserIds) {
+                    List<PatientDocument> patientDocuments = new ArrayList<>();
+
+                    for (int i = 0; i < heads.length; i++) {
+                        while (heads[i] != null && userId.equals(heads[i].getUserId())) {
+                            patientDocuments.add(heads[i]);
+                            heads[i] = cursors.get(i).tryNext();
+                        }
+                    }
+
+                    consumer.accept(userId, patientDocuments);
+                }
+            } finally {
+                cursors.forEach(MongoCursor::close);
+            }
+
+            return null;
+        });
+    }
+
+    @Override
+    public Optional<PatientDocument> findByIdCausal(String id, Collection<Field> fields) {
+        Bson filter = Filters.eq(PatientDocumentCodec.ID, PatientDocumentCodec.toStoredId(id));
+        Bson projection = patientDocumentCodec.projection(fields);
+
+        return Optional.ofNullable(read((collection, session) ->
+                collection.find(session, filter).projection(projection).first()));
+    }
+
+    @Override
+    public List<PatientDocument> findAllByUserIdCausal(String userId, Collection<Field> fields) {
+        Bson filter = patientDocumentCodec.eq(USER_ID, userId);
+        Bson projection = patientDocumentCodec.projection(fields);
+
+        return read((collection, session) ->
+                collection.find(session, filter).projection(projection).into(new ArrayList<>()));
+    }
+
+    @Override
+    public void findAllInBatches(Collection<Field> fields, int batchSize,
+                                 Consumer<List<PatientDocument>> consumer) {
+        List<PatientDocument> batch = new ArrayList<>(batchSize);
+
+        try (MongoCursor<PatientDocument> cursor = readCollection.find()
+                .projection(patientDocumentCodec.projection(fields))
+                .batchSize(batchSize)
+                .cursor()) {
+            while (cursor.hasNext()) {
+                batch.add(cursor.next());
+
+                if (batch.size() == batchSize) {
+                    consumer.accept(batch);
+                    batch = new ArrayList<>(batchSize);
+                }
+            }
+        }
+
+        if (!batch.isEmpty()) {
+            consumer.accept(batch);
+        }
+    }
+
+    @Override
+    public PatientDocument saveCausal(PatientDocument patientDocument, String writeConcernProfile) {
+        return write(writeConcernProfile, (collection, session) -> save(collection, session, patientDocument));
+    }
+
+    @Override
+    public Optional<PatientDocument> replaceCausal(PatientDocument patientDocument, Collection<Field> fields,
+                                                   String writeConcernProfile) {
+        Bson filter = Filters.eq(PatientDocumentCodec.ID, PatientDocumentCodec.toStoredId(patientDocument.getId()));
+        FindOneAndReplaceOptions options = new FindOneAndReplaceOptions()
+                .upsert(true)
+                .returnDocument(ReturnDocument.BEFORE)
+                .projection(patientDocumentCodec.projection(fields));
+
+        return Optional.ofNullable(write(writeConcernProfile, (collection, session) ->
+                collection.findOneAndReplace(session, filter, patientDocument, options)));
+    }
+
+    @Override
+    public void deleteCausal(PatientDocument patientDocument, String writeConcernProfile) {
+        Bson filter = Filters.eq(PatientDocumentCodec.ID, PatientDocumentCodec.toStoredId(patientDocument.getId()));
+        write(writeConcernProfile, (collection, session) -> collection.deleteOne(session, filter));
+    }
+
+    @Override
+    public long deleteAllByUserIdCausal(String userId, Collection<Field> fields,
+                                        Consumer<List<PatientDocument>> consumer, String writeConcernProfile) {
+        Bson filter = patientDocumentCodec.eq(USER_ID, userId);
+        Bson projection = patientDocumentCodec.projection(fields);
+
+        return write(writeConcernProfile, (collection, session) -> {
+            List<PatientDocument> found = collection.find(session, filter).projection(projection)
+                    .into(new ArrayList<>());
+            long deletedCount = collection.deleteMany(session, filter).getDeletedCount();
+            consumer.accept(found);
+
+            return deletedCount;
+        });
+    }
+
+    @Override
+    public void insertAllCausal(List<PatientDocument> patientDocuments, String writeConcernProfile) {
+        patientDocuments.stream()
+                .filter(patientDocument -> patientDocument.getId() == null)
+                .forEach(patientDocument -> patientDocument.setId(new ObjectId().toHexString()));
+        InsertManyOptions options = new InsertManyOptions().ordered(false);
+        write(writeConcernProfile, (collection, session) -> collection.insertMany(session, patientDocuments, options));
+    }
+
+    @Override
+    public PatientDocument saveWithWriteConcern(PatientDocument patientDocument, String writeConcernProfile) {
+        MongoCollection<PatientDocument> collection = getWriteCollection(writeConcernProfile);
+
+        return writeTimers.get(writeConcernProfile).record(() -> save(collection, null, patientDocument));
+    }
+
+    @Override
+    public boolean insertIfAbsent(PatientDocument patientDocument, String writeConcernProfile) {
+        MongoCollection<PatientDocument> collection = getWriteCollection(writeConcernProfile);
+        BsonDocument fields = new BsonDocument();
+        patientDocumentCodec.encode(new BsonDocumentWriter(fields), patientDocument, EncoderContext.builder().build());
+        fields.remove(PatientDocumentCodec.ID);
+        Bson filter = Filters.eq(PatientDocumentCodec.ID, PatientDocumentCodec.toStoredId(patientDocument.getId()));
+        UpdateOptions options = new UpdateOptions().upsert(true);
+
+        UpdateResult result = writeTimers.get(writeConcernProfile).record(() ->
+                collection.updateOne(filter, new BsonDocument("$setOnInsert", fields), options));
+
+        return result.getUpsertedId() != null;
+    }
+
+    @Override
+    public Optional<BsonTimestamp> currentOperationTime() {
+        try (ClientSession session = mongoDatabaseFactory.getSession(CAUSAL_SESSION_OPTIONS)) {
+            mongoDatabaseFactory.getMongoDatabase().runCommand(session, new BsonDocument("ping", new BsonInt32(1)));
+
+            return Optional.ofNullable(session.getOperationTime());
+        }
+    }
+
+    @Override
+    public boolean forEachChangedIdSince(BsonTimestamp operationTime, BsonTimestamp until, Duration timeout,
+                                         Consumer<String> consumer) {
+        List<Bson> pipeline = List.of(Aggregates.match(Filters.nin("operationType", "insert")));
+        long deadline = System.nanoTime() + timeout.toNanos();
+
+        try (MongoChangeStreamCursor<ChangeStreamDocument<BsonDocument>> cursor = primaryCollection
+                .watch(pipeline, BsonDocument.class)
+                .startAtOperationTime(operationTime)
+                .maxAwaitTime(1, TimeUnit.SECONDS)
+                .cursor()) {
+            while (true) {
+                ChangeStreamDocument<BsonDocument> change = cursor.tryNext();
+
+                if (change != null) {
+                    if (change.getDocumentKey() == null) {
+                        // drop, rename or invalidate, changed documents are not known
+                        log.warn("Change stream since {} ended with {}", operationTime, change.getOperationType());
+                        return false;
+                    }
+
+                    BsonValue id = change.getDocumentKey().get(PatientDocumentCodec.ID);
+                    consumer.accept(id.isObjectId()
+                            ? id.asObjectId().getValue().toHexString()
+                            : id.asString().getValue());
+                }
+
+                // token of the last change or, after an empty batch, of the point the stream has scanned up to
+                if (resumeTokenTime(cursor.getResumeToken()).compareTo(until) >= 0) {
+                    return true;
+                }
+
+                if (System.nanoTime() - deadline >= 0) {
+                    log.warn("Change stream since {} did not reach {} within {}", operationTime, until, timeout);
+                    return false;
+                }
+            }
+        } catch (MongoException e) {
+            log.warn("Changes since {} are not available: {}", operationTime, e.getMessage());
+
+            return false;
+        }
+    }
+
+    /**
+     * Reads cluster time of resume token. Its _data is hex encoded key string starting with the cluster time: type
+     * byte 130 followed by 8 bytes of timestamp. Unknown format reads as zero time, i.e. not caught up.
+     */
+    private static BsonTimestamp resumeTokenTime(BsonDocument resumeToken) {
+        BsonValue data = resumeToken == null ? null : resumeToken.get("_data");
+
+        if (data == null || !data.isString() || data.asString().getValue().length() < 18
+                || !data.asString().getValue().startsWith("82")) {
+            return new BsonTimestamp();
+        }
+
+        return new BsonTimestamp(Long.parseUnsignedLong(data.asString().getValue().substring(2, 18), 16));
+    }
+
+    /**
+     * Inserts new patient with generated id or replaces existing one, the same way as mapping template does
+     */
+    private static PatientDocument save(MongoCollection<PatientDocument> collection,
+                                        ClientSession session,
+                                        PatientDocument patientDocument) {
+        if (patientDocument.getId() == null) {
+            patientDocument.setId(new ObjectId().toHexString());
+
+            if (session == null) {
+                collection.insertOne(patientDocument);
+            } else {
+                collection.insertOne(session, patientDocument);
+            }
+        } else {
+            Bson filter = Filters.eq(PatientDocumentCodec.ID, PatientDocumentCodec.toStoredId(patientDocument.getId()));
+            ReplaceOptions options = new ReplaceOptions().upsert(true);
+
+            if (session == null) {
+                collection.replaceOne(filter, patientDocument, options);
+            } else {
+                collection.replaceOne(session, filter, patientDocument, options);
+            }
+        }
+
+        return patientDocument;
+    }
+
+    /**
+     * Reads from secondary which is no more than configured seconds behind primary. When caller presents consistency
+     * token, session is advanced to it, so secondary waits until it has applied caller's own writes.
+     */
+    private <T> T read(SessionCallback<T> callback) {
+        String token = ConsistencyTokenHolder.get();
+
+        try (ClientSession session = mongoDatabaseFactory.getSession(CAUSAL_SESSION_OPTIONS)) {
+            if (token == null || advanceSession(session, token)) {
+                return callback.apply(readCollection, session);
+            }
+
+            return callback.apply(primaryCollection, session);
+        }
+    }
+
+    /**
+     * Writes to primary in causally consistent session and publishes resulting token
+     */
+    private <T> T write(String writeConcernProfile, SessionCallback<T> callback) {
+        MongoCollection<PatientDocument> collection = getWriteCollection(writeConcernProfile);
+        Timer.Sample sample = Timer.start();
+
+        try (ClientSession session = mongoDatabaseFactory.getSession(CAUSAL_SESSION_OPTIONS)) {
+            String token = ConsistencyTokenHolder.get();
+
+            if (token != null) {
+                advanceSession(session, token);
+            }
+
+            try {
+                return callback.apply(collection, session);
+            } finally {
+                // partially applied bulk writes must be observable by their callers as well
+                ConsistencyTokenHolder.set(encodeToken(session));
+            }
+        } finally {
+            sample.stop(writeTimers.get(writeConcernProfile));
+        }
+    }
+
+    private MongoCollection<PatientDocument> getWriteCollection(String writeConcernProfile) {
+        MongoCollection<PatientDocument> collection = writeCollections.get(writeConcernProfile);
+
+        if (collection == null) {
+            throw new IllegalArgumentException("Unknown write concern profile: " + writeConcernProfile);
+        }
+
+        return collection;
+    }
+
+    private String encodeToken(ClientSession session) {
+        if (session.getOperationTime() == null) {
+            return ConsistencyTokenHolder.get();
+        }
+
+        BsonDocument document = new BsonDocument(OPERATION_TIME, session.getOperationTime());
+
+        if (session.getClusterTime() != null) {
+            document.append(CLUSTER_TIME, session.getClusterTime());
+        }
+
+        ByteBuffer buffer = new RawBsonDocument(document, new BsonDocumentCodec()).getByteBuffer().asNIO();
+        byte[] bytes = new byte[buffer.remaining()];
+        buffer.get(bytes);
+
+        return consistencyTokenSigner.sign(bytes);
+    }
+
+    /**
+     * Advances session to times of token. Token comes from client, so only tokens signed by this deployment are
+     * trusted, anything else could gossip forged cluster time or hold secondary reads on a far future time.
+     */
+    private boolean advanceSession(ClientSession session, String token) {
+        Optional<byte[]> payload = consistencyTokenSigner.verify(token);
+
+        if (payload.isEmpty()) {
+            log.warn("Consistency token is not signed by this deployment, reading from primary");
+
+            return false;
+        }
+
+        try {
+            RawBsonDocument document = new RawBsonDocument(payload.get());
+            BsonTimestamp operationTime = document.getTimestamp(OPERATION_TIME);
+            session.advanceOperationTime(operationTime);
+
+            if (document.containsKey(CLUSTER_TIME)) {
+                session.advanceClusterTime(document.getDocument(CLUSTER_TIME));
+            }
+
+            return true;
+        } catch (RuntimeException e) {
+            log.warn("Invalid consistency token: {}, reading from primary", e.getMessage());
+
+            return false;
+        }
+    }
+
+    @FunctionalInterface
+    private interface SessionCallback<T> {
+
+        T apply(MongoCollection<PatientDocument> collection, ClientSession session);
+    }
+}
@@ -0,0 +1,163 @@
+package kz.smarthealth.patientservice.repository;
+
+import com.mongodb.MongoNamespace;
+import com.mongodb.client.model.RenameCollectionOptions;
+import kz.smarthealth.patientservice.model.entity.PatientStatsDocument;
+import kz.smarthealth.patientservice.model.entity.PatientUserCountDocument;
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Repository;
+
+import java.time.OffsetDateTime;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+import static org.springframework.data.mongodb.core.query.Criteria.where;
+
+/**
+ * Summary collection with patient counters and per user patient counts it is derived from
+ */
+@Repository
+@RequiredArgsConstructor
+public class PatientStatsRepository {
+
+    public static final String SUMMARY_ID = "summary";
+
+    private static final String ID = "_id";
+    private static final String COUNT = "count";
+    private static final String REBUILD_LEASE_ID = "rebuildLease";
+    private static final String OWNER = "owner";
+    private static final String LEASE_UNTIL = "leaseUntil";
+    private static final String USER_COUNTS_REBUILD_COLLECTION = "patient_user_counts_rebuild";
+
+    private final MongoTemplate mongoTemplate;
+
+    /**
+     * Atomically changes number of patients of user, user is removed when it has no patients left
+     *
+     * @param userId user id
+     * @param delta  change of patients count
+     * @return new number of patients of user
+     */
+    public long incrementUserCount(String userId, long delta) {
+        PatientUserCountDocument userCount = mongoTemplate.findAndModify(
+                Query.query(where(ID).is(userId)),
+                new Update().inc(COUNT, delta),
+                FindAndModifyOptions.options().upsert(true).returnNew(true),
+                PatientUserCountDocument.class);
+        long count = userCount == null ? 0 : userCount.getCount();
+
+        if (count <= 0) {
+            // condition keeps user inserted concurrently
+            mongoTemplate.remove(Query.query(where(ID).is(userId).and(COUNT).lte(0)), PatientUserCountDocument.class);
+        }
+
+        return count;
+    }
+
+    /**
+     * Increments summary counters with one update
+     *
+     * @param increments counter paths and their increments
+     */
+    public void incrementSummary(Map<String, Long> increments) {
+        Update update = new Update();
+        increments.forEach(update::inc);
+        mongoTemplate.upsert(Query.query(where(ID).is(SUMMARY_ID)), update, PatientStatsDocument.class);
+    }
+
+    /**
+     * Takes rebuild lease when it is free, expired or already held by owner, so only one replica rebuilds at a time
+     *
+     * @param owner      id of this replica
+     * @param leaseUntil lease expiration
+     * @return true when lease is held by owner
+     */
+    public boolean acquireRebuildLease(String owner, OffsetDateTime leaseUntil) {
+        OffsetDateTime now = OffsetDateTime.now();
+        mongoTemplate.upsert(Query.query(where(ID).is(REBUILD_LEASE_ID)), new Update().setOnInsert(OWNER, null),
+                PatientStatsDocument.class);
+        Query query = Query.query(where(ID).is(REBUILD_LEASE_ID)
+                .orOperator(where(OWNER).is(owner), where(LEASE_UNTIL).is(null), where(LEASE_UNTIL).lt(now)));
+
+        return mongoTemplate.findAndModify(query, new Update().set(OWNER, owner).set(LEASE_UNTIL, leaseUntil),
+                PatientStatsDocument.class) != null;
+    }
+
+    /**
+     * Extends rebuild lease held by owner
+     *
+     * @return false when lease was taken by another replica
+     */
+    public boolean renewRebuildLease(String owner, OffsetDateTime leaseUntil) {
+        return mongoTemplate.updateFirst(Query.query(where(ID).is(REBUILD_LEASE_ID).and(OWNER).is(owner)),
+                new Update().set(LEASE_UNTIL, leaseUntil), PatientStatsDocument.class).getMatchedCount() == 1;
+    }
+
+    public void releaseRebuildLease(String owner) {
+        mongoTemplate.updateFirst(Query.query(where(ID).is(REBUILD_LEASE_ID).and(OWNER).is(owner)),
+                new Update().unset(OWNER).unset(LEASE_UNTIL), PatientStatsDocument.class);
+    }
+
+    public Optional<PatientStatsDocument> findSummary() {
+        return Optional.ofNullable(mongoTemplate.findById(SUMMARY_ID, PatientStatsDocument.class));
+    }
+
+    public void saveSummary(PatientStatsDocument patientStatsDocument) {
+        mongoTemplate.save(patientStatsDocument);
+    }
+
+    public void dropUserCountsRebuild() {
+        mongoTemplate.dropCollection(USER_COUNTS_REBUILD_COLLECTION);
+    }
+
+    /**
+     * Adds counts of a batch of patients to user counts being rebuilt
+     *
+     * @param userCounts number of patients per user id
+     */
+    public void incrementUserCountsRebuild(Map<String, Long> userCounts) {
+        if (userCounts.isEmpty()) {
+            return;
+        }
+
+        BulkOperations bulkOperations = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED,
+                PatientUserCountDocument.class, USER_COUNTS_REBUILD_COLLECTION);
+        userCounts.forEach((userId, count) ->
+                bulkOperations.upsert(Query.query(where(ID).is(userId)), new Update().inc(COUNT, count)));
+        bulkOperations.execute();
+    }
+
+    /**
+     * Streams rebuilt user counts with cursor of given batch size
+     */
+    public void forEachUserCountRebuild(int batchSize, Consumer<PatientUserCountDocument> consumer) {
+        try (Stream<PatientUserCountDocument> userCounts = mongoTemplate.stream(
+                new Query().cursorBatchSize(batchSize), PatientUserCountDocument.class,
+                USER_COUNTS_REBUILD_COLLECTION)) {
+            userCounts.forEach(consumer);
+        }
+    }
+
+    /**
+     * Replaces user counts with rebuilt ones
+     */
+    public void publishUserCountsRebuild() {
+        String collectionName = mongoTemplate.getCollectionName(PatientUserCountDocument.class);
+
+        if (!mongoTemplate.collectionExists(USER_COUNTS_REBUILD_COLLECTION)) {
+            mongoTemplate.dropCollection(collectionName);
+            return;
+        }
+
+        mongoTemplate.getCollection(USER_COUNTS_REBUILD_COLLECTION).renameCollection(
+                new MongoNamespace(mongoTemplate.getDb().getName(), collectionName),
+                new RenameCollectionOptions().dropTarget(true));
+    }
+}
@@ -0,0 +1,114 @@
+package kz.smarthealth.patientservice.security;
+
+import kz.smarthealth.patientservice.config.AdmissionProperties;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+/**
+ * AIMD concurrency limit adjusted once per window: shrinks multiplicatively when the latency percentile of the window
+ * exceeds target, otherwise grows by one when the limit was actually used. Windows with too few requests leave the
+ * limit as it is, so a single slow request never moves it.
+ */
+public class AdaptiveConcurrencyLimit {
+
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final AtomicInteger limit;
+    private final int minLimit;
+    private final int maxLimit;
+    private final long targetLatencyNanos;
+    private final double backoffRatio;
+    private final long windowNanos;
+    private final double latencyPercentile;
+    private final int minWindowRequests;
+    private final LongSupplier clock;
+    private final AtomicLong windowEnd;
+    private final AtomicInteger windowRequests = new AtomicInteger();
+    private final AtomicInteger windowSlowRequests = new AtomicInteger();
+    private final AtomicInteger windowMaxInFlight = new AtomicInteger();
+
+    public AdaptiveConcurrencyLimit(AdmissionProperties.Concurrency concurrency) {
+        this(concurrency, System::nanoTime);
+    }
+
+    AdaptiveConcurrencyLimit(AdmissionProperties.Concurrency concurrency, LongSupplier clock) {
+        this.limit = new AtomicInteger(concurrency.getInitialLimit());
+        this.minLimit = concurrency.getMinLimit();
+        this.maxLimit = concurrency.getMaxLimit();
+        this.targetLatencyNanos = TimeUnit.MILLISECONDS.toNanos(concurrency.getTargetLatencyMs());
+        this.backoffRatio = concurrency.getBackoffRatio();
+        this.windowNanos = TimeUnit.MILLISECONDS.toNanos(concurrency.getWindowMs());
+        this.latencyPercentile = concurrency.getLatencyPercentile();
+        this.minWindowRequests = concurrency.getMinWindowRequests();
+        this.clock = clock;
+        this.windowEnd = new AtomicLong(clock.getAsLong() + windowNanos);
+    }
+
+    /**
+     * @return number of requests in flight including this one, or -1 when limit is reached
+     */
+    public int tryAcquire() {
+        while (true) {
+            int current = inFlight.get();
+
+            if (current >= limit.get()) {
+                return -1;
+            }
+
+            if (inFlight.compareAndSet(current, current + 1)) {
+                return current + 1;
+            }
+        }
+    }
+
+    /**
+     * @param inFlightAtStart value returned by {@link #tryAcquire()}
+     * @param latencyNanos    request latency
+     */
+    public void release(int inFlightAtStart, long latencyNanos) {
+        inFlight.decrementAndGet();
+        windowRequests.incrementAndGet();
+        windowMaxInFlight.accumulateAndGet(inFlightAtStart, Math::max);
+
+        if (latencyNanos > targetLatencyNanos) {
+            windowSlowRequests.incrementAndGet();
+        }
+
+        long now = clock.getAsLong();
+        long end = windowEnd.get();
+
+        // only the request winning the window switch adjusts the limit
+        if (now - end >= 0 && windowEnd.compareAndSet(end, now + windowNanos)) {
+            adjust();
+        }
+    }
+
+    public int getLimit() {
+        return limit.get();
+    }
+
+    public int getInFlight() {
+        return inFlight.get();
+    }
+
+    /**
+     * Latency percentile exceeds target exactly when more than (1 - percentile) of requests were slower than target
+     */
+    private void adjust() {
+        int requests = windowRequests.getAndSet(0);
+        int slowRequests = windowSlowRequests.getAndSet(0);
+        int maxInFlight = windowMaxInFlight.getAndSet(0);
+
+        if (requests < minWindowRequests) {
+            return;
+        }
+
+        if (slowRequests > requests * (1 - latencyPercentile)) {
+            limit.updateAndGet(current -> Math.max(minLimit, (int) (current * backoffRatio)));
+        } else if (maxInFlight * 2 >= limit.get()) {
+            limit.updateAndGet(current -> Math.min(maxLimit, current + 1));
+        }
+    }
+}
@@ -0,0 +1,140 @@
+package kz.smarthealth.patientservice.security;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import kz.smarthealth.patientservice.config.AdmissionProperties;
+import kz.smarthealth.patientservice.config.WarmUpRunner;
+import kz.smarthealth.patientservice.model.dto.ErrorResponseDTO;
+import org.apache.commons.lang3.StringUtils;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.util.AntPathMatcher;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.time.OffsetDateTime;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static kz.smarthealth.patientservice.util.MessageSource.TOO_MANY_REQUESTS;
+
+/**
+ * Admission control placed right after {@link AuthenticationFilter}. Every user has token bucket of their role, and
+ * all requests except excluded paths share adaptive concurrency limit. Rejected requests get 429 with Retry-After.
+ */
+public class AdmissionControlFilter extends OncePerRequestFilter {
+
+    private static final String CONCURRENCY_BUCKET = "concurrency";
+
+    private final boolean enabled;
+    private final Map<String, StripedTokenBuckets> roleBuckets = new HashMap<>();
+    private final AdaptiveConcurrencyLimit concurrencyLimit;
+    private final List<String> excludedPaths;
+    private final AntPathMatcher pathMatcher = new AntPathMatcher();
+    private final Map<String, Counter> rejections = new HashMap<>();
+    private final ObjectMapper objectMapper;
+
+    public AdmissionControlFilter(AdmissionProperties admissionProperties,
+                                  MeterRegistry meterRegistry,
+                                  ObjectMapper objectMapper) {
+        AdmissionProperties.Concurrency concurrency = admissionProperties.getConcurrency();
+        this.enabled = admissionProperties.isEnabled();
+        this.objectMapper = objectMapper;
+        this.concurrencyLimit = new AdaptiveConcurrencyLimit(concurrency);
+        this.excludedPaths = concurrency.getExcludedPaths();
+
+        admissionProperties.getRoles().forEach((role, bucket) -> {
+            roleBuckets.put(role, new StripedTokenBuckets(admissionProperties.getSlots(), bucket.getRate(),
+                    bucket.getBurst()));
+            rejections.put(role, rejectionCounter(meterRegistry, role));
+        });
+        rejections.put(CONCURRENCY_BUCKET, rejectionCounter(meterRegistry, CONCURRENCY_BUCKET));
+
+        Gauge.builder("patient.admission.concurrency.limit", concurrencyLimit, AdaptiveConcurrencyLimit::getLimit)
+                .description("Current adaptive concurrency limit")
+                .register(meterRegistry);
+        Gauge.builder("patient.admission.in.flight", concurrencyLimit, AdaptiveConcurrencyLimit::getInFlight)
+                .description("Requests currently admitted")
+                .register(meterRegistry);
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request,
+                                    HttpServletResponse response,
+                                    FilterChain filterChain) throws ServletException, IOException {
+        if (!enabled || WarmUpRunner.isWarmUpRequest(request)) {
+            filterChain.doFilter(request, response);
+            return;
+        }
+
+        String userId = request.getHeader("userId");
+        String role = request.getHeader("role");
+        StripedTokenBuckets buckets = role == null ? null : roleBuckets.get(role);
+
+        if (buckets != null && !StringUtils.isBlank(userId)) {
+            long waitMillis = buckets.tryAcquire(userId);
+
+            if (waitMillis > 0) {
+                reject(response, role, waitMillis);
+                return;
+            }
+        }
+
+        if (isExcluded(request)) {
+            filterChain.doFilter(request, response);
+            return;
+        }
+
+        int inFlight = concurrencyLimit.tryAcquire();
+
+        if (inFlight < 0) {
+            reject(response, CONCURRENCY_BUCKET, 1000);
+            return;
+        }
+
+        long start = System.nanoTime();
+
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            concurrencyLimit.release(inFlight, System.nanoTime() - start);
+        }
+    }
+
+    private boolean isExcluded(HttpServletRequest request) {
+        String path = request.getRequestURI().substring(request.getContextPath().length());
+
+        return excludedPaths.stream().anyMatch(pattern -> pathMatcher.match(pattern, path));
+    }
+
+    private void reject(HttpServletResponse response, String bucket, long waitMillis) throws IOException {
+        rejections.get(bucket).increment();
+        long retryAfterSeconds = Math.max(1, (waitMillis + 999) / 1000);
+
+        ErrorResponseDTO errorResponseDTO = ErrorResponseDTO.builder()
+                .dateTime(OffsetDateTime.now())
+                .code(HttpStatus.TOO_MANY_REQUESTS.value())
+                .message(TOO_MANY_REQUESTS.getText(String.valueOf(retryAfterSeconds)))
+                .build();
+
+        response.setStatus(HttpStatus.TOO_MANY_REQUESTS.value());
+        response.setHeader(HttpHeaders.RETRY_AFTER, String.valueOf(retryAfterSeconds));
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        objectMapper.writeValue(response.getOutputStream(), errorResponseDTO);
+    }
+
+    private static Counter rejectionCounter(MeterRegistry meterRegistry, String bucket) {
+        return Counter.builder("patient.admission.rejected")
+                .description("Requests rejected by admission control")
+                .tag("bucket", bucket)
+                .register(meterRegistry);
+    }
+}
@@ -24,13 +24,23 @@ public class AuthenticationFilter extends OncePerRequestFilter {
         String role = request.getHeader("role");
 
         if (!StringUtils.isBlank(userId) && !StringUtils.isBlank(role)) {
-            List<SimpleGrantedAuthority> grantedAuthorities = List.of(new SimpleGrantedAuthority(role));
-            User userDetails = new User(userId, "", grantedAuthorities);
-            UsernamePasswordAuthenticationToken authentication = new UsernamePasswordAuthenticationToken(
-                    userDetails, null, grantedAuthorities);
-            SecurityContextHolder.getContext().setAuthentication(authentication);
+            SecurityContextHolder.getContext().setAuthentication(createAuthentication(userId, role));
         }
 
         filterChain.doFilter(request, response);
     }
+
+    /**
+     * Creates authentication of user trusted by gateway
+     *
+     * @param userId user id
+     * @param role   user role
+     * @return authentication
+     */
+    static UsernamePasswordAuthenticationToken createAuthentication(String userId, String role) {
+        List<SimpleGrantedAuthority> grantedAuthorities = List.of(new SimpleGrantedAuthority(role));
+        User userDetails = new User(userId, "", grantedAuthorities);
+
+        return new UsernamePasswordAuthenticationToken(userDetails, null, grantedAuthorities);
+    }
 }
@@ -0,0 +1,99 @@
+package kz.smarthealth.patientservice.security;
+
+import io.grpc.ForwardingServerCallListener;
+import io.grpc.Metadata;
+import io.grpc.ServerCall;
+import io.grpc.ServerCallHandler;
+import io.grpc.ServerInterceptor;
+import kz.smarthealth.patientservice.util.ConsistencyTokenHolder;
+import org.apache.commons.lang3.StringUtils;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.core.context.SecurityContextImpl;
+
+/**
+ * gRPC counterpart of {@link AuthenticationFilter}, identity is taken from call metadata. gRPC invokes call
+ * callbacks on pooled threads, so security context is set around every callback and cleared after it.
+ */
+public class GrpcAuthenticationInterceptor implements ServerInterceptor {
+
+    public static final Metadata.Key<String> USER_ID =
+            Metadata.Key.of("userid", Metadata.ASCII_STRING_MARSHALLER);
+    public static final Metadata.Key<String> ROLE =
+            Metadata.Key.of("role", Metadata.ASCII_STRING_MARSHALLER);
+
+    @Override
+    public <ReqT, RespT> ServerCall.Listener<ReqT> interceptCall(ServerCall<ReqT, RespT> call,
+                                                                 Metadata headers,
+                                                                 ServerCallHandler<ReqT, RespT> next) {
+        String userId = headers.get(USER_ID);
+        String role = headers.get(ROLE);
+        Authentication authentication = !StringUtils.isBlank(userId) && !StringUtils.isBlank(role)
+                ? AuthenticationFilter.createAuthentication(userId, role)
+                : null;
+        // streaming handlers are invoked on call start
+        ServerCall.Listener<ReqT> delegate = withAuthentication(authentication, () -> next.startCall(call, headers));
+
+        return new ForwardingServerCallListener.SimpleForwardingServerCallListener<>(delegate) {
+
+            @Override
+            public void onMessage(ReqT message) {
+                withAuthentication(authentication, () -> {
+                    super.onMessage(message);
+                    return null;
+                });
+            }
+
+            @Override
+            public void onHalfClose() {
+                withAuthentication(authentication, () -> {
+                    super.onHalfClose();
+                    return null;
+                });
+            }
+
+            @Override
+            public void onCancel() {
+                withAuthentication(authentication, () -> {
+                    super.onCancel();
+                    return null;
+                });
+            }
+
+            @Override
+            public void onComplete() {
+                withAuthentication(authentication, () -> {
+                    super.onComplete();
+                    return null;
+                });
+            }
+
+            @Override
+            public void onReady() {
+                withAuthentication(authentication, () -> {
+                    super.onReady();
+                    return null;
+                });
+            }
+        };
+    }
+
+    private static <T> T withAuthentication(Authentication authentication, Callback<T> callback) {
+        if (authentication != null) {
+            SecurityContextHolder.setContext(new SecurityContextImpl(authentication));
+        }
+
+        try {
+            return callback.call();
+        } finally {
+            SecurityContextHolder.clearContext();
+            ConsistencyTokenHolder.clear();
+        }
+    }
+
+    @FunctionalInterface
+    private interface Callback<T> {
+
+        T call();
+    }
+}
@@ -0,0 +1,94 @@
+package kz.smarthealth.patientservice.security;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.LongSupplier;
+
+/**
+ * Lock-free token buckets striped over fixed number of slots. Key is hashed to a slot, each slot is a single long
+ * holding last refill time and remaining tokens, updated with CAS. Memory is bounded by the number of slots; keys
+ * colliding in one slot share its budget.
+ */
+public class StripedTokenBuckets {
+
+    private static final int TOKEN_BITS = 20;
+    private static final long TOKEN_MASK = (1L << TOKEN_BITS) - 1;
+    private static final long MILLI_TOKENS_PER_TOKEN = 1000;
+    private static final int MAX_BURST = (int) (TOKEN_MASK / MILLI_TOKENS_PER_TOKEN);
+
+    private final AtomicLongArray slots;
+    private final int mask;
+    private final long rate;
+    private final long capacity;
+    private final LongSupplier clock;
+
+    /**
+     * @param slots number of slots, rounded up to power of two
+     * @param rate  tokens added per second
+     * @param burst bucket capacity
+     */
+    public StripedTokenBuckets(int slots, int rate, int burst) {
+        this(slots, rate, burst, new MonotonicMillis());
+    }
+
+    StripedTokenBuckets(int slots, int rate, int burst, LongSupplier clock) {
+        if (burst > MAX_BURST) {
+            throw new IllegalArgumentException("Burst must not exceed " + MAX_BURST);
+        }
+
+        int size = Integer.highestOneBit(Math.max(1, slots - 1)) << 1;
+        this.slots = new AtomicLongArray(size);
+        this.mask = size - 1;
+        // tokens per second equal milli-tokens per millisecond
+        this.rate = rate;
+        this.capacity = burst * MILLI_TOKENS_PER_TOKEN;
+        this.clock = clock;
+    }
+
+    /**
+     * Takes one token from the key's bucket
+     *
+     * @param key bucket key
+     * @return 0 when token was taken, otherwise milliseconds until a token is available
+     */
+    public long tryAcquire(String key) {
+        int slot = spread(key.hashCode()) & mask;
+
+        while (true) {
+            long now = clock.getAsLong();
+            long state = slots.get(slot);
+            long tokens = capacity;
+
+            if (state != 0) {
+                long elapsed = Math.max(0, now - (state >>> TOKEN_BITS));
+                tokens = Math.min(capacity, (state & TOKEN_MASK) + elapsed * rate);
+            }
+
+            if (tokens < MILLI_TOKENS_PER_TOKEN) {
+                return rate == 0 ? Long.MAX_VALUE : (MILLI_TOKENS_PER_TOKEN - tokens + rate - 1) / rate;
+            }
+
+            long newState = (now << TOKEN_BITS) | (tokens - MILLI_TOKENS_PER_TOKEN);
+
+            if (slots.compareAndSet(slot, state, newState)) {
+                return 0;
+            }
+        }
+    }
+
+    private static int spread(int hash) {
+        return hash ^ (hash >>> 16);
+    }
+
+    /**
+     * Milliseconds since creation, starting from 1 so that zero slot state means untouched bucket
+     */
+    private static class MonotonicMillis implements LongSupplier {
+
+        private final long origin = System.nanoTime();
+
+        @Override
+        public long getAsLong() {
+            return (System.nanoTime() - origin) / 1_000_000 + 1;
+        }
+    }
+}
@@ -0,0 +1,166 @@
+package kz.smarthealth.patientservice.service;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.distribution.ValueAtPercentile;
+import kz.smarthealth.patientservice.config.MongoPoolWaitListener;
+import kz.smarthealth.patientservice.model.dto.AutoscalingSignalDTO;
+import org.apache.tomcat.util.threads.ThreadPoolExecutor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.web.context.WebServerInitializedEvent;
+import org.springframework.boot.web.embedded.tomcat.TomcatWebServer;
+import org.springframework.context.event.EventListener;
+import org.springframework.expression.EvaluationContext;
+import org.springframework.expression.Expression;
+import org.springframework.expression.spel.standard.SpelExpressionParser;
+import org.springframework.expression.spel.support.SimpleEvaluationContext;
+import org.springframework.stereotype.Service;
+import org.springframework.util.ReflectionUtils;
+
+import java.lang.reflect.Method;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.DoubleSupplier;
+
+/**
+ * Computes single scaling signal from Kafka consumer lag, Mongo connection pool wait, Tomcat thread saturation and
+ * p99 request latency. Signals are combined by configurable SpEL formula, signals are available as variables and
+ * {@code #max} function takes any number of arguments. Summed over instances the signal is number of instances
+ * needed, so autoscaler can target average value of 1.
+ */
+@Service
+public class AutoscalingSignalService {
+
+    public static final String KAFKA_LAG = "kafkaLag";
+    public static final String MONGO_POOL_WAIT_MS = "mongoPoolWaitMs";
+    public static final String THREAD_SATURATION = "threadSaturation";
+    public static final String P99_LATENCY_MS = "p99LatencyMs";
+
+    private static final Method MAX = ReflectionUtils.findMethod(AutoscalingSignalService.class, "max",
+            double[].class);
+
+    private final MeterRegistry meterRegistry;
+    private final String newPatientsTopic;
+    private final String formulaSource;
+    private final Expression formula;
+    private final Map<String, DoubleSupplier> signals = new LinkedHashMap<>();
+
+    private volatile Executor tomcatExecutor;
+
+    public AutoscalingSignalService(MeterRegistry meterRegistry,
+                                    @Value("${kafka.topics.new-patients}") String newPatientsTopic,
+                                    @Value("${autoscaling.formula}") String formula) {
+        this.meterRegistry = meterRegistry;
+        this.newPatientsTopic = newPatientsTopic;
+        this.formulaSource = formula;
+        this.formula = new SpelExpressionParser().parseExpression(formula);
+
+        signals.put(KAFKA_LAG, this::kafkaLag);
+        signals.put(MONGO_POOL_WAIT_MS, this::mongoPoolWaitMillis);
+        signals.put(THREAD_SATURATION, this::threadSaturation);
+        signals.put(P99_LATENCY_MS, this::p99LatencyMillis);
+        // fails startup on formula that can not be evaluated
+        evaluate(Map.of(KAFKA_LAG, 0d, MONGO_POOL_WAIT_MS, 0d, THREAD_SATURATION, 0d, P99_LATENCY_MS, 0d));
+
+        signals.forEach((name, signal) -> Gauge
+                .builder("patient.autoscaling.signal", signal, DoubleSupplier::getAsDouble)
+                .description("Input of autoscaling formula")
+                .tag("signal", name)
+                .register(meterRegistry));
+        Gauge.builder("patient.autoscaling.desired.capacity", () -> getSignal().getDesiredCapacity())
+                .description("Load of this instance relative to target, 1.0 means at target")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Tomcat request executor is known only once web server starts
+     */
+    @EventListener
+    public void onWebServerInitialized(WebServerInitializedEvent event) {
+        if (event.getWebServer() instanceof TomcatWebServer tomcatWebServer) {
+            tomcatExecutor = tomcatWebServer.getTomcat().getConnector().getProtocolHandler().getExecutor();
+        }
+    }
+
+    /**
+     * Computes current signals and desired capacity
+     *
+     * @return desired capacity with its inputs
+     */
+    public AutoscalingSignalDTO getSignal() {
+        Map<String, Double> values = new LinkedHashMap<>();
+        signals.forEach((name, signal) -> values.put(name, signal.getAsDouble()));
+
+        return new AutoscalingSignalDTO(evaluate(values), values, formulaSource);
+    }
+
+    public static double max(double... values) {
+        return Arrays.stream(values).max().orElse(0);
+    }
+
+    private double evaluate(Map<String, Double> values) {
+        EvaluationContext context = SimpleEvaluationContext.forReadOnlyDataBinding().build();
+        context.setVariable("max", MAX);
+        values.forEach(context::setVariable);
+        Double desiredCapacity = formula.getValue(context, Double.class);
+
+        return desiredCapacity == null ? 0 : desiredCapacity;
+    }
+
+    /**
+     * Lag of new patients topic partitions assigned to this instance
+     */
+    private double kafkaLag() {
+        return meterRegistry.find("kafka.consumer.fetch.manager.records.lag")
+                .tag("topic", newPatientsTopic)
+                .gauges().stream()
+                .mapToDouble(Gauge::value)
+                .filter(lag -> lag > 0)
+                .sum();
+    }
+
+    private double mongoPoolWaitMillis() {
+        Timer timer = meterRegistry.find(MongoPoolWaitListener.POOL_WAIT_METRIC).timer();
+
+        return timer == null ? 0 : p99Millis(timer);
+    }
+
+    /**
+     * Busy and queued requests relative to maximum number of request threads
+     */
+    private double threadSaturation() {
+        if (tomcatExecutor instanceof ThreadPoolExecutor executor && executor.getMaximumPoolSize() > 0) {
+            return (double) (executor.getActiveCount() + executor.getQueue().size()) / executor.getMaximumPoolSize();
+        }
+
+        return 0;
+    }
+
+    /**
+     * Worst p99 latency among API endpoints, actuator endpoints are excluded
+     */
+    private double p99LatencyMillis() {
+        return meterRegistry.find("http.server.requests").timers().stream()
+                .filter(timer -> {
+                    String uri = timer.getId().getTag("uri");
+                    return uri == null || !uri.startsWith("/actuator");
+                })
+                .mapToDouble(AutoscalingSignalService::p99Millis)
+                .max()
+                .orElse(0);
+    }
+
+    private static double p99Millis(Timer timer) {
+        for (ValueAtPercentile valueAtPercentile : timer.takeSnapshot().percentileValues()) {
+            if (valueAtPercentile.percentile() == 0.99) {
+                return valueAtPercentile.value(TimeUnit.MILLISECONDS);
+            }
+        }
+
+        return 0;
+    }
+}
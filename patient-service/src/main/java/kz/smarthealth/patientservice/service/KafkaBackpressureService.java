@@ -0,0 +1,191 @@
+package kz.smarthealth.patientservice.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.kafka.config.KafkaListenerEndpointRegistry;
+import org.springframework.kafka.listener.MessageListenerContainer;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Throttles Kafka ingestion when Mongo writes degrade. Number of records processed per check interval is limited by
+ * a quota which is decreased multiplicatively when average write latency or error rate crosses threshold and
+ * increased additively after every interval of healthy writes. Listener paused by degraded writes has no writes to
+ * judge Mongo by, so it stays paused until writes still in flight come back healthy or cool-down passes, then resumes
+ * with the decreased quota as a probe. Listener container is paused, not stopped, so the consumer keeps polling and
+ * stays in its group.
+ */
+@Slf4j
+@Service
+public class KafkaBackpressureService {
+
+    public static final String NEW_PATIENTS_LISTENER_ID = "new-patients";
+
+    private final KafkaListenerEndpointRegistry kafkaListenerEndpointRegistry;
+    private final boolean enabled;
+    private final long latencyThresholdNanos;
+    private final double errorRateThreshold;
+    private final int minQuota;
+    private final int maxQuota;
+    private final int increaseStep;
+    private final double decreaseFactor;
+    private final long coolDownNanos;
+
+    private final LongAdder latencySum = new LongAdder();
+    private final LongAdder writes = new LongAdder();
+    private final LongAdder errors = new LongAdder();
+    private final AtomicInteger processedInInterval = new AtomicInteger();
+    private final Counter latencyPauses;
+    private final Counter errorPauses;
+    private final Counter quotaPauses;
+
+    private volatile int quota;
+    private volatile boolean paused;
+    private volatile boolean degraded;
+    private volatile long coolDownUntil;
+    private volatile double lastLatencyMillis;
+    private volatile double lastErrorRate;
+
+    public KafkaBackpressureService(KafkaListenerEndpointRegistry kafkaListenerEndpointRegistry,
+                                    MeterRegistry meterRegistry,
+                                    @Value("${kafka.backpressure.enabled}") boolean enabled,
+                                    @Value("${kafka.backpressure.latency-threshold-ms}") long latencyThresholdMs,
+                                    @Value("${kafka.backpressure.error-rate-threshold}") double errorRateThreshold,
+                                    @Value("${kafka.backpressure.min-quota}") int minQuota,
+                                    @Value("${kafka.backpressure.max-quota}") int maxQuota,
+                                    @Value("${kafka.backpressure.increase-step}") int increaseStep,
+                                    @Value("${kafka.backpressure.decrease-factor}") double decreaseFactor,
+                                    @Value("${kafka.backpressure.cool-down-ms}") long coolDownMs) {
+        this.kafkaListenerEndpointRegistry = kafkaListenerEndpointRegistry;
+        this.enabled = enabled;
+        this.latencyThresholdNanos = TimeUnit.MILLISECONDS.toNanos(latencyThresholdMs);
+        this.errorRateThreshold = errorRateThreshold;
+        this.minQuota = minQuota;
+        this.maxQuota = maxQuota;
+        this.increaseStep = increaseStep;
+        this.decreaseFactor = decreaseFactor;
+        this.coolDownNanos = TimeUnit.MILLISECONDS.toNanos(coolDownMs);
+        this.quota = maxQuota;
+
+        Gauge.builder("patient.kafka.backpressure.paused", () -> paused ? 1 : 0)
+                .description("1 when new patients listener is paused by backpressure")
+                .register(meterRegistry);
+        Gauge.builder("patient.kafka.backpressure.quota", () -> quota)
+                .description("Records allowed per check interval")
+                .register(meterRegistry);
+        Gauge.builder("patient.kafka.backpressure.write.latency", () -> lastLatencyMillis)
+                .description("Average Mongo write latency of the last check interval, ms")
+                .register(meterRegistry);
+        Gauge.builder("patient.kafka.backpressure.write.error.rate", () -> lastErrorRate)
+                .description("Mongo write error rate of the last check interval")
+                .register(meterRegistry);
+        latencyPauses = pauseCounter(meterRegistry, "latency");
+        errorPauses = pauseCounter(meterRegistry, "errors");
+        quotaPauses = pauseCounter(meterRegistry, "quota");
+    }
+
+    /**
+     * Records result of a single ingested record write
+     *
+     * @param latencyNanos write latency
+     * @param success      whether write succeeded
+     */
+    public void record(long latencyNanos, boolean success) {
+        latencySum.add(latencyNanos);
+        writes.increment();
+
+        if (!success) {
+            errors.increment();
+        }
+
+        if (enabled && processedInInterval.incrementAndGet() >= quota && !paused) {
+            quotaPauses.increment();
+            pause();
+        }
+    }
+
+    /**
+     * Evaluates last interval, adjusts quota and pauses or resumes listener
+     */
+    @Scheduled(fixedDelayString = "${kafka.backpressure.check-interval-ms}")
+    public void adjust() {
+        long intervalWrites = writes.sumThenReset();
+        long intervalLatency = latencySum.sumThenReset();
+        long intervalErrors = errors.sumThenReset();
+        processedInInterval.set(0);
+
+        lastLatencyMillis = intervalWrites == 0 ? 0 : intervalLatency / (double) intervalWrites / 1_000_000;
+        lastErrorRate = intervalWrites == 0 ? 0 : intervalErrors / (double) intervalWrites;
+
+        if (!enabled) {
+            return;
+        }
+
+        boolean slow = intervalWrites > 0 && intervalLatency / intervalWrites > latencyThresholdNanos;
+        boolean failing = intervalWrites > 0 && lastErrorRate > errorRateThreshold;
+
+        if (slow || failing) {
+            quota = Math.max(minQuota, (int) (quota * decreaseFactor));
+            (slow ? latencyPauses : errorPauses).increment();
+            log.warn("Mongo writes degraded, latency={} ms, errorRate={}, pausing ingestion, quota={}",
+                    lastLatencyMillis, lastErrorRate, quota);
+            degraded = true;
+            coolDownUntil = System.nanoTime() + coolDownNanos;
+            pause();
+        } else if (intervalWrites > 0) {
+            quota = Math.min(maxQuota, quota + increaseStep);
+            degraded = false;
+            resume();
+        } else if (!degraded || System.nanoTime() - coolDownUntil >= 0) {
+            // nothing written, quota is kept until writes show it can grow
+            degraded = false;
+            resume();
+        }
+    }
+
+    public boolean isPaused() {
+        return paused;
+    }
+
+    public int getQuota() {
+        return quota;
+    }
+
+    private void pause() {
+        paused = true;
+        MessageListenerContainer container = kafkaListenerEndpointRegistry.getListenerContainer(
+                NEW_PATIENTS_LISTENER_ID);
+
+        if (container != null) {
+            container.pause();
+        }
+    }
+
+    private void resume() {
+        if (!paused) {
+            return;
+        }
+
+        paused = false;
+        MessageListenerContainer container = kafkaListenerEndpointRegistry.getListenerContainer(
+                NEW_PATIENTS_LISTENER_ID);
+
+        if (container != null) {
+            container.resume();
+        }
+    }
+
+    private static Counter pauseCounter(MeterRegistry meterRegistry, String reason) {
+        return Counter.builder("patient.kafka.backpressure.pauses")
+                .description("Number of times ingestion was paused")
+                .tag("reason", reason)
+                .register(meterRegistry);
+    }
+}
@@ -0,0 +1,30 @@
+package kz.smarthealth.patientservice.service;
+
+import org.bson.BsonDocument;
+import org.bson.conversions.Bson;
+
+import java.util.List;
+
+/**
+ * Transformation of stored patients applied by {@link PatientBackfillService}. Documents are given as stored, so a
+ * migration has to accept every schema version present in the collection, including both long and short field
+ * names. Update must be idempotent, a batch is applied again when replica stops before its checkpoint.
+ */
+public interface PatientBackfillMigration {
+
+    /**
+     * @return unique name, checkpoint id
+     */
+    String getName();
+
+    /**
+     * @return stored fields the migration reads, update is skipped when any of them changed after the read
+     */
+    List<String> getFields();
+
+    /**
+     * @param document patient with _id and fields of {@link #getFields()}
+     * @return update of the patient or null when it is already migrated
+     */
+    Bson update(BsonDocument document);
+}
@@ -0,0 +1,307 @@
+package kz.smarthealth.patientservice.service;
+
+import com.mongodb.MongoInterruptedException;
+import com.mongodb.bulk.BulkWriteResult;
+import com.mongodb.client.model.Filters;
+import com.mongodb.client.model.UpdateOneModel;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import kz.smarthealth.patientservice.config.PatientDocumentCodec;
+import kz.smarthealth.patientservice.model.dto.BackfillProgressDTO;
+import kz.smarthealth.patientservice.model.entity.PatientBackfillDocument;
+import kz.smarthealth.patientservice.repository.PatientBackfillRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.BsonDocument;
+import org.bson.BsonValue;
+import org.bson.conversions.Bson;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.time.Duration;
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Runs enabled {@link PatientBackfillMigration}s over the patients collection while the service keeps serving
+ * traffic. Patients are read in _id keyset batches, migrated updates are written with one unordered bulk write per
+ * batch and progress is checkpointed in Mongo after every batch, so a backfill resumes where it stopped after a
+ * restart. Every replica checks backfills on schedule, a lease in the checkpoint lets only one of them run each.
+ * <p>
+ * Backfill throttles itself on observed Mongo latency: batch size grows while a batch completes within target
+ * latency and halves when it does not, and after every batch it pauses so that it spends at most the max duty
+ * cycle of wall time in Mongo calls. Slower Mongo therefore means both smaller batches and longer pauses. Cached
+ * responses of updated patients are not evicted and expire after cache TTL.
+ */
+@Slf4j
+@Service
+public class PatientBackfillService {
+
+    private final List<PatientBackfillMigration> migrations;
+    private final PatientBackfillRepository patientBackfillRepository;
+    private final MeterRegistry meterRegistry;
+    private final List<String> enabledMigrations;
+    private final Duration lease;
+    private final int initialBatchSize;
+    private final int minBatchSize;
+    private final int maxBatchSize;
+    private final long targetBatchLatencyNanos;
+    private final double maxDutyCycle;
+    private final String owner;
+    private final ExecutorService executorService;
+    private final AtomicBoolean running = new AtomicBoolean();
+
+    public PatientBackfillService(List<PatientBackfillMigration> migrations,
+                                  PatientBackfillRepository patientBackfillRepository,
+                                  MeterRegistry meterRegistry,
+                                  @Value("${patient.backfill.enabled-migrations}") List<String> enabledMigrations,
+                                  @Value("${patient.backfill.lease}") Duration lease,
+                                  @Value("${patient.backfill.initial-batch-size}") int initialBatchSize,
+                                  @Value("${patient.backfill.min-batch-size}") int minBatchSize,
+                                  @Value("${patient.backfill.max-batch-size}") int maxBatchSize,
+                                  @Value("${patient.backfill.target-batch-latency}") Duration targetBatchLatency,
+                                  @Value("${patient.backfill.max-duty-cycle}") double maxDutyCycle) {
+        this.migrations = migrations;
+        this.patientBackfillRepository = patientBackfillRepository;
+        this.meterRegistry = meterRegistry;
+        this.enabledMigrations = enabledMigrations;
+        this.lease = lease;
+        this.initialBatchSize = initialBatchSize;
+        this.minBatchSize = minBatchSize;
+        this.maxBatchSize = maxBatchSize;
+        this.targetBatchLatencyNanos = targetBatchLatency.toNanos();
+        this.maxDutyCycle = maxDutyCycle;
+        this.owner = hostName() + "-" + UUID.randomUUID();
+        this.executorService = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "patient-backfill");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Starts enabled backfills that are not completed and not leased by another replica, unless they already run
+     */
+    @Scheduled(fixedDelayString = "${patient.backfill.check-interval}")
+    public void startPending() {
+        if (enabledMigrations.isEmpty() || !running.compareAndSet(false, true)) {
+            return;
+        }
+
+        executorService.execute(() -> {
+            try {
+                migrations.stream()
+                        .filter(migration -> enabledMigrations.contains(migration.getName()))
+                        .forEach(this::runBackfill);
+            } finally {
+                running.set(false);
+            }
+        });
+    }
+
+    /**
+     * @return progress of all backfills that were ever started
+     */
+    public List<BackfillProgressDTO> getProgress() {
+        return patientBackfillRepository.findAll().stream()
+                .map(PatientBackfillService::toDTO)
+                .toList();
+    }
+
+    /**
+     * @param name backfill name
+     * @return progress of backfill, empty when it was never started
+     */
+    public Optional<BackfillProgressDTO> getProgress(String name) {
+        return patientBackfillRepository.findByName(name).map(PatientBackfillService::toDTO);
+    }
+
+    /**
+     * Lets failed backfill run again from its last checkpoint
+     *
+     * @param name backfill name
+     * @return true when backfill was failed
+     */
+    public boolean resume(String name) {
+        return patientBackfillRepository.resume(name);
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        executorService.shutdownNow();
+        executorService.awaitTermination(5, TimeUnit.SECONDS);
+    }
+
+    /**
+     * Runs backfill until it is completed, its lease is lost or thread is interrupted
+     */
+    void runBackfill(PatientBackfillMigration migration) {
+        String name = migration.getName();
+        Optional<PatientBackfillDocument> checkpoint = patientBackfillRepository.acquire(name, owner, leaseUntil());
+
+        if (checkpoint.isEmpty()) {
+            return;
+        }
+
+        Object lastId = checkpoint.get().getLastId();
+        int batchSize = checkpoint.get().getBatchSize() > 0 ? checkpoint.get().getBatchSize() : initialBatchSize;
+        Counter scannedCounter = documentCounter(name, "scanned");
+        Counter updatedCounter = documentCounter(name, "updated");
+        Counter conflictCounter = documentCounter(name, "conflict");
+        log.info("Backfill {} started after id {} with batch size {}", name, lastId, batchSize);
+
+        try {
+            while (!Thread.currentThread().isInterrupted()) {
+                long start = System.nanoTime();
+                List<BsonDocument> batch = patientBackfillRepository.findBatchAfter(lastId, migration.getFields(),
+                        batchSize);
+
+                if (batch.isEmpty()) {
+                    patientBackfillRepository.complete(name, owner);
+                    log.info("Backfill {} completed", name);
+                    return;
+                }
+
+                List<UpdateOneModel<BsonDocument>> updates = toUpdates(migration, batch);
+                BulkWriteResult result = updates.isEmpty() ? null : patientBackfillRepository.updateAll(updates);
+                long updated = result == null ? 0 : result.getModifiedCount();
+                long conflicts = result == null ? 0 : updates.size() - result.getMatchedCount();
+                lastId = toStoredId(batch.get(batch.size() - 1).get(PatientDocumentCodec.ID));
+                long latencyNanos = System.nanoTime() - start;
+                batchSize = nextBatchSize(batchSize, latencyNanos);
+
+                if (!patientBackfillRepository.checkpoint(name, owner, lastId, batch.size(), updated, conflicts,
+                        batchSize, leaseUntil())) {
+                    log.warn("Backfill {} lease was taken by another replica, stopped", name);
+                    return;
+                }
+
+                scannedCounter.increment(batch.size());
+                updatedCounter.increment(updated);
+                conflictCounter.increment(conflicts);
+                pause(latencyNanos);
+            }
+
+            release(name);
+        } catch (InterruptedException | MongoInterruptedException e) {
+            release(name);
+        } catch (RuntimeException e) {
+            log.error("Backfill {} failed after id {}", name, lastId, e);
+            patientBackfillRepository.fail(name, owner, e.getMessage());
+        }
+    }
+
+    /**
+     * Frees lease on shutdown, interrupt is cleared for the call and restored after it
+     */
+    private void release(String name) {
+        Thread.interrupted();
+
+        try {
+            patientBackfillRepository.release(name, owner);
+            log.info("Backfill {} stopped", name);
+        } finally {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Guards every update with values the migration read, so patients changed in between are left as they are
+     */
+    private static List<UpdateOneModel<BsonDocument>> toUpdates(PatientBackfillMigration migration,
+                                                                List<BsonDocument> batch) {
+        List<UpdateOneModel<BsonDocument>> updates = new ArrayList<>();
+
+        for (BsonDocument document : batch) {
+            Bson update = migration.update(document);
+
+            if (update != null) {
+                List<Bson> filters = new ArrayList<>();
+                filters.add(Filters.eq(PatientDocumentCodec.ID, document.get(PatientDocumentCodec.ID)));
+                migration.getFields().forEach(field -> filters.add(Filters.eq(field, document.get(field))));
+                updates.add(new UpdateOneModel<>(Filters.and(filters), update));
+            }
+        }
+
+        return updates;
+    }
+
+    /**
+     * AIMD on batch latency
+     */
+    private int nextBatchSize(int batchSize, long latencyNanos) {
+        return latencyNanos > targetBatchLatencyNanos
+                ? Math.max(minBatchSize, batchSize / 2)
+                : Math.min(maxBatchSize, batchSize + minBatchSize);
+    }
+
+    /**
+     * Sleeps so that time spent in Mongo calls is at most max duty cycle of wall time
+     */
+    private void pause(long latencyNanos) throws InterruptedException {
+        long pauseNanos = (long) (latencyNanos * (1 - maxDutyCycle) / maxDutyCycle);
+
+        if (pauseNanos > 0) {
+            TimeUnit.NANOSECONDS.sleep(pauseNanos);
+        }
+    }
+
+    private OffsetDateTime leaseUntil() {
+        return OffsetDateTime.now().plus(lease);
+    }
+
+    private Counter documentCounter(String name, String result) {
+        return Counter.builder("patient.backfill.documents")
+                .description("Patients processed by backfill")
+                .tag("backfill", name)
+                .tag("result", result)
+                .register(meterRegistry);
+    }
+
+    private static Object toStoredId(BsonValue id) {
+        if (id.isObjectId()) {
+            return id.asObjectId().getValue();
+        }
+
+        if (id.isString()) {
+            return id.asString().getValue();
+        }
+
+        throw new IllegalStateException("Unsupported patient id type: " + id.getBsonType());
+    }
+
+    private static BackfillProgressDTO toDTO(PatientBackfillDocument document) {
+        return BackfillProgressDTO.builder()
+                .name(document.getId())
+                .status(document.getStatus())
+                .lastId(document.getLastId() == null ? null : document.getLastId().toString())
+                .scanned(document.getScanned())
+                .updated(document.getUpdated())
+                .conflicts(document.getConflicts())
+                .batchSize(document.getBatchSize())
+                .owner(document.getOwner())
+                .startedAt(document.getStartedAt())
+                .updatedAt(document.getUpdatedAt())
+                .finishedAt(document.getFinishedAt())
+                .error(document.getError())
+                .build();
+    }
+
+    private static String hostName() {
+        try {
+            return InetAddress.getLocalHost().getHostName();
+        } catch (UnknownHostException e) {
+            return "unknown";
+        }
+    }
+}
@@ -0,0 +1,356 @@
+package kz.smarthealth.patientservice.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import kz.smarthealth.patientservice.model.dto.SerializedPatient;
+import kz.smarthealth.patientservice.util.ConsistencyTokenHolder;
+import kz.smarthealth.patientservice.util.ConsistentHashRing;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.security.MessageDigest;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import static kz.smarthealth.patientservice.util.AppConstants.CONSISTENCY_TOKEN_HEADER;
+import static kz.smarthealth.patientservice.util.AppConstants.PATIENT_USER_ID_HEADER;
+import static kz.smarthealth.patientservice.util.AppConstants.PEER_TOKEN_HEADER;
+
+/**
+ * Splits the patient response cache between replicas. Replicas form a consistent-hash ring keyed on patient id, each
+ * caches only patients it owns and forwards other lookups to their owner, so the cluster holds one copy of every hot
+ * patient instead of one per replica. Writes hint the owner to evict its copy.
+ * <p>
+ * Members come from a static list of base URLs or, when it is empty, from a discovery directory shared by replicas
+ * on one host: every replica keeps a heartbeat file there and files older than the member TTL are ignored. When
+ * membership changes only keys of joined or left members move, and entries this replica no longer owns are evicted.
+ * Clustering is disabled when own URL is not set, then every patient is owned locally.
+ * <p>
+ * A member failing failure-threshold forwarded calls in a row is taken out of the ring for down-time, so its keys
+ * are served and cached by the remaining members instead of waiting for forward timeout on every lookup. It rejoins
+ * the ring on the first membership refresh after down-time and is taken out again if it still fails.
+ */
+@Slf4j
+@Service
+public class PatientCacheCluster {
+
+    private static final String INTERNAL_PATIENTS_PATH = "/internal/v1/patients/";
+    private static final String MEMBER_FILE_SUFFIX = ".member";
+
+    private final PatientResponseCache patientResponseCache;
+    private final String self;
+    private final List<String> staticMembers;
+    private final Path discoveryDir;
+    private final Duration memberTtl;
+    private final int virtualNodes;
+    private final byte[] token;
+    private final Duration forwardTimeout;
+    private final HttpClient httpClient;
+    private final Counter forwarded;
+    private final Counter fallbacks;
+    private final int failureThreshold;
+    private final Duration downTime;
+    private final ConcurrentMap<String, Integer> consecutiveFailures = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, Instant> downUntil = new ConcurrentHashMap<>();
+
+    private volatile ConsistentHashRing ring;
+
+    public PatientCacheCluster(PatientResponseCache patientResponseCache,
+                               MeterRegistry meterRegistry,
+                               @Value("${patient.cluster.self}") String self,
+                               @Value("${patient.cluster.members}") List<String> staticMembers,
+                               @Value("${patient.cluster.discovery.dir}") String discoveryDir,
+                               @Value("${patient.cluster.discovery.member-ttl}") Duration memberTtl,
+                               @Value("${patient.cluster.virtual-nodes}") int virtualNodes,
+                               @Value("${patient.cluster.token}") String token,
+                               @Value("${patient.cluster.forward-timeout}") Duration forwardTimeout,
+                               @Value("${patient.cluster.failure-threshold}") int failureThreshold,
+                               @Value("${patient.cluster.down-time}") Duration downTime) {
+        this.patientResponseCache = patientResponseCache;
+        this.self = self;
+        this.staticMembers = staticMembers;
+        this.discoveryDir = discoveryDir.isBlank() ? null : Path.of(discoveryDir);
+        this.memberTtl = memberTtl;
+        this.virtualNodes = virtualNodes;
+        this.token = token.getBytes(StandardCharsets.UTF_8);
+        this.forwardTimeout = forwardTimeout;
+        this.failureThreshold = failureThreshold;
+        this.downTime = downTime;
+        this.httpClient = HttpClient.newBuilder()
+                .connectTimeout(forwardTimeout)
+                .build();
+        this.forwarded = lookupCounter(meterRegistry, "forwarded");
+        this.fallbacks = lookupCounter(meterRegistry, "fallback");
+        Gauge.builder("patient.cluster.members", this, cluster -> cluster.getMembers().size())
+                .description("Number of replicas sharing patient response cache")
+                .register(meterRegistry);
+    }
+
+    @PostConstruct
+    public void join() {
+        if (isEnabled()) {
+            if (token.length == 0) {
+                log.warn("Peer token is not set, forwarded lookups will be rejected by owners");
+            }
+
+            refreshMembership();
+        }
+    }
+
+    /**
+     * Removes own heartbeat file, so other members rebalance without waiting for member TTL
+     */
+    @PreDestroy
+    public void leave() {
+        if (isEnabled() && staticMembers.isEmpty() && discoveryDir != null) {
+            try {
+                Files.deleteIfExists(memberFile());
+            } catch (IOException e) {
+                log.warn("Cluster member file could not be deleted: {}", e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Renews own heartbeat and rebuilds the ring when members changed or a down member is taken out or rejoins
+     */
+    @Scheduled(fixedDelayString = "${patient.cluster.discovery.heartbeat-interval}")
+    public synchronized void refreshMembership() {
+        if (!isEnabled()) {
+            return;
+        }
+
+        Set<String> members = new TreeSet<>(staticMembers);
+
+        if (members.isEmpty() && discoveryDir != null) {
+            members.addAll(discoverMembers());
+        }
+
+        Instant now = Instant.now();
+        downUntil.values().removeIf(until -> !until.isAfter(now));
+        members.removeAll(downUntil.keySet());
+        members.add(self);
+        ConsistentHashRing current = ring;
+
+        if (current == null || !current.getMembers().equals(List.copyOf(members))) {
+            ring = new ConsistentHashRing(members, virtualNodes);
+            log.info("Patient cache cluster members: {}", members);
+
+            if (current != null) {
+                evictNotOwned();
+            }
+        }
+    }
+
+    public boolean isEnabled() {
+        return !self.isBlank();
+    }
+
+    /**
+     * @param id patient id
+     * @return true when this replica caches patient
+     */
+    public boolean isOwner(String id) {
+        ConsistentHashRing current = ring;
+
+        return current == null || self.equals(current.owner(id));
+    }
+
+    /**
+     * @param token peer token of request
+     * @return true when request comes from a member of this cluster
+     */
+    public boolean isTrustedPeer(String token) {
+        return isEnabled() && this.token.length > 0 && token != null
+                && MessageDigest.isEqual(this.token, token.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public List<String> getMembers() {
+        ConsistentHashRing current = ring;
+
+        return current == null ? List.of() : current.getMembers();
+    }
+
+    /**
+     * Fetches serialized patient from its owner, which serves it from its cache
+     *
+     * @param id patient id
+     * @return owner response, empty when owner is not reachable or did not find patient
+     */
+    public Optional<SerializedPatient> fetchFromOwner(String id) {
+        String owner = ring.owner(id);
+        HttpRequest.Builder request = HttpRequest.newBuilder(ownerUri(owner, id))
+                .header(PEER_TOKEN_HEADER, new String(token, StandardCharsets.UTF_8))
+                .header(HttpHeaders.ACCEPT, MediaType.APPLICATION_JSON_VALUE)
+                .timeout(forwardTimeout)
+                .GET();
+        String consistencyToken = ConsistencyTokenHolder.get();
+
+        if (consistencyToken != null) {
+            request.header(CONSISTENCY_TOKEN_HEADER, consistencyToken);
+        }
+
+        try {
+            HttpResponse<byte[]> response = httpClient.send(request.build(), HttpResponse.BodyHandlers.ofByteArray());
+            Optional<String> userId = response.headers().firstValue(PATIENT_USER_ID_HEADER);
+
+            if (response.statusCode() >= 500) {
+                recordFailure(owner);
+            } else {
+                consecutiveFailures.remove(owner);
+            }
+
+            if (response.statusCode() == 200 && userId.isPresent()) {
+                response.headers().firstValue(CONSISTENCY_TOKEN_HEADER).ifPresent(ConsistencyTokenHolder::set);
+                forwarded.increment();
+
+                return Optional.of(new SerializedPatient(userId.get(), response.body()));
+            }
+        } catch (IOException e) {
+            log.debug("Owner of patient {} is not reachable: {}", id, e.getMessage());
+            recordFailure(owner);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+
+        fallbacks.increment();
+
+        return Optional.empty();
+    }
+
+    /**
+     * Asks owner to evict its copy of changed patient, fire and forget since its entry expires after TTL anyway
+     *
+     * @param id patient id
+     */
+    public void hintInvalidate(String id) {
+        if (isOwner(id)) {
+            return;
+        }
+
+        String owner = ring.owner(id);
+        HttpRequest request = HttpRequest.newBuilder(URI.create(ownerUri(owner, id) + "/cache"))
+                .header(PEER_TOKEN_HEADER, new String(token, StandardCharsets.UTF_8))
+                .timeout(forwardTimeout)
+                .DELETE()
+                .build();
+        httpClient.sendAsync(request, HttpResponse.BodyHandlers.discarding())
+                .exceptionally(e -> {
+                    log.debug("Owner of patient {} was not hinted: {}", id, e.getMessage());
+                    recordFailure(owner);
+                    return null;
+                });
+    }
+
+    private static URI ownerUri(String owner, String id) {
+        return URI.create(owner + INTERNAL_PATIENTS_PATH + URLEncoder.encode(id, StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Counts failed call to member and takes it out of the ring once failure threshold is reached
+     */
+    private void recordFailure(String member) {
+        if (consecutiveFailures.merge(member, 1, Integer::sum) < failureThreshold) {
+            return;
+        }
+
+        consecutiveFailures.remove(member);
+
+        if (downUntil.putIfAbsent(member, Instant.now().plus(downTime)) == null) {
+            log.warn("Cluster member {} failed {} calls in a row, taken out of ring for {}", member,
+                    failureThreshold, downTime);
+            refreshMembership();
+        }
+    }
+
+    /**
+     * Touches own member file and lists members whose file is younger than member TTL
+     */
+    private List<String> discoverMembers() {
+        List<String> members = new ArrayList<>();
+
+        try {
+            Files.createDirectories(discoveryDir);
+            Path memberFile = memberFile();
+
+            if (Files.exists(memberFile)) {
+                Files.setLastModifiedTime(memberFile, FileTime.from(Instant.now()));
+            } else {
+                Files.writeString(memberFile, self);
+            }
+
+            Instant aliveAfter = Instant.now().minus(memberTtl);
+
+            try (DirectoryStream<Path> files = Files.newDirectoryStream(discoveryDir, "*" + MEMBER_FILE_SUFFIX)) {
+                for (Path file : files) {
+                    readMember(file, aliveAfter).ifPresent(members::add);
+                }
+            }
+        } catch (IOException e) {
+            log.warn("Cluster discovery directory {} could not be read: {}", discoveryDir, e.getMessage());
+        }
+
+        return members;
+    }
+
+    private static Optional<String> readMember(Path file, Instant aliveAfter) {
+        try {
+            return Files.getLastModifiedTime(file).toInstant().isAfter(aliveAfter)
+                    ? Optional.of(Files.readString(file).trim())
+                    : Optional.empty();
+        } catch (IOException e) {
+            // member left while directory was listed
+            return Optional.empty();
+        }
+    }
+
+    private Path memberFile() {
+        return discoveryDir.resolve(URLEncoder.encode(self, StandardCharsets.UTF_8) + MEMBER_FILE_SUFFIX);
+    }
+
+    /**
+     * Evicts entries moved to other members, collected first since entries can not change while visited
+     */
+    private void evictNotOwned() {
+        List<String> notOwned = new ArrayList<>();
+        patientResponseCache.forEachEntry((id, userId, json, expiresAt) -> {
+            if (!isOwner(id)) {
+                notOwned.add(id);
+            }
+        });
+        notOwned.forEach(patientResponseCache::invalidate);
+        log.info("Evicted {} cached patients owned by other members", notOwned.size());
+    }
+
+    private static Counter lookupCounter(MeterRegistry meterRegistry, String result) {
+        return Counter.builder("patient.cluster.lookups")
+                .description("Lookups of patients owned by other members")
+                .tag("result", result)
+                .register(meterRegistry);
+    }
+}
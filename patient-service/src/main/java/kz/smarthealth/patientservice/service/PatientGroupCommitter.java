@@ -0,0 +1,201 @@
+package kz.smarthealth.patientservice.service;
+
+import com.mongodb.MongoBulkWriteException;
+import com.mongodb.MongoWriteException;
+import com.mongodb.bulk.BulkWriteError;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import kz.smarthealth.patientservice.exception.CustomException;
+import kz.smarthealth.patientservice.model.entity.PatientDocument;
+import kz.smarthealth.patientservice.repository.PatientRepository;
+import kz.smarthealth.patientservice.util.ConsistencyTokenHolder;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import static kz.smarthealth.patientservice.util.AppConstants.WRITE_CONCERN_API;
+import static kz.smarthealth.patientservice.util.MessageSource.GROUP_COMMIT_TIMED_OUT;
+
+/**
+ * Group commit of concurrent patient creates. Creates arriving within a short window, or until batch is full, are
+ * written with a single insertMany by one committer thread. Every caller gets its own generated id or its own
+ * write error. Patients with a client-supplied id are written directly with replace semantics.
+ */
+@Slf4j
+@Service
+public class PatientGroupCommitter {
+
+    private final PatientRepository patientRepository;
+    private final boolean enabled;
+    private final long windowNanos;
+    private final int maxBatchSize;
+    private final long timeoutMs;
+    private final BlockingQueue<PendingInsert> queue = new LinkedBlockingQueue<>();
+    private final DistributionSummary batchSizeSummary;
+    private final Thread committerThread;
+    private volatile boolean stopped;
+
+    public PatientGroupCommitter(PatientRepository patientRepository,
+                                 MeterRegistry meterRegistry,
+                                 @Value("${patient.group-commit.enabled}") boolean enabled,
+                                 @Value("${patient.group-commit.window-ms}") long windowMs,
+                                 @Value("${patient.group-commit.max-batch-size}") int maxBatchSize,
+                                 @Value("${patient.group-commit.timeout-ms}") long timeoutMs) {
+        this.patientRepository = patientRepository;
+        this.enabled = enabled;
+        this.windowNanos = TimeUnit.MILLISECONDS.toNanos(windowMs);
+        this.maxBatchSize = maxBatchSize;
+        this.timeoutMs = timeoutMs;
+        this.batchSizeSummary = DistributionSummary.builder("patient.group.commit.batch.size")
+                .description("Number of creates written by one insertMany")
+                .publishPercentiles(0.5, 0.95, 0.99)
+                .register(meterRegistry);
+
+        if (enabled) {
+            committerThread = new Thread(this::commitLoop, "patient-group-committer");
+            committerThread.setDaemon(true);
+            committerThread.start();
+        } else {
+            committerThread = null;
+        }
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Queues patient for the next group commit and waits for its outcome at most timeout-ms
+     *
+     * @param patientDocument new patient without id, patients with client-supplied id are replaced by
+     *                        {@link PatientService} instead
+     * @return saved patient with generated id
+     */
+    public PatientDocument save(PatientDocument patientDocument) {
+        PendingInsert pendingInsert = new PendingInsert(patientDocument, new CompletableFuture<>());
+        queue.add(pendingInsert);
+
+        if (stopped) {
+            failPending(pendingInsert);
+        }
+
+        try {
+            String token = pendingInsert.result().get(timeoutMs, TimeUnit.MILLISECONDS);
+
+            if (token != null) {
+                ConsistencyTokenHolder.set(token);
+            }
+
+            return patientDocument;
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+
+            throw new IllegalStateException(e.getCause());
+        } catch (TimeoutException e) {
+            // only a still queued insert can be withdrawn, one already taken by committer may still be written
+            queue.remove(pendingInsert);
+            throw CustomException.builder()
+                    .httpStatus(HttpStatus.SERVICE_UNAVAILABLE)
+                    .error(GROUP_COMMIT_TIMED_OUT.name())
+                    .errorMessage(GROUP_COMMIT_TIMED_OUT.getText(String.valueOf(timeoutMs)))
+                    .build();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            queue.remove(pendingInsert);
+            throw new IllegalStateException("Interrupted while waiting for group commit", e);
+        }
+    }
+
+    /**
+     * Stops committer thread and fails every insert still waiting in queue, so no caller stays blocked on shutdown
+     */
+    @PreDestroy
+    public void stop() {
+        stopped = true;
+
+        if (committerThread != null) {
+            committerThread.interrupt();
+        }
+
+        PendingInsert pendingInsert;
+
+        while ((pendingInsert = queue.poll()) != null) {
+            failPending(pendingInsert);
+        }
+    }
+
+    private void commitLoop() {
+        List<PendingInsert> batch = new ArrayList<>(maxBatchSize);
+
+        while (!Thread.currentThread().isInterrupted()) {
+            try {
+                batch.add(queue.take());
+                long deadline = System.nanoTime() + windowNanos;
+
+                while (batch.size() < maxBatchSize) {
+                    PendingInsert next = queue.poll(deadline - System.nanoTime(), TimeUnit.NANOSECONDS);
+
+                    if (next == null) {
+                        break;
+                    }
+
+                    batch.add(next);
+                }
+
+                commit(batch);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } finally {
+                batch.forEach(PatientGroupCommitter::failPending);
+                batch.clear();
+            }
+        }
+    }
+
+    private void commit(List<PendingInsert> batch) {
+        batchSizeSummary.record(batch.size());
+        // inserts go to primary, callers' tokens are only needed for their following reads
+        ConsistencyTokenHolder.clear();
+
+        try {
+            patientRepository.insertAllCausal(batch.stream().map(PendingInsert::patientDocument).toList(),
+                    WRITE_CONCERN_API);
+            String token = ConsistencyTokenHolder.get();
+            batch.forEach(pendingInsert -> pendingInsert.result().complete(token));
+        } catch (MongoBulkWriteException e) {
+            String token = ConsistencyTokenHolder.get();
+
+            for (BulkWriteError error : e.getWriteErrors()) {
+                batch.get(error.getIndex()).result()
+                        .completeExceptionally(new MongoWriteException(error, e.getServerAddress()));
+            }
+
+            batch.forEach(pendingInsert -> pendingInsert.result().complete(token));
+        } catch (RuntimeException e) {
+            log.error("Group commit of {} patients failed: {}", batch.size(), e.getMessage());
+            batch.forEach(pendingInsert -> pendingInsert.result().completeExceptionally(e));
+        } finally {
+            ConsistencyTokenHolder.clear();
+        }
+    }
+
+    private static void failPending(PendingInsert pendingInsert) {
+        pendingInsert.result().completeExceptionally(new IllegalStateException("Group commit stopped"));
+    }
+
+    private record PendingInsert(PatientDocument patientDocument, CompletableFuture<String> result) {
+    }
+}
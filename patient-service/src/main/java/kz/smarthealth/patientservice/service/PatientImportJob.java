@@ -0,0 +1,130 @@
+package kz.smarthealth.patientservice.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import kz.smarthealth.patientservice.model.dto.ImportFormat;
+import kz.smarthealth.patientservice.model.dto.ImportJobDTO;
+import kz.smarthealth.patientservice.model.dto.ImportJobStatus;
+import lombok.Getter;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.OffsetDateTime;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * State of one import: progress counters updated by parser and writer threads, and the file of rejected rows. Every
+ * rejected row is written as JSON line with its line number, raw text and errors.
+ */
+@Getter
+class PatientImportJob {
+
+    private final String id;
+    private final String userId;
+    private final ImportFormat format;
+    private final Charset charset;
+    private final Path spoolFile;
+    private final Path rejectedFile;
+    private final AtomicLong rowsRead = new AtomicLong();
+    private final AtomicLong imported = new AtomicLong();
+    private final AtomicLong rejected = new AtomicLong();
+
+    private volatile ImportJobStatus status = ImportJobStatus.QUEUED;
+    private volatile String error;
+    private volatile OffsetDateTime startedAt;
+    private volatile OffsetDateTime finishedAt;
+    private volatile long startNanos;
+    private volatile long finishNanos;
+    private Writer rejectedWriter;
+
+    PatientImportJob(String id, String userId, ImportFormat format, Charset charset, Path spoolFile,
+                     Path rejectedFile) {
+        this.id = id;
+        this.userId = userId;
+        this.format = format;
+        this.charset = charset;
+        this.spoolFile = spoolFile;
+        this.rejectedFile = rejectedFile;
+    }
+
+    synchronized void start() throws IOException {
+        rejectedWriter = Files.newBufferedWriter(rejectedFile, StandardCharsets.UTF_8);
+        startedAt = OffsetDateTime.now();
+        startNanos = System.nanoTime();
+        status = ImportJobStatus.RUNNING;
+    }
+
+    synchronized void finish() {
+        closeRejectedWriter();
+
+        if (status == ImportJobStatus.RUNNING) {
+            status = ImportJobStatus.COMPLETED;
+        }
+
+        finishedAt = OffsetDateTime.now();
+        finishNanos = System.nanoTime();
+    }
+
+    synchronized void fail(String error) {
+        if (status != ImportJobStatus.FAILED) {
+            this.error = error;
+            status = ImportJobStatus.FAILED;
+        }
+    }
+
+    boolean isFailed() {
+        return status == ImportJobStatus.FAILED;
+    }
+
+    boolean isFinished() {
+        return finishedAt != null;
+    }
+
+    /**
+     * Appends row to the rejected rows file, called by both parser and writer threads
+     */
+    synchronized void reject(long line, String row, List<String> errors, ObjectMapper objectMapper)
+            throws IOException {
+        Map<String, Object> rejectedRow = new LinkedHashMap<>();
+        rejectedRow.put("line", line);
+        rejectedRow.put("row", row);
+        rejectedRow.put("errors", errors);
+        rejectedWriter.write(objectMapper.writeValueAsString(rejectedRow));
+        rejectedWriter.write('\n');
+        rejected.incrementAndGet();
+    }
+
+    ImportJobDTO toDTO() {
+        long end = finishedAt != null ? finishNanos : System.nanoTime();
+        double seconds = startedAt == null ? 0 : (end - startNanos) / 1e9;
+
+        return ImportJobDTO.builder()
+                .id(id)
+                .status(status)
+                .format(format)
+                .rowsRead(rowsRead.get())
+                .imported(imported.get())
+                .rejected(rejected.get())
+                .rowsPerSecond(seconds > 0 ? imported.get() / seconds : 0)
+                .startedAt(startedAt)
+                .finishedAt(finishedAt)
+                .error(error)
+                .build();
+    }
+
+    private void closeRejectedWriter() {
+        try {
+            if (rejectedWriter != null) {
+                rejectedWriter.close();
+            }
+        } catch (IOException e) {
+            fail("Rejected rows file could not be written: " + e.getMessage());
+        }
+    }
+}
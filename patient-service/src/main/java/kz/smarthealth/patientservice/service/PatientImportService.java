@@ -0,0 +1,456 @@
+package kz.smarthealth.patientservice.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.dataformat.csv.CsvMapper;
+import com.fasterxml.jackson.dataformat.csv.CsvParser;
+import com.fasterxml.jackson.dataformat.csv.CsvSchema;
+import com.mongodb.MongoBulkWriteException;
+import com.mongodb.bulk.BulkWriteError;
+import jakarta.annotation.PreDestroy;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import kz.smarthealth.patientservice.exception.CustomException;
+import kz.smarthealth.patientservice.model.dto.ImportFormat;
+import kz.smarthealth.patientservice.model.dto.ImportJobDTO;
+import kz.smarthealth.patientservice.model.dto.PatientDTO;
+import kz.smarthealth.patientservice.model.entity.PatientDocument;
+import kz.smarthealth.patientservice.repository.PatientRepository;
+import kz.smarthealth.patientservice.util.ConsistencyTokenHolder;
+import lombok.extern.slf4j.Slf4j;
+import org.modelmapper.ModelMapper;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Service;
+import org.springframework.util.unit.DataSize;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static kz.smarthealth.patientservice.util.AppConstants.WRITE_CONCERN_API;
+import static kz.smarthealth.patientservice.util.MessageSource.IMPORT_JOBS_LIMIT_REACHED;
+import static kz.smarthealth.patientservice.util.MessageSource.IMPORT_JOB_NOT_FOUND;
+import static kz.smarthealth.patientservice.util.MessageSource.IMPORT_UPLOAD_TOO_LARGE;
+
+/**
+ * Bulk import of patients from NDJSON or CSV upload. Upload is spooled to a temp file, then parser thread reads it
+ * line by line, validates rows against {@link PatientDTO} constraints and hands batches to writer thread, which
+ * inserts them with unordered insertMany while the next batch is parsed. Heap holds at most
+ * {@code pipeline-depth + 2} batches whatever the file size. Jobs are kept in memory of the instance that accepted
+ * the upload until retention passes.
+ */
+@Slf4j
+@Service
+public class PatientImportService {
+
+    private static final List<Row> END_OF_IMPORT = List.of();
+
+    private final PatientRepository patientRepository;
+    private final PatientStatsService patientStatsService;
+    private final ModelMapper modelMapper;
+    private final Validator validator;
+    private final ObjectMapper objectMapper;
+    private final CsvMapper csvMapper;
+    private final int batchSize;
+    private final int pipelineDepth;
+    private final Duration retention;
+    private final int maxQueuedJobs;
+    private final long maxUploadBytes;
+    private final AtomicInteger queuedJobs = new AtomicInteger();
+    private final ExecutorService parsers;
+    private final ExecutorService writers;
+    private final Map<String, PatientImportJob> jobs = new ConcurrentHashMap<>();
+
+    public PatientImportService(PatientRepository patientRepository,
+                                PatientStatsService patientStatsService,
+                                ModelMapper modelMapper,
+                                Validator validator,
+                                ObjectMapper objectMapper,
+                                @Value("${patient.import.batch-size}") int batchSize,
+                                @Value("${patient.import.pipeline-depth}") int pipelineDepth,
+                                @Value("${patient.import.max-concurrent-jobs}") int maxConcurrentJobs,
+                                @Value("${patient.import.max-queued-jobs}") int maxQueuedJobs,
+                                @Value("${patient.import.max-upload-size}") DataSize maxUploadSize,
+                                @Value("${patient.import.retention}") Duration retention) {
+        this.patientRepository = patientRepository;
+        this.patientStatsService = patientStatsService;
+        this.modelMapper = modelMapper;
+        this.validator = validator;
+        this.objectMapper = objectMapper;
+        this.csvMapper = CsvMapper.builder().findAndAddModules().build();
+        this.batchSize = batchSize;
+        this.pipelineDepth = pipelineDepth;
+        this.retention = retention;
+        this.maxQueuedJobs = maxQueuedJobs;
+        this.maxUploadBytes = maxUploadSize.toBytes();
+        this.parsers = Executors.newFixedThreadPool(maxConcurrentJobs, daemonThreads("patient-import-parser"));
+        this.writers = Executors.newFixedThreadPool(maxConcurrentJobs, daemonThreads("patient-import-writer"));
+    }
+
+    /**
+     * Spools upload to disk and queues its import. Rejected with 429 while max-queued-jobs imports are queued or
+     * running and with 413 when upload is larger than max-upload-size.
+     *
+     * @param body    uploaded rows
+     * @param format  format of rows
+     * @param charset charset of rows
+     * @return queued job
+     */
+    public ImportJobDTO startImport(InputStream body, ImportFormat format, Charset charset) throws IOException {
+        if (queuedJobs.incrementAndGet() > maxQueuedJobs) {
+            queuedJobs.decrementAndGet();
+            throw CustomException.builder()
+                    .httpStatus(HttpStatus.TOO_MANY_REQUESTS)
+                    .error(IMPORT_JOBS_LIMIT_REACHED.name())
+                    .errorMessage(IMPORT_JOBS_LIMIT_REACHED.getText(String.valueOf(maxQueuedJobs)))
+                    .build();
+        }
+
+        String id = UUID.randomUUID().toString();
+        Path spoolFile = null;
+        Path rejectedFile = null;
+
+        try {
+            spoolFile = Files.createTempFile("patient-import-" + id, ".upload");
+            spool(body, spoolFile);
+            rejectedFile = Files.createTempFile("patient-import-" + id, ".rejected.ndjson");
+            PatientImportJob job = new PatientImportJob(id, authenticatedUserId(), format, charset, spoolFile,
+                    rejectedFile);
+            jobs.put(id, job);
+            parsers.execute(() -> run(job));
+
+            return job.toDTO();
+        } catch (IOException | RuntimeException e) {
+            queuedJobs.decrementAndGet();
+            jobs.remove(id);
+
+            if (spoolFile != null) {
+                deleteQuietly(spoolFile);
+            }
+
+            if (rejectedFile != null) {
+                deleteQuietly(rejectedFile);
+            }
+
+            throw e;
+        }
+    }
+
+    /**
+     * Fetches progress of import started by authenticated user
+     *
+     * @param id job id
+     * @return job progress
+     */
+    public ImportJobDTO getImportJob(String id) {
+        return getOwnJob(id).toDTO();
+    }
+
+    /**
+     * Returns file of rows rejected so far, as JSON lines with line number, raw row and errors
+     *
+     * @param id job id
+     * @return rejected rows file
+     */
+    public Path getRejectedRows(String id) {
+        return getOwnJob(id).getRejectedFile();
+    }
+
+    /**
+     * Forgets finished jobs after retention and deletes their files
+     */
+    @Scheduled(fixedDelayString = "${patient.import.cleanup-interval}")
+    public void removeExpiredJobs() {
+        OffsetDateTime expiredBefore = OffsetDateTime.now().minus(retention);
+
+        jobs.values().removeIf(job -> {
+            if (!job.isFinished() || job.getFinishedAt().isAfter(expiredBefore)) {
+                return false;
+            }
+
+            deleteQuietly(job.getRejectedFile());
+
+            return true;
+        });
+    }
+
+    @PreDestroy
+    public void stop() {
+        parsers.shutdownNow();
+        writers.shutdownNow();
+    }
+
+    private void run(PatientImportJob job) {
+        BlockingQueue<List<Row>> batches = new ArrayBlockingQueue<>(pipelineDepth);
+        Future<?> writer = null;
+
+        try {
+            job.start();
+            writer = writers.submit(() -> writeBatches(job, batches));
+            parse(job, batches);
+            batches.put(END_OF_IMPORT);
+            writer.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            job.fail("Import interrupted");
+        } catch (IOException | RuntimeException e) {
+            log.error("Import {} failed: {}", job.getId(), e.getMessage());
+            job.fail("Import failed: " + e.getMessage());
+        } catch (ExecutionException e) {
+            job.fail("Import failed: " + e.getCause().getMessage());
+        } finally {
+            if (writer != null && !writer.isDone()) {
+                writer.cancel(true);
+            }
+
+            job.finish();
+            deleteQuietly(job.getSpoolFile());
+            queuedJobs.decrementAndGet();
+            log.info("Import {} finished: {}", job.getId(), job.toDTO());
+        }
+    }
+
+    /**
+     * Reads rows one by one, valid rows are handed to writer in batches, blocking while writer is pipeline depth
+     * batches behind
+     */
+    private void parse(PatientImportJob job, BlockingQueue<List<Row>> batches)
+            throws IOException, InterruptedException {
+        try (BufferedReader reader = Files.newBufferedReader(job.getSpoolFile(), job.getCharset())) {
+            ObjectReader rowReader = job.getFormat() == ImportFormat.CSV
+                    ? csvRowReader(reader.readLine())
+                    : objectMapper.readerFor(PatientDTO.class);
+            long line = job.getFormat() == ImportFormat.CSV ? 1 : 0;
+            List<Row> batch = new ArrayList<>(batchSize);
+            String raw;
+
+            while ((raw = reader.readLine()) != null && !job.isFailed()) {
+                line++;
+
+                if (raw.isBlank()) {
+                    continue;
+                }
+
+                job.getRowsRead().incrementAndGet();
+                PatientDocument patientDocument = toPatientDocument(job, line, raw, rowReader);
+
+                if (patientDocument == null) {
+                    continue;
+                }
+
+                batch.add(new Row(line, raw, patientDocument));
+
+                if (batch.size() == batchSize) {
+                    batches.put(batch);
+                    batch = new ArrayList<>(batchSize);
+                }
+            }
+
+            if (!batch.isEmpty()) {
+                batches.put(batch);
+            }
+        }
+    }
+
+    /**
+     * Converts row to new patient, invalid row is rejected and null returned
+     */
+    private PatientDocument toPatientDocument(PatientImportJob job, long line, String raw, ObjectReader rowReader)
+            throws IOException {
+        PatientDTO patientDTO;
+
+        try {
+            patientDTO = rowReader.readValue(raw);
+        } catch (JsonProcessingException e) {
+            job.reject(line, raw, List.of(e.getOriginalMessage()), objectMapper);
+            return null;
+        }
+
+        Set<ConstraintViolation<PatientDTO>> violations = validator.validate(patientDTO);
+
+        if (!violations.isEmpty()) {
+            job.reject(line, raw, violations.stream()
+                    .map(violation -> violation.getPropertyPath() + ": " + violation.getMessage())
+                    .sorted()
+                    .toList(), objectMapper);
+            return null;
+        }
+
+        PatientDocument patientDocument = modelMapper.map(patientDTO, PatientDocument.class);
+        patientDocument.setCreatedAt(OffsetDateTime.now());
+
+        return patientDocument;
+    }
+
+    /**
+     * Copies upload to spool file, failing as soon as it grows past max upload size
+     */
+    private void spool(InputStream body, Path spoolFile) throws IOException {
+        try (OutputStream out = Files.newOutputStream(spoolFile)) {
+            byte[] buffer = new byte[8192];
+            long total = 0;
+            int read;
+
+            while ((read = body.read(buffer)) != -1) {
+                total += read;
+
+                if (total > maxUploadBytes) {
+                    throw CustomException.builder()
+                            .httpStatus(HttpStatus.PAYLOAD_TOO_LARGE)
+                            .error(IMPORT_UPLOAD_TOO_LARGE.name())
+                            .errorMessage(IMPORT_UPLOAD_TOO_LARGE.getText(String.valueOf(maxUploadBytes)))
+                            .build();
+                }
+
+                out.write(buffer, 0, read);
+            }
+        }
+    }
+
+    private ObjectReader csvRowReader(String header) throws IOException {
+        if (header == null) {
+            throw new IOException("CSV header is missing");
+        }
+
+        List<String> columns = csvMapper.readerForListOf(String.class).readValue(header);
+        CsvSchema.Builder schema = CsvSchema.builder();
+
+        for (String column : columns) {
+            schema.addColumn(column.trim());
+        }
+
+        return csvMapper.readerFor(PatientDTO.class)
+                .with(schema.build())
+                .with(CsvParser.Feature.EMPTY_STRING_AS_NULL);
+    }
+
+    private void writeBatches(PatientImportJob job, BlockingQueue<List<Row>> batches) {
+        try {
+            List<Row> batch;
+
+            // drains queue even after failure, so parser never blocks on a full queue
+            while ((batch = batches.take()) != END_OF_IMPORT) {
+                if (!job.isFailed()) {
+                    write(job, batch);
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void write(PatientImportJob job, List<Row> batch) {
+        try {
+            insert(job, batch);
+        } catch (IOException | RuntimeException e) {
+            log.error("Import {} failed to write batch: {}", job.getId(), e.getMessage());
+            job.fail("Batch could not be written: " + e.getMessage());
+        } finally {
+            // nobody reads imported rows back in this session
+            ConsistencyTokenHolder.clear();
+        }
+    }
+
+    /**
+     * Inserts batch, rows failed by the database (e.g. duplicate key) are rejected and the rest are still counted
+     */
+    private void insert(PatientImportJob job, List<Row> batch) throws IOException {
+        List<PatientDocument> patientDocuments = batch.stream().map(Row::patientDocument).toList();
+
+        try {
+            patientRepository.insertAllCausal(patientDocuments, WRITE_CONCERN_API);
+            job.getImported().addAndGet(patientDocuments.size());
+            patientStatsService.recordInserts(patientDocuments);
+        } catch (MongoBulkWriteException e) {
+            Set<Integer> failed = new HashSet<>();
+
+            for (BulkWriteError error : e.getWriteErrors()) {
+                Row row = batch.get(error.getIndex());
+                failed.add(error.getIndex());
+                job.reject(row.line(), row.raw(), List.of(error.getMessage()), objectMapper);
+            }
+
+            List<PatientDocument> inserted = new ArrayList<>(patientDocuments.size() - failed.size());
+
+            for (int i = 0; i < patientDocuments.size(); i++) {
+                if (!failed.contains(i)) {
+                    inserted.add(patientDocuments.get(i));
+                }
+            }
+
+            job.getImported().addAndGet(inserted.size());
+            patientStatsService.recordInserts(inserted);
+        }
+    }
+
+    private PatientImportJob getOwnJob(String id) {
+        PatientImportJob job = jobs.get(id);
+
+        if (job == null) {
+            throw CustomException.builder()
+                    .httpStatus(HttpStatus.BAD_REQUEST)
+                    .error(IMPORT_JOB_NOT_FOUND.name())
+                    .errorMessage(IMPORT_JOB_NOT_FOUND.getText(id))
+                    .build();
+        }
+
+        if (!authenticatedUserId().equals(job.getUserId())) {
+            throw CustomException.builder()
+                    .httpStatus(HttpStatus.FORBIDDEN)
+                    .build();
+        }
+
+        return job;
+    }
+
+    private static String authenticatedUserId() {
+        return SecurityContextHolder.getContext().getAuthentication().getName();
+    }
+
+    private static void deleteQuietly(Path file) {
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            log.warn("Import file {} could not be deleted: {}", file, e.getMessage());
+        }
+    }
+
+    private static ThreadFactory daemonThreads(String name) {
+        AtomicInteger counter = new AtomicInteger();
+
+        return runnable -> {
+            Thread thread = new Thread(runnable, name + "-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+
+            return thread;
+        };
+    }
+
+    private record Row(long line, String raw, PatientDocument patientDocument) {
+    }
+}
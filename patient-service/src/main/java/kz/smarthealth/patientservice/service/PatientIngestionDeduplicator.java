@@ -0,0 +1,121 @@
+package kz.smarthealth.patientservice.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import kz.smarthealth.patientservice.model.entity.PatientDocument;
+import org.apache.commons.lang3.StringUtils;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.common.header.Header;
+import org.bson.types.ObjectId;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+
+import static kz.smarthealth.patientservice.util.AppConstants.EVENT_ID_HEADER;
+
+/**
+ * Derives patient id from identity of the ingested event, so a redelivered event maps to the patient it already
+ * created. Identity is taken from the first configured source present in the record, id is the first 12 bytes of
+ * SHA-256 of the source and its value, i.e. a valid ObjectId. Only sources shared by producer retries of one event
+ * are supported, a record carrying none of them has no identity and is stored without deduplication.
+ */
+@Service
+public class PatientIngestionDeduplicator {
+
+    /**
+     * Sources of event identity
+     */
+    public enum EventKey {
+        /**
+         * Producer supplied event id header
+         */
+        EVENT_ID,
+        /**
+         * Record key, only when producer keys records by event rather than by user
+         */
+        RECORD_KEY,
+        /**
+         * User id and IIN of patient, one patient per person and user
+         */
+        USER_IIN
+    }
+
+    private final List<EventKey> eventKeys;
+    private final Counter deduplicated;
+    private final Counter notDeduplicated;
+
+    public PatientIngestionDeduplicator(MeterRegistry meterRegistry,
+                                        @Value("${kafka.ingestion.event-keys}") List<EventKey> eventKeys) {
+        if (eventKeys.isEmpty()) {
+            throw new IllegalArgumentException("At least one ingestion event key is required");
+        }
+
+        this.eventKeys = eventKeys;
+        this.deduplicated = Counter.builder("patient.ingestion.deduplicated")
+                .description("Ingested patient records already stored by an earlier delivery")
+                .register(meterRegistry);
+        this.notDeduplicated = Counter.builder("patient.ingestion.not-deduplicated")
+                .description("Ingested patient records without any configured event key, stored without deduplication")
+                .register(meterRegistry);
+    }
+
+    /**
+     * @param record          ingested record
+     * @param patientDocument patient of record
+     * @return ObjectId hex string identifying patient of event, empty when record has none of the event keys
+     */
+    public Optional<String> toPatientId(ConsumerRecord<String, String> record, PatientDocument patientDocument) {
+        for (EventKey eventKey : eventKeys) {
+            String value = switch (eventKey) {
+                case EVENT_ID -> {
+                    Header header = record.headers().lastHeader(EVENT_ID_HEADER);
+                    yield header == null ? null : new String(header.value(), StandardCharsets.UTF_8);
+                }
+                case RECORD_KEY -> record.key();
+                case USER_IIN -> StringUtils.isAnyBlank(patientDocument.getUserId(), patientDocument.getIin())
+                        ? null
+                        : patientDocument.getUserId() + "/" + patientDocument.getIin();
+            };
+
+            if (!StringUtils.isBlank(value)) {
+                return Optional.of(hash(eventKey + ":" + value));
+            }
+        }
+
+        return Optional.empty();
+    }
+
+    /**
+     * Counts record whose patient was already stored
+     */
+    public void recordDuplicate() {
+        deduplicated.increment();
+    }
+
+    /**
+     * Counts record stored without deduplication for having none of the event keys
+     */
+    public void recordNotDeduplicated() {
+        notDeduplicated.increment();
+    }
+
+    public List<EventKey> getEventKeys() {
+        return eventKeys;
+    }
+
+    private static String hash(String value) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(value.getBytes(StandardCharsets.UTF_8));
+
+            return new ObjectId(Arrays.copyOf(digest, 12)).toHexString();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,132 @@
+package kz.smarthealth.patientservice.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import kz.smarthealth.patientservice.aop.Log;
+import kz.smarthealth.patientservice.model.dto.DeletePatientsCommandDTO;
+import kz.smarthealth.patientservice.model.entity.PatientDocument;
+import kz.smarthealth.patientservice.model.event.KafkaRecordEvent;
+import kz.smarthealth.patientservice.repository.PatientRepository;
+import kz.smarthealth.patientservice.util.KafkaTracing;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.stereotype.Service;
+
+import java.time.OffsetDateTime;
+import java.util.List;
+import java.util.Optional;
+
+import static kz.smarthealth.patientservice.service.KafkaBackpressureService.NEW_PATIENTS_LISTENER_ID;
+import static kz.smarthealth.patientservice.util.AppConstants.WRITE_CONCERN_INGESTION;
+
+@Service
+@Slf4j
+@RequiredArgsConstructor
+public class PatientKafkaConsumerService {
+
+    public static final String DELETE_PATIENTS_LISTENER_ID = "delete-patients";
+
+    private final PatientRepository patientRepository;
+    private final ObjectMapper objectMapper;
+    private final KafkaBackpressureService kafkaBackpressureService;
+    private final PatientStatsService patientStatsService;
+    private final PatientService patientService;
+    private final KafkaTracing kafkaTracing;
+    private final PatientIngestionDeduplicator patientIngestionDeduplicator;
+
+    @Log
+    @KafkaListener(id = NEW_PATIENTS_LISTENER_ID, topics = "${kafka.topics.new-patients}",
+            groupId = "kafka.topics.new-patients-group-id")
+    public void consume(ConsumerRecord<String, String> record) throws JsonProcessingException {
+        process(record, () -> savePatient(record));
+    }
+
+    /**
+     * Deletes all patients of user on request of user-service
+     *
+     * @param record delete patients command
+     */
+    @Log
+    @KafkaListener(id = DELETE_PATIENTS_LISTENER_ID, topics = "${kafka.topics.delete-patients}",
+            groupId = "${kafka.topics.delete-patients-group-id}")
+    public void consumeDeletePatients(ConsumerRecord<String, String> record) throws JsonProcessingException {
+        process(record, () -> deletePatients(record.value()));
+    }
+
+    /**
+     * Handles record in consumer span of its trace and emits {@link KafkaRecordEvent}
+     */
+    private <E extends Exception> void process(ConsumerRecord<String, String> record,
+                                               KafkaTracing.RecordHandler<E> handler) throws E {
+        KafkaRecordEvent event = new KafkaRecordEvent();
+        event.begin();
+        boolean success = false;
+
+        try {
+            kafkaTracing.consume(record, handler);
+            success = true;
+        } finally {
+            event.end();
+
+            if (event.shouldCommit()) {
+                event.setTopic(record.topic());
+                event.setPartition(record.partition());
+                event.setOffset(record.offset());
+                event.setLatency(record.timestamp() < 0 ? 0 : System.currentTimeMillis() - record.timestamp());
+                event.setSuccess(success);
+                event.commit();
+            }
+        }
+    }
+
+    /**
+     * Inserts patient under id derived from the event, redelivered events find it already stored and are skipped.
+     * Records without event identity could not be told apart from producer retries, they are inserted under new id
+     * without deduplication, as before deduplication was introduced.
+     */
+    private void savePatient(ConsumerRecord<String, String> record) throws JsonProcessingException {
+        PatientDocument patientDocument = objectMapper.readValue(record.value(), PatientDocument.class);
+        Optional<String> patientId = patientIngestionDeduplicator.toPatientId(record, patientDocument);
+        patientDocument.setId(patientId.orElse(null));
+        patientDocument.setCreatedAt(OffsetDateTime.now());
+        long start = System.nanoTime();
+        boolean success = false;
+        boolean inserted;
+
+        try {
+            if (patientId.isPresent()) {
+                inserted = patientRepository.insertIfAbsent(patientDocument, WRITE_CONCERN_INGESTION);
+            } else {
+                patientRepository.saveWithWriteConcern(patientDocument, WRITE_CONCERN_INGESTION);
+                inserted = true;
+            }
+
+            success = true;
+        } finally {
+            kafkaBackpressureService.record(System.nanoTime() - start, success);
+        }
+
+        if (patientId.isEmpty()) {
+            patientIngestionDeduplicator.recordNotDeduplicated();
+            log.warn("Record {}-{}@{} has none of event keys {}, patient {} inserted without deduplication",
+                    record.topic(), record.partition(), record.offset(), patientIngestionDeduplicator.getEventKeys(),
+                    patientDocument.getId());
+        }
+
+        if (inserted) {
+            patientStatsService.recordInserts(List.of(patientDocument));
+        } else {
+            patientIngestionDeduplicator.recordDuplicate();
+            log.info("Patient {} of record {}-{}@{} already stored, skipped", patientDocument.getId(), record.topic(),
+                    record.partition(), record.offset());
+        }
+    }
+
+    private void deletePatients(String message) throws JsonProcessingException {
+        DeletePatientsCommandDTO command = objectMapper.readValue(message, DeletePatientsCommandDTO.class);
+        long deletedCount = patientService.deleteAllPatientsOfUser(command.getUserId()).getDeletedCount();
+        log.info("Deleted {} patients of user {}", deletedCount, command.getUserId());
+    }
+}
@@ -0,0 +1,51 @@
+package kz.smarthealth.patientservice.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import kz.smarthealth.patientservice.model.entity.PatientDocument;
+import kz.smarthealth.patientservice.repository.PatientRepository;
+import kz.smarthealth.patientservice.util.ConsistencyTokenHolder;
+import kz.smarthealth.patientservice.util.SingleFlight;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Shares one Mongo query between concurrent reads of the same patient or the same user's patients. Consistency
+ * token is part of the key, so a caller never gets result of a read older than its own last write. Returned
+ * documents are shared between callers and must not be modified.
+ */
+@Service
+public class PatientReadCoalescer {
+
+    private final PatientRepository patientRepository;
+    private final SingleFlight<ReadKey, Optional<PatientDocument>> byIdFlight;
+    private final SingleFlight<ReadKey, List<PatientDocument>> byUserIdFlight;
+
+    public PatientReadCoalescer(PatientRepository patientRepository, MeterRegistry meterRegistry) {
+        this.patientRepository = patientRepository;
+        this.byIdFlight = new SingleFlight<>(coalescedCounter(meterRegistry, "findById"));
+        this.byUserIdFlight = new SingleFlight<>(coalescedCounter(meterRegistry, "findAllByUserId"));
+    }
+
+    public Optional<PatientDocument> findById(String id) {
+        return byIdFlight.execute(new ReadKey(id, ConsistencyTokenHolder.get()),
+                () -> patientRepository.findByIdCausal(id));
+    }
+
+    public List<PatientDocument> findAllByUserId(String userId) {
+        return byUserIdFlight.execute(new ReadKey(userId, ConsistencyTokenHolder.get()),
+                () -> patientRepository.findAllByUserIdCausal(userId));
+    }
+
+    private static Counter coalescedCounter(MeterRegistry meterRegistry, String operation) {
+        return Counter.builder("patient.read.coalesced")
+                .description("Reads served by a query already in flight for the same key")
+                .tag("operation", operation)
+                .register(meterRegistry);
+    }
+
+    private record ReadKey(String key, String consistencyToken) {
+    }
+}
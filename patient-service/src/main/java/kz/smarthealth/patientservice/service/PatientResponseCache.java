@@ -0,0 +1,413 @@
+package kz.smarthealth.patientservice.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import kz.smarthealth.patientservice.model.dto.PatientDTO;
+import kz.smarthealth.patientservice.model.dto.SerializedPatient;
+import kz.smarthealth.patientservice.model.event.ResponseCacheEvent;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.nio.ByteBuffer;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.StampedLock;
+
+/**
+ * Off-heap store of serialized patient responses keyed by patient id. JSON bytes live in direct buffer slabs split
+ * into fixed size slots, only small index stays on heap. Slots are evicted with CLOCK (second chance), entries
+ * expire after TTL so that changes made through other replicas become visible. Every invalidation bumps a counter of
+ * the id's stripe, a put carries the counter read before its patient was loaded and is dropped when it changed, so a
+ * load racing with a write can not cache the old patient.
+ */
+@Service
+public class PatientResponseCache {
+
+    private static final int SLAB_SIZE = 8 * 1024 * 1024;
+    private static final int INVALIDATION_STRIPES = 1024;
+
+    private final ObjectMapper objectMapper;
+    private final boolean enabled;
+    private final int slotSize;
+    private final int slotsPerSlab;
+    private final int slotCount;
+    private final long ttlNanos;
+    private final ByteBuffer[] slabs;
+    private final String[] slotIds;
+    private final String[] slotUserIds;
+    private final int[] slotLengths;
+    private final long[] slotExpiresAt;
+    private final long[] slotVersions;
+    private final boolean[] referenced;
+    private final long[] invalidations = new long[INVALIDATION_STRIPES];
+    private final Map<String, Integer> index = new HashMap<>();
+    private final Deque<Integer> freeSlots = new ArrayDeque<>();
+    private final StampedLock lock = new StampedLock();
+    private final Counter hits;
+    private final Counter misses;
+
+    private int hand;
+
+    public PatientResponseCache(ObjectMapper objectMapper,
+                                MeterRegistry meterRegistry,
+                                @Value("${patient.response-cache.enabled}") boolean enabled,
+                                @Value("${patient.response-cache.capacity-mb}") int capacityMb,
+                                @Value("${patient.response-cache.slot-size}") int slotSize,
+                                @Value("${patient.response-cache.ttl}") Duration ttl) {
+        this.objectMapper = objectMapper;
+        this.enabled = enabled;
+        this.slotSize = slotSize;
+        this.slotsPerSlab = SLAB_SIZE / slotSize;
+        this.ttlNanos = ttl.toNanos();
+
+        int slabCount = enabled ? Math.max(1, (int) ((long) capacityMb * 1024 * 1024 / SLAB_SIZE)) : 0;
+        this.slotCount = slabCount * slotsPerSlab;
+        this.slabs = new ByteBuffer[slabCount];
+
+        for (int i = 0; i < slabCount; i++) {
+            slabs[i] = ByteBuffer.allocateDirect(SLAB_SIZE);
+        }
+
+        this.slotIds = new String[slotCount];
+        this.slotUserIds = new String[slotCount];
+        this.slotLengths = new int[slotCount];
+        this.slotExpiresAt = new long[slotCount];
+        this.slotVersions = new long[slotCount];
+        this.referenced = new boolean[slotCount];
+
+        for (int slot = 0; slot < slotCount; slot++) {
+            freeSlots.add(slot);
+        }
+
+        hits = cacheCounter(meterRegistry, "hit");
+        misses = cacheCounter(meterRegistry, "miss");
+        Gauge.builder("patient.response.cache.size", this, PatientResponseCache::size)
+                .description("Number of cached patient responses")
+                .register(meterRegistry);
+        Gauge.builder("patient.response.cache.capacity.bytes", () -> (long) slotCount * slotSize)
+                .description("Off-heap capacity of patient response cache")
+                .register(meterRegistry);
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Hit is served from off-heap slot without copying it to heap, returned response is a read-only view of the slot
+     * guarded by slot version, so reuse of the slot before the view is read is detected
+     *
+     * @param id patient id
+     * @return cached response or null
+     */
+    public SerializedPatient get(String id) {
+        if (!enabled) {
+            return null;
+        }
+
+        long stamp = lock.readLock();
+
+        try {
+            Integer slot = index.get(id);
+
+            if (slot == null || System.nanoTime() - slotExpiresAt[slot] >= 0) {
+                misses.increment();
+                recordLookup(id, false);
+                return null;
+            }
+
+            ByteBuffer json = slabs[slot / slotsPerSlab]
+                    .slice((slot % slotsPerSlab) * slotSize, slotLengths[slot])
+                    .asReadOnlyBuffer();
+            long version = slotVersions[slot];
+            // benign race, only ever set to true by readers
+            referenced[slot] = true;
+            hits.increment();
+            recordLookup(id, true);
+
+            return new SerializedPatient(slotUserIds[slot], json,
+                    (view, target) -> copySlot(slot, version, view, target));
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    /**
+     * Must be taken before patient is loaded for {@link #put(PatientDTO, long)}
+     *
+     * @param id patient id
+     * @return invalidation stamp of patient
+     */
+    public long loadStamp(String id) {
+        long stamp = lock.readLock();
+
+        try {
+            return invalidations[stripe(id)];
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    /**
+     * Serializes patient and stores it when it fits into a slot and was not invalidated since it was loaded
+     *
+     * @param patientDTO patient
+     * @param loadStamp  stamp taken before patient was loaded
+     * @return serialized patient
+     */
+    public SerializedPatient put(PatientDTO patientDTO, long loadStamp) {
+        SerializedPatient serializedPatient = serialize(patientDTO);
+        store(patientDTO.getId(), patientDTO.getUserId(), serializedPatient.getJson(), loadStamp,
+                System.nanoTime() + ttlNanos);
+
+        return serializedPatient;
+    }
+
+    /**
+     * Serializes patient without storing it
+     *
+     * @param patientDTO patient
+     * @return serialized patient
+     */
+    public SerializedPatient serialize(PatientDTO patientDTO) {
+        try {
+            return new SerializedPatient(patientDTO.getUserId(), objectMapper.writeValueAsBytes(patientDTO));
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Stores already serialized response, e.g. one restored from snapshot, keeping its original expiry so a restart
+     * does not extend its life. Expiry is capped by TTL in case wall clock moved back.
+     *
+     * @param id        patient id
+     * @param userId    owner of patient
+     * @param json      serialized patient
+     * @param expiresAt wall clock expiry time in epoch millis
+     * @return true when response has not expired, fits into a slot and was stored
+     */
+    public boolean restore(String id, String userId, ByteBuffer json, long expiresAt) {
+        long ttlLeftNanos = TimeUnit.MILLISECONDS.toNanos(expiresAt - System.currentTimeMillis());
+
+        if (ttlLeftNanos <= 0) {
+            return false;
+        }
+
+        return store(id, userId, json, loadStamp(id), System.nanoTime() + Math.min(ttlLeftNanos, ttlNanos));
+    }
+
+    /**
+     * Passes every entry that has not expired to visitor together with its expiry as wall clock epoch millis, entries
+     * can not change until visitor returns. JSON is read-only view of the off-heap slot, valid only during the call.
+     *
+     * @param visitor entry visitor
+     * @return number of visited entries
+     */
+    public int forEachEntry(EntryVisitor visitor) {
+        if (!enabled) {
+            return 0;
+        }
+
+        long stamp = lock.readLock();
+
+        try {
+            long now = System.nanoTime();
+            long nowMillis = System.currentTimeMillis();
+            int visited = 0;
+
+            for (Map.Entry<String, Integer> entry : index.entrySet()) {
+                int slot = entry.getValue();
+
+                if (now - slotExpiresAt[slot] < 0) {
+                    visitor.visit(entry.getKey(), slotUserIds[slot], slabs[slot / slotsPerSlab]
+                            .slice((slot % slotsPerSlab) * slotSize, slotLengths[slot])
+                            .asReadOnlyBuffer(),
+                            nowMillis + TimeUnit.NANOSECONDS.toMillis(slotExpiresAt[slot] - now));
+                    visited++;
+                }
+            }
+
+            return visited;
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    /**
+     * @param id patient id
+     */
+    public void invalidate(String id) {
+        if (!enabled) {
+            return;
+        }
+
+        long stamp = lock.writeLock();
+
+        try {
+            invalidations[stripe(id)]++;
+            Integer slot = index.remove(id);
+
+            if (slot != null) {
+                release(slot);
+            }
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    /**
+     * Removes all entries
+     */
+    public void invalidateAll() {
+        if (!enabled) {
+            return;
+        }
+
+        long stamp = lock.writeLock();
+
+        try {
+            for (int i = 0; i < INVALIDATION_STRIPES; i++) {
+                invalidations[i]++;
+            }
+
+            index.values().forEach(this::release);
+            index.clear();
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    public int getSlotCount() {
+        return slotCount;
+    }
+
+    public int getSlotSize() {
+        return slotSize;
+    }
+
+    public int size() {
+        long stamp = lock.readLock();
+
+        try {
+            return index.size();
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    private boolean store(String id, String userId, ByteBuffer json, long loadStamp, long expiresAt) {
+        int length = json.remaining();
+
+        if (!enabled || length > slotSize) {
+            return false;
+        }
+
+        long stamp = lock.writeLock();
+
+        try {
+            if (invalidations[stripe(id)] != loadStamp) {
+                return false;
+            }
+
+            Integer slot = index.get(id);
+
+            if (slot == null) {
+                slot = freeSlots.isEmpty() ? evict() : freeSlots.poll();
+                index.put(id, slot);
+            }
+
+            slabs[slot / slotsPerSlab].put((slot % slotsPerSlab) * slotSize, json, json.position(), length);
+            slotIds[slot] = id;
+            slotUserIds[slot] = userId;
+            slotLengths[slot] = length;
+            slotExpiresAt[slot] = expiresAt;
+            slotVersions[slot]++;
+            referenced[slot] = false;
+
+            return true;
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    /**
+     * Advances clock hand giving referenced slots second chance, returns first unreferenced slot
+     */
+    private int evict() {
+        while (referenced[hand]) {
+            referenced[hand] = false;
+            hand = (hand + 1) % slotCount;
+        }
+
+        int victim = hand;
+        hand = (hand + 1) % slotCount;
+        index.remove(slotIds[victim]);
+        slotIds[victim] = null;
+        slotUserIds[victim] = null;
+        slotVersions[victim]++;
+
+        return victim;
+    }
+
+    private static int stripe(String id) {
+        return Math.floorMod(id.hashCode(), INVALIDATION_STRIPES);
+    }
+
+    /**
+     * Copies view of slot taken by {@link #get} unless slot was released or overwritten since then
+     */
+    private boolean copySlot(int slot, long version, ByteBuffer json, byte[] target) {
+        long stamp = lock.readLock();
+
+        try {
+            if (slotVersions[slot] != version) {
+                return false;
+            }
+
+            json.get(json.position(), target, 0, json.remaining());
+
+            return true;
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    private void release(int slot) {
+        slotIds[slot] = null;
+        slotUserIds[slot] = null;
+        slotVersions[slot]++;
+        referenced[slot] = false;
+        freeSlots.add(slot);
+    }
+
+    private static Counter cacheCounter(MeterRegistry meterRegistry, String result) {
+        return Counter.builder("patient.response.cache")
+                .description("Patient response cache lookups")
+                .tag("result", result)
+                .register(meterRegistry);
+    }
+
+    private static void recordLookup(String id, boolean hit) {
+        ResponseCacheEvent event = new ResponseCacheEvent();
+
+        if (event.isEnabled()) {
+            event.setPatientId(id);
+            event.setHit(hit);
+            event.commit();
+        }
+    }
+
+    @FunctionalInterface
+    public interface EntryVisitor {
+
+        void visit(String id, String userId, ByteBuffer json, long expiresAt);
+    }
+}
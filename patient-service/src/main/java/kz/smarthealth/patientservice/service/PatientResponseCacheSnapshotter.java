@@ -0,0 +1,225 @@
+package kz.smarthealth.patientservice.service;
+
+import kz.smarthealth.patientservice.repository.PatientRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.BsonTimestamp;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Keeps {@link PatientResponseCache} warm across restarts. On graceful shutdown, after web and gRPC servers stopped
+ * taking requests, live entries are written to a memory-mapped file together with Mongo operation time taken before
+ * the write. On startup, before servers accept requests, file is mapped and loaded, then ids changed between the
+ * operation time and the start of loading are read from change stream and evicted. Restored entries keep their
+ * original expiry. Snapshot is discarded when it is older than max age or changes since it are not known within
+ * catch-up timeout. File is deleted once loaded, so it is never applied twice.
+ * <p>
+ * File layout: magic, version, creation time millis, operation time, entry count, then entries of id, user id,
+ * expiry time millis and JSON, id, user id and JSON prefixed with their length.
+ */
+@Slf4j
+@Service
+public class PatientResponseCacheSnapshotter implements SmartLifecycle {
+
+    private static final int MAGIC = 0x50524353;
+    private static final int VERSION = 2;
+    private static final int HEADER_SIZE = 4 + 4 + 8 + 8 + 4;
+    // length prefixes, expiry and room for id and user id of usual length
+    private static final int ENTRY_OVERHEAD = 2 + 2 + 8 + 4 + 128;
+
+    private final PatientResponseCache patientResponseCache;
+    private final PatientRepository patientRepository;
+    private final Path file;
+    private final Duration maxAge;
+    private final Duration catchUpTimeout;
+
+    private volatile boolean running;
+
+    public PatientResponseCacheSnapshotter(PatientResponseCache patientResponseCache,
+                                           PatientRepository patientRepository,
+                                           @Value("${patient.response-cache.snapshot.path}") String path,
+                                           @Value("${patient.response-cache.snapshot.max-age}") Duration maxAge,
+                                           @Value("${patient.response-cache.snapshot.catch-up-timeout}")
+                                           Duration catchUpTimeout) {
+        this.patientResponseCache = patientResponseCache;
+        this.patientRepository = patientRepository;
+        this.file = path.isBlank() ? null : Path.of(path);
+        this.maxAge = maxAge;
+        this.catchUpTimeout = catchUpTimeout;
+    }
+
+    @Override
+    public void start() {
+        if (file != null && patientResponseCache.isEnabled() && Files.exists(file)) {
+            try {
+                load();
+            } catch (IOException | RuntimeException e) {
+                log.warn("Response cache snapshot {} could not be loaded: {}", file, e.getMessage());
+                patientResponseCache.invalidateAll();
+            } finally {
+                deleteSnapshot();
+            }
+        }
+
+        running = true;
+    }
+
+    @Override
+    public void stop() {
+        if (running && file != null && patientResponseCache.isEnabled()) {
+            try {
+                save();
+            } catch (IOException | RuntimeException e) {
+                log.warn("Response cache snapshot {} could not be written: {}", file, e.getMessage());
+            }
+        }
+
+        running = false;
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    /**
+     * Starts before and stops after web and gRPC servers
+     */
+    @Override
+    public int getPhase() {
+        return SmartLifecycle.DEFAULT_PHASE - 2;
+    }
+
+    void save() throws IOException {
+        long start = System.nanoTime();
+        // taken before entries are read, changes in between are replayed on load
+        Optional<BsonTimestamp> operationTime = patientRepository.currentOperationTime();
+
+        if (operationTime.isEmpty()) {
+            log.info("Mongo reports no operation time, response cache snapshot skipped");
+            return;
+        }
+
+        Path tempFile = file.resolveSibling(file.getFileName() + ".tmp");
+        long maxSize = HEADER_SIZE + (long) patientResponseCache.getSlotCount()
+                * (patientResponseCache.getSlotSize() + ENTRY_OVERHEAD);
+        AtomicInteger written = new AtomicInteger();
+
+        try (FileChannel channel = FileChannel.open(tempFile, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, maxSize);
+            buffer.putInt(MAGIC)
+                    .putInt(VERSION)
+                    .putLong(System.currentTimeMillis())
+                    .putLong(operationTime.get().getValue())
+                    .putInt(0);
+
+            patientResponseCache.forEachEntry((id, userId, json, expiresAt) -> {
+                byte[] idBytes = id.getBytes(StandardCharsets.UTF_8);
+                byte[] userIdBytes = userId.getBytes(StandardCharsets.UTF_8);
+
+                if (buffer.remaining() >= 2 + idBytes.length + 2 + userIdBytes.length + 8 + 4 + json.remaining()) {
+                    buffer.putShort((short) idBytes.length).put(idBytes)
+                            .putShort((short) userIdBytes.length).put(userIdBytes)
+                            .putLong(expiresAt)
+                            .putInt(json.remaining()).put(json);
+                    written.incrementAndGet();
+                }
+            });
+
+            buffer.putInt(HEADER_SIZE - 4, written.get());
+            buffer.force();
+            channel.truncate(buffer.position());
+        }
+
+        Files.move(tempFile, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        log.info("Response cache snapshot of {} entries written in {} ms", written.get(),
+                Duration.ofNanos(System.nanoTime() - start).toMillis());
+    }
+
+    void load() throws IOException {
+        long start = System.nanoTime();
+        // changes up to this time must be replayed before restored entries may be served
+        Optional<BsonTimestamp> loadTime = patientRepository.currentOperationTime();
+
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+
+            if (buffer.getInt() != MAGIC || buffer.getInt() != VERSION) {
+                log.warn("Response cache snapshot {} has unknown format, ignored", file);
+                return;
+            }
+
+            long createdAt = buffer.getLong();
+            BsonTimestamp operationTime = new BsonTimestamp(buffer.getLong());
+            int count = buffer.getInt();
+
+            if (System.currentTimeMillis() - createdAt > maxAge.toMillis()) {
+                log.info("Response cache snapshot {} is older than {}, ignored", file, maxAge);
+                return;
+            }
+
+            if (loadTime.isEmpty()) {
+                log.info("Mongo reports no operation time, response cache snapshot {} ignored", file);
+                return;
+            }
+
+            for (int i = 0; i < count; i++) {
+                String id = readString(buffer);
+                String userId = readString(buffer);
+                long expiresAt = buffer.getLong();
+                int length = buffer.getInt();
+                patientResponseCache.restore(id, userId, buffer.slice(buffer.position(), length), expiresAt);
+                buffer.position(buffer.position() + length);
+            }
+
+            AtomicInteger changed = new AtomicInteger();
+            boolean caughtUp = patientRepository.forEachChangedIdSince(operationTime, loadTime.get(), catchUpTimeout,
+                    id -> {
+                        patientResponseCache.invalidate(id);
+                        changed.incrementAndGet();
+                    });
+
+            if (!caughtUp) {
+                log.warn("Changes since response cache snapshot are not known, snapshot discarded");
+                patientResponseCache.invalidateAll();
+                return;
+            }
+
+            log.info("Response cache snapshot of {} entries loaded, {} changed since snapshot, in {} ms", count,
+                    changed.get(), Duration.ofNanos(System.nanoTime() - start).toMillis());
+        } catch (BufferUnderflowException | IndexOutOfBoundsException | IllegalArgumentException e) {
+            throw new IOException("Truncated response cache snapshot", e);
+        }
+    }
+
+    private void deleteSnapshot() {
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            log.warn("Response cache snapshot {} could not be deleted: {}", file, e.getMessage());
+        }
+    }
+
+    private static String readString(ByteBuffer buffer) {
+        byte[] bytes = new byte[Short.toUnsignedInt(buffer.getShort())];
+        buffer.get(bytes);
+
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,345 @@
+package kz.smarthealth.patientservice.service;
+
+import io.micrometer.observation.annotation.Observed;
+import kz.smarthealth.patientservice.config.PatientDocumentCodec.Field;
+import kz.smarthealth.patientservice.config.WarmUpRunner;
+import kz.smarthealth.patientservice.exception.CustomException;
+import kz.smarthealth.patientservice.model.dto.DeletedPatientsDTO;
+import kz.smarthealth.patientservice.model.dto.PatientDTO;
+import kz.smarthealth.patientservice.model.dto.ProjectedPatient;
+import kz.smarthealth.patientservice.model.dto.SerializedPatient;
+import kz.smarthealth.patientservice.model.dto.UserPatientsDTO;
+import kz.smarthealth.patientservice.model.entity.PatientDocument;
+import kz.smarthealth.patientservice.repository.PatientRepository;
+import kz.smarthealth.patientservice.util.ConsistencyTokenHolder;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.modelmapper.ModelMapper;
+import org.springframework.http.HttpStatus;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Service;
+
+import java.time.OffsetDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+import static kz.smarthealth.patientservice.util.AppConstants.DEFAULT_DATE;
+import static kz.smarthealth.patientservice.util.AppConstants.DEFAULT_OFFSET_DATE_TIME_FORMAT;
+import static kz.smarthealth.patientservice.util.AppConstants.WRITE_CONCERN_API;
+import static kz.smarthealth.patientservice.util.MessageSource.FIELDS_NOT_ALLOWED;
+import static kz.smarthealth.patientservice.util.MessageSource.PATIENT_BY_ID_NOT_FOUND;
+
+@Slf4j
+@Service
+@RequiredArgsConstructor
+@Observed(name = "patient.service")
+public class PatientService {
+
+    private static final String ID_FIELD = "id";
+    private static final DateTimeFormatter DATE_FORMATTER = DateTimeFormatter.ofPattern(DEFAULT_DATE);
+    private static final DateTimeFormatter DATE_TIME_FORMATTER =
+            DateTimeFormatter.ofPattern(DEFAULT_OFFSET_DATE_TIME_FORMAT);
+
+    private final PatientRepository patientRepository;
+    private final ModelMapper modelMapper;
+    private final PatientGroupCommitter patientGroupCommitter;
+    private final PatientReadCoalescer patientReadCoalescer;
+    private final PatientResponseCache patientResponseCache;
+    private final PatientCacheCluster patientCacheCluster;
+    private final PatientStatsService patientStatsService;
+
+    /**
+     * Creates new patient
+     *
+     * @param patientDTO patient data
+     * @return newly created patient
+     */
+    public PatientDTO savePatient(PatientDTO patientDTO) {
+        PatientDocument patientDocument = modelMapper.map(patientDTO, PatientDocument.class);
+        patientDocument.setCreatedAt(OffsetDateTime.now());
+
+        if (patientDocument.getId() != null) {
+            // client supplied id may belong to existing patient, which is replaced and uncounted
+            patientRepository.replaceCausal(patientDocument, PatientStatsService.COUNTED_FIELDS, WRITE_CONCERN_API)
+                    .ifPresent(replaced -> patientStatsService.recordDeletes(List.of(replaced)));
+            patientCacheCluster.hintInvalidate(patientDocument.getId());
+        } else {
+            patientDocument = patientGroupCommitter.isEnabled()
+                    ? patientGroupCommitter.save(patientDocument)
+                    : patientRepository.saveCausal(patientDocument, WRITE_CONCERN_API);
+        }
+
+        patientResponseCache.invalidate(patientDocument.getId());
+        patientStatsService.recordInserts(List.of(patientDocument));
+
+        return modelMapper.map(patientDocument, PatientDTO.class);
+    }
+
+    /**
+     * Fetches patient by id
+     *
+     * @param id patient id
+     * @return existing patient
+     */
+    public PatientDTO getPatientById(String id) {
+        PatientDocument patientDocument = getPatientEntityById(id);
+
+        return modelMapper.map(patientDocument, PatientDTO.class);
+    }
+
+    /**
+     * Fetches patient by id, serialized response is served from cache of replica owning patient
+     *
+     * @param id patient id
+     * @return existing patient serialized to JSON
+     */
+    public SerializedPatient getSerializedPatientById(String id) {
+        if (WarmUpRunner.isWarmUpRequest()) {
+            // warm-up must neither load replicas owning patients nor fill response cache with synthetic reads
+            return patientResponseCache.serialize(getPatientById(id));
+        }
+
+        if (patientCacheCluster.isOwner(id)) {
+            return getOwnedSerializedPatientById(id);
+        }
+
+        // owner unreachable or patient not found, read from DB without caching patient of another replica
+        return patientCacheCluster.fetchFromOwner(id)
+                .orElseGet(() -> patientResponseCache.serialize(getPatientById(id)));
+    }
+
+    /**
+     * Fetches patient owned by this replica, serialized response is served from cache when present. Request with
+     * consistency token skips cached response, which may predate the write the token stands for, and refreshes it.
+     *
+     * @param id patient id
+     * @return existing patient serialized to JSON
+     */
+    public SerializedPatient getOwnedSerializedPatientById(String id) {
+        if (ConsistencyTokenHolder.get() == null) {
+            SerializedPatient serializedPatient = patientResponseCache.get(id);
+
+            if (serializedPatient != null) {
+                return serializedPatient;
+            }
+        }
+
+        long loadStamp = patientResponseCache.loadStamp(id);
+
+        return patientResponseCache.put(getPatientById(id), loadStamp);
+    }
+
+    /**
+     * Fetches list of patients by user id
+     *
+     * @param userId user id
+     * @return list of patients
+     */
+    public List<PatientDTO> getPatientsByUserId(String userId) {
+        return patientReadCoalescer.findAllByUserId(userId).stream()
+                .map(document -> modelMapper.map(document, PatientDTO.class))
+                .toList();
+    }
+
+    /**
+     * Fetches patients of many users in one session, passing each user's patients on as soon as they are read
+     *
+     * @param userIds  user ids, duplicates are fetched once
+     * @param consumer receives patients grouped by user id in order of user ids
+     */
+    public void getPatientsByUserIds(List<String> userIds, Consumer<UserPatientsDTO> consumer) {
+        patientRepository.findAllByUserIdInCausal(new LinkedHashSet<>(userIds), (userId, patientDocuments) ->
+                consumer.accept(new UserPatientsDTO(userId, patientDocuments.stream()
+                        .map(patientDocument -> modelMapper.map(patientDocument, PatientDTO.class))
+                        .toList())));
+    }
+
+    /**
+     * Fetches only requested fields of patient by id
+     *
+     * @param id     patient id
+     * @param fields requested fields
+     * @return patient with requested fields
+     */
+    public ProjectedPatient getPatientById(String id, Set<String> fields) {
+        PatientDocument patientDocument = patientRepository.findByIdCausal(id, toProjectedFields(fields))
+                .orElseThrow(patientNotFound(id));
+
+        return toProjectedPatient(patientDocument, fields);
+    }
+
+    /**
+     * Fetches only requested fields of patients by user id
+     *
+     * @param userId user id
+     * @param fields requested fields
+     * @return list of patients with requested fields
+     */
+    public List<ProjectedPatient> getPatientsByUserId(String userId, Set<String> fields) {
+        return patientRepository.findAllByUserIdCausal(userId, toProjectedFields(fields)).stream()
+                .map(document -> toProjectedPatient(document, fields))
+                .toList();
+    }
+
+    /**
+     * Deletes patient by id
+     *
+     * @param id patient id
+     */
+    public void deletePatientById(String id) {
+        PatientDocument patientDocument = getPatientEntityById(id);
+        String authenticatedUserId = SecurityContextHolder.getContext().getAuthentication().getName();
+
+        if (!authenticatedUserId.equals(patientDocument.getUserId())) {
+            throw CustomException.builder()
+                    .httpStatus(HttpStatus.FORBIDDEN)
+                    .build();
+        }
+
+        patientRepository.deleteCausal(patientDocument, WRITE_CONCERN_API);
+        patientResponseCache.invalidate(id);
+        patientCacheCluster.hintInvalidate(id);
+        patientStatsService.recordDeletes(List.of(patientDocument));
+    }
+
+    /**
+     * Deletes all patients of authenticated user
+     *
+     * @param userId user id
+     * @return number of deleted patients
+     */
+    public DeletedPatientsDTO deletePatientsByUserId(String userId) {
+        String authenticatedUserId = SecurityContextHolder.getContext().getAuthentication().getName();
+
+        if (!authenticatedUserId.equals(userId)) {
+            throw CustomException.builder()
+                    .httpStatus(HttpStatus.FORBIDDEN)
+                    .build();
+        }
+
+        return deleteAllPatientsOfUser(userId);
+    }
+
+    /**
+     * Deletes all patients of user without ownership check, for trusted commands
+     *
+     * @param userId user id
+     * @return number of deleted patients
+     */
+    public DeletedPatientsDTO deleteAllPatientsOfUser(String userId) {
+        // patients read right before the delete come with fields needed to uncount them and evict them from cache
+        List<PatientDocument> patientDocuments = new ArrayList<>();
+        long deletedCount = patientRepository.deleteAllByUserIdCausal(userId, PatientStatsService.COUNTED_FIELDS,
+                patientDocuments::addAll, WRITE_CONCERN_API);
+        patientDocuments.forEach(patientDocument -> {
+            patientResponseCache.invalidate(patientDocument.getId());
+            patientCacheCluster.hintInvalidate(patientDocument.getId());
+        });
+
+        if (deletedCount == patientDocuments.size()) {
+            patientStatsService.recordDeletes(patientDocuments);
+        } else {
+            // concurrent writes to user's patients, counters are fixed by next rebuild
+            log.warn("Deleted {} patients of user {} while {} were read, stats are left to rebuild",
+                    deletedCount, userId, patientDocuments.size());
+        }
+
+        return new DeletedPatientsDTO(deletedCount);
+    }
+
+    /**
+     * Retrieves patient from DB
+     *
+     * @param id patient id
+     * @return patient
+     */
+    private PatientDocument getPatientEntityById(String id) {
+        return patientReadCoalescer.findById(id)
+                .orElseThrow(patientNotFound(id));
+    }
+
+    private static Supplier<CustomException> patientNotFound(String id) {
+        return () -> CustomException.builder()
+                .httpStatus(HttpStatus.BAD_REQUEST)
+                .error(PATIENT_BY_ID_NOT_FOUND.name())
+                .errorMessage(PATIENT_BY_ID_NOT_FOUND.getText(id))
+                .build();
+    }
+
+    /**
+     * Validates requested fields against patient fields, user id is always fetched for authorization
+     *
+     * @param fields requested fields
+     * @return fields to project
+     */
+    private static List<Field> toProjectedFields(Set<String> fields) {
+        List<Field> projectedFields = new ArrayList<>();
+        List<String> notAllowed = new ArrayList<>();
+        projectedFields.add(Field.USER_ID);
+
+        for (String name : fields) {
+            Optional<Field> field = Field.fromName(name);
+
+            if (field.isPresent()) {
+                projectedFields.add(field.get());
+            } else if (!ID_FIELD.equals(name)) {
+                notAllowed.add(name);
+            }
+        }
+
+        if (fields.isEmpty() || !notAllowed.isEmpty()) {
+            List<String> allowed = new ArrayList<>();
+            allowed.add(ID_FIELD);
+            Arrays.stream(Field.values()).map(Field::getName).forEach(allowed::add);
+
+            throw CustomException.builder()
+                    .httpStatus(HttpStatus.BAD_REQUEST)
+                    .error(FIELDS_NOT_ALLOWED.name())
+                    .errorMessage(FIELDS_NOT_ALLOWED.getText(notAllowed.toString(), allowed.toString()))
+                    .build();
+        }
+
+        return projectedFields;
+    }
+
+    private static ProjectedPatient toProjectedPatient(PatientDocument patientDocument, Set<String> fields) {
+        Map<String, Object> values = new LinkedHashMap<>();
+
+        for (String name : fields) {
+            values.put(name, ID_FIELD.equals(name)
+                    ? patientDocument.getId()
+                    : getFieldValue(patientDocument, Field.fromName(name).orElseThrow()));
+        }
+
+        return new ProjectedPatient(patientDocument.getUserId(), values);
+    }
+
+    /**
+     * Returns field value formatted the same way as in {@link PatientDTO}
+     */
+    private static Object getFieldValue(PatientDocument patientDocument, Field field) {
+        return switch (field) {
+            case USER_ID -> patientDocument.getUserId();
+            case FIRST_NAME -> patientDocument.getFirstName();
+            case LAST_NAME -> patientDocument.getLastName();
+            case BIRTH_DATE -> patientDocument.getBirthDate() == null
+                    ? null
+                    : DATE_FORMATTER.format(patientDocument.getBirthDate());
+            case PHONE_NUMBER -> patientDocument.getPhoneNumber();
+            case FAMILY_CONNECTION_ID -> patientDocument.getFamilyConnectionId();
+            case IIN -> patientDocument.getIin();
+            case CREATED_AT -> patientDocument.getCreatedAt() == null
+                    ? null
+                    : DATE_TIME_FORMATTER.format(patientDocument.getCreatedAt());
+        };
+    }
+}
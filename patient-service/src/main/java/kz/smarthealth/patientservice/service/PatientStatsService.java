@@ -0,0 +1,271 @@
+package kz.smarthealth.patientservice.service;
+
+import kz.smarthealth.patientservice.config.PatientDocumentCodec.Field;
+import kz.smarthealth.patientservice.model.dto.PatientStatsDTO;
+import kz.smarthealth.patientservice.model.entity.PatientDocument;
+import kz.smarthealth.patientservice.model.entity.PatientStatsDocument;
+import kz.smarthealth.patientservice.repository.PatientRepository;
+import kz.smarthealth.patientservice.repository.PatientStatsRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.OffsetDateTime;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static kz.smarthealth.patientservice.config.PatientDocumentCodec.Field.BIRTH_DATE;
+import static kz.smarthealth.patientservice.config.PatientDocumentCodec.Field.FAMILY_CONNECTION_ID;
+import static kz.smarthealth.patientservice.config.PatientDocumentCodec.Field.USER_ID;
+import static kz.smarthealth.patientservice.repository.PatientStatsRepository.SUMMARY_ID;
+
+/**
+ * Keeps patient counters in summary collection. Counters are incremented on every insert and delete, failed
+ * increments are logged and repaired by scheduled rebuild, which recomputes counters from patients collection in
+ * batches. Increments made while rebuild is running may be lost until the next rebuild. Every replica schedules the
+ * rebuild, a lease in the summary collection lets only one of them run it.
+ */
+@Service
+@Slf4j
+public class PatientStatsService {
+
+    private static final String TOTAL = "total";
+    private static final String USERS = "users";
+    private static final String PATIENTS_PER_USER = "patientsPerUser";
+    private static final String BIRTH_YEARS = "birthYears";
+    private static final String FAMILY_CONNECTIONS = "familyConnections";
+    private static final String UNKNOWN = "unknown";
+    private static final int[] AGE_BAND_LOWER_BOUNDS = {0, 18, 35, 50, 65};
+
+    /**
+     * Fields patients are counted by, enough to record a delete
+     */
+    public static final List<Field> COUNTED_FIELDS = List.of(USER_ID, BIRTH_DATE, FAMILY_CONNECTION_ID);
+
+    private final PatientStatsRepository patientStatsRepository;
+    private final PatientRepository patientRepository;
+    private final int rebuildBatchSize;
+    private final Duration rebuildLease;
+    private final String owner = UUID.randomUUID().toString();
+    private final AtomicBoolean rebuilding = new AtomicBoolean();
+
+    public PatientStatsService(PatientStatsRepository patientStatsRepository,
+                               PatientRepository patientRepository,
+                               @Value("${patient.stats.rebuild-batch-size}") int rebuildBatchSize,
+                               @Value("${patient.stats.rebuild-lease}") Duration rebuildLease) {
+        this.patientStatsRepository = patientStatsRepository;
+        this.patientRepository = patientRepository;
+        this.rebuildBatchSize = rebuildBatchSize;
+        this.rebuildLease = rebuildLease;
+    }
+
+    /**
+     * Counts inserted patients
+     *
+     * @param patientDocuments inserted patients
+     */
+    public void recordInserts(List<PatientDocument> patientDocuments) {
+        record(patientDocuments, 1);
+    }
+
+    /**
+     * Uncounts deleted patients
+     *
+     * @param patientDocuments deleted patients
+     */
+    public void recordDeletes(List<PatientDocument> patientDocuments) {
+        record(patientDocuments, -1);
+    }
+
+    /**
+     * Returns current counters, age bands are derived from birth years
+     *
+     * @return patient statistics
+     */
+    public PatientStatsDTO getStats() {
+        PatientStatsDocument summary = patientStatsRepository.findSummary().orElseGet(PatientStatsDocument::new);
+        Map<String, Long> ageBands = new LinkedHashMap<>();
+        int currentYear = LocalDate.now().getYear();
+
+        nonZero(summary.getBirthYears()).forEach((birthYear, count) ->
+                ageBands.merge(UNKNOWN.equals(birthYear)
+                        ? UNKNOWN
+                        : toAgeBand(currentYear - Integer.parseInt(birthYear)), count, Long::sum));
+
+        return PatientStatsDTO.builder()
+                .total(summary.getTotal())
+                .users(summary.getUsers())
+                .patientsPerUser(nonZero(summary.getPatientsPerUser()))
+                .ageBands(ageBands)
+                .familyConnections(nonZero(summary.getFamilyConnections()))
+                .rebuiltAt(summary.getRebuiltAt())
+                .build();
+    }
+
+    /**
+     * Recomputes counters from scratch, memory is bounded by batch size and number of distinct birth years and
+     * family connections. Skipped when another replica holds rebuild lease, lease is renewed after every batch.
+     */
+    @Scheduled(cron = "${patient.stats.rebuild-cron}")
+    public void rebuild() {
+        if (!rebuilding.compareAndSet(false, true)) {
+            return;
+        }
+
+        long start = System.nanoTime();
+
+        try {
+            if (!patientStatsRepository.acquireRebuildLease(owner, leaseUntil())) {
+                log.info("Patient stats are rebuilt by another replica");
+                return;
+            }
+
+            PatientStatsDocument summary = new PatientStatsDocument(SUMMARY_ID, 0, 0, new HashMap<>(),
+                    new HashMap<>(), new HashMap<>(), null);
+            patientStatsRepository.dropUserCountsRebuild();
+            patientRepository.findAllInBatches(COUNTED_FIELDS, rebuildBatchSize,
+                    batch -> {
+                        if (!patientStatsRepository.renewRebuildLease(owner, leaseUntil())) {
+                            throw new IllegalStateException("rebuild lease was taken by another replica");
+                        }
+
+                        Map<String, Long> userCounts = new HashMap<>();
+
+                        for (PatientDocument patientDocument : batch) {
+                            summary.setTotal(summary.getTotal() + 1);
+                            summary.getBirthYears().merge(toBirthYearKey(patientDocument), 1L, Long::sum);
+                            summary.getFamilyConnections().merge(toFamilyConnectionKey(patientDocument), 1L,
+                                    Long::sum);
+
+                            if (patientDocument.getUserId() != null) {
+                                userCounts.merge(patientDocument.getUserId(), 1L, Long::sum);
+                            }
+                        }
+
+                        patientStatsRepository.incrementUserCountsRebuild(userCounts);
+                    });
+            patientStatsRepository.forEachUserCountRebuild(rebuildBatchSize, userCount -> {
+                summary.setUsers(summary.getUsers() + 1);
+                summary.getPatientsPerUser().merge(String.valueOf(userCount.getCount()), 1L, Long::sum);
+            });
+            patientStatsRepository.publishUserCountsRebuild();
+            summary.setRebuiltAt(OffsetDateTime.now());
+            patientStatsRepository.saveSummary(summary);
+            log.info("Patient stats rebuilt in {} ms, patients: {}, users: {}",
+                    TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start), summary.getTotal(), summary.getUsers());
+        } catch (RuntimeException e) {
+            log.error("Patient stats rebuild failed: {}", e.getMessage());
+        } finally {
+            releaseLease();
+            rebuilding.set(false);
+        }
+    }
+
+    private OffsetDateTime leaseUntil() {
+        return OffsetDateTime.now().plus(rebuildLease);
+    }
+
+    private void releaseLease() {
+        try {
+            patientStatsRepository.releaseRebuildLease(owner);
+        } catch (RuntimeException e) {
+            log.warn("Patient stats rebuild lease was not released, it expires: {}", e.getMessage());
+        }
+    }
+
+    private void record(List<PatientDocument> patientDocuments, int sign) {
+        Map<String, Long> increments = new HashMap<>();
+        Map<String, Long> userDeltas = new HashMap<>();
+
+        for (PatientDocument patientDocument : patientDocuments) {
+            increments.merge(TOTAL, (long) sign, Long::sum);
+            increments.merge(BIRTH_YEARS + "." + toBirthYearKey(patientDocument), (long) sign, Long::sum);
+            increments.merge(FAMILY_CONNECTIONS + "." + toFamilyConnectionKey(patientDocument), (long) sign,
+                    Long::sum);
+
+            if (patientDocument.getUserId() != null) {
+                userDeltas.merge(patientDocument.getUserId(), (long) sign, Long::sum);
+            }
+        }
+
+        try {
+            userDeltas.forEach((userId, delta) -> {
+                long count = patientStatsRepository.incrementUserCount(userId, delta);
+                long previousCount = count - delta;
+
+                if (previousCount > 0) {
+                    increments.merge(PATIENTS_PER_USER + "." + previousCount, -1L, Long::sum);
+                } else {
+                    increments.merge(USERS, 1L, Long::sum);
+                }
+
+                if (count > 0) {
+                    increments.merge(PATIENTS_PER_USER + "." + count, 1L, Long::sum);
+                } else {
+                    increments.merge(USERS, -1L, Long::sum);
+                }
+            });
+
+            if (!increments.isEmpty()) {
+                patientStatsRepository.incrementSummary(increments);
+            }
+        } catch (RuntimeException e) {
+            log.warn("Failed to update patient stats, counters are fixed by next rebuild: {}", e.getMessage());
+        }
+    }
+
+    private static String toBirthYearKey(PatientDocument patientDocument) {
+        return patientDocument.getBirthDate() == null
+                ? UNKNOWN
+                : String.valueOf(patientDocument.getBirthDate().getYear());
+    }
+
+    private static String toFamilyConnectionKey(PatientDocument patientDocument) {
+        return patientDocument.getFamilyConnectionId() == null
+                ? UNKNOWN
+                : String.valueOf(patientDocument.getFamilyConnectionId());
+    }
+
+    /**
+     * Age band by year of birth, so patient moves to the next band at the start of the year
+     */
+    private static String toAgeBand(int age) {
+        for (int i = AGE_BAND_LOWER_BOUNDS.length - 1; i > 0; i--) {
+            if (age >= AGE_BAND_LOWER_BOUNDS[i]) {
+                return i == AGE_BAND_LOWER_BOUNDS.length - 1
+                        ? AGE_BAND_LOWER_BOUNDS[i] + "+"
+                        : AGE_BAND_LOWER_BOUNDS[i] + "-" + (AGE_BAND_LOWER_BOUNDS[i + 1] - 1);
+            }
+        }
+
+        return AGE_BAND_LOWER_BOUNDS[0] + "-" + (AGE_BAND_LOWER_BOUNDS[1] - 1);
+    }
+
+    /**
+     * Drops counters that went down to zero, numeric keys are sorted by value
+     */
+    private static Map<String, Long> nonZero(Map<String, Long> counters) {
+        Map<String, Long> result = new TreeMap<>(Comparator.comparing((String key) -> !key.chars()
+                .allMatch(Character::isDigit)).thenComparing(String::length).thenComparing(Comparator.naturalOrder()));
+
+        if (counters != null) {
+            counters.forEach((key, count) -> {
+                if (count != 0) {
+                    result.put(key, count);
+                }
+            });
+        }
+
+        return result;
+    }
+}
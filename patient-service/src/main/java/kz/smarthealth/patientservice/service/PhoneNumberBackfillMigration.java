@@ -0,0 +1,62 @@
+package kz.smarthealth.patientservice.service;
+
+import org.bson.BsonDocument;
+import org.bson.BsonString;
+import org.bson.BsonValue;
+import org.bson.conversions.Bson;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+import static kz.smarthealth.patientservice.config.PatientDocumentCodec.Field.PHONE_NUMBER;
+
+/**
+ * Normalizes stored phone numbers to leading plus and digits only, e.g. "+7 (701) 123-45-67" to "+77011234567"
+ */
+@Component
+public class PhoneNumberBackfillMigration implements PatientBackfillMigration {
+
+    @Override
+    public String getName() {
+        return "normalize-phone-number";
+    }
+
+    @Override
+    public List<String> getFields() {
+        return List.of(PHONE_NUMBER.getName(), PHONE_NUMBER.getShortName());
+    }
+
+    @Override
+    public Bson update(BsonDocument document) {
+        BsonDocument set = new BsonDocument();
+
+        for (String field : getFields()) {
+            BsonValue value = document.get(field);
+
+            if (value != null && value.isString()) {
+                String phoneNumber = value.asString().getValue();
+                String normalized = normalize(phoneNumber);
+
+                if (!normalized.equals(phoneNumber)) {
+                    set.append(field, new BsonString(normalized));
+                }
+            }
+        }
+
+        return set.isEmpty() ? null : new BsonDocument("$set", set);
+    }
+
+    static String normalize(String phoneNumber) {
+        StringBuilder normalized = new StringBuilder(phoneNumber.length());
+
+        for (int i = 0; i < phoneNumber.length(); i++) {
+            char c = phoneNumber.charAt(i);
+
+            if (c >= '0' && c <= '9' || c == '+' && normalized.isEmpty()) {
+                normalized.append(c);
+            }
+        }
+
+        return normalized.toString();
+    }
+}
@@ -0,0 +1,20 @@
+package kz.smarthealth.patientservice.util;
+
+public class AppConstants {
+
+    private AppConstants() {
+    }
+
+    public static final String DEFAULT_DATE = "yyyy-MM-dd";
+    public static final String DEFAULT_OFFSET_DATE_TIME_FORMAT = "yyyy-MM-dd HH:mm:ss.SSS Z";
+    public static final String CONSISTENCY_TOKEN_HEADER = "X-Consistency-Token";
+    public static final String WRITE_CONCERN_API = "api";
+    public static final String WRITE_CONCERN_INGESTION = "ingestion";
+    public static final int MAX_BATCH_USER_IDS = 100;
+    public static final String APPLICATION_SMILE_VALUE = "application/x-jackson-smile";
+    public static final String TEXT_CSV_VALUE = "text/csv";
+    public static final String PEER_TOKEN_HEADER = "X-Peer-Token";
+    public static final String PATIENT_USER_ID_HEADER = "X-Patient-User-Id";
+    public static final String EVENT_ID_HEADER = "eventId";
+    public static final String WARM_UP_HEADER = "X-Warm-Up";
+}
@@ -0,0 +1,24 @@
+package kz.smarthealth.patientservice.util;
+
+/**
+ * Holds causal consistency token of the current request thread
+ */
+public class ConsistencyTokenHolder {
+
+    private static final ThreadLocal<String> TOKEN = new ThreadLocal<>();
+
+    private ConsistencyTokenHolder() {
+    }
+
+    public static String get() {
+        return TOKEN.get();
+    }
+
+    public static void set(String token) {
+        TOKEN.set(token);
+    }
+
+    public static void clear() {
+        TOKEN.remove();
+    }
+}
@@ -0,0 +1,77 @@
+package kz.smarthealth.patientservice.util;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.util.Base64;
+import java.util.Optional;
+
+/**
+ * Signs consistency tokens with HMAC-SHA256, so only tokens issued by replicas sharing the secret are trusted. Token
+ * is base64url payload and its signature joined by a dot.
+ */
+public class ConsistencyTokenSigner {
+
+    private static final String ALGORITHM = "HmacSHA256";
+    private static final char SEPARATOR = '.';
+
+    private final SecretKeySpec key;
+
+    /**
+     * @param secret secret shared by replicas, blank for a random one tokens of other replicas do not verify with
+     */
+    public ConsistencyTokenSigner(String secret) {
+        byte[] keyBytes;
+
+        if (secret == null || secret.isBlank()) {
+            keyBytes = new byte[32];
+            new SecureRandom().nextBytes(keyBytes);
+        } else {
+            keyBytes = secret.getBytes(StandardCharsets.UTF_8);
+        }
+
+        this.key = new SecretKeySpec(keyBytes, ALGORITHM);
+    }
+
+    public String sign(byte[] payload) {
+        Base64.Encoder encoder = Base64.getUrlEncoder().withoutPadding();
+
+        return encoder.encodeToString(payload) + SEPARATOR + encoder.encodeToString(mac(payload));
+    }
+
+    /**
+     * @param token token issued by {@link #sign}
+     * @return payload of token, empty when token is malformed, unsigned or signed with another secret
+     */
+    public Optional<byte[]> verify(String token) {
+        int separator = token.indexOf(SEPARATOR);
+
+        if (separator < 0) {
+            return Optional.empty();
+        }
+
+        try {
+            byte[] payload = Base64.getUrlDecoder().decode(token.substring(0, separator));
+            byte[] signature = Base64.getUrlDecoder().decode(token.substring(separator + 1));
+
+            return MessageDigest.isEqual(mac(payload), signature) ? Optional.of(payload) : Optional.empty();
+        } catch (IllegalArgumentException e) {
+            return Optional.empty();
+        }
+    }
+
+    private byte[] mac(byte[] payload) {
+        try {
+            // Mac is not thread safe and cheap to create
+            Mac mac = Mac.getInstance(ALGORITHM);
+            mac.init(key);
+
+            return mac.doFinal(payload);
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,89 @@
+package kz.smarthealth.patientservice.util;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.TreeSet;
+
+/**
+ * Immutable consistent-hash ring. Every member is placed on the ring at a number of virtual points and owns keys
+ * hashed between its point and the previous one, so adding or removing a member moves only about 1/n of the keys.
+ * Lookup is a binary search over sorted points.
+ */
+public class ConsistentHashRing {
+
+    private final List<String> members;
+    private final long[] points;
+    private final String[] owners;
+
+    /**
+     * @param members      ring members, e.g. base URLs of replicas
+     * @param virtualNodes  points per member, more points give more even shares
+     */
+    public ConsistentHashRing(Collection<String> members, int virtualNodes) {
+        if (members.isEmpty()) {
+            throw new IllegalArgumentException("Ring must have at least one member");
+        }
+
+        this.members = List.copyOf(new TreeSet<>(members));
+        long[][] entries = new long[this.members.size() * virtualNodes][];
+        int index = 0;
+
+        for (int member = 0; member < this.members.size(); member++) {
+            for (int node = 0; node < virtualNodes; node++) {
+                entries[index++] = new long[]{hash(this.members.get(member) + "#" + node), member};
+            }
+        }
+
+        // ties are broken by member order, so every replica builds the same ring
+        Arrays.sort(entries, (a, b) -> a[0] != b[0] ? Long.compare(a[0], b[0]) : Long.compare(a[1], b[1]));
+        this.points = new long[entries.length];
+        this.owners = new String[entries.length];
+
+        for (int i = 0; i < entries.length; i++) {
+            points[i] = entries[i][0];
+            owners[i] = this.members.get((int) entries[i][1]);
+        }
+    }
+
+    /**
+     * @param key key, e.g. patient id
+     * @return member owning key
+     */
+    public String owner(String key) {
+        int index = Arrays.binarySearch(points, hash(key));
+
+        if (index < 0) {
+            index = -index - 1;
+        }
+
+        return owners[index == points.length ? 0 : index];
+    }
+
+    /**
+     * @return members sorted
+     */
+    public List<String> getMembers() {
+        return members;
+    }
+
+    /**
+     * 64-bit FNV-1a over chars followed by murmur3 finalizer to spread similar keys
+     */
+    static long hash(String value) {
+        long hash = 0xcbf29ce484222325L;
+
+        for (int i = 0; i < value.length(); i++) {
+            hash ^= value.charAt(i);
+            hash *= 0x100000001b3L;
+        }
+
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        hash *= 0xc4ceb9fe1a85ec53L;
+        hash ^= hash >>> 33;
+
+        return hash;
+    }
+}
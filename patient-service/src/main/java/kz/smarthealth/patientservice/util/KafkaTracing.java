@@ -0,0 +1,75 @@
+package kz.smarthealth.patientservice.util;
+
+import io.opentelemetry.api.trace.Span;
+import io.opentelemetry.api.trace.SpanKind;
+import io.opentelemetry.api.trace.StatusCode;
+import io.opentelemetry.api.trace.Tracer;
+import io.opentelemetry.context.Context;
+import io.opentelemetry.context.Scope;
+import io.opentelemetry.context.propagation.TextMapGetter;
+import io.opentelemetry.context.propagation.TextMapPropagator;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.common.header.Header;
+import org.apache.kafka.common.header.Headers;
+
+import java.nio.charset.StandardCharsets;
+import java.util.stream.StreamSupport;
+
+/**
+ * Continues trace of the producer: trace context is extracted from record headers and consumer span is current
+ * while record is handled, so service and Mongo spans of the record join trace of the event that caused them.
+ * Written against OpenTelemetry API: the Micrometer bridge puts the remote parent, not the span started from it,
+ * in scope, which made children of the consumer span its siblings.
+ */
+public class KafkaTracing {
+
+    private static final TextMapGetter<Headers> HEADERS_GETTER = new TextMapGetter<>() {
+
+        @Override
+        public Iterable<String> keys(Headers headers) {
+            return StreamSupport.stream(headers.spliterator(), false).map(Header::key).toList();
+        }
+
+        @Override
+        public String get(Headers headers, String key) {
+            Header header = headers == null ? null : headers.lastHeader(key);
+
+            return header == null ? null : new String(header.value(), StandardCharsets.UTF_8);
+        }
+    };
+
+    private final Tracer tracer;
+    private final TextMapPropagator propagator;
+
+    public KafkaTracing(Tracer tracer, TextMapPropagator propagator) {
+        this.tracer = tracer;
+        this.propagator = propagator;
+    }
+
+    public <E extends Exception> void consume(ConsumerRecord<?, ?> record, RecordHandler<E> handler) throws E {
+        Context parent = propagator.extract(Context.current(), record.headers(), HEADERS_GETTER);
+        Span span = tracer.spanBuilder("kafka.consume " + record.topic())
+                .setParent(parent)
+                .setSpanKind(SpanKind.CONSUMER)
+                .setAttribute("messaging.kafka.topic", record.topic())
+                .setAttribute("messaging.kafka.partition", String.valueOf(record.partition()))
+                .setAttribute("messaging.kafka.offset", String.valueOf(record.offset()))
+                .startSpan();
+
+        try (Scope ignored = parent.with(span).makeCurrent()) {
+            handler.handle();
+        } catch (Exception e) {
+            span.recordException(e);
+            span.setStatus(StatusCode.ERROR);
+            throw e;
+        } finally {
+            span.end();
+        }
+    }
+
+    @FunctionalInterface
+    public interface RecordHandler<E extends Exception> {
+
+        void handle() throws E;
+    }
+}
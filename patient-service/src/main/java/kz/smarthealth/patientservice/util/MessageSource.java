@@ -0,0 +1,23 @@
+package kz.smarthealth.patientservice.util;
+
+public enum MessageSource {
+
+    PATIENT_BY_ID_NOT_FOUND("Patient with id=%s not found."),
+    TOO_MANY_REQUESTS("Too many requests, retry after %s seconds."),
+    FIELDS_NOT_ALLOWED("Fields %s are not allowed, allowed fields: %s."),
+    IMPORT_JOB_NOT_FOUND("Import job with id=%s not found."),
+    IMPORT_JOBS_LIMIT_REACHED("Too many imports in progress, at most %s may be queued or running."),
+    IMPORT_UPLOAD_TOO_LARGE("Import upload is larger than %s bytes."),
+    GROUP_COMMIT_TIMED_OUT("Patient was not committed within %s ms, retry later."),
+    CACHED_RESPONSE_EVICTED("Cached patient response changed while it was sent, retry.");
+
+    private final String text;
+
+    MessageSource(String text) {
+        this.text = text;
+    }
+
+    public String getText(String... params) {
+        return String.format(this.text, params);
+    }
+}
@@ -0,0 +1,98 @@
+package kz.smarthealth.patientservice.benchmark;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import kz.smarthealth.patientservice.model.dto.PatientDTO;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+import static kz.smarthealth.patientservice.util.TestData.getPatientDTO;
+
+/**
+ * Compares payload size and encoding/decoding time of patient list responses in JSON, CBOR and Smile. Time per
+ * operation approximates CPU spent on response body per request.
+ * Run with {@code mvn test-compile exec:java -Dexec.classpathScope=test
+ * -Dexec.mainClass=kz.smarthealth.patientservice.benchmark.PatientDTOFormatBenchmark}
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PatientDTOFormatBenchmark {
+
+    private static final TypeReference<List<PatientDTO>> PATIENT_LIST = new TypeReference<>() {
+    };
+
+    @Param({"json", "cbor", "smile"})
+    private String format;
+
+    @Param({"1", "50"})
+    private int patients;
+
+    private ObjectMapper objectMapper;
+    private List<PatientDTO> patientDTOList;
+    private byte[] payload;
+
+    @Setup
+    public void setup() throws JsonProcessingException {
+        JsonFactory jsonFactory = switch (format) {
+            case "cbor" -> new CBORFactory();
+            case "smile" -> new SmileFactory();
+            default -> new JsonFactory();
+        };
+        objectMapper = new ObjectMapper(jsonFactory).findAndRegisterModules();
+        patientDTOList = new ArrayList<>();
+
+        for (int i = 0; i < patients; i++) {
+            PatientDTO patientDTO = getPatientDTO();
+            patientDTO.setId(UUID.randomUUID().toString());
+            patientDTOList.add(patientDTO);
+        }
+
+        payload = encode();
+
+        System.out.printf("%nPayload size, bytes: format=%s, patients=%d, size=%d%n", format, patients,
+                payload.length);
+    }
+
+    @Benchmark
+    public byte[] encode() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(patientDTOList);
+    }
+
+    @Benchmark
+    public List<PatientDTO> decode() throws IOException {
+        return objectMapper.readValue(payload, PATIENT_LIST);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(PatientDTOFormatBenchmark.class.getSimpleName())
+                .build())
+                .run();
+    }
+}
@@ -0,0 +1,111 @@
+package kz.smarthealth.patientservice.benchmark;
+
+import com.mongodb.MongoClientSettings;
+import kz.smarthealth.patientservice.config.PatientDocumentCodec;
+import kz.smarthealth.patientservice.model.entity.PatientDocument;
+import kz.smarthealth.patientservice.util.MongoConverterFactory;
+import org.bson.BsonBinaryReader;
+import org.bson.BsonBinaryWriter;
+import org.bson.Document;
+import org.bson.codecs.Codec;
+import org.bson.codecs.DecoderContext;
+import org.bson.codecs.EncoderContext;
+import org.bson.io.BasicOutputBuffer;
+import org.bson.types.ObjectId;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.data.mongodb.core.convert.MappingMongoConverter;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.TimeUnit;
+
+import static kz.smarthealth.patientservice.util.TestData.getPatientEntity;
+
+/**
+ * Compares {@link PatientDocumentCodec} with mapping converter path (entity -> Document -> BSON and back).
+ * Run with {@code mvn test-compile exec:java -Dexec.classpathScope=test
+ * -Dexec.mainClass=kz.smarthealth.patientservice.benchmark.PatientDocumentCodecBenchmark}
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PatientDocumentCodecBenchmark {
+
+    @Param({"false", "true"})
+    private boolean shortFieldNames;
+
+    private PatientDocument patientDocument;
+    private MappingMongoConverter mappingMongoConverter;
+    private Codec<Document> documentCodec;
+    private PatientDocumentCodec patientDocumentCodec;
+    private byte[] converterBytes;
+    private byte[] codecBytes;
+
+    @Setup
+    public void setup() {
+        patientDocument = getPatientEntity();
+        patientDocument.setId(new ObjectId().toHexString());
+        mappingMongoConverter = MongoConverterFactory.create();
+        documentCodec = MongoClientSettings.getDefaultCodecRegistry().get(Document.class);
+        patientDocumentCodec = new PatientDocumentCodec(shortFieldNames);
+        converterBytes = converterEncode();
+        codecBytes = codecEncode();
+
+        System.out.printf("%nDocument size, bytes: converter=%d, codec(shortFieldNames=%s)=%d%n",
+                converterBytes.length, shortFieldNames, codecBytes.length);
+    }
+
+    @Benchmark
+    public byte[] converterEncode() {
+        Document document = new Document();
+        mappingMongoConverter.write(patientDocument, document);
+        BasicOutputBuffer buffer = new BasicOutputBuffer();
+        documentCodec.encode(new BsonBinaryWriter(buffer), document, EncoderContext.builder().build());
+
+        return buffer.toByteArray();
+    }
+
+    @Benchmark
+    public byte[] codecEncode() {
+        BasicOutputBuffer buffer = new BasicOutputBuffer();
+        patientDocumentCodec.encode(new BsonBinaryWriter(buffer), patientDocument, EncoderContext.builder().build());
+
+        return buffer.toByteArray();
+    }
+
+    @Benchmark
+    public PatientDocument converterDecode() {
+        Document document = documentCodec.decode(new BsonBinaryReader(ByteBuffer.wrap(converterBytes)),
+                DecoderContext.builder().build());
+
+        return mappingMongoConverter.read(PatientDocument.class, document);
+    }
+
+    @Benchmark
+    public PatientDocument codecDecode() {
+        return patientDocumentCodec.decode(new BsonBinaryReader(ByteBuffer.wrap(codecBytes)),
+                DecoderContext.builder().build());
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(PatientDocumentCodecBenchmark.class.getSimpleName())
+                .build())
+                .run();
+    }
+}
@@ -0,0 +1,181 @@
+package kz.smarthealth.patientservice.benchmark;
+
+import io.grpc.ManagedChannel;
+import io.grpc.Metadata;
+import io.grpc.netty.shaded.io.grpc.netty.NettyChannelBuilder;
+import io.grpc.stub.MetadataUtils;
+import kz.smarthealth.patientservice.PatientServiceApplication;
+import kz.smarthealth.patientservice.config.GrpcServerLifecycle;
+import kz.smarthealth.patientservice.grpc.GetPatientRequest;
+import kz.smarthealth.patientservice.grpc.ListPatientsByUserRequest;
+import kz.smarthealth.patientservice.grpc.PatientServiceGrpc;
+import kz.smarthealth.patientservice.model.dto.UserRole;
+import kz.smarthealth.patientservice.model.entity.PatientDocument;
+import kz.smarthealth.patientservice.repository.PatientRepository;
+import kz.smarthealth.patientservice.security.GrpcAuthenticationInterceptor;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.testcontainers.containers.MongoDBContainer;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static kz.smarthealth.patientservice.util.TestData.getPatientEntity;
+
+/**
+ * Compares throughput and latency of REST and gRPC reads. Starts the service against Mongo in a container, seeds
+ * patients and runs the same read mix through both interfaces.
+ * Run with {@code mvn test-compile exec:java -Dexec.classpathScope=test
+ * -Dexec.mainClass=kz.smarthealth.patientservice.benchmark.PatientTransportComparison}
+ */
+public class PatientTransportComparison {
+
+    private static final int USERS = 100;
+    private static final int PATIENTS_PER_USER = 3;
+    private static final int CONCURRENCY = 16;
+    private static final int WARMUP_REQUESTS = 2_000;
+    private static final int REQUESTS = 20_000;
+    private static final String DOCTOR_ID = UUID.randomUUID().toString();
+
+    private final List<PatientDocument> patients = new ArrayList<>();
+    private final List<String> userIds = new ArrayList<>();
+
+    public static void main(String[] args) throws Exception {
+        try (MongoDBContainer mongoDBContainer = new MongoDBContainer("mongo:6.0")) {
+            mongoDBContainer.start();
+
+            try (ConfigurableApplicationContext context = new SpringApplicationBuilder(PatientServiceApplication.class)
+                    .profiles("test")
+                    .run("--spring.data.mongodb.uri=" + mongoDBContainer.getReplicaSetUrl(),
+                            "--server.port=0",
+                            "--grpc.server.enabled=true",
+                            "--grpc.server.port=0",
+                            "--admission.enabled=false",
+                            "--patient.response-cache.enabled=false",
+                            "--spring.kafka.listener.auto-startup=false")) {
+                new PatientTransportComparison().run(context);
+            }
+        }
+    }
+
+    private void run(ConfigurableApplicationContext context) throws Exception {
+        PatientRepository patientRepository = context.getBean(PatientRepository.class);
+
+        for (int i = 0; i < USERS; i++) {
+            String userId = UUID.randomUUID().toString();
+            userIds.add(userId);
+
+            for (int j = 0; j < PATIENTS_PER_USER; j++) {
+                PatientDocument patientDocument = getPatientEntity();
+                patientDocument.setId(null);
+                patientDocument.setUserId(userId);
+                patients.add(patientRepository.save(patientDocument));
+            }
+        }
+
+        String baseUrl = "http://localhost:" + context.getEnvironment().getProperty("local.server.port")
+                + context.getEnvironment().getProperty("server.servlet.context-path") + "/api/v1/patients/";
+        HttpClient httpClient = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+        ManagedChannel channel = NettyChannelBuilder
+                .forAddress("localhost", context.getBean(GrpcServerLifecycle.class).getPort())
+                .usePlaintext()
+                .build();
+        Metadata metadata = new Metadata();
+        metadata.put(GrpcAuthenticationInterceptor.USER_ID, DOCTOR_ID);
+        metadata.put(GrpcAuthenticationInterceptor.ROLE, UserRole.ROLE_DOCTOR.name());
+        PatientServiceGrpc.PatientServiceBlockingStub stub = PatientServiceGrpc.newBlockingStub(channel)
+                .withInterceptors(MetadataUtils.newAttachHeadersInterceptor(metadata));
+
+        try {
+            measure("REST get patient", () -> http(httpClient, baseUrl + randomPatient().getId()));
+            measure("gRPC get patient", () -> stub.getPatient(GetPatientRequest.newBuilder()
+                    .setId(randomPatient().getId())
+                    .build()));
+            measure("REST list by user", () -> http(httpClient, baseUrl + "by-user-id/" + randomUserId()));
+            measure("gRPC list by user", () -> stub.listPatientsByUser(ListPatientsByUserRequest.newBuilder()
+                    .setUserId(randomUserId())
+                    .build()).forEachRemaining(patient -> {
+            }));
+        } finally {
+            channel.shutdownNow().awaitTermination(5, TimeUnit.SECONDS);
+        }
+    }
+
+    private void measure(String name, Request request) throws Exception {
+        execute(WARMUP_REQUESTS, request);
+        long start = System.nanoTime();
+        long[] latencies = execute(REQUESTS, request);
+        double seconds = (System.nanoTime() - start) / 1e9;
+        Arrays.sort(latencies);
+
+        System.out.printf("%-20s throughput=%8.0f req/s p50=%6.0f us p99=%6.0f us%n", name, REQUESTS / seconds,
+                latencies[latencies.length / 2] / 1e3, latencies[(int) (latencies.length * 0.99)] / 1e3);
+    }
+
+    private static long[] execute(int requests, Request request) throws Exception {
+        long[] latencies = new long[requests];
+        AtomicInteger next = new AtomicInteger();
+        ExecutorService executorService = Executors.newFixedThreadPool(CONCURRENCY);
+
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+
+            for (int i = 0; i < CONCURRENCY; i++) {
+                futures.add(executorService.submit(() -> {
+                    for (int index = next.getAndIncrement(); index < requests; index = next.getAndIncrement()) {
+                        long start = System.nanoTime();
+                        request.execute();
+                        latencies[index] = System.nanoTime() - start;
+                    }
+
+                    return null;
+                }));
+            }
+
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executorService.shutdownNow();
+        }
+
+        return latencies;
+    }
+
+    private static void http(HttpClient httpClient, String url) throws Exception {
+        HttpResponse<byte[]> response = httpClient.send(HttpRequest.newBuilder(URI.create(url))
+                .header("userId", DOCTOR_ID)
+                .header("role", UserRole.ROLE_DOCTOR.name())
+                .build(), HttpResponse.BodyHandlers.ofByteArray());
+
+        if (response.statusCode() != 200) {
+            throw new IllegalStateException("Unexpected status " + response.statusCode());
+        }
+    }
+
+    private PatientDocument randomPatient() {
+        return patients.get(ThreadLocalRandom.current().nextInt(patients.size()));
+    }
+
+    private String randomUserId() {
+        return userIds.get(ThreadLocalRandom.current().nextInt(userIds.size()));
+    }
+
+    @FunctionalInterface
+    private interface Request {
+
+        void execute() throws Exception;
+    }
+}
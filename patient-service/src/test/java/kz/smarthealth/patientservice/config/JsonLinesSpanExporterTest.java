@@ -0,0 +1,57 @@
+package kz.smarthealth.patientservice.config;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.opentelemetry.api.trace.Span;
+import io.opentelemetry.api.trace.Tracer;
+import io.opentelemetry.context.Context;
+import io.opentelemetry.sdk.trace.SdkTracerProvider;
+import io.opentelemetry.sdk.trace.export.SimpleSpanProcessor;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Unit tests for {@link JsonLinesSpanExporter}
+ */
+class JsonLinesSpanExporterTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @TempDir
+    private Path tempDir;
+
+    @Test
+    void export_writesSpanPerLine_withParentAndAttributes() throws Exception {
+        // given
+        Path file = tempDir.resolve("spans.jsonl");
+        SdkTracerProvider tracerProvider = SdkTracerProvider.builder()
+                .addSpanProcessor(SimpleSpanProcessor.create(new JsonLinesSpanExporter(objectMapper, file)))
+                .build();
+        Tracer tracer = tracerProvider.get("test");
+        // when
+        Span parent = tracer.spanBuilder("http post /api/v1/patients").startSpan();
+        Span child = tracer.spanBuilder("insert").setParent(Context.current().with(parent))
+                .setAttribute("db.mongodb.collection", "patients")
+                .startSpan();
+        child.end();
+        parent.end();
+        tracerProvider.shutdown();
+        // then
+        List<String> lines = Files.readAllLines(file);
+        assertEquals(2, lines.size());
+        JsonNode childNode = objectMapper.readTree(lines.get(0));
+        JsonNode parentNode = objectMapper.readTree(lines.get(1));
+        assertEquals("insert", childNode.get("name").asText());
+        assertEquals(parentNode.get("traceId").asText(), childNode.get("traceId").asText());
+        assertEquals(parentNode.get("spanId").asText(), childNode.get("parentSpanId").asText());
+        assertEquals("patients", childNode.get("attributes").get("db.mongodb.collection").asText());
+        assertTrue(parentNode.get("parentSpanId").isNull());
+    }
+}
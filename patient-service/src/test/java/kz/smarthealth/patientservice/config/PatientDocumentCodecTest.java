@@ -0,0 +1,98 @@
+package kz.smarthealth.patientservice.config;
+
+import com.mongodb.MongoClientSettings;
+import kz.smarthealth.patientservice.model.entity.PatientDocument;
+import kz.smarthealth.patientservice.util.MongoConverterFactory;
+import org.bson.BsonDocument;
+import org.bson.BsonDocumentReader;
+import org.bson.BsonDocumentWriter;
+import org.bson.BsonType;
+import org.bson.Document;
+import org.bson.codecs.DecoderContext;
+import org.bson.codecs.EncoderContext;
+import org.bson.types.ObjectId;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.mongodb.core.convert.MappingMongoConverter;
+
+import static kz.smarthealth.patientservice.util.TestData.getPatientEntity;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Unit tests for {@link PatientDocumentCodec}
+ */
+class PatientDocumentCodecTest {
+
+    private final MappingMongoConverter mappingMongoConverter = MongoConverterFactory.create();
+
+    @Test
+    void decode_readsDocumentWrittenByMappingConverter() {
+        // given
+        PatientDocument patientDocument = getPatientEntity();
+        patientDocument.setId(new ObjectId().toHexString());
+        Document document = new Document();
+        mappingMongoConverter.write(patientDocument, document);
+        BsonDocument bsonDocument = document.toBsonDocument(Document.class,
+                MongoClientSettings.getDefaultCodecRegistry());
+        // when
+        PatientDocument actualPatientDocument = decode(new PatientDocumentCodec(true), bsonDocument);
+        // then
+        assertPatientEquals(patientDocument, actualPatientDocument);
+    }
+
+    @Test
+    void encode_writesDocumentReadableByMappingConverter() {
+        // given
+        PatientDocument patientDocument = getPatientEntity();
+        patientDocument.setId(new ObjectId().toHexString());
+        // when
+        BsonDocument bsonDocument = encode(new PatientDocumentCodec(false), patientDocument);
+        // then
+        assertEquals(BsonType.OBJECT_ID, bsonDocument.get(PatientDocumentCodec.ID).getBsonType());
+
+        Document document = MongoClientSettings.getDefaultCodecRegistry().get(Document.class)
+                .decode(new BsonDocumentReader(bsonDocument), DecoderContext.builder().build());
+        PatientDocument actualPatientDocument = mappingMongoConverter.read(PatientDocument.class, document);
+        assertPatientEquals(patientDocument, actualPatientDocument);
+    }
+
+    @Test
+    void encode_writesShortFieldNames_andDecodesThem() {
+        // given
+        PatientDocument patientDocument = getPatientEntity();
+        PatientDocumentCodec codec = new PatientDocumentCodec(true);
+        // when
+        BsonDocument bsonDocument = encode(codec, patientDocument);
+        PatientDocument actualPatientDocument = decode(codec, bsonDocument);
+        // then
+        assertTrue(bsonDocument.containsKey("u"));
+        assertFalse(bsonDocument.containsKey("userId"));
+        assertEquals(BsonType.STRING, bsonDocument.get(PatientDocumentCodec.ID).getBsonType());
+        assertPatientEquals(patientDocument, actualPatientDocument);
+    }
+
+    private static BsonDocument encode(PatientDocumentCodec codec, PatientDocument patientDocument) {
+        BsonDocument bsonDocument = new BsonDocument();
+        codec.encode(new BsonDocumentWriter(bsonDocument), patientDocument, EncoderContext.builder().build());
+
+        return bsonDocument;
+    }
+
+    private static PatientDocument decode(PatientDocumentCodec codec, BsonDocument bsonDocument) {
+        return codec.decode(new BsonDocumentReader(bsonDocument), DecoderContext.builder().build());
+    }
+
+    private static void assertPatientEquals(PatientDocument expected, PatientDocument actual) {
+        assertEquals(expected.getId(), actual.getId());
+        assertEquals(expected.getUserId(), actual.getUserId());
+        assertEquals(expected.getFirstName(), actual.getFirstName());
+        assertEquals(expected.getLastName(), actual.getLastName());
+        assertEquals(expected.getBirthDate(), actual.getBirthDate());
+        assertEquals(expected.getPhoneNumber(), actual.getPhoneNumber());
+        assertEquals(expected.getFamilyConnectionId(), actual.getFamilyConnectionId());
+        assertEquals(expected.getIin(), actual.getIin());
+        assertEquals(expected.getCreatedAt().toInstant().toEpochMilli(),
+                actual.getCreatedAt().toInstant().toEpochMilli());
+    }
+}
@@ -0,0 +1,48 @@
+package kz.smarthealth.patientservice.controller;
+
+import kz.smarthealth.patientservice.util.ConsistencyTokenHolder;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.nio.charset.StandardCharsets;
+
+import static kz.smarthealth.patientservice.util.AppConstants.CONSISTENCY_TOKEN_HEADER;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+/**
+ * Unit tests for {@link ConsistencyTokenFilter}
+ */
+class ConsistencyTokenFilterTest {
+
+    private final ConsistencyTokenFilter underTest = new ConsistencyTokenFilter();
+
+    @Test
+    void doFilter_setsTokenOfWrite_beforeBodyIsFlushed() throws Exception {
+        // given
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", "/api/v1/patients");
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        // when
+        underTest.doFilter(request, response, (filterRequest, filterResponse) -> {
+            ConsistencyTokenHolder.set("token");
+            filterResponse.getOutputStream().write("{}".getBytes(StandardCharsets.UTF_8));
+            filterResponse.flushBuffer();
+        });
+        // then
+        assertEquals("token", response.getHeader(CONSISTENCY_TOKEN_HEADER));
+        assertEquals("{}", response.getContentAsString());
+        assertNull(ConsistencyTokenHolder.get());
+    }
+
+    @Test
+    void doFilter_setsTokenOfWrite_whenResponseHasNoBody() throws Exception {
+        // given
+        MockHttpServletRequest request = new MockHttpServletRequest("DELETE", "/api/v1/patients/1");
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        // when
+        underTest.doFilter(request, response, (filterRequest, filterResponse) -> ConsistencyTokenHolder.set("token"));
+        // then
+        assertEquals("token", response.getHeader(CONSISTENCY_TOKEN_HEADER));
+    }
+}
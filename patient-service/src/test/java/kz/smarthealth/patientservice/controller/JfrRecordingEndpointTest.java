@@ -0,0 +1,80 @@
+package kz.smarthealth.patientservice.controller;
+
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import kz.smarthealth.patientservice.model.event.PatientOperationEvent;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.boot.actuate.endpoint.web.WebEndpointResponse;
+import org.springframework.core.io.Resource;
+
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Unit tests for {@link JfrRecordingEndpoint}
+ */
+class JfrRecordingEndpointTest {
+
+    private final JfrRecordingEndpoint underTest = new JfrRecordingEndpoint(Duration.ofSeconds(1),
+            Duration.ofSeconds(5));
+
+    @TempDir
+    private Path tempDir;
+
+    @Test
+    void record_returnsRecordingWithPatientOperationEvents() throws Exception {
+        // given
+        AtomicBoolean recorded = new AtomicBoolean();
+        CompletableFuture<Void> emitter = CompletableFuture.runAsync(() -> {
+            while (!recorded.get()) {
+                PatientOperationEvent event = new PatientOperationEvent();
+                event.begin();
+                event.setOperation("getPatientById");
+                event.setResultSize(1);
+                event.setSuccess(true);
+                event.commit();
+            }
+        });
+        // when
+        WebEndpointResponse<Resource> response = underTest.record(Duration.ofMillis(500), "default");
+        // then
+        recorded.set(true);
+        emitter.join();
+        assertEquals(WebEndpointResponse.STATUS_OK, response.getStatus());
+        Path file = tempDir.resolve("recording.jfr");
+
+        try (InputStream inputStream = response.getBody().getInputStream()) {
+            Files.copy(inputStream, file);
+        }
+
+        List<RecordedEvent> events = RecordingFile.readAllEvents(file);
+        assertTrue(events.stream().anyMatch(event ->
+                event.getEventType().getName().equals("kz.smarthealth.patientservice.PatientOperation")
+                        && "getPatientById".equals(event.getString("operation"))));
+    }
+
+    @Test
+    void record_returnsBadRequest_whenDurationExceedsMax() throws Exception {
+        // when
+        WebEndpointResponse<Resource> response = underTest.record(Duration.ofMinutes(1), null);
+        // then
+        assertEquals(WebEndpointResponse.STATUS_BAD_REQUEST, response.getStatus());
+    }
+
+    @Test
+    void record_returnsBadRequest_whenSettingsUnknown() throws Exception {
+        // when
+        WebEndpointResponse<Resource> response = underTest.record(null, "custom");
+        // then
+        assertEquals(WebEndpointResponse.STATUS_BAD_REQUEST, response.getStatus());
+    }
+}
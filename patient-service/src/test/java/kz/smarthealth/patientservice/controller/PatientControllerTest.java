@@ -3,9 +3,14 @@ package kz.smarthealth.patientservice.controller;
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
 import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import kz.smarthealth.patientservice.model.dto.DeletedPatientsDTO;
 import kz.smarthealth.patientservice.model.dto.ErrorResponseDTO;
 import kz.smarthealth.patientservice.model.dto.PatientDTO;
+import kz.smarthealth.patientservice.model.dto.UserIdsDTO;
+import kz.smarthealth.patientservice.model.dto.UserPatientsDTO;
 import kz.smarthealth.patientservice.model.dto.UserRole;
 import kz.smarthealth.patientservice.model.entity.PatientDocument;
 import kz.smarthealth.patientservice.repository.PatientRepository;
@@ -32,6 +37,7 @@ import org.testcontainers.junit.jupiter.Container;
 import java.io.UnsupportedEncodingException;
 import java.time.OffsetDateTime;
 import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -40,6 +46,8 @@ import java.util.UUID;
 import static kz.smarthealth.patientservice.util.TestData.getPatientDTO;
 import static kz.smarthealth.patientservice.util.TestData.getPatientEntity;
 import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 /**
@@ -183,6 +191,44 @@ class PatientControllerTest {
         validateSuccessfulSaveResult(patientDTO, mvcResult);
     }
 
+    @Test
+    void savePatient_returnsConsistencyToken_readableByOwner() throws Exception {
+        // given
+        UUID userId = UUID.randomUUID();
+        PatientDTO patientDTO = getPatientDTO();
+        patientDTO.setId(null);
+        patientDTO.setUserId(userId.toString());
+        patientDTO.setCreatedAt(null);
+        String requestBody = objectMapper.writeValueAsString(patientDTO);
+        MvcResult saveResult = this.mockMvc.perform(MockMvcRequestBuilders.post("/api/v1/patients")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(requestBody)
+                        .header("userId", userId)
+                        .header("role", UserRole.ROLE_PATIENT)
+                        .characterEncoding("utf-8"))
+                .andExpect(status().isCreated()).andReturn();
+        String consistencyToken = saveResult.getResponse().getHeader(AppConstants.CONSISTENCY_TOKEN_HEADER);
+        PatientDTO createdPatientDTO = objectMapper.readValue(saveResult.getResponse().getContentAsString(),
+                PatientDTO.class);
+        // when
+        MvcResult mvcResult = this.mockMvc.perform(MockMvcRequestBuilders.get("/api/v1/patients/by-user-id/"
+                                + userId)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .header("userId", userId)
+                        .header("role", UserRole.ROLE_PATIENT)
+                        .header(AppConstants.CONSISTENCY_TOKEN_HEADER, consistencyToken)
+                        .characterEncoding("utf-8"))
+                .andExpect(status().isOk()).andReturn();
+        // then
+        List<PatientDTO> patientDTOList = objectMapper.readValue(mvcResult.getResponse().getContentAsString(),
+                new TypeReference<>() {
+                });
+
+        assertNotNull(consistencyToken);
+        assertEquals(1, patientDTOList.size());
+        assertEquals(createdPatientDTO.getFirstName(), patientDTOList.get(0).getFirstName());
+    }
+
     private void validateSuccessfulSaveResult(PatientDTO patientDTO, MvcResult mvcResult)
             throws JsonProcessingException, UnsupportedEncodingException {
         PatientDTO createdPatientDTO = objectMapper.readValue(mvcResult.getResponse().getContentAsString(),
@@ -281,6 +327,52 @@ class PatientControllerTest {
         validateSuccessfulGetResult(patientDocument, mvcResult);
     }
 
+    @Test
+    void getPatientById_returnsCbor_whenAccepted() throws Exception {
+        // given
+        PatientDocument patientDocument = getPatientEntity();
+        patientDocument = patientRepository.save(patientDocument);
+        ObjectMapper cborMapper = new ObjectMapper(new CBORFactory()).registerModule(new JavaTimeModule());
+        // when
+        MvcResult mvcResult = this.mockMvc.perform(MockMvcRequestBuilders.get("/api/v1/patients/"
+                                + patientDocument.getId())
+                        .accept(MediaType.APPLICATION_CBOR)
+                        .header("userId", patientDocument.getUserId())
+                        .header("role", UserRole.ROLE_PATIENT))
+                .andExpect(status().isOk()).andReturn();
+        // then
+        Map<String, Object> values = cborMapper.readValue(mvcResult.getResponse().getContentAsByteArray(),
+                new TypeReference<>() {
+                });
+
+        assertEquals(MediaType.APPLICATION_CBOR_VALUE, mvcResult.getResponse().getContentType());
+        assertEquals(patientDocument.getId(), values.get("id"));
+        assertEquals(patientDocument.getFirstName(), values.get("firstName"));
+        assertEquals("2000-01-01", values.get("birthDate"));
+    }
+
+    @Test
+    void savePatient_acceptsAndReturnsSmile() throws Exception {
+        // given
+        PatientDTO patientDTO = getPatientDTO();
+        ObjectMapper smileMapper = new ObjectMapper(new SmileFactory()).registerModule(new JavaTimeModule());
+        MediaType smile = MediaType.parseMediaType(AppConstants.APPLICATION_SMILE_VALUE);
+        // when
+        MvcResult mvcResult = this.mockMvc.perform(MockMvcRequestBuilders.post("/api/v1/patients")
+                        .contentType(smile)
+                        .accept(smile)
+                        .header("userId", patientDTO.getUserId())
+                        .header("role", UserRole.ROLE_PATIENT)
+                        .content(smileMapper.writeValueAsBytes(patientDTO)))
+                .andExpect(status().isCreated()).andReturn();
+        // then
+        PatientDTO createdPatientDTO = smileMapper.readValue(mvcResult.getResponse().getContentAsByteArray(),
+                PatientDTO.class);
+
+        assertEquals(patientDTO.getFirstName(), createdPatientDTO.getFirstName());
+        assertEquals(patientDTO.getBirthDate(), createdPatientDTO.getBirthDate());
+    }
+
     private void validateSuccessfulGetResult(PatientDocument patientDocument, MvcResult mvcResult)
             throws JsonProcessingException, UnsupportedEncodingException {
         PatientDTO patientDTO = objectMapper.readValue(mvcResult.getResponse().getContentAsString(),
@@ -500,4 +592,112 @@ class PatientControllerTest {
                         .characterEncoding("utf-8"))
                 .andExpect(status().isNoContent()).andReturn();
     }
-}
\ No newline at end of file
+
+    @Test
+    void deletePatientsByUserId_deletesAllPatientsOfUser() throws Exception {
+        // given
+        PatientDocument patientDocument1 = getPatientEntity();
+        patientDocument1.setId(null);
+        PatientDocument patientDocument2 = getPatientEntity();
+        patientDocument2.setId(null);
+        patientRepository.saveAll(List.of(patientDocument1, patientDocument2));
+        // when
+        MvcResult mvcResult = this.mockMvc.perform(MockMvcRequestBuilders.delete("/api/v1/patients/by-user-id/"
+                                + patientDocument1.getUserId())
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .header("userId", patientDocument1.getUserId())
+                        .header("role", UserRole.ROLE_PATIENT)
+                        .characterEncoding("utf-8"))
+                .andExpect(status().isOk()).andReturn();
+        // then
+        DeletedPatientsDTO deletedPatientsDTO = objectMapper.readValue(mvcResult.getResponse().getContentAsString(),
+                DeletedPatientsDTO.class);
+
+        assertEquals(2, deletedPatientsDTO.getDeletedCount());
+        assertTrue(patientRepository.findAllByUserId(patientDocument1.getUserId()).isEmpty());
+    }
+
+    @Test
+    void getPatientsByUserIds_returnsBadRequest_whenTooManyUserIds() throws Exception {
+        // given
+        List<String> userIds = new ArrayList<>();
+
+        for (int i = 0; i <= AppConstants.MAX_BATCH_USER_IDS; i++) {
+            userIds.add(UUID.randomUUID().toString());
+        }
+        // when
+        MvcResult mvcResult = this.mockMvc.perform(MockMvcRequestBuilders.post("/api/v1/patients/by-user-ids")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .header("userId", UUID.randomUUID())
+                        .header("role", UserRole.ROLE_DOCTOR)
+                        .content(objectMapper.writeValueAsString(new UserIdsDTO(userIds)))
+                        .characterEncoding("utf-8"))
+                .andExpect(status().isBadRequest()).andReturn();
+        // then
+        ErrorResponseDTO errorResponseDTO = objectMapper.readValue(mvcResult.getResponse().getContentAsString(),
+                ErrorResponseDTO.class);
+
+        assertTrue(errorResponseDTO.getInvalidFields().containsKey("userIds"));
+    }
+
+    @Test
+    void getPatientsByUserIds_returnsPatientsGroupedByUserId() throws Exception {
+        // given
+        PatientDocument patientDocument = getPatientEntity();
+        patientDocument.setId(null);
+        patientDocument = patientRepository.save(patientDocument);
+        String emptyUserId = UUID.randomUUID().toString();
+        // when
+        MvcResult mvcResult = this.mockMvc.perform(MockMvcRequestBuilders.post("/api/v1/patients/by-user-ids")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .header("userId", UUID.randomUUID())
+                        .header("role", UserRole.ROLE_ORGANIZATION)
+                        .content(objectMapper.writeValueAsString(
+                                new UserIdsDTO(List.of(patientDocument.getUserId(), emptyUserId))))
+                        .characterEncoding("utf-8"))
+                .andExpect(request().asyncStarted()).andReturn();
+        mvcResult = this.mockMvc.perform(asyncDispatch(mvcResult)).andExpect(status().isOk()).andReturn();
+        // then
+        List<UserPatientsDTO> userPatientsList = objectMapper.readValue(mvcResult.getResponse().getContentAsString(),
+                new TypeReference<>() {
+                });
+
+        // groups come in order of user ids
+        int patientsIndex = patientDocument.getUserId().compareTo(emptyUserId) < 0 ? 0 : 1;
+        assertEquals(2, userPatientsList.size());
+        assertEquals(patientDocument.getUserId(), userPatientsList.get(patientsIndex).getUserId());
+        assertEquals(1, userPatientsList.get(patientsIndex).getPatients().size());
+        assertEquals(patientDocument.getFirstName(),
+                userPatientsList.get(patientsIndex).getPatients().get(0).getFirstName());
+        assertEquals(emptyUserId, userPatientsList.get(1 - patientsIndex).getUserId());
+        assertTrue(userPatientsList.get(1 - patientsIndex).getPatients().isEmpty());
+    }
+
+    @Test
+    void getPatientsByUserIds_returnsCbor_whenCborIsAccepted() throws Exception {
+        // given
+        PatientDocument patientDocument = getPatientEntity();
+        patientDocument.setId(null);
+        patientDocument = patientRepository.save(patientDocument);
+        ObjectMapper cborMapper = new ObjectMapper(new CBORFactory()).registerModule(new JavaTimeModule());
+        // when
+        MvcResult mvcResult = this.mockMvc.perform(MockMvcRequestBuilders.post("/api/v1/patients/by-user-ids")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .accept(MediaType.APPLICATION_CBOR)
+                        .header("userId", UUID.randomUUID())
+                        .header("role", UserRole.ROLE_ORGANIZATION)
+                        .content(objectMapper.writeValueAsString(new UserIdsDTO(List.of(patientDocument.getUserId()))))
+                        .characterEncoding("utf-8"))
+                .andExpect(request().asyncStarted()).andReturn();
+        mvcResult = this.mockMvc.perform(asyncDispatch(mvcResult)).andExpect(status().isOk()).andReturn();
+        // then
+        List<UserPatientsDTO> userPatientsList = cborMapper.readValue(mvcResult.getResponse().getContentAsByteArray(),
+                new TypeReference<>() {
+                });
+
+        assertEquals(MediaType.APPLICATION_CBOR_VALUE, mvcResult.getResponse().getContentType());
+        assertEquals(1, userPatientsList.size());
+        assertEquals(patientDocument.getUserId(), userPatientsList.get(0).getUserId());
+        assertEquals(patientDocument.getFirstName(), userPatientsList.get(0).getPatients().get(0).getFirstName());
+    }
+}
@@ -0,0 +1,167 @@
+package kz.smarthealth.patientservice.controller;
+
+import io.grpc.ManagedChannel;
+import io.grpc.Metadata;
+import io.grpc.Server;
+import io.grpc.ServerInterceptors;
+import io.grpc.Status;
+import io.grpc.StatusRuntimeException;
+import io.grpc.inprocess.InProcessChannelBuilder;
+import io.grpc.inprocess.InProcessServerBuilder;
+import io.grpc.stub.MetadataUtils;
+import io.grpc.stub.StreamObserver;
+import jakarta.validation.Validation;
+import kz.smarthealth.patientservice.grpc.CreatePatientsResponse;
+import kz.smarthealth.patientservice.grpc.GetPatientRequest;
+import kz.smarthealth.patientservice.grpc.ListPatientsByUserRequest;
+import kz.smarthealth.patientservice.grpc.Patient;
+import kz.smarthealth.patientservice.grpc.PatientServiceGrpc;
+import kz.smarthealth.patientservice.model.dto.PatientDTO;
+import kz.smarthealth.patientservice.model.dto.UserRole;
+import kz.smarthealth.patientservice.security.GrpcAuthenticationInterceptor;
+import kz.smarthealth.patientservice.service.PatientService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static kz.smarthealth.patientservice.util.TestData.getPatientDTO;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unit tests for {@link PatientGrpcService}
+ */
+class PatientGrpcServiceTest {
+
+    private final PatientService patientService = mock(PatientService.class);
+
+    private Server server;
+    private ManagedChannel channel;
+
+    @BeforeEach
+    void beforeEach() throws Exception {
+        String serverName = InProcessServerBuilder.generateName();
+        PatientGrpcService underTest = new PatientGrpcService(patientService,
+                Validation.buildDefaultValidatorFactory().getValidator());
+        server = InProcessServerBuilder.forName(serverName)
+                .addService(ServerInterceptors.intercept(underTest, new GrpcAuthenticationInterceptor()))
+                .build()
+                .start();
+        channel = InProcessChannelBuilder.forName(serverName).build();
+    }
+
+    @AfterEach
+    void afterEach() throws InterruptedException {
+        channel.shutdownNow().awaitTermination(5, TimeUnit.SECONDS);
+        server.shutdownNow().awaitTermination(5, TimeUnit.SECONDS);
+    }
+
+    @Test
+    void getPatient_returnsUnauthenticated_whenMetadataMissing() {
+        // given
+        PatientServiceGrpc.PatientServiceBlockingStub stub = PatientServiceGrpc.newBlockingStub(channel);
+        GetPatientRequest request = GetPatientRequest.newBuilder().setId(UUID.randomUUID().toString()).build();
+        // when
+        StatusRuntimeException exception = assertThrows(StatusRuntimeException.class, () -> stub.getPatient(request));
+        // then
+        assertEquals(Status.Code.UNAUTHENTICATED, exception.getStatus().getCode());
+        verifyNoInteractions(patientService);
+    }
+
+    @Test
+    void getPatient_returnsPermissionDenied_whenUserIsNotOwner() {
+        // given
+        PatientDTO patientDTO = getPatientDTO();
+        when(patientService.getPatientById(patientDTO.getId())).thenReturn(patientDTO);
+        GetPatientRequest request = GetPatientRequest.newBuilder().setId(patientDTO.getId()).build();
+        // when
+        StatusRuntimeException exception = assertThrows(StatusRuntimeException.class,
+                () -> stub(UUID.randomUUID().toString(), UserRole.ROLE_PATIENT).getPatient(request));
+        // then
+        assertEquals(Status.Code.PERMISSION_DENIED, exception.getStatus().getCode());
+    }
+
+    @Test
+    void getPatient_returnsPatient_underDoctorRole() {
+        // given
+        PatientDTO patientDTO = getPatientDTO();
+        when(patientService.getPatientById(patientDTO.getId())).thenReturn(patientDTO);
+        GetPatientRequest request = GetPatientRequest.newBuilder().setId(patientDTO.getId()).build();
+        // when
+        Patient patient = stub(UUID.randomUUID().toString(), UserRole.ROLE_DOCTOR).getPatient(request);
+        // then
+        assertEquals(patientDTO.getId(), patient.getId());
+        assertEquals(patientDTO.getUserId(), patient.getUserId());
+        assertEquals(patientDTO.getFirstName(), patient.getFirstName());
+        assertEquals(patientDTO.getBirthDate().toString(), patient.getBirthDate());
+        assertEquals(patientDTO.getFamilyConnectionId().intValue(), patient.getFamilyConnectionId());
+    }
+
+    @Test
+    void listPatientsByUser_streamsPatients_whenUserIsOwner() {
+        // given
+        PatientDTO patientDTO1 = getPatientDTO();
+        PatientDTO patientDTO2 = getPatientDTO();
+        patientDTO2.setId(UUID.randomUUID().toString());
+        when(patientService.getPatientsByUserId(patientDTO1.getUserId())).thenReturn(List.of(patientDTO1, patientDTO2));
+        ListPatientsByUserRequest request = ListPatientsByUserRequest.newBuilder()
+                .setUserId(patientDTO1.getUserId())
+                .build();
+        // when
+        List<Patient> patients = new ArrayList<>();
+        stub(patientDTO1.getUserId(), UserRole.ROLE_PATIENT).listPatientsByUser(request).forEachRemaining(patients::add);
+        // then
+        assertEquals(List.of(patientDTO1.getId(), patientDTO2.getId()), patients.stream().map(Patient::getId).toList());
+    }
+
+    @Test
+    void createPatients_returnsInvalidArgument_whenPatientInvalid() throws Exception {
+        // given
+        CompletableFuture<CreatePatientsResponse> result = new CompletableFuture<>();
+        Metadata metadata = metadata(UUID.randomUUID().toString(), UserRole.ROLE_PATIENT);
+        PatientServiceGrpc.PatientServiceStub stub = PatientServiceGrpc.newStub(channel)
+                .withInterceptors(MetadataUtils.newAttachHeadersInterceptor(metadata));
+        // when
+        StreamObserver<Patient> requestObserver = stub.createPatients(new StreamObserver<>() {
+
+            @Override
+            public void onNext(CreatePatientsResponse value) {
+                result.complete(value);
+            }
+
+            @Override
+            public void onError(Throwable t) {
+                result.completeExceptionally(t);
+            }
+
+            @Override
+            public void onCompleted() {
+            }
+        });
+        requestObserver.onNext(Patient.newBuilder().setUserId(UUID.randomUUID().toString()).build());
+        requestObserver.onCompleted();
+        // then
+        Exception exception = assertThrows(Exception.class, () -> result.get(5, TimeUnit.SECONDS));
+        assertEquals(Status.Code.INVALID_ARGUMENT, Status.fromThrowable(exception.getCause()).getCode());
+        verify(patientService, never()).savePatient(any());
+    }
+
+    private PatientServiceGrpc.PatientServiceBlockingStub stub(String userId, UserRole role) {
+        return PatientServiceGrpc.newBlockingStub(channel)
+                .withInterceptors(MetadataUtils.newAttachHeadersInterceptor(metadata(userId, role)));
+    }
+
+    private static Metadata metadata(String userId, UserRole role) {
+        Metadata metadata = new Metadata();
+        metadata.put(GrpcAuthenticationInterceptor.USER_ID, userId);
+        metadata.put(GrpcAuthenticationInterceptor.ROLE, role.name());
+
+        return metadata;
+    }
+}
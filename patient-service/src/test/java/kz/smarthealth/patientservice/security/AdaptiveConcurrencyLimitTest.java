@@ -0,0 +1,76 @@
+package kz.smarthealth.patientservice.security;
+
+import kz.smarthealth.patientservice.config.AdmissionProperties;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Unit tests for {@link AdaptiveConcurrencyLimit}
+ */
+class AdaptiveConcurrencyLimitTest {
+
+    private static final long FAST = TimeUnit.MILLISECONDS.toNanos(10);
+    private static final long SLOW = TimeUnit.MILLISECONDS.toNanos(500);
+
+    private final AtomicLong clock = new AtomicLong(1);
+
+    @Test
+    void release_decreasesLimitOncePerWindow_whenPercentileExceedsTarget() {
+        // given
+        AdaptiveConcurrencyLimit underTest = new AdaptiveConcurrencyLimit(concurrency(), clock::get);
+        // when
+        releaseWindow(underTest, 20, 20);
+        // then
+        assertEquals(18, underTest.getLimit());
+    }
+
+    @Test
+    void release_keepsLimit_whenOnlyFewRequestsAreSlow() {
+        // given
+        AdaptiveConcurrencyLimit underTest = new AdaptiveConcurrencyLimit(concurrency(), clock::get);
+        // when
+        releaseWindow(underTest, 20, 1);
+        // then
+        assertEquals(20, underTest.getLimit());
+    }
+
+    @Test
+    void release_keepsLimit_whenWindowHasTooFewRequests() {
+        // given
+        AdaptiveConcurrencyLimit underTest = new AdaptiveConcurrencyLimit(concurrency(), clock::get);
+        // when
+        releaseWindow(underTest, 5, 5);
+        // then
+        assertEquals(20, underTest.getLimit());
+    }
+
+    private void releaseWindow(AdaptiveConcurrencyLimit underTest, int requests, int slowRequests) {
+        for (int i = 0; i < requests; i++) {
+            int inFlight = underTest.tryAcquire();
+
+            if (i == requests - 1) {
+                clock.addAndGet(TimeUnit.SECONDS.toNanos(1));
+            }
+
+            underTest.release(inFlight, i < slowRequests ? SLOW : FAST);
+        }
+    }
+
+    private static AdmissionProperties.Concurrency concurrency() {
+        AdmissionProperties.Concurrency concurrency = new AdmissionProperties.Concurrency();
+        concurrency.setInitialLimit(20);
+        concurrency.setMinLimit(4);
+        concurrency.setMaxLimit(200);
+        concurrency.setTargetLatencyMs(250);
+        concurrency.setBackoffRatio(0.9);
+        concurrency.setWindowMs(1000);
+        concurrency.setLatencyPercentile(0.9);
+        concurrency.setMinWindowRequests(10);
+
+        return concurrency;
+    }
+}
@@ -0,0 +1,57 @@
+package kz.smarthealth.patientservice.security;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Unit tests for {@link StripedTokenBuckets}
+ */
+class StripedTokenBucketsTest {
+
+    private final AtomicLong clock = new AtomicLong(1);
+
+    @Test
+    void tryAcquire_allowsBurst_thenReturnsWaitTime() {
+        // given
+        StripedTokenBuckets underTest = new StripedTokenBuckets(1024, 10, 3, clock::get);
+        String userId = UUID.randomUUID().toString();
+        // when
+        for (int i = 0; i < 3; i++) {
+            assertEquals(0, underTest.tryAcquire(userId));
+        }
+        long waitMillis = underTest.tryAcquire(userId);
+        // then
+        assertEquals(100, waitMillis);
+    }
+
+    @Test
+    void tryAcquire_refillsTokens_withElapsedTime() {
+        // given
+        StripedTokenBuckets underTest = new StripedTokenBuckets(1024, 10, 1, clock::get);
+        String userId = UUID.randomUUID().toString();
+        underTest.tryAcquire(userId);
+        assertTrue(underTest.tryAcquire(userId) > 0);
+        // when
+        clock.addAndGet(100);
+        // then
+        assertEquals(0, underTest.tryAcquire(userId));
+    }
+
+    @Test
+    void tryAcquire_keepsSeparateBudgets_forDifferentSlots() {
+        // given
+        StripedTokenBuckets underTest = new StripedTokenBuckets(1024, 1, 1, clock::get);
+        // when
+        long first = underTest.tryAcquire("a");
+        long second = underTest.tryAcquire("b");
+        // then
+        assertEquals(0, first);
+        assertEquals(0, second);
+        assertTrue(underTest.tryAcquire("a") > 0);
+    }
+}
@@ -0,0 +1,75 @@
+package kz.smarthealth.patientservice.service;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import kz.smarthealth.patientservice.model.dto.AutoscalingSignalDTO;
+import org.junit.jupiter.api.Test;
+import org.springframework.expression.ExpressionException;
+
+import java.time.Duration;
+
+import static kz.smarthealth.patientservice.service.AutoscalingSignalService.KAFKA_LAG;
+import static kz.smarthealth.patientservice.service.AutoscalingSignalService.P99_LATENCY_MS;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Unit tests for {@link AutoscalingSignalService}
+ */
+class AutoscalingSignalServiceTest {
+
+    private static final String FORMULA = "#max(#kafkaLag / 1000.0, #mongoPoolWaitMs / 50.0, "
+            + "#threadSaturation / 0.7, #p99LatencyMs / 250.0)";
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @Test
+    void getSignal_returnsStrongestSignal_relativeToItsTarget() {
+        // given
+        Gauge.builder("kafka.consumer.fetch.manager.records.lag", () -> 1200)
+                .tags("topic", "user-service-new-patients", "partition", "0")
+                .register(meterRegistry);
+        Gauge.builder("kafka.consumer.fetch.manager.records.lag", () -> 1800)
+                .tags("topic", "user-service-new-patients", "partition", "1")
+                .register(meterRegistry);
+        Gauge.builder("kafka.consumer.fetch.manager.records.lag", () -> 100_000)
+                .tags("topic", "other-topic", "partition", "0")
+                .register(meterRegistry);
+        AutoscalingSignalService underTest = new AutoscalingSignalService(meterRegistry,
+                "user-service-new-patients", FORMULA);
+        // when
+        AutoscalingSignalDTO signal = underTest.getSignal();
+        // then
+        assertEquals(3000, signal.getSignals().get(KAFKA_LAG));
+        assertEquals(3.0, signal.getDesiredCapacity(), 0.0001);
+        assertEquals(3.0, meterRegistry.get("patient.autoscaling.desired.capacity").gauge().value(), 0.0001);
+    }
+
+    @Test
+    void getSignal_usesP99OfApiRequests_andIgnoresActuator() {
+        // given
+        Timer api = Timer.builder("http.server.requests").tag("uri", "/api/v1/patients/{id}")
+                .publishPercentiles(0.99)
+                .register(meterRegistry);
+        Timer actuator = Timer.builder("http.server.requests").tag("uri", "/actuator/jfr")
+                .publishPercentiles(0.99)
+                .register(meterRegistry);
+        api.record(Duration.ofMillis(500));
+        actuator.record(Duration.ofSeconds(30));
+        AutoscalingSignalService underTest = new AutoscalingSignalService(meterRegistry,
+                "user-service-new-patients", FORMULA);
+        // when
+        AutoscalingSignalDTO signal = underTest.getSignal();
+        // then
+        assertEquals(500, signal.getSignals().get(P99_LATENCY_MS), 60);
+        assertEquals(2.0, signal.getDesiredCapacity(), 0.25);
+    }
+
+    @Test
+    void constructor_fails_whenFormulaReferencesUnknownFunction() {
+        // when then
+        assertThrows(ExpressionException.class, () -> new AutoscalingSignalService(meterRegistry,
+                "user-service-new-patients", "#min(#kafkaLag, 1)"));
+    }
+}
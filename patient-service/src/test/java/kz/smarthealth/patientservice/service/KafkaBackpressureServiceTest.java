@@ -0,0 +1,119 @@
+package kz.smarthealth.patientservice.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.kafka.config.KafkaListenerEndpointRegistry;
+import org.springframework.kafka.listener.MessageListenerContainer;
+
+import java.util.concurrent.TimeUnit;
+
+import static kz.smarthealth.patientservice.service.KafkaBackpressureService.NEW_PATIENTS_LISTENER_ID;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Unit tests for {@link KafkaBackpressureService}
+ */
+@ExtendWith(MockitoExtension.class)
+class KafkaBackpressureServiceTest {
+
+    @Mock
+    private KafkaListenerEndpointRegistry kafkaListenerEndpointRegistry;
+
+    @Mock
+    private MessageListenerContainer messageListenerContainer;
+
+    private KafkaBackpressureService underTest;
+
+    @BeforeEach
+    void beforeEach() {
+        underTest = new KafkaBackpressureService(kafkaListenerEndpointRegistry, new SimpleMeterRegistry(),
+                true, 500, 0.2, 10, 1000, 50, 0.5, 60_000);
+    }
+
+    @Test
+    void adjust_pausesAndHalvesQuota_whenLatencyExceedsThreshold() {
+        // given
+        when(kafkaListenerEndpointRegistry.getListenerContainer(NEW_PATIENTS_LISTENER_ID))
+                .thenReturn(messageListenerContainer);
+        underTest.record(TimeUnit.SECONDS.toNanos(1), true);
+        // when
+        underTest.adjust();
+        // then
+        assertTrue(underTest.isPaused());
+        assertEquals(500, underTest.getQuota());
+        verify(messageListenerContainer).pause();
+    }
+
+    @Test
+    void adjust_resumesAndIncreasesQuota_whenWritesRecover() {
+        // given
+        when(kafkaListenerEndpointRegistry.getListenerContainer(NEW_PATIENTS_LISTENER_ID))
+                .thenReturn(messageListenerContainer);
+        underTest.record(TimeUnit.SECONDS.toNanos(1), false);
+        underTest.adjust();
+        underTest.record(TimeUnit.MILLISECONDS.toNanos(10), true);
+        // when
+        underTest.adjust();
+        // then
+        assertFalse(underTest.isPaused());
+        assertEquals(550, underTest.getQuota());
+        verify(messageListenerContainer).resume();
+    }
+
+    @Test
+    void adjust_keepsListenerPaused_whenNothingWrittenDuringCoolDown() {
+        // given
+        when(kafkaListenerEndpointRegistry.getListenerContainer(NEW_PATIENTS_LISTENER_ID))
+                .thenReturn(messageListenerContainer);
+        underTest.record(TimeUnit.SECONDS.toNanos(1), true);
+        underTest.adjust();
+        // when
+        underTest.adjust();
+        // then
+        assertTrue(underTest.isPaused());
+        assertEquals(500, underTest.getQuota());
+        verify(messageListenerContainer, never()).resume();
+    }
+
+    @Test
+    void adjust_resumesWithDecreasedQuota_whenCoolDownPassed() {
+        // given
+        underTest = new KafkaBackpressureService(kafkaListenerEndpointRegistry, new SimpleMeterRegistry(),
+                true, 500, 0.2, 10, 1000, 50, 0.5, 0);
+        when(kafkaListenerEndpointRegistry.getListenerContainer(NEW_PATIENTS_LISTENER_ID))
+                .thenReturn(messageListenerContainer);
+        underTest.record(TimeUnit.SECONDS.toNanos(1), true);
+        underTest.adjust();
+        // when
+        underTest.adjust();
+        underTest.adjust();
+        // then
+        assertFalse(underTest.isPaused());
+        assertEquals(500, underTest.getQuota());
+        verify(messageListenerContainer).resume();
+    }
+
+    @Test
+    void record_pausesListener_whenQuotaExhausted() {
+        // given
+        underTest = new KafkaBackpressureService(kafkaListenerEndpointRegistry, new SimpleMeterRegistry(),
+                true, 500, 0.2, 1, 2, 1, 0.5, 60_000);
+        when(kafkaListenerEndpointRegistry.getListenerContainer(NEW_PATIENTS_LISTENER_ID))
+                .thenReturn(messageListenerContainer);
+        // when
+        underTest.record(TimeUnit.MILLISECONDS.toNanos(10), true);
+        underTest.record(TimeUnit.MILLISECONDS.toNanos(10), true);
+        // then
+        assertTrue(underTest.isPaused());
+        verify(messageListenerContainer).pause();
+    }
+}
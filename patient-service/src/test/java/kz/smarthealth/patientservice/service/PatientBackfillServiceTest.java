@@ -0,0 +1,173 @@
+package kz.smarthealth.patientservice.service;
+
+import com.mongodb.MongoClientSettings;
+import com.mongodb.bulk.BulkWriteResult;
+import com.mongodb.client.model.UpdateOneModel;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import kz.smarthealth.patientservice.model.dto.BackfillStatus;
+import kz.smarthealth.patientservice.model.entity.PatientBackfillDocument;
+import kz.smarthealth.patientservice.repository.PatientBackfillRepository;
+import org.bson.BsonDocument;
+import org.bson.BsonObjectId;
+import org.bson.BsonString;
+import org.bson.types.ObjectId;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unit tests for {@link PatientBackfillService}
+ */
+@ExtendWith(MockitoExtension.class)
+class PatientBackfillServiceTest {
+
+    private static final String NAME = "normalize-phone-number";
+
+    private final PhoneNumberBackfillMigration migration = new PhoneNumberBackfillMigration();
+    private final ObjectId firstId = new ObjectId();
+    private final ObjectId secondId = new ObjectId();
+
+    @Mock
+    private PatientBackfillRepository patientBackfillRepository;
+
+    @Mock
+    private BulkWriteResult bulkWriteResult;
+
+    private PatientBackfillService underTest;
+
+    @BeforeEach
+    void beforeEach() {
+        underTest = new PatientBackfillService(List.of(migration), patientBackfillRepository, new SimpleMeterRegistry(),
+                List.of(NAME), Duration.ofMinutes(2), 2, 1, 4, Duration.ofMinutes(1), 1.0);
+    }
+
+    @Test
+    void runBackfill_updatesChangedPatientsAndCompletes() {
+        // given
+        when(patientBackfillRepository.acquire(eq(NAME), anyString(), any())).thenReturn(Optional.of(checkpoint()));
+        when(patientBackfillRepository.findBatchAfter(isNull(), eq(migration.getFields()), eq(2)))
+                .thenReturn(List.of(patient(firstId, "+7 (701) 123-45-67"), patient(secondId, "+77011234568")));
+        when(patientBackfillRepository.findBatchAfter(eq(secondId), eq(migration.getFields()), eq(3)))
+                .thenReturn(List.of());
+        when(patientBackfillRepository.updateAll(any())).thenReturn(bulkWriteResult);
+        when(bulkWriteResult.getMatchedCount()).thenReturn(1);
+        when(bulkWriteResult.getModifiedCount()).thenReturn(1);
+        when(patientBackfillRepository.checkpoint(eq(NAME), anyString(), eq(secondId), eq(2L), eq(1L), eq(0L),
+                eq(3), any())).thenReturn(true);
+        // when
+        underTest.runBackfill(migration);
+        // then
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<List<UpdateOneModel<BsonDocument>>> updates = ArgumentCaptor.forClass(List.class);
+        verify(patientBackfillRepository).updateAll(updates.capture());
+        assertEquals(1, updates.getValue().size());
+        BsonDocument filter = updates.getValue().get(0).getFilter()
+                .toBsonDocument(BsonDocument.class, MongoClientSettings.getDefaultCodecRegistry());
+        assertTrue(filter.toJson().contains(firstId.toHexString()));
+        assertTrue(filter.toJson().contains("+7 (701) 123-45-67"));
+        verify(patientBackfillRepository).complete(eq(NAME), anyString());
+    }
+
+    @Test
+    void runBackfill_countsConflict_whenPatientChangedAfterRead() {
+        // given
+        when(patientBackfillRepository.acquire(eq(NAME), anyString(), any())).thenReturn(Optional.of(checkpoint()));
+        when(patientBackfillRepository.findBatchAfter(isNull(), any(), anyInt()))
+                .thenReturn(List.of(patient(firstId, "8 701 123 45 67")));
+        when(patientBackfillRepository.findBatchAfter(eq(firstId), any(), anyInt())).thenReturn(List.of());
+        when(patientBackfillRepository.updateAll(any())).thenReturn(bulkWriteResult);
+        when(bulkWriteResult.getMatchedCount()).thenReturn(0);
+        when(bulkWriteResult.getModifiedCount()).thenReturn(0);
+        when(patientBackfillRepository.checkpoint(eq(NAME), anyString(), eq(firstId), eq(1L), eq(0L), eq(1L),
+                anyInt(), any())).thenReturn(true);
+        // when
+        underTest.runBackfill(migration);
+        // then
+        verify(patientBackfillRepository).complete(eq(NAME), anyString());
+    }
+
+    @Test
+    void runBackfill_stops_whenLeaseLost() {
+        // given
+        when(patientBackfillRepository.acquire(eq(NAME), anyString(), any())).thenReturn(Optional.of(checkpoint()));
+        when(patientBackfillRepository.findBatchAfter(isNull(), any(), anyInt()))
+                .thenReturn(List.of(patient(firstId, "+77011234567")));
+        when(patientBackfillRepository.checkpoint(any(), any(), any(), anyLong(), anyLong(), anyLong(), anyInt(),
+                any())).thenReturn(false);
+        // when
+        underTest.runBackfill(migration);
+        // then
+        verify(patientBackfillRepository, times(1)).findBatchAfter(any(), any(), anyInt());
+        verify(patientBackfillRepository, never()).updateAll(any());
+        verify(patientBackfillRepository, never()).complete(any(), any());
+    }
+
+    @Test
+    void runBackfill_resumesFromCheckpoint() {
+        // given
+        PatientBackfillDocument checkpoint = checkpoint();
+        checkpoint.setLastId(firstId);
+        checkpoint.setBatchSize(4);
+        when(patientBackfillRepository.acquire(eq(NAME), anyString(), any())).thenReturn(Optional.of(checkpoint));
+        when(patientBackfillRepository.findBatchAfter(firstId, migration.getFields(), 4)).thenReturn(List.of());
+        // when
+        underTest.runBackfill(migration);
+        // then
+        verify(patientBackfillRepository).complete(eq(NAME), anyString());
+    }
+
+    @Test
+    void runBackfill_marksFailed_whenBatchFails() {
+        // given
+        when(patientBackfillRepository.acquire(eq(NAME), anyString(), any())).thenReturn(Optional.of(checkpoint()));
+        when(patientBackfillRepository.findBatchAfter(any(), any(), anyInt()))
+                .thenThrow(new IllegalStateException("boom"));
+        // when
+        underTest.runBackfill(migration);
+        // then
+        verify(patientBackfillRepository).fail(eq(NAME), anyString(), eq("boom"));
+    }
+
+    @Test
+    void runBackfill_doesNothing_whenLeasedByAnotherReplica() {
+        // given
+        when(patientBackfillRepository.acquire(eq(NAME), anyString(), any())).thenReturn(Optional.empty());
+        // when
+        underTest.runBackfill(migration);
+        // then
+        verify(patientBackfillRepository, never()).findBatchAfter(any(), any(), anyInt());
+    }
+
+    @Test
+    void normalize_keepsLeadingPlusAndDigits() {
+        // when // then
+        assertEquals("+77011234567", PhoneNumberBackfillMigration.normalize("+7 (701) 123-45-67"));
+        assertEquals("87011234567", PhoneNumberBackfillMigration.normalize("8 701 123+45 67"));
+    }
+
+    private static PatientBackfillDocument checkpoint() {
+        return PatientBackfillDocument.builder()
+                .id(NAME)
+                .status(BackfillStatus.RUNNING)
+                .build();
+    }
+
+    private static BsonDocument patient(ObjectId id, String phoneNumber) {
+        return new BsonDocument("_id", new BsonObjectId(id)).append("phoneNumber", new BsonString(phoneNumber));
+    }
+}
@@ -0,0 +1,136 @@
+package kz.smarthealth.patientservice.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import kz.smarthealth.patientservice.model.dto.PatientDTO;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.UUID;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import static kz.smarthealth.patientservice.util.TestData.getPatientDTO;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for {@link PatientCacheCluster}
+ */
+class PatientCacheClusterTest {
+
+    private static final String TOKEN = "secret";
+
+    private final ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules();
+
+    @TempDir
+    private Path discoveryDir;
+
+    @Test
+    void isOwner_returnsTrue_whenDisabled() {
+        // given
+        PatientCacheCluster underTest = cluster(cache(), "", List.of());
+        // when
+        underTest.join();
+        // then
+        assertTrue(underTest.isOwner(UUID.randomUUID().toString()));
+        assertFalse(underTest.isTrustedPeer(TOKEN));
+    }
+
+    @Test
+    void refreshMembership_discoversMembersOfSharedDirectory() {
+        // given
+        PatientCacheCluster first = cluster(cache(), "http://localhost:8081", List.of());
+        PatientCacheCluster second = cluster(cache(), "http://localhost:8082", List.of());
+        first.join();
+        second.join();
+        // when
+        first.refreshMembership();
+        // then
+        assertEquals(List.of("http://localhost:8081", "http://localhost:8082"), first.getMembers());
+        assertEquals(first.getMembers(), second.getMembers());
+        IntStream.range(0, 100).mapToObj(i -> UUID.randomUUID().toString())
+                .forEach(id -> assertNotEquals(first.isOwner(id), second.isOwner(id)));
+    }
+
+    @Test
+    void refreshMembership_removesMember_afterLeave() {
+        // given
+        PatientCacheCluster first = cluster(cache(), "http://localhost:8081", List.of());
+        PatientCacheCluster second = cluster(cache(), "http://localhost:8082", List.of());
+        first.join();
+        second.join();
+        first.refreshMembership();
+        // when
+        second.leave();
+        first.refreshMembership();
+        // then
+        assertEquals(List.of("http://localhost:8081"), first.getMembers());
+    }
+
+    @Test
+    void refreshMembership_evictsPatientsOwnedByJoinedMember() {
+        // given
+        PatientResponseCache cache = cache();
+        PatientCacheCluster underTest = cluster(cache, "http://localhost:8081", List.of());
+        underTest.join();
+        List<PatientDTO> patients = IntStream.range(0, 100).mapToObj(i -> patient()).toList();
+        patients.forEach(patient -> cache.put(patient, cache.loadStamp(patient.getId())));
+        // when
+        cluster(cache(), "http://localhost:8082", List.of()).join();
+        underTest.refreshMembership();
+        // then
+        patients.forEach(patient -> assertEquals(underTest.isOwner(patient.getId()),
+                cache.get(patient.getId()) != null));
+        assertTrue(cache.size() > 0 && cache.size() < patients.size());
+    }
+
+    @Test
+    void getMembers_returnsStaticMembers_whenConfigured() {
+        // given
+        PatientCacheCluster underTest = cluster(cache(), "http://localhost:8081",
+                List.of("http://localhost:8081", "http://localhost:8083"));
+        // when
+        underTest.join();
+        // then
+        assertEquals(List.of("http://localhost:8081", "http://localhost:8083"), underTest.getMembers());
+        assertTrue(underTest.isTrustedPeer(TOKEN));
+        assertFalse(underTest.isTrustedPeer("other"));
+    }
+
+    @Test
+    void fetchFromOwner_takesOwnerOutOfRing_afterConsecutiveFailures() {
+        // given
+        PatientCacheCluster underTest = cluster(cache(), "http://localhost:8081",
+                List.of("http://localhost:8081", "http://localhost:1"));
+        underTest.join();
+        String id = Stream.generate(() -> UUID.randomUUID().toString())
+                .filter(candidate -> !underTest.isOwner(candidate))
+                .findFirst()
+                .orElseThrow();
+        // when
+        IntStream.range(0, 3).forEach(i -> assertTrue(underTest.fetchFromOwner(id).isEmpty()));
+        // then
+        assertEquals(List.of("http://localhost:8081"), underTest.getMembers());
+        assertTrue(underTest.isOwner(id));
+    }
+
+    private PatientCacheCluster cluster(PatientResponseCache cache, String self, List<String> staticMembers) {
+        return new PatientCacheCluster(cache, new SimpleMeterRegistry(), self, staticMembers, discoveryDir.toString(),
+                Duration.ofSeconds(10), 128, TOKEN, Duration.ofMillis(200), 3, Duration.ofMinutes(1));
+    }
+
+    private PatientResponseCache cache() {
+        return new PatientResponseCache(objectMapper, new SimpleMeterRegistry(), true, 1, 1024,
+                Duration.ofMinutes(1));
+    }
+
+    private static PatientDTO patient() {
+        PatientDTO patientDTO = getPatientDTO();
+        patientDTO.setId(UUID.randomUUID().toString());
+
+        return patientDTO;
+    }
+}
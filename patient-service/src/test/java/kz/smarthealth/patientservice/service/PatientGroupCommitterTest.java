@@ -0,0 +1,148 @@
+package kz.smarthealth.patientservice.service;
+
+import com.mongodb.MongoBulkWriteException;
+import com.mongodb.MongoWriteException;
+import com.mongodb.ServerAddress;
+import com.mongodb.bulk.BulkWriteError;
+import com.mongodb.bulk.BulkWriteResult;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import kz.smarthealth.patientservice.exception.CustomException;
+import kz.smarthealth.patientservice.model.entity.PatientDocument;
+import kz.smarthealth.patientservice.repository.PatientRepository;
+import org.bson.BsonDocument;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.HttpStatus;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static kz.smarthealth.patientservice.util.AppConstants.WRITE_CONCERN_API;
+import static kz.smarthealth.patientservice.util.TestData.getPatientEntity;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.atMost;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Unit tests for {@link PatientGroupCommitter}
+ */
+@ExtendWith(MockitoExtension.class)
+class PatientGroupCommitterTest {
+
+    private static final int CALLERS = 8;
+
+    @Mock
+    private PatientRepository patientRepository;
+
+    private PatientGroupCommitter underTest;
+
+    private final ExecutorService executorService = Executors.newFixedThreadPool(CALLERS);
+
+    @AfterEach
+    void afterEach() {
+        executorService.shutdownNow();
+        underTest.stop();
+    }
+
+    @Test
+    void save_commitsConcurrentCreatesInBatches() throws Exception {
+        // given
+        underTest = new PatientGroupCommitter(patientRepository, new SimpleMeterRegistry(), true, 50, 64, 5_000);
+        doAnswer(invocation -> {
+            List<PatientDocument> patientDocuments = invocation.getArgument(0);
+            patientDocuments.forEach(patientDocument -> patientDocument.setId(UUID.randomUUID().toString()));
+            return null;
+        }).when(patientRepository).insertAllCausal(anyList(), eq(WRITE_CONCERN_API));
+        // when
+        List<Future<PatientDocument>> results = new ArrayList<>();
+
+        for (int i = 0; i < CALLERS; i++) {
+            PatientDocument patientDocument = getPatientEntity();
+            patientDocument.setId(null);
+            results.add(executorService.submit(() -> underTest.save(patientDocument)));
+        }
+        // then
+        for (Future<PatientDocument> result : results) {
+            assertNotNull(result.get().getId());
+        }
+
+        verify(patientRepository, atMost(CALLERS - 1)).insertAllCausal(anyList(), eq(WRITE_CONCERN_API));
+    }
+
+    @Test
+    void save_throwsOwnError_whenDocumentRejected() {
+        // given
+        underTest = new PatientGroupCommitter(patientRepository, new SimpleMeterRegistry(), true, 1, 64, 5_000);
+        PatientDocument patientDocument = getPatientEntity();
+        patientDocument.setId(null);
+        doAnswer(invocation -> {
+            BulkWriteError error = new BulkWriteError(11000, "duplicate key", new BsonDocument(), 0);
+            throw new MongoBulkWriteException(BulkWriteResult.unacknowledged(), List.of(error), null,
+                    new ServerAddress(), Set.of());
+        }).when(patientRepository).insertAllCausal(anyList(), eq(WRITE_CONCERN_API));
+        // when
+        RuntimeException exception = assertThrows(RuntimeException.class, () -> underTest.save(patientDocument));
+        // then
+        assertInstanceOf(MongoWriteException.class, exception);
+    }
+
+    @Test
+    void save_throwsServiceUnavailable_whenCommitTimesOut() throws Exception {
+        // given
+        underTest = new PatientGroupCommitter(patientRepository, new SimpleMeterRegistry(), true, 1, 64, 50);
+        CountDownLatch release = new CountDownLatch(1);
+        doAnswer(invocation -> {
+            release.await();
+            return null;
+        }).when(patientRepository).insertAllCausal(anyList(), eq(WRITE_CONCERN_API));
+        PatientDocument patientDocument = getPatientEntity();
+        patientDocument.setId(null);
+        // when
+        CustomException exception = assertThrows(CustomException.class, () -> underTest.save(patientDocument));
+        // then
+        assertEquals(HttpStatus.SERVICE_UNAVAILABLE, exception.getHttpStatus());
+        release.countDown();
+    }
+
+    @Test
+    void stop_failsPendingInserts() throws Exception {
+        // given
+        underTest = new PatientGroupCommitter(patientRepository, new SimpleMeterRegistry(), true, 1, 64, 60_000);
+        CountDownLatch committing = new CountDownLatch(1);
+        doAnswer(invocation -> {
+            committing.countDown();
+            Thread.sleep(60_000);
+            return null;
+        }).when(patientRepository).insertAllCausal(anyList(), eq(WRITE_CONCERN_API));
+        PatientDocument first = getPatientEntity();
+        first.setId(null);
+        PatientDocument second = getPatientEntity();
+        second.setId(null);
+        Future<PatientDocument> inFlight = executorService.submit(() -> underTest.save(first));
+        committing.await();
+        Future<PatientDocument> queued = executorService.submit(() -> underTest.save(second));
+        // when
+        underTest.stop();
+        // then
+        assertThrows(ExecutionException.class, inFlight::get);
+        ExecutionException exception = assertThrows(ExecutionException.class, queued::get);
+        assertInstanceOf(IllegalStateException.class, exception.getCause());
+    }
+}
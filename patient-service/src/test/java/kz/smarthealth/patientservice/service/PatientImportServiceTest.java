@@ -0,0 +1,213 @@
+package kz.smarthealth.patientservice.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.mongodb.MongoBulkWriteException;
+import com.mongodb.ServerAddress;
+import com.mongodb.bulk.BulkWriteError;
+import com.mongodb.bulk.BulkWriteResult;
+import jakarta.validation.Validation;
+import kz.smarthealth.patientservice.exception.CustomException;
+import kz.smarthealth.patientservice.model.dto.ImportFormat;
+import kz.smarthealth.patientservice.model.dto.ImportJobDTO;
+import kz.smarthealth.patientservice.model.dto.ImportJobStatus;
+import kz.smarthealth.patientservice.model.entity.PatientDocument;
+import kz.smarthealth.patientservice.repository.PatientRepository;
+import org.bson.BsonDocument;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.modelmapper.ModelMapper;
+import org.springframework.http.HttpStatus;
+import org.springframework.security.authentication.TestingAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.util.unit.DataSize;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static kz.smarthealth.patientservice.util.AppConstants.WRITE_CONCERN_API;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+/**
+ * Unit tests for {@link PatientImportService}
+ */
+@ExtendWith(MockitoExtension.class)
+class PatientImportServiceTest {
+
+    @Mock
+    private PatientRepository patientRepository;
+    @Mock
+    private PatientStatsService patientStatsService;
+
+    private final ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules();
+    private PatientImportService underTest;
+
+    @BeforeEach
+    void beforeEach() {
+        underTest = new PatientImportService(patientRepository, patientStatsService, new ModelMapper(),
+                Validation.buildDefaultValidatorFactory().getValidator(), objectMapper, 2, 1, 1, 2,
+                DataSize.ofKilobytes(1), Duration.ofHours(1));
+        SecurityContextHolder.getContext().setAuthentication(
+                new TestingAuthenticationToken("clinic-1", null, "ROLE_ORGANIZATION"));
+    }
+
+    @AfterEach
+    void afterEach() {
+        underTest.stop();
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    void startImport_insertsValidRowsInBatches_andRejectsInvalidOnes() throws Exception {
+        // given
+        String body = """
+                {"userId":"user-1","firstName":"Samat","birthDate":"2000-01-01"}
+                not json
+                {"userId":"user-1","birthDate":"2000-01-01"}
+
+                {"userId":"user-2","firstName":"Aidos","birthDate":"1990-05-10"}
+                {"userId":"user-3","firstName":"Dana","birthDate":"1985-12-31"}
+                """;
+        // when
+        ImportJobDTO job = await(underTest.startImport(new ByteArrayInputStream(body.getBytes(StandardCharsets.UTF_8)),
+                ImportFormat.NDJSON, StandardCharsets.UTF_8));
+        // then
+        assertEquals(ImportJobStatus.COMPLETED, job.getStatus());
+        assertEquals(5, job.getRowsRead());
+        assertEquals(3, job.getImported());
+        assertEquals(2, job.getRejected());
+        verify(patientRepository, times(2)).insertAllCausal(anyList(), eq(WRITE_CONCERN_API));
+
+        List<String> rejected = Files.readAllLines(underTest.getRejectedRows(job.getId()));
+        JsonNode notJson = objectMapper.readTree(rejected.get(0));
+        JsonNode noFirstName = objectMapper.readTree(rejected.get(1));
+        assertEquals(2, notJson.get("line").asLong());
+        assertEquals("not json", notJson.get("row").asText());
+        assertEquals(3, noFirstName.get("line").asLong());
+        assertEquals("firstName: must not be empty", noFirstName.get("errors").get(0).asText());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void startImport_rejectsCsvRowsFailedByDatabase_andCountsTheRest() throws Exception {
+        // given
+        String body = """
+                userId,firstName,lastName,birthDate
+                user-1,Samat,,2000-01-01
+                user-2,Aidos,Bekov,1990-05-10
+                """;
+        BulkWriteError error = new BulkWriteError(11000, "duplicate key", new BsonDocument(), 1);
+        doThrow(new MongoBulkWriteException(BulkWriteResult.unacknowledged(), List.of(error), null,
+                new ServerAddress(), Set.of()))
+                .when(patientRepository).insertAllCausal(anyList(), eq(WRITE_CONCERN_API));
+        ArgumentCaptor<List<PatientDocument>> inserted = ArgumentCaptor.forClass(List.class);
+        // when
+        ImportJobDTO job = await(underTest.startImport(new ByteArrayInputStream(body.getBytes(StandardCharsets.UTF_8)),
+                ImportFormat.CSV, StandardCharsets.UTF_8));
+        // then
+        assertEquals(ImportJobStatus.COMPLETED, job.getStatus());
+        assertEquals(1, job.getImported());
+        assertEquals(1, job.getRejected());
+        verify(patientStatsService).recordInserts(inserted.capture());
+        assertEquals("user-1", inserted.getValue().get(0).getUserId());
+
+        JsonNode rejected = objectMapper.readTree(Files.readAllLines(underTest.getRejectedRows(job.getId())).get(0));
+        assertEquals(3, rejected.get("line").asLong());
+        assertEquals("duplicate key", rejected.get("errors").get(0).asText());
+    }
+
+    @Test
+    void getImportJob_throwsForbidden_whenJobStartedByAnotherUser() throws Exception {
+        // given
+        ImportJobDTO job = await(underTest.startImport(new ByteArrayInputStream(new byte[0]), ImportFormat.NDJSON,
+                StandardCharsets.UTF_8));
+        SecurityContextHolder.getContext().setAuthentication(
+                new TestingAuthenticationToken("clinic-2", null, "ROLE_ORGANIZATION"));
+        // when
+        CustomException exception = assertThrows(CustomException.class, () -> underTest.getImportJob(job.getId()));
+        // then
+        assertEquals(HttpStatus.FORBIDDEN, exception.getHttpStatus());
+    }
+
+    @Test
+    void startImport_throwsTooManyRequests_whenMaxJobsQueuedOrRunning() throws Exception {
+        // given
+        CountDownLatch release = new CountDownLatch(1);
+        doAnswer(invocation -> {
+            release.await();
+            return null;
+        }).when(patientRepository).insertAllCausal(anyList(), eq(WRITE_CONCERN_API));
+        byte[] body = "{\"userId\":\"user-1\",\"firstName\":\"Samat\",\"birthDate\":\"2000-01-01\"}"
+                .getBytes(StandardCharsets.UTF_8);
+        ImportJobDTO running = underTest.startImport(new ByteArrayInputStream(body), ImportFormat.NDJSON,
+                StandardCharsets.UTF_8);
+        ImportJobDTO queued = underTest.startImport(new ByteArrayInputStream(body), ImportFormat.NDJSON,
+                StandardCharsets.UTF_8);
+        // when
+        CustomException exception = assertThrows(CustomException.class, () -> underTest.startImport(
+                new ByteArrayInputStream(body), ImportFormat.NDJSON, StandardCharsets.UTF_8));
+        // then
+        assertEquals(HttpStatus.TOO_MANY_REQUESTS, exception.getHttpStatus());
+        release.countDown();
+        await(running);
+        await(queued);
+        assertEquals(ImportJobStatus.COMPLETED, await(underTest.startImport(new ByteArrayInputStream(body),
+                ImportFormat.NDJSON, StandardCharsets.UTF_8)).getStatus());
+    }
+
+    @Test
+    void startImport_throwsPayloadTooLarge_andDeletesSpoolFile_whenUploadExceedsMaxSize() throws Exception {
+        // given
+        Set<Path> spoolFilesBefore = spoolFiles();
+        // when
+        CustomException exception = assertThrows(CustomException.class, () -> underTest.startImport(
+                new ByteArrayInputStream(new byte[2048]), ImportFormat.NDJSON, StandardCharsets.UTF_8));
+        // then
+        assertEquals(HttpStatus.PAYLOAD_TOO_LARGE, exception.getHttpStatus());
+        assertEquals(spoolFilesBefore, spoolFiles());
+    }
+
+    private static Set<Path> spoolFiles() throws IOException {
+        try (Stream<Path> files = Files.list(Path.of(System.getProperty("java.io.tmpdir")))) {
+            return files.filter(file -> file.getFileName().toString().startsWith("patient-import-"))
+                    .collect(Collectors.toSet());
+        }
+    }
+
+    private ImportJobDTO await(ImportJobDTO job) throws InterruptedException {
+        long deadline = System.nanoTime() + Duration.ofSeconds(10).toNanos();
+
+        while (System.nanoTime() < deadline) {
+            ImportJobDTO current = underTest.getImportJob(job.getId());
+
+            if (current.getFinishedAt() != null) {
+                return current;
+            }
+
+            Thread.sleep(10);
+        }
+
+        throw new AssertionError("Import did not finish");
+    }
+}
@@ -0,0 +1,162 @@
+package kz.smarthealth.patientservice.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.opentelemetry.api.OpenTelemetry;
+import io.opentelemetry.context.propagation.TextMapPropagator;
+import kz.smarthealth.patientservice.model.dto.DeletedPatientsDTO;
+import kz.smarthealth.patientservice.model.entity.PatientDocument;
+import kz.smarthealth.patientservice.repository.PatientRepository;
+import kz.smarthealth.patientservice.util.KafkaTracing;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.bson.types.ObjectId;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.List;
+
+import static kz.smarthealth.patientservice.util.AppConstants.EVENT_ID_HEADER;
+import static kz.smarthealth.patientservice.util.AppConstants.WRITE_CONCERN_INGESTION;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Unit tests for {@link PatientKafkaConsumerService}
+ *
+ * Created by Samat Abibulla on 2022-06-09
+ */
+@ExtendWith(MockitoExtension.class)
+class PatientKafkaConsumerServiceTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @Mock
+    private PatientRepository patientRepository;
+    @Mock
+    private KafkaBackpressureService kafkaBackpressureService;
+    @Mock
+    private PatientStatsService patientStatsService;
+    @Mock
+    private PatientService patientService;
+    @Spy
+    private ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules();
+    @Spy
+    private KafkaTracing kafkaTracing = new KafkaTracing(OpenTelemetry.noop().getTracer("test"),
+            TextMapPropagator.noop());
+    @Spy
+    private PatientIngestionDeduplicator patientIngestionDeduplicator = new PatientIngestionDeduplicator(
+            meterRegistry, List.of(PatientIngestionDeduplicator.EventKey.EVENT_ID,
+            PatientIngestionDeduplicator.EventKey.USER_IIN));
+
+    @InjectMocks
+    private PatientKafkaConsumerService underTest;
+
+    @Test
+    void consume_savesPatient() throws JsonProcessingException {
+        // given
+        String message = "{\"userId\":\"319bf132-56cd-480b-863c-9794ab375a00\",\"firstName\":\"Samat10\",\"birthDate\":\"2000-01-01\",\"phoneNumber\":\"12345678\",\"iin\":\"000101500123\"}";
+        ArgumentCaptor<PatientDocument> patientDocumentArgumentCaptor = ArgumentCaptor.forClass(PatientDocument.class);
+        when(patientRepository.insertIfAbsent(any(), eq(WRITE_CONCERN_INGESTION))).thenReturn(true);
+        // when
+        underTest.consume(new ConsumerRecord<>("user-service-new-patients", 0, 0, null, message));
+        // then
+        verify(patientRepository).insertIfAbsent(patientDocumentArgumentCaptor.capture(),
+                eq(WRITE_CONCERN_INGESTION));
+        PatientDocument patientDocument = patientDocumentArgumentCaptor.getValue();
+
+        assertNotNull(patientDocument);
+        assertTrue(ObjectId.isValid(patientDocument.getId()));
+        assertEquals("319bf132-56cd-480b-863c-9794ab375a00", patientDocument.getUserId());
+        assertEquals("Samat10", patientDocument.getFirstName());
+        assertEquals(LocalDate.of(2000, 1, 1), patientDocument.getBirthDate());
+        assertEquals("12345678", patientDocument.getPhoneNumber());
+        assertNotNull(patientDocument.getCreatedAt());
+    }
+
+    @Test
+    void consume_skipsPatient_whenRecordRedelivered() throws JsonProcessingException {
+        // given
+        String message = "{\"userId\":\"319bf132-56cd-480b-863c-9794ab375a00\",\"firstName\":\"Samat10\","
+                + "\"iin\":\"000101500123\"}";
+        ArgumentCaptor<PatientDocument> patientDocumentArgumentCaptor = ArgumentCaptor.forClass(PatientDocument.class);
+        when(patientRepository.insertIfAbsent(any(), eq(WRITE_CONCERN_INGESTION))).thenReturn(true, false);
+        // when
+        underTest.consume(new ConsumerRecord<>("user-service-new-patients", 0, 7, null, message));
+        underTest.consume(new ConsumerRecord<>("user-service-new-patients", 0, 8, null, message));
+        // then
+        verify(patientRepository, times(2)).insertIfAbsent(patientDocumentArgumentCaptor.capture(),
+                eq(WRITE_CONCERN_INGESTION));
+        assertEquals(patientDocumentArgumentCaptor.getAllValues().get(0).getId(),
+                patientDocumentArgumentCaptor.getAllValues().get(1).getId());
+        verify(patientStatsService, times(1)).recordInserts(any());
+        assertEquals(1, meterRegistry.get("patient.ingestion.deduplicated").counter().count());
+    }
+
+    @Test
+    void consume_derivesPatientIdFromEventId_whenHeaderPresent() throws JsonProcessingException {
+        // given
+        String message = "{\"userId\":\"319bf132-56cd-480b-863c-9794ab375a00\",\"firstName\":\"Samat10\"}";
+        ConsumerRecord<String, String> first = new ConsumerRecord<>("user-service-new-patients", 0, 1, null, message);
+        ConsumerRecord<String, String> resent = new ConsumerRecord<>("user-service-new-patients", 1, 9, null, message);
+        first.headers().add(EVENT_ID_HEADER, "event-1".getBytes(StandardCharsets.UTF_8));
+        resent.headers().add(EVENT_ID_HEADER, "event-1".getBytes(StandardCharsets.UTF_8));
+        ArgumentCaptor<PatientDocument> patientDocumentArgumentCaptor = ArgumentCaptor.forClass(PatientDocument.class);
+        when(patientRepository.insertIfAbsent(any(), eq(WRITE_CONCERN_INGESTION))).thenReturn(true, false);
+        // when
+        underTest.consume(first);
+        underTest.consume(resent);
+        // then
+        verify(patientRepository, times(2)).insertIfAbsent(patientDocumentArgumentCaptor.capture(),
+                eq(WRITE_CONCERN_INGESTION));
+        assertEquals(patientDocumentArgumentCaptor.getAllValues().get(0).getId(),
+                patientDocumentArgumentCaptor.getAllValues().get(1).getId());
+    }
+
+    @Test
+    void consume_savesPatientWithoutDeduplication_whenNoEventKeyPresent() throws JsonProcessingException {
+        // given
+        String message = "{\"userId\":\"319bf132-56cd-480b-863c-9794ab375a00\",\"firstName\":\"Samat10\"}";
+        ArgumentCaptor<PatientDocument> patientDocumentArgumentCaptor = ArgumentCaptor.forClass(PatientDocument.class);
+        // when
+        underTest.consume(new ConsumerRecord<>("user-service-new-patients", 0, 3, null, message));
+        // then
+        verify(patientRepository, never()).insertIfAbsent(any(), any());
+        verify(patientRepository).saveWithWriteConcern(patientDocumentArgumentCaptor.capture(),
+                eq(WRITE_CONCERN_INGESTION));
+        PatientDocument patientDocument = patientDocumentArgumentCaptor.getValue();
+
+        assertNull(patientDocument.getId());
+        assertEquals("Samat10", patientDocument.getFirstName());
+        assertNotNull(patientDocument.getCreatedAt());
+        verify(patientStatsService).recordInserts(List.of(patientDocument));
+        assertEquals(1, meterRegistry.get("patient.ingestion.not-deduplicated").counter().count());
+    }
+
+    @Test
+    void consumeDeletePatients_deletesAllPatientsOfUser() throws JsonProcessingException {
+        // given
+        String message = "{\"userId\":\"319bf132-56cd-480b-863c-9794ab375a00\"}";
+        when(patientService.deleteAllPatientsOfUser("319bf132-56cd-480b-863c-9794ab375a00"))
+                .thenReturn(new DeletedPatientsDTO(3));
+        // when
+        underTest.consumeDeletePatients(new ConsumerRecord<>("user-service-delete-patients", 0, 0, null, message));
+        // then
+        verify(patientService).deleteAllPatientsOfUser("319bf132-56cd-480b-863c-9794ab375a00");
+    }
+}
@@ -0,0 +1,150 @@
+package kz.smarthealth.patientservice.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import kz.smarthealth.patientservice.model.dto.PatientDTO;
+import kz.smarthealth.patientservice.repository.PatientRepository;
+import org.bson.BsonTimestamp;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.function.Consumer;
+
+import static kz.smarthealth.patientservice.util.TestData.getPatientDTO;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Unit tests for {@link PatientResponseCacheSnapshotter}
+ */
+@ExtendWith(MockitoExtension.class)
+class PatientResponseCacheSnapshotterTest {
+
+    private static final BsonTimestamp OPERATION_TIME = new BsonTimestamp(1_700_000_000, 7);
+
+    private final ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules();
+
+    @Mock
+    private PatientRepository patientRepository;
+
+    @TempDir
+    private Path tempDir;
+
+    @Test
+    void start_restoresEntriesAndEvictsChanged_afterStop() {
+        // given
+        Path file = tempDir.resolve("cache.snapshot");
+        PatientDTO unchanged = patient();
+        PatientDTO changed = patient();
+        PatientResponseCache oldCache = cache();
+        oldCache.put(unchanged, oldCache.loadStamp(unchanged.getId()));
+        oldCache.put(changed, oldCache.loadStamp(changed.getId()));
+        when(patientRepository.currentOperationTime()).thenReturn(Optional.of(OPERATION_TIME));
+        PatientResponseCacheSnapshotter snapshotter = snapshotter(oldCache, file);
+        snapshotter.start();
+        snapshotter.stop();
+        PatientResponseCache newCache = cache();
+        doAnswer(invocation -> {
+            Consumer<String> consumer = invocation.getArgument(3);
+            consumer.accept(changed.getId());
+            return true;
+        }).when(patientRepository).forEachChangedIdSince(eq(OPERATION_TIME), eq(OPERATION_TIME), any(), any());
+        // when
+        snapshotter(newCache, file).start();
+        // then
+        assertEquals(1, newCache.size());
+        assertEquals(unchanged.getUserId(), newCache.get(unchanged.getId()).getUserId());
+        assertNull(newCache.get(changed.getId()));
+        assertFalse(Files.exists(file));
+    }
+
+    @Test
+    void start_restoresEntriesWithOriginalExpiry() {
+        // given
+        Path file = tempDir.resolve("cache.snapshot");
+        PatientDTO patientDTO = patient();
+        PatientResponseCache oldCache = cache();
+        oldCache.put(patientDTO, oldCache.loadStamp(patientDTO.getId()));
+        when(patientRepository.currentOperationTime()).thenReturn(Optional.of(OPERATION_TIME));
+        PatientResponseCacheSnapshotter snapshotter = snapshotter(oldCache, file);
+        snapshotter.start();
+        snapshotter.stop();
+        PatientResponseCache newCache = cache(Duration.ofHours(1));
+        when(patientRepository.forEachChangedIdSince(eq(OPERATION_TIME), eq(OPERATION_TIME), any(), any()))
+                .thenReturn(true);
+        // when
+        snapshotter(newCache, file).start();
+        // then
+        long latestExpiry = System.currentTimeMillis() + Duration.ofMinutes(1).toMillis();
+        assertEquals(1, newCache.forEachEntry((id, userId, json, expiresAt) -> assertTrue(expiresAt <= latestExpiry)));
+    }
+
+    @Test
+    void start_discardsSnapshot_whenChangesUnknown() {
+        // given
+        Path file = tempDir.resolve("cache.snapshot");
+        PatientResponseCache oldCache = cache();
+        oldCache.put(patient(), 0);
+        when(patientRepository.currentOperationTime()).thenReturn(Optional.of(OPERATION_TIME));
+        PatientResponseCacheSnapshotter snapshotter = snapshotter(oldCache, file);
+        snapshotter.start();
+        snapshotter.stop();
+        PatientResponseCache newCache = cache();
+        when(patientRepository.forEachChangedIdSince(eq(OPERATION_TIME), eq(OPERATION_TIME), any(), any()))
+                .thenReturn(false);
+        // when
+        snapshotter(newCache, file).start();
+        // then
+        assertEquals(0, newCache.size());
+        assertFalse(Files.exists(file));
+    }
+
+    @Test
+    void stop_writesNoSnapshot_whenOperationTimeUnknown() {
+        // given
+        Path file = tempDir.resolve("cache.snapshot");
+        PatientResponseCache cache = cache();
+        cache.put(patient(), 0);
+        when(patientRepository.currentOperationTime()).thenReturn(Optional.empty());
+        PatientResponseCacheSnapshotter underTest = snapshotter(cache, file);
+        underTest.start();
+        // when
+        underTest.stop();
+        // then
+        assertFalse(Files.exists(file));
+        verify(patientRepository, never()).forEachChangedIdSince(any(), any(), any(), any());
+    }
+
+    private PatientResponseCacheSnapshotter snapshotter(PatientResponseCache cache, Path file) {
+        return new PatientResponseCacheSnapshotter(cache, patientRepository, file.toString(), Duration.ofHours(1),
+                Duration.ofSeconds(10));
+    }
+
+    private PatientResponseCache cache() {
+        return cache(Duration.ofMinutes(1));
+    }
+
+    private PatientResponseCache cache(Duration ttl) {
+        return new PatientResponseCache(objectMapper, new SimpleMeterRegistry(), true, 1, 1024, ttl);
+    }
+
+    private static PatientDTO patient() {
+        PatientDTO patientDTO = getPatientDTO();
+        patientDTO.setId(UUID.randomUUID().toString());
+
+        return patientDTO;
+    }
+}
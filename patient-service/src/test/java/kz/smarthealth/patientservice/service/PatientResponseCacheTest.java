@@ -0,0 +1,146 @@
+package kz.smarthealth.patientservice.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import kz.smarthealth.patientservice.model.dto.PatientDTO;
+import kz.smarthealth.patientservice.model.dto.SerializedPatient;
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.time.Duration;
+import java.util.UUID;
+
+import static kz.smarthealth.patientservice.util.TestData.getPatientDTO;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for {@link PatientResponseCache}
+ */
+class PatientResponseCacheTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules();
+
+    @Test
+    void get_returnsSerializedPatient_afterPut() throws Exception {
+        // given
+        PatientResponseCache underTest = cache(1024, Duration.ofMinutes(1));
+        PatientDTO patientDTO = patient();
+        underTest.put(patientDTO, underTest.loadStamp(patientDTO.getId()));
+        // when
+        SerializedPatient serializedPatient = underTest.get(patientDTO.getId());
+        // then
+        assertNotNull(serializedPatient);
+        assertTrue(serializedPatient.getJson().isDirect());
+        byte[] json = new byte[serializedPatient.getLength()];
+        assertTrue(serializedPatient.copyTo(json));
+        assertEquals(patientDTO.getUserId(), serializedPatient.getUserId());
+        assertEquals(patientDTO.getFirstName(), objectMapper.readValue(json, PatientDTO.class).getFirstName());
+    }
+
+    @Test
+    void get_returnsViewNotCopied_whenSlotReleasedBeforeRead() {
+        // given
+        PatientResponseCache underTest = cache(1024, Duration.ofMinutes(1));
+        PatientDTO patientDTO = patient();
+        underTest.put(patientDTO, underTest.loadStamp(patientDTO.getId()));
+        SerializedPatient serializedPatient = underTest.get(patientDTO.getId());
+        // when
+        underTest.invalidate(patientDTO.getId());
+        // then
+        assertFalse(serializedPatient.copyTo(new byte[serializedPatient.getLength()]));
+    }
+
+    @Test
+    void get_returnsNull_afterInvalidate() {
+        // given
+        PatientResponseCache underTest = cache(1024, Duration.ofMinutes(1));
+        PatientDTO patientDTO = patient();
+        underTest.put(patientDTO, underTest.loadStamp(patientDTO.getId()));
+        // when
+        underTest.invalidate(patientDTO.getId());
+        // then
+        assertNull(underTest.get(patientDTO.getId()));
+        assertEquals(0, underTest.size());
+    }
+
+    @Test
+    void restore_skipsEntry_whenOriginalExpiryPassed() {
+        // given
+        PatientResponseCache underTest = cache(1024, Duration.ofMinutes(1));
+        PatientDTO patientDTO = patient();
+        ByteBuffer json = underTest.serialize(patientDTO).getJson();
+        // when
+        boolean restored = underTest.restore(patientDTO.getId(), patientDTO.getUserId(), json,
+                System.currentTimeMillis() - 1);
+        // then
+        assertFalse(restored);
+        assertNull(underTest.get(patientDTO.getId()));
+    }
+
+    @Test
+    void get_returnsNull_whenEntryExpired() {
+        // given
+        PatientResponseCache underTest = cache(1024, Duration.ZERO);
+        PatientDTO patientDTO = patient();
+        // when
+        underTest.put(patientDTO, underTest.loadStamp(patientDTO.getId()));
+        // then
+        assertNull(underTest.get(patientDTO.getId()));
+    }
+
+    @Test
+    void put_evictsUnreferencedEntry_whenFull() {
+        // given two slots of 4 MB in single 8 MB slab
+        PatientResponseCache underTest = cache(4 * 1024 * 1024, Duration.ofMinutes(1));
+        PatientDTO first = patient();
+        PatientDTO second = patient();
+        PatientDTO third = patient();
+        underTest.put(first, underTest.loadStamp(first.getId()));
+        underTest.put(second, underTest.loadStamp(second.getId()));
+        underTest.get(first.getId());
+        // when
+        underTest.put(third, underTest.loadStamp(third.getId()));
+        // then
+        assertNotNull(underTest.get(first.getId()));
+        assertNull(underTest.get(second.getId()));
+        assertNotNull(underTest.get(third.getId()));
+        assertEquals(2, underTest.size());
+    }
+
+    @Test
+    void put_skipsCache_whenResponseExceedsSlot() {
+        // given
+        PatientResponseCache underTest = cache(16, Duration.ofMinutes(1));
+        PatientDTO patientDTO = patient();
+        // when
+        SerializedPatient serializedPatient = underTest.put(patientDTO, underTest.loadStamp(patientDTO.getId()));
+        // then
+        assertTrue(serializedPatient.getLength() > 16);
+        assertNull(underTest.get(patientDTO.getId()));
+    }
+
+    @Test
+    void put_skipsCache_whenInvalidatedWhilePatientLoaded() {
+        // given
+        PatientResponseCache underTest = cache(1024, Duration.ofMinutes(1));
+        PatientDTO patientDTO = patient();
+        long loadStamp = underTest.loadStamp(patientDTO.getId());
+        underTest.invalidate(patientDTO.getId());
+        // when
+        SerializedPatient serializedPatient = underTest.put(patientDTO, loadStamp);
+        // then
+        assertNotNull(serializedPatient);
+        assertNull(underTest.get(patientDTO.getId()));
+    }
+
+    private PatientResponseCache cache(int slotSize, Duration ttl) {
+        return new PatientResponseCache(objectMapper, new SimpleMeterRegistry(), true, 8, slotSize, ttl);
+    }
+
+    private static PatientDTO patient() {
+        PatientDTO patientDTO = getPatientDTO();
+        patientDTO.setId(UUID.randomUUID().toString());
+
+        return patientDTO;
+    }
+}
@@ -0,0 +1,421 @@
+package kz.smarthealth.patientservice.service;
+
+import kz.smarthealth.patientservice.config.PatientDocumentCodec.Field;
+import kz.smarthealth.patientservice.exception.CustomException;
+import kz.smarthealth.patientservice.model.dto.DeletedPatientsDTO;
+import kz.smarthealth.patientservice.model.dto.PatientDTO;
+import kz.smarthealth.patientservice.model.dto.ProjectedPatient;
+import kz.smarthealth.patientservice.model.dto.SerializedPatient;
+import kz.smarthealth.patientservice.model.dto.UserPatientsDTO;
+import kz.smarthealth.patientservice.model.entity.PatientDocument;
+import kz.smarthealth.patientservice.repository.PatientRepository;
+import kz.smarthealth.patientservice.util.ConsistencyTokenHolder;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.modelmapper.ModelMapper;
+import org.springframework.http.HttpStatus;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContext;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+
+import static kz.smarthealth.patientservice.util.AppConstants.WRITE_CONCERN_API;
+import static kz.smarthealth.patientservice.util.MessageSource.FIELDS_NOT_ALLOWED;
+import static kz.smarthealth.patientservice.util.MessageSource.PATIENT_BY_ID_NOT_FOUND;
+import static kz.smarthealth.patientservice.util.TestData.getPatientDTO;
+import static kz.smarthealth.patientservice.util.TestData.getPatientEntity;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unit tests for {@link PatientService}
+ *
+ * Created by Samat Abibulla on 2023-03-14
+ */
+@ExtendWith(MockitoExtension.class)
+class PatientServiceTest {
+
+    @Mock
+    private PatientRepository patientRepository;
+
+    @Mock
+    private PatientGroupCommitter patientGroupCommitter;
+
+    @Mock
+    private PatientReadCoalescer patientReadCoalescer;
+
+    @Mock
+    private PatientResponseCache patientResponseCache;
+
+    @Mock
+    private PatientCacheCluster patientCacheCluster;
+
+    @Mock
+    private PatientStatsService patientStatsService;
+
+    @Mock
+    private Authentication authentication;
+
+    @Mock
+    private SecurityContext securityContext;
+
+    @Spy
+    private ModelMapper modelMapper = new ModelMapper();
+
+    @InjectMocks
+    private PatientService underTest;
+
+    @Test
+    void savePatient_returnsPatient() {
+        // given
+        PatientDTO expectedPatientDTO = getPatientDTO();
+        expectedPatientDTO.setId(null);
+        PatientDocument patientDocument = getPatientEntity();
+        when(patientRepository.saveCausal(any(), eq(WRITE_CONCERN_API))).thenReturn(patientDocument);
+        // when
+        PatientDTO actualPatientDTO = underTest.savePatient(expectedPatientDTO);
+        // then
+        assertNotNull(actualPatientDTO.getId());
+        assertEquals(expectedPatientDTO.getUserId(), actualPatientDTO.getUserId());
+        assertEquals(expectedPatientDTO.getFirstName(), actualPatientDTO.getFirstName());
+        assertEquals(expectedPatientDTO.getLastName(), actualPatientDTO.getLastName());
+        assertEquals(expectedPatientDTO.getBirthDate(), actualPatientDTO.getBirthDate());
+        assertEquals(expectedPatientDTO.getPhoneNumber(), actualPatientDTO.getPhoneNumber());
+        assertEquals(expectedPatientDTO.getFamilyConnectionId(), actualPatientDTO.getFamilyConnectionId());
+        assertEquals(expectedPatientDTO.getIin(), actualPatientDTO.getIin());
+        assertNotNull(actualPatientDTO.getCreatedAt());
+    }
+
+    @Test
+    void savePatient_replacesPatient_andCountsItOnce_whenIdSupplied() {
+        // given
+        PatientDTO patientDTO = getPatientDTO();
+        PatientDocument replaced = getPatientEntity();
+        when(patientRepository.replaceCausal(any(), eq(PatientStatsService.COUNTED_FIELDS), eq(WRITE_CONCERN_API)))
+                .thenReturn(Optional.of(replaced));
+        // when
+        PatientDTO actualPatientDTO = underTest.savePatient(patientDTO);
+        // then
+        assertEquals(patientDTO.getId(), actualPatientDTO.getId());
+        verify(patientRepository, never()).saveCausal(any(), any());
+        verify(patientStatsService).recordDeletes(List.of(replaced));
+        verify(patientStatsService).recordInserts(anyList());
+        verify(patientResponseCache).invalidate(patientDTO.getId());
+    }
+
+    @Test
+    void getPatientById_throwsException_whenPatientNotFound() {
+        // given
+        String patientId = UUID.randomUUID().toString();
+        when(patientReadCoalescer.findById(patientId)).thenReturn(Optional.empty());
+        // when
+        CustomException exception = assertThrows(CustomException.class,
+                () -> underTest.getPatientById(patientId));
+        // then
+        assertEquals(HttpStatus.BAD_REQUEST, exception.getHttpStatus());
+        assertEquals(PATIENT_BY_ID_NOT_FOUND.name(), exception.getError());
+        assertEquals(PATIENT_BY_ID_NOT_FOUND.getText(patientId), exception.getErrorMessage());
+    }
+
+    @Test
+    void getPatientById_returnsPatient() {
+        // given
+        PatientDocument patientDocument = getPatientEntity();
+        when(patientReadCoalescer.findById(patientDocument.getId())).thenReturn(Optional.of(patientDocument));
+        // when
+        PatientDTO patientDTO = underTest.getPatientById(patientDocument.getId());
+        // then
+        assertEquals(patientDocument.getId(), patientDTO.getId());
+        assertEquals(patientDocument.getUserId(), patientDTO.getUserId());
+        assertEquals(patientDocument.getFirstName(), patientDTO.getFirstName());
+        assertEquals(patientDocument.getLastName(), patientDTO.getLastName());
+        assertEquals(patientDocument.getBirthDate(), patientDTO.getBirthDate());
+        assertEquals(patientDocument.getPhoneNumber(), patientDTO.getPhoneNumber());
+        assertEquals(patientDocument.getFamilyConnectionId(), patientDTO.getFamilyConnectionId());
+        assertEquals(patientDocument.getIin(), patientDTO.getIin());
+        assertEquals(patientDocument.getCreatedAt(), patientDTO.getCreatedAt());
+    }
+
+    @Test
+    void getSerializedPatientById_returnsOwnerResponse_whenOwnedByOtherMember() {
+        // given
+        PatientDocument patientDocument = getPatientEntity();
+        SerializedPatient expected = new SerializedPatient(patientDocument.getUserId(), new byte[]{'{', '}'});
+        when(patientCacheCluster.isOwner(patientDocument.getId())).thenReturn(false);
+        when(patientCacheCluster.fetchFromOwner(patientDocument.getId())).thenReturn(Optional.of(expected));
+        // when
+        SerializedPatient serializedPatient = underTest.getSerializedPatientById(patientDocument.getId());
+        // then
+        assertSame(expected, serializedPatient);
+        verifyNoInteractions(patientReadCoalescer, patientResponseCache);
+    }
+
+    @Test
+    void getSerializedPatientById_readsWithoutCaching_whenOwnerUnreachable() {
+        // given
+        PatientDocument patientDocument = getPatientEntity();
+        SerializedPatient expected = new SerializedPatient(patientDocument.getUserId(), new byte[]{'{', '}'});
+        when(patientCacheCluster.isOwner(patientDocument.getId())).thenReturn(false);
+        when(patientCacheCluster.fetchFromOwner(patientDocument.getId())).thenReturn(Optional.empty());
+        when(patientReadCoalescer.findById(patientDocument.getId())).thenReturn(Optional.of(patientDocument));
+        when(patientResponseCache.serialize(any(PatientDTO.class))).thenReturn(expected);
+        // when
+        SerializedPatient serializedPatient = underTest.getSerializedPatientById(patientDocument.getId());
+        // then
+        assertSame(expected, serializedPatient);
+        verify(patientResponseCache, never()).put(any(), anyLong());
+    }
+
+    @Test
+    void getSerializedPatientById_cachesPatient_whenOwned() {
+        // given
+        PatientDocument patientDocument = getPatientEntity();
+        SerializedPatient expected = new SerializedPatient(patientDocument.getUserId(), new byte[]{'{', '}'});
+        when(patientCacheCluster.isOwner(patientDocument.getId())).thenReturn(true);
+        when(patientReadCoalescer.findById(patientDocument.getId())).thenReturn(Optional.of(patientDocument));
+        when(patientResponseCache.loadStamp(patientDocument.getId())).thenReturn(7L);
+        when(patientResponseCache.put(any(PatientDTO.class), eq(7L))).thenReturn(expected);
+        // when
+        SerializedPatient serializedPatient = underTest.getSerializedPatientById(patientDocument.getId());
+        // then
+        assertSame(expected, serializedPatient);
+        verify(patientCacheCluster, never()).fetchFromOwner(any());
+    }
+
+    @Test
+    void getOwnedSerializedPatientById_skipsCachedResponse_whenConsistencyTokenPresent() {
+        // given
+        PatientDocument patientDocument = getPatientEntity();
+        SerializedPatient expected = new SerializedPatient(patientDocument.getUserId(), new byte[]{'{', '}'});
+        when(patientReadCoalescer.findById(patientDocument.getId())).thenReturn(Optional.of(patientDocument));
+        when(patientResponseCache.put(any(PatientDTO.class), anyLong())).thenReturn(expected);
+        ConsistencyTokenHolder.set("token");
+
+        try {
+            // when
+            SerializedPatient serializedPatient = underTest.getOwnedSerializedPatientById(patientDocument.getId());
+            // then
+            assertSame(expected, serializedPatient);
+            verify(patientResponseCache, never()).get(any());
+        } finally {
+            ConsistencyTokenHolder.clear();
+        }
+    }
+
+    @Test
+    void getPatientsByUserId_returnsPatients() {
+        // given
+        PatientDocument patientDocument1 = getPatientEntity();
+        PatientDocument patientDocument2 = getPatientEntity();
+        patientDocument2.setId(UUID.randomUUID().toString());
+        List<PatientDocument> patientDocumentList = List.of(patientDocument1, patientDocument2);
+        when(patientReadCoalescer.findAllByUserId(patientDocument1.getUserId())).thenReturn(patientDocumentList);
+        // when
+        List<PatientDTO> actualPatientList = underTest.getPatientsByUserId(patientDocument1.getUserId());
+        // then
+        assertFalse(actualPatientList.isEmpty());
+
+        for (int i = 0; i < patientDocumentList.size(); i++) {
+            PatientDocument entity = patientDocumentList.get(0);
+            PatientDTO dto = actualPatientList.get(0);
+
+            assertEquals(entity.getId(), dto.getId());
+            assertEquals(entity.getUserId(), dto.getUserId());
+            assertEquals(entity.getFirstName(), dto.getFirstName());
+            assertEquals(entity.getLastName(), dto.getLastName());
+            assertEquals(entity.getBirthDate(), dto.getBirthDate());
+            assertEquals(entity.getPhoneNumber(), dto.getPhoneNumber());
+            assertEquals(entity.getFamilyConnectionId(), dto.getFamilyConnectionId());
+            assertEquals(entity.getIin(), dto.getIin());
+            assertEquals(entity.getCreatedAt(), dto.getCreatedAt());
+        }
+    }
+
+    @Test
+    void getPatientsByUserIds_returnsPatientsGroupedByUserId() {
+        // given
+        PatientDocument patientDocument1 = getPatientEntity();
+        PatientDocument patientDocument2 = getPatientEntity();
+        patientDocument2.setId(UUID.randomUUID().toString());
+        String emptyUserId = UUID.randomUUID().toString();
+        List<String> userIds = List.of(emptyUserId, patientDocument1.getUserId());
+        doAnswer(invocation -> {
+            BiConsumer<String, List<PatientDocument>> consumer = invocation.getArgument(1);
+            consumer.accept(emptyUserId, List.of());
+            consumer.accept(patientDocument1.getUserId(), List.of(patientDocument1, patientDocument2));
+            return null;
+        }).when(patientRepository).findAllByUserIdInCausal(eq(new LinkedHashSet<>(userIds)), any());
+        // when
+        List<UserPatientsDTO> actualGroups = new ArrayList<>();
+        underTest.getPatientsByUserIds(userIds, actualGroups::add);
+        // then
+        assertEquals(2, actualGroups.size());
+        assertEquals(emptyUserId, actualGroups.get(0).getUserId());
+        assertTrue(actualGroups.get(0).getPatients().isEmpty());
+        assertEquals(patientDocument1.getUserId(), actualGroups.get(1).getUserId());
+        assertEquals(List.of(patientDocument1.getId(), patientDocument2.getId()),
+                actualGroups.get(1).getPatients().stream().map(PatientDTO::getId).toList());
+    }
+
+    @Test
+    void getPatientsByUserIdWithFields_returnsOnlyRequestedFields() {
+        // given
+        PatientDocument patientDocument = getPatientEntity();
+        Set<String> fields = new LinkedHashSet<>(List.of("id", "firstName", "birthDate"));
+        when(patientRepository.findAllByUserIdCausal(patientDocument.getUserId(),
+                List.of(Field.USER_ID, Field.FIRST_NAME, Field.BIRTH_DATE))).thenReturn(List.of(patientDocument));
+        // when
+        List<ProjectedPatient> actualPatientList = underTest.getPatientsByUserId(patientDocument.getUserId(), fields);
+        // then
+        assertEquals(1, actualPatientList.size());
+        ProjectedPatient projectedPatient = actualPatientList.get(0);
+        assertEquals(patientDocument.getUserId(), projectedPatient.getUserId());
+        assertEquals(List.of("id", "firstName", "birthDate"), List.copyOf(projectedPatient.getFields().keySet()));
+        assertEquals(patientDocument.getId(), projectedPatient.getFields().get("id"));
+        assertEquals(patientDocument.getFirstName(), projectedPatient.getFields().get("firstName"));
+        assertEquals(patientDocument.getBirthDate().toString(), projectedPatient.getFields().get("birthDate"));
+    }
+
+    @Test
+    void getPatientByIdWithFields_throwsException_whenFieldNotAllowed() {
+        // given
+        String patientId = UUID.randomUUID().toString();
+        Set<String> fields = Set.of("password");
+        // when
+        CustomException exception = assertThrows(CustomException.class,
+                () -> underTest.getPatientById(patientId, fields));
+        // then
+        assertEquals(HttpStatus.BAD_REQUEST, exception.getHttpStatus());
+        assertEquals(FIELDS_NOT_ALLOWED.name(), exception.getError());
+        verifyNoInteractions(patientRepository);
+    }
+
+    @Test
+    void deletePatientById_throwsException_whenPatientNotFound() {
+        // given
+        String id = UUID.randomUUID().toString();
+        when(patientReadCoalescer.findById(id)).thenReturn(Optional.empty());
+        // when
+        CustomException exception = assertThrows(CustomException.class, () -> underTest.deletePatientById(id));
+        // then
+        assertEquals(HttpStatus.BAD_REQUEST, exception.getHttpStatus());
+        assertEquals(PATIENT_BY_ID_NOT_FOUND.name(), exception.getError());
+        assertEquals(PATIENT_BY_ID_NOT_FOUND.getText(id), exception.getErrorMessage());
+    }
+
+    @Test
+    void deletePatientById_throwsException_whenUserIsNotOwner() {
+        // given
+        UUID userId = UUID.randomUUID();
+        PatientDocument patientDocument = getPatientEntity();
+        String patientId = patientDocument.getId();
+        when(securityContext.getAuthentication()).thenReturn(authentication);
+        SecurityContextHolder.setContext(securityContext);
+        when(SecurityContextHolder.getContext().getAuthentication().getName()).thenReturn(userId.toString());
+        when(patientReadCoalescer.findById(patientId)).thenReturn(Optional.of(patientDocument));
+        // when
+        CustomException exception = assertThrows(CustomException.class, () -> underTest.deletePatientById(patientId));
+        // then
+        assertEquals(HttpStatus.FORBIDDEN, exception.getHttpStatus());
+        reset(authentication);
+        reset(securityContext);
+    }
+
+    @Test
+    void deletePatientById_deletesPatient() {
+        // given
+        ArgumentCaptor<PatientDocument> argumentCaptor = ArgumentCaptor.forClass(PatientDocument.class);
+        PatientDocument patientDocument = getPatientEntity();
+        when(securityContext.getAuthentication()).thenReturn(authentication);
+        SecurityContextHolder.setContext(securityContext);
+        when(SecurityContextHolder.getContext().getAuthentication().getName()).thenReturn(patientDocument.getUserId());
+        when(patientReadCoalescer.findById(patientDocument.getId())).thenReturn(Optional.of(patientDocument));
+        // when
+        underTest.deletePatientById(patientDocument.getId());
+        // then
+        verify(patientRepository).deleteCausal(argumentCaptor.capture(), eq(WRITE_CONCERN_API));
+        verify(patientResponseCache).invalidate(patientDocument.getId());
+        verify(patientCacheCluster).hintInvalidate(patientDocument.getId());
+        PatientDocument actualPatientDocument = argumentCaptor.getValue();
+
+        assertNotNull(actualPatientDocument.getId());
+        reset(authentication);
+        reset(securityContext);
+    }
+
+    @Test
+    void deletePatientsByUserId_throwsException_whenUserIsNotOwner() {
+        // given
+        String userId = UUID.randomUUID().toString();
+        when(securityContext.getAuthentication()).thenReturn(authentication);
+        SecurityContextHolder.setContext(securityContext);
+        when(SecurityContextHolder.getContext().getAuthentication().getName())
+                .thenReturn(UUID.randomUUID().toString());
+        // when
+        CustomException exception = assertThrows(CustomException.class,
+                () -> underTest.deletePatientsByUserId(userId));
+        // then
+        assertEquals(HttpStatus.FORBIDDEN, exception.getHttpStatus());
+        verifyNoInteractions(patientRepository);
+    }
+
+    @Test
+    void deletePatientsByUserId_deletesAllPatientsOfUser() {
+        // given
+        PatientDocument patientDocument1 = getPatientEntity();
+        PatientDocument patientDocument2 = getPatientEntity();
+        patientDocument2.setId(UUID.randomUUID().toString());
+        String userId = patientDocument1.getUserId();
+        List<PatientDocument> patientDocumentList = List.of(patientDocument1, patientDocument2);
+        when(securityContext.getAuthentication()).thenReturn(authentication);
+        SecurityContextHolder.setContext(securityContext);
+        when(SecurityContextHolder.getContext().getAuthentication().getName()).thenReturn(userId);
+        when(patientRepository.deleteAllByUserIdCausal(eq(userId), any(), any(), eq(WRITE_CONCERN_API)))
+                .thenAnswer(invocation -> {
+                    invocation.<Consumer<List<PatientDocument>>>getArgument(2).accept(patientDocumentList);
+                    return 2L;
+                });
+        // when
+        DeletedPatientsDTO deletedPatientsDTO = underTest.deletePatientsByUserId(userId);
+        // then
+        assertEquals(2L, deletedPatientsDTO.getDeletedCount());
+        verify(patientResponseCache).invalidate(patientDocument1.getId());
+        verify(patientResponseCache).invalidate(patientDocument2.getId());
+        verify(patientStatsService).recordDeletes(patientDocumentList);
+    }
+
+    @Test
+    void deleteAllPatientsOfUser_leavesStatsToRebuild_whenDeletedCountDiffersFromRead() {
+        // given
+        PatientDocument patientDocument = getPatientEntity();
+        String userId = patientDocument.getUserId();
+        when(patientRepository.deleteAllByUserIdCausal(eq(userId), any(), any(), eq(WRITE_CONCERN_API)))
+                .thenAnswer(invocation -> {
+                    invocation.<Consumer<List<PatientDocument>>>getArgument(2).accept(List.of(patientDocument));
+                    return 2L;
+                });
+        // when
+        DeletedPatientsDTO deletedPatientsDTO = underTest.deleteAllPatientsOfUser(userId);
+        // then
+        assertEquals(2L, deletedPatientsDTO.getDeletedCount());
+        verify(patientResponseCache).invalidate(patientDocument.getId());
+        verify(patientStatsService, never()).recordDeletes(any());
+    }
+}
@@ -0,0 +1,178 @@
+package kz.smarthealth.patientservice.service;
+
+import kz.smarthealth.patientservice.model.dto.PatientStatsDTO;
+import kz.smarthealth.patientservice.model.entity.PatientDocument;
+import kz.smarthealth.patientservice.model.entity.PatientStatsDocument;
+import kz.smarthealth.patientservice.model.entity.PatientUserCountDocument;
+import kz.smarthealth.patientservice.repository.PatientRepository;
+import kz.smarthealth.patientservice.repository.PatientStatsRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Captor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Consumer;
+
+import static kz.smarthealth.patientservice.util.TestData.getPatientEntity;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Unit tests for {@link PatientStatsService}
+ */
+@ExtendWith(MockitoExtension.class)
+class PatientStatsServiceTest {
+
+    @Mock
+    private PatientStatsRepository patientStatsRepository;
+
+    @Mock
+    private PatientRepository patientRepository;
+
+    @Captor
+    private ArgumentCaptor<Map<String, Long>> incrementCaptor;
+
+    private PatientStatsService underTest;
+
+    @BeforeEach
+    void beforeEach() {
+        underTest = new PatientStatsService(patientStatsRepository, patientRepository, 2, Duration.ofMinutes(10));
+    }
+
+    @Test
+    void recordInserts_movesUserToNextPatientsPerUserCounter() {
+        // given
+        PatientDocument patientDocument = getPatientEntity();
+        when(patientStatsRepository.incrementUserCount(patientDocument.getUserId(), 1)).thenReturn(2L);
+        // when
+        underTest.recordInserts(List.of(patientDocument));
+        // then
+        verify(patientStatsRepository).incrementSummary(incrementCaptor.capture());
+        assertEquals(Map.of(
+                "total", 1L,
+                "birthYears." + patientDocument.getBirthDate().getYear(), 1L,
+                "familyConnections." + patientDocument.getFamilyConnectionId(), 1L,
+                "patientsPerUser.1", -1L,
+                "patientsPerUser.2", 1L), incrementCaptor.getValue());
+    }
+
+    @Test
+    void recordDeletes_removesUser_whenLastPatientDeleted() {
+        // given
+        PatientDocument patientDocument = getPatientEntity();
+        when(patientStatsRepository.incrementUserCount(patientDocument.getUserId(), -1)).thenReturn(0L);
+        // when
+        underTest.recordDeletes(List.of(patientDocument));
+        // then
+        verify(patientStatsRepository).incrementSummary(incrementCaptor.capture());
+        assertEquals(-1L, incrementCaptor.getValue().get("total"));
+        assertEquals(-1L, incrementCaptor.getValue().get("users"));
+        assertEquals(-1L, incrementCaptor.getValue().get("patientsPerUser.1"));
+    }
+
+    @Test
+    void getStats_groupsBirthYearsIntoAgeBands() {
+        // given
+        int currentYear = LocalDate.now().getYear();
+        PatientStatsDocument summary = PatientStatsDocument.builder()
+                .total(4)
+                .users(2)
+                .patientsPerUser(Map.of("1", 0L, "2", 2L))
+                .birthYears(Map.of(String.valueOf(currentYear - 10), 1L, String.valueOf(currentYear - 30), 2L,
+                        String.valueOf(currentYear - 70), 1L))
+                .familyConnections(Map.of("1", 4L))
+                .build();
+        when(patientStatsRepository.findSummary()).thenReturn(Optional.of(summary));
+        // when
+        PatientStatsDTO patientStatsDTO = underTest.getStats();
+        // then
+        assertEquals(4, patientStatsDTO.getTotal());
+        assertEquals(2, patientStatsDTO.getUsers());
+        assertEquals(Map.of("2", 2L), patientStatsDTO.getPatientsPerUser());
+        assertEquals(Map.of("0-17", 1L, "18-34", 2L, "65+", 1L), patientStatsDTO.getAgeBands());
+        assertEquals(Map.of("1", 4L), patientStatsDTO.getFamilyConnections());
+    }
+
+    @Test
+    void rebuild_recomputesCountersInBatches() {
+        // given
+        PatientDocument patientDocument1 = getPatientEntity();
+        PatientDocument patientDocument2 = getPatientEntity();
+        PatientDocument patientDocument3 = getPatientEntity();
+        patientDocument3.setUserId("another-user");
+        patientDocument3.setBirthDate(null);
+        when(patientStatsRepository.acquireRebuildLease(any(), any())).thenReturn(true);
+        when(patientStatsRepository.renewRebuildLease(any(), any())).thenReturn(true);
+        doAnswer(invocation -> {
+            Consumer<List<PatientDocument>> consumer = invocation.getArgument(2);
+            consumer.accept(List.of(patientDocument1, patientDocument2));
+            consumer.accept(List.of(patientDocument3));
+            return null;
+        }).when(patientRepository).findAllInBatches(any(), anyInt(), any());
+        doAnswer(invocation -> {
+            Consumer<PatientUserCountDocument> consumer = invocation.getArgument(1);
+            consumer.accept(new PatientUserCountDocument(patientDocument1.getUserId(), 2));
+            consumer.accept(new PatientUserCountDocument("another-user", 1));
+            return null;
+        }).when(patientStatsRepository).forEachUserCountRebuild(anyInt(), any());
+        ArgumentCaptor<PatientStatsDocument> captor = ArgumentCaptor.forClass(PatientStatsDocument.class);
+        // when
+        underTest.rebuild();
+        // then
+        verify(patientStatsRepository).incrementUserCountsRebuild(Map.of(patientDocument1.getUserId(), 2L));
+        verify(patientStatsRepository).incrementUserCountsRebuild(Map.of("another-user", 1L));
+        verify(patientStatsRepository).publishUserCountsRebuild();
+        verify(patientStatsRepository).saveSummary(captor.capture());
+        PatientStatsDocument summary = captor.getValue();
+
+        assertEquals(3, summary.getTotal());
+        assertEquals(2, summary.getUsers());
+        assertEquals(Map.of("1", 1L, "2", 1L), summary.getPatientsPerUser());
+        assertEquals(Map.of(String.valueOf(patientDocument1.getBirthDate().getYear()), 2L, "unknown", 1L),
+                summary.getBirthYears());
+        assertNotNull(summary.getRebuiltAt());
+        verify(patientStatsRepository).releaseRebuildLease(any());
+    }
+
+    @Test
+    void rebuild_skipsRebuild_whenLeaseHeldByAnotherReplica() {
+        // given
+        when(patientStatsRepository.acquireRebuildLease(any(), any())).thenReturn(false);
+        // when
+        underTest.rebuild();
+        // then
+        verify(patientRepository, never()).findAllInBatches(any(), anyInt(), any());
+        verify(patientStatsRepository, never()).saveSummary(any());
+    }
+
+    @Test
+    void rebuild_stopsWithoutPublishing_whenLeaseLost() {
+        // given
+        when(patientStatsRepository.acquireRebuildLease(any(), any())).thenReturn(true);
+        when(patientStatsRepository.renewRebuildLease(any(), any())).thenReturn(false);
+        doAnswer(invocation -> {
+            Consumer<List<PatientDocument>> consumer = invocation.getArgument(2);
+            consumer.accept(List.of(getPatientEntity()));
+            return null;
+        }).when(patientRepository).findAllInBatches(any(), anyInt(), any());
+        // when
+        underTest.rebuild();
+        // then
+        verify(patientStatsRepository, never()).publishUserCountsRebuild();
+        verify(patientStatsRepository, never()).saveSummary(any());
+    }
+}
@@ -0,0 +1,64 @@
+package kz.smarthealth.patientservice.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Unit tests for {@link ConsistencyTokenSigner}
+ */
+class ConsistencyTokenSignerTest {
+
+    private static final byte[] PAYLOAD = "operation time".getBytes(StandardCharsets.UTF_8);
+
+    private final ConsistencyTokenSigner underTest = new ConsistencyTokenSigner("secret");
+
+    @Test
+    void verify_returnsPayload_whenSignedWithSameSecret() {
+        // given
+        String token = new ConsistencyTokenSigner("secret").sign(PAYLOAD);
+        // when
+        byte[] payload = underTest.verify(token).orElseThrow();
+        // then
+        assertArrayEquals(PAYLOAD, payload);
+    }
+
+    @Test
+    void verify_rejectsToken_whenSignedWithAnotherSecret() {
+        // given
+        String token = new ConsistencyTokenSigner("another").sign(PAYLOAD);
+        // when, then
+        assertTrue(underTest.verify(token).isEmpty());
+    }
+
+    @Test
+    void verify_rejectsToken_whenPayloadIsForged() {
+        // given
+        String signature = underTest.sign(PAYLOAD).split("\\.")[1];
+        String forged = Base64.getUrlEncoder().withoutPadding()
+                .encodeToString("far future".getBytes(StandardCharsets.UTF_8)) + "." + signature;
+        // when, then
+        assertTrue(underTest.verify(forged).isEmpty());
+    }
+
+    @Test
+    void verify_rejectsToken_whenUnsignedOrMalformed() {
+        // given
+        String unsigned = Base64.getUrlEncoder().withoutPadding().encodeToString(PAYLOAD);
+        // when, then
+        assertTrue(underTest.verify(unsigned).isEmpty());
+        assertTrue(underTest.verify("not base64!.@@").isEmpty());
+    }
+
+    @Test
+    void verify_rejectsToken_ofReplicaWithRandomSecret() {
+        // given
+        String token = new ConsistencyTokenSigner("").sign(PAYLOAD);
+        // when, then
+        assertTrue(new ConsistencyTokenSigner("").verify(token).isEmpty());
+    }
+}
@@ -0,0 +1,63 @@
+package kz.smarthealth.patientservice.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for {@link ConsistentHashRing}
+ */
+class ConsistentHashRingTest {
+
+    private static final List<String> KEYS = IntStream.range(0, 10_000)
+            .mapToObj(i -> UUID.nameUUIDFromBytes(("patient-" + i).getBytes()).toString())
+            .toList();
+
+    @Test
+    void owner_isSame_regardlessOfMemberOrder() {
+        // given
+        ConsistentHashRing ring = new ConsistentHashRing(List.of("http://a", "http://b", "http://c"), 128);
+        ConsistentHashRing reordered = new ConsistentHashRing(List.of("http://c", "http://a", "http://b"), 128);
+        // when // then
+        KEYS.forEach(key -> assertEquals(ring.owner(key), reordered.owner(key)));
+    }
+
+    @Test
+    void owner_spreadsKeysEvenly() {
+        // given
+        ConsistentHashRing underTest = new ConsistentHashRing(List.of("http://a", "http://b", "http://c"), 128);
+        Map<String, Integer> counts = new HashMap<>();
+        // when
+        KEYS.forEach(key -> counts.merge(underTest.owner(key), 1, Integer::sum));
+        // then
+        assertEquals(3, counts.size());
+        counts.values().forEach(count -> assertTrue(count > 2_500 && count < 4_200, "share " + count));
+    }
+
+    @Test
+    void owner_movesOnlyKeysOfJoinedMember() {
+        // given
+        ConsistentHashRing before = new ConsistentHashRing(List.of("http://a", "http://b", "http://c"), 128);
+        ConsistentHashRing after = new ConsistentHashRing(List.of("http://a", "http://b", "http://c", "http://d"),
+                128);
+        // when
+        long moved = KEYS.stream()
+                .filter(key -> !before.owner(key).equals(after.owner(key)))
+                .peek(key -> assertEquals("http://d", after.owner(key)))
+                .count();
+        // then
+        assertTrue(moved > 1_500 && moved < 3_500, "moved " + moved);
+    }
+
+    @Test
+    void constructor_throwsException_whenNoMembers() {
+        // when // then
+        assertThrows(IllegalArgumentException.class, () -> new ConsistentHashRing(List.of(), 128));
+    }
+}
@@ -0,0 +1,93 @@
+package kz.smarthealth.patientservice.util;
+
+import io.micrometer.tracing.Tracer;
+import io.micrometer.tracing.otel.bridge.OtelCurrentTraceContext;
+import io.micrometer.tracing.otel.bridge.OtelTracer;
+import io.opentelemetry.api.trace.SpanKind;
+import io.opentelemetry.api.trace.propagation.W3CTraceContextPropagator;
+import io.opentelemetry.sdk.common.CompletableResultCode;
+import io.opentelemetry.sdk.trace.SdkTracerProvider;
+import io.opentelemetry.sdk.trace.data.SpanData;
+import io.opentelemetry.sdk.trace.export.SimpleSpanProcessor;
+import io.opentelemetry.sdk.trace.export.SpanExporter;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Unit tests for {@link KafkaTracing}
+ */
+class KafkaTracingTest {
+
+    private final List<SpanData> exportedSpans = new CopyOnWriteArrayList<>();
+    private final SdkTracerProvider tracerProvider = SdkTracerProvider.builder()
+            .addSpanProcessor(SimpleSpanProcessor.create(new SpanExporter() {
+
+                @Override
+                public CompletableResultCode export(Collection<SpanData> spans) {
+                    exportedSpans.addAll(spans);
+                    return CompletableResultCode.ofSuccess();
+                }
+
+                @Override
+                public CompletableResultCode flush() {
+                    return CompletableResultCode.ofSuccess();
+                }
+
+                @Override
+                public CompletableResultCode shutdown() {
+                    return CompletableResultCode.ofSuccess();
+                }
+            }))
+            .build();
+    private final io.opentelemetry.api.trace.Tracer otelTracer = tracerProvider.get("test");
+    private final Tracer tracer = new OtelTracer(otelTracer, new OtelCurrentTraceContext(), event -> {
+    });
+    private final KafkaTracing underTest = new KafkaTracing(otelTracer, W3CTraceContextPropagator.getInstance());
+
+    @AfterEach
+    void afterEach() {
+        tracerProvider.shutdown();
+    }
+
+    @Test
+    void consume_continuesTraceOfProducer() {
+        // given
+        ConsumerRecord<String, String> record = new ConsumerRecord<>("user-service-new-patients", 0, 0, null, "{}");
+        record.headers().add("traceparent", "00-0af7651916cd43dd8448eb211c80319c-b7ad6b7169203331-01"
+                .getBytes(StandardCharsets.UTF_8));
+        // when
+        underTest.consume(record, () -> tracer.nextSpan().name("patient.service").start().end());
+        // then
+        assertEquals(2, exportedSpans.size());
+        SpanData child = exportedSpans.get(0);
+        SpanData consumer = exportedSpans.get(1);
+        assertEquals(SpanKind.CONSUMER, consumer.getKind());
+        assertEquals("0af7651916cd43dd8448eb211c80319c", consumer.getTraceId());
+        assertEquals("b7ad6b7169203331", consumer.getParentSpanId());
+        assertEquals("0af7651916cd43dd8448eb211c80319c", child.getTraceId());
+        assertEquals(consumer.getSpanId(), child.getParentSpanId());
+        assertNull(tracer.currentSpan());
+    }
+
+    @Test
+    void consume_rethrowsAndClosesScope_whenHandlerFails() {
+        // given
+        ConsumerRecord<String, String> record = new ConsumerRecord<>("user-service-new-patients", 0, 0, null, "{}");
+        // when
+        assertThrows(IllegalStateException.class, () -> underTest.consume(record, () -> {
+            throw new IllegalStateException("failed");
+        }));
+        // then
+        assertNull(tracer.currentSpan());
+    }
+}
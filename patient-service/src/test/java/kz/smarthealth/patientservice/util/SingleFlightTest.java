@@ -0,0 +1,98 @@
+package kz.smarthealth.patientservice.util;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Unit tests for {@link SingleFlight}
+ */
+class SingleFlightTest {
+
+    private final Counter coalesced = new SimpleMeterRegistry().counter("coalesced");
+    private final SingleFlight<String, String> underTest = new SingleFlight<>(coalesced);
+    private final ExecutorService executorService = Executors.newFixedThreadPool(2);
+
+    @AfterEach
+    void afterEach() {
+        executorService.shutdownNow();
+    }
+
+    @Test
+    void execute_sharesResult_betweenConcurrentCallers() throws Exception {
+        // given
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicInteger calls = new AtomicInteger();
+        Future<String> leader = executorService.submit(() -> underTest.execute("key", () -> {
+            calls.incrementAndGet();
+            await(release);
+            return "value";
+        }));
+        awaitInFlight();
+        // when
+        Future<String> follower = executorService.submit(() -> underTest.execute("key", () -> {
+            calls.incrementAndGet();
+            return "other";
+        }));
+        awaitCoalesced();
+        release.countDown();
+        // then
+        assertEquals("value", leader.get());
+        assertEquals("value", follower.get());
+        assertEquals(1, calls.get());
+        assertEquals(0, underTest.size());
+    }
+
+    @Test
+    void execute_propagatesException_toConcurrentCallers() throws Exception {
+        // given
+        CountDownLatch release = new CountDownLatch(1);
+        Future<String> leader = executorService.submit(() -> underTest.execute("key", () -> {
+            await(release);
+            throw new IllegalStateException("failed");
+        }));
+        awaitInFlight();
+        // when
+        Future<String> follower = executorService.submit(() -> underTest.execute("key", () -> "other"));
+        awaitCoalesced();
+        release.countDown();
+        // then
+        ExecutionException leaderException = assertThrows(ExecutionException.class, leader::get);
+        ExecutionException followerException = assertThrows(ExecutionException.class, follower::get);
+        assertInstanceOf(IllegalStateException.class, leaderException.getCause());
+        assertInstanceOf(IllegalStateException.class, followerException.getCause());
+        assertEquals(0, underTest.size());
+    }
+
+    private void awaitInFlight() throws InterruptedException {
+        while (underTest.size() == 0) {
+            Thread.sleep(1);
+        }
+    }
+
+    private void awaitCoalesced() throws InterruptedException {
+        while (coalesced.count() == 0) {
+            Thread.sleep(1);
+        }
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
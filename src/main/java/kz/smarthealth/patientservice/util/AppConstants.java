@@ -1,10 +0,0 @@
-package kz.smarthealth.patientservice.util;
-
-public class AppConstants {
-
-    private AppConstants() {
-    }
-
-    public static final String DEFAULT_DATE = "yyyy-MM-dd";
-    public static final String DEFAULT_OFFSET_DATE_TIME_FORMAT = "yyyy-MM-dd HH:mm:ss.SSS Z";
-}